@@ -0,0 +1,66 @@
+// k6 load test comparing the platform-thread and virtual-thread execution modes.
+// Usage: k6 run -e BASE_URL=http://localhost:9999 -e VUS=400 loadtest/browse-and-checkout.js
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:9999';
+const VUS = parseInt(__ENV.VUS || '400');
+const PRODUCT_ID = __ENV.PRODUCT_ID || '1';
+const JSON_HEADERS = { 'Content-Type': 'application/json' };
+
+export const options = {
+    scenarios: {
+        browse: {
+            executor: 'constant-vus',
+            exec: 'browse',
+            vus: Math.ceil(VUS * 0.8),
+            duration: __ENV.DURATION || '3m',
+        },
+        checkout: {
+            executor: 'constant-vus',
+            exec: 'checkout',
+            vus: Math.floor(VUS * 0.2),
+            duration: __ENV.DURATION || '3m',
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+        'http_req_duration{scenario:browse}': ['p(99)<500'],
+    },
+};
+
+// One user per VU, registered on first use. Login runs BCrypt on every iteration on purpose.
+function credentials() {
+    return { username: `load-${__VU}`, password: 'LoadTest123!' };
+}
+
+export function setup() {
+    for (let vu = 1; vu <= VUS; vu++) {
+        http.post(`${BASE_URL}/api/users/register`, JSON.stringify({
+            username: `load-${vu}`,
+            password: 'LoadTest123!',
+            passwordConfirmation: 'LoadTest123!',
+            email: `load-${vu}@example.com`,
+        }), { headers: JSON_HEADERS });
+    }
+}
+
+export function browse() {
+    const page = Math.floor(Math.random() * 5);
+    check(http.get(`${BASE_URL}/api/products?page=${page}&size=20`), { 'products 200': r => r.status === 200 });
+    check(http.get(`${BASE_URL}/api/categories?page=0&size=20`), { 'categories 200': r => r.status === 200 });
+    check(http.get(`${BASE_URL}/api/products/${PRODUCT_ID}`), { 'product 200': r => r.status === 200 });
+    sleep(0.1);
+}
+
+export function checkout() {
+    const login = http.post(`${BASE_URL}/api/users/login`, JSON.stringify(credentials()), { headers: JSON_HEADERS });
+    if (!check(login, { 'login 200': r => r.status === 200 })) {
+        return;
+    }
+    const auth = { headers: { ...JSON_HEADERS, Authorization: `Bearer ${login.json('accessToken')}` } };
+    http.post(`${BASE_URL}/api/cart/items/${PRODUCT_ID}`, null, auth);
+    const order = http.post(`${BASE_URL}/api/orders`, JSON.stringify({ shippingAddress: '1 Load Street' }), auth);
+    check(order, { 'order created or rejected': r => r.status === 201 || r.status === 200 || r.status === 400 });
+    sleep(0.1);
+}
@@ -0,0 +1,204 @@
+package com.example.demo3.benchmark;
+
+import com.example.demo3.cache.CategoryTreeCache;
+import com.example.demo3.entity.CategoryEntity;
+import com.example.demo3.entity.OrderEntity;
+import com.example.demo3.entity.OrderItemEntity;
+import com.example.demo3.entity.OrderStatus;
+import com.example.demo3.entity.ProductEntity;
+import com.example.demo3.entity.UserEntity;
+import com.example.demo3.mapper.CategoryMapper;
+import com.example.demo3.mapper.OrderItemMapper;
+import com.example.demo3.mapper.OrderMapper;
+import com.example.demo3.mapper.ProductMapper;
+import com.example.demo3.mapper.UserMapper;
+import com.example.demo3.repository.CategoryRepository;
+import com.example.demo3.repository.projection.CategoryView;
+import com.example.demo3.repository.projection.ProductView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds mappers and fixtures without a Spring context or a database.
+ * The category tree holds {@value #CATEGORIES} categories, ten children under each root.
+ */
+final class BenchmarkData {
+    static final int CATEGORIES = 110;
+    static final int PAGE_SIZE = 20;
+    static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private BenchmarkData() {
+    }
+
+    static CategoryMapper categoryMapper() {
+        return new CategoryMapper(categoryRepository());
+    }
+
+    static ProductMapper productMapper() {
+        CategoryMapper categoryMapper = categoryMapper();
+        CategoryTreeCache categoryTreeCache = new CategoryTreeCache(categoryRepository());
+        categoryTreeCache.refresh();
+        return new ProductMapper(categoryMapper, categoryTreeCache);
+    }
+
+    static OrderMapper orderMapper(ProductMapper productMapper) {
+        return new OrderMapper(new OrderItemMapper(), new UserMapper(), productMapper);
+    }
+
+    static Page<ProductView> productPage() {
+        List<ProductView> products = new ArrayList<>();
+        for (long id = 1; id <= PAGE_SIZE; id++) {
+            products.add(productView(id));
+        }
+        return new PageImpl<>(products, PageRequest.of(0, PAGE_SIZE), 1000);
+    }
+
+    static ProductView productView(long id) {
+        long categoryId = 11 + id % (CATEGORIES - 10);
+        return new ProductView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return "Product " + id;
+            }
+
+            @Override
+            public String getDescription() {
+                return "Description of product " + id;
+            }
+
+            @Override
+            public BigDecimal getPrice() {
+                return BigDecimal.valueOf(1999, 2);
+            }
+
+            @Override
+            public Integer getStockQuantity() {
+                return 100;
+            }
+
+            @Override
+            public Boolean getIsActive() {
+                return true;
+            }
+
+            @Override
+            public Long getCategoryId() {
+                return categoryId;
+            }
+
+            @Override
+            public String getCategoryName() {
+                return "Category " + categoryId;
+            }
+
+            @Override
+            public String getCategoryDescription() {
+                return null;
+            }
+
+            @Override
+            public Long getCategoryParentId() {
+                return 1 + (categoryId - 11) / 10;
+            }
+        };
+    }
+
+    static OrderEntity order(int items) {
+        UserEntity user = new UserEntity();
+        user.setId(1L);
+        user.setUsername("buyer");
+        user.setEmail("buyer@example.com");
+        user.setFirstName("Bench");
+        user.setLastName("Mark");
+        user.setCreatedAt(NOW);
+
+        CategoryEntity category = new CategoryEntity();
+        category.setId(11L);
+        category.setName("Category 11");
+        category.setChildren(List.of());
+
+        OrderEntity order = new OrderEntity();
+        order.setId(1L);
+        order.setOrderNumber("ORD-1");
+        order.setStatus(OrderStatus.PENDING);
+        order.setShippingAddress("1 Main Street");
+        order.setCreatedAt(NOW);
+        order.setUpdatedAt(NOW);
+        order.setUser(user);
+        List<OrderItemEntity> orderItems = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (long id = 1; id <= items; id++) {
+            ProductEntity product = new ProductEntity("Product " + id, BigDecimal.valueOf(1999, 2));
+            product.setId(id);
+            product.setStockQuantity(100);
+            product.setCategory(category);
+            OrderItemEntity item = new OrderItemEntity(order, product, 2, product.getPrice());
+            item.setId(id);
+            orderItems.add(item);
+            total = total.add(item.getTotalPrice());
+        }
+        order.setOrderItems(orderItems);
+        order.setTotalAmount(total);
+        return order;
+    }
+
+    /**
+     * A repository that only answers {@code findAllViews}, enough to build the category snapshot.
+     */
+    private static CategoryRepository categoryRepository() {
+        List<CategoryView> categories = new ArrayList<>();
+        for (long id = 1; id <= CATEGORIES; id++) {
+            Long parentId = id <= 10 ? null : 1 + (id - 11) / 10;
+            categories.add(categoryView(id, parentId));
+        }
+        return (CategoryRepository) Proxy.newProxyInstance(CategoryRepository.class.getClassLoader(),
+                new Class<?>[]{CategoryRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findAllViews")) {
+                        return categories;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static CategoryView categoryView(Long id, Long parentId) {
+        return new CategoryView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return "Category " + id;
+            }
+
+            @Override
+            public String getDescription() {
+                return null;
+            }
+
+            @Override
+            public Long getParentId() {
+                return parentId;
+            }
+
+            @Override
+            public LocalDateTime getCreatedAt() {
+                return NOW;
+            }
+        };
+    }
+}
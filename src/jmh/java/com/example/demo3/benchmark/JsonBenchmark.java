@@ -0,0 +1,35 @@
+package com.example.demo3.benchmark;
+
+import com.example.demo3.dto.PageableResponseProducts;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing a product page, the largest response on the public read path.
+ * The object mapper is built with the same defaults Spring Boot applies.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+    private ObjectMapper objectMapper;
+    private PageableResponseProducts response;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        response = BenchmarkData.productMapper().createPageableResponseProducts(BenchmarkData.productPage());
+    }
+
+    @Benchmark
+    public byte[] serializePageableResponseProducts() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo3.benchmark;
+
+import com.example.demo3.security.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token work done on login and on every authenticated request. {@code validateJwtToken}
+ * is measured with the verified-token cache warm and with the cache turned off (size 0),
+ * which is the cost of the first request with a new token.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+    private static final String SECRET = "8a749699d319f64523ee1b523dd2e437e19e199978b77df684b06c21ff5e3d86";
+    private static final List<GrantedAuthority> AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
+    private JwtUtil cachingJwtUtil;
+    private JwtUtil nonCachingJwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cachingJwtUtil = jwtUtil(10_000);
+        nonCachingJwtUtil = jwtUtil(0);
+        token = "Bearer " + cachingJwtUtil.generateAccessToken("buyer", AUTHORITIES);
+    }
+
+    private static JwtUtil jwtUtil(long cacheSize) {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, 900_000, 604_800_000, cacheSize);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        return jwtUtil;
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return cachingJwtUtil.generateAccessToken("buyer", AUTHORITIES);
+    }
+
+    @Benchmark
+    public boolean validateJwtTokenCached() {
+        return cachingJwtUtil.validateJwtToken(token);
+    }
+
+    @Benchmark
+    public boolean validateJwtTokenUncached() {
+        return nonCachingJwtUtil.validateJwtToken(token);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo3.benchmark;
+
+import com.example.demo3.dto.OrderEntityDTO;
+import com.example.demo3.dto.PageableResponseProducts;
+import com.example.demo3.dto.ProductBasicDTO;
+import com.example.demo3.entity.OrderEntity;
+import com.example.demo3.mapper.OrderMapper;
+import com.example.demo3.mapper.ProductMapper;
+import com.example.demo3.repository.projection.ProductView;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping done on every product and order read. The category tree snapshot is prebuilt,
+ * as it is in the running application.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+    private ProductMapper productMapper;
+    private OrderMapper orderMapper;
+    private ProductView productView;
+    private Page<ProductView> productPage;
+    private OrderEntity order;
+
+    @Setup
+    public void setUp() {
+        productMapper = BenchmarkData.productMapper();
+        orderMapper = BenchmarkData.orderMapper(productMapper);
+        productView = BenchmarkData.productView(1);
+        productPage = BenchmarkData.productPage();
+        order = BenchmarkData.order(5);
+    }
+
+    @Benchmark
+    public ProductBasicDTO productToDTO() {
+        return productMapper.toDTO(productView);
+    }
+
+    @Benchmark
+    public PageableResponseProducts createPageableResponseProducts() {
+        return productMapper.createPageableResponseProducts(productPage);
+    }
+
+    @Benchmark
+    public OrderEntityDTO orderToOrderEntityDTO() {
+        return orderMapper.toOrderEntityDTO(order);
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.demo3.benchmark;
+
+import com.example.demo3.entity.CartEntity;
+import com.example.demo3.entity.CartItemEntity;
+import com.example.demo3.entity.CategoryEntity;
+import com.example.demo3.entity.OrderEntity;
+import com.example.demo3.entity.OrderItemEntity;
+import com.example.demo3.entity.ProductEntity;
+import com.example.demo3.entity.UserEntity;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists an order with {@value #LINES} items the way checkout does: one persist of the order,
+ * items cascaded. Hibernate gets the {@code spring.jpa.properties.hibernate.*} settings from
+ * application.properties, so the run reflects the committed batching configuration.
+ * <p>
+ * Runs against in-memory H2 by default, which has no network round trip, so the gain from batching
+ * is smaller than on PostgreSQL. Pass {@code -Dbenchmark.jdbc.url}, {@code -Dbenchmark.jdbc.username}
+ * and {@code -Dbenchmark.jdbc.password} through {@code jmh.args} (e.g. {@code -jvmArgs ...}) to use
+ * a real database; its tables are recreated.
+ * <p>
+ * The {@code orders} and {@code statements} counters are reported next to the score, summed over all
+ * measurement iterations; their ratio is the number of JDBC statements per order.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(3)
+@State(Scope.Benchmark)
+public class OrderInsertBenchmark {
+    static final int LINES = 20;
+    private static final String SPRING_JPA_PREFIX = "spring.jpa.properties.";
+
+    private SessionFactory sessionFactory;
+    private Long userId;
+    private final List<Long> productIds = new ArrayList<>();
+    private long orderNumber;
+
+    @Setup
+    public void setUp() {
+        Configuration configuration = new Configuration()
+                .addAnnotatedClass(UserEntity.class)
+                .addAnnotatedClass(CategoryEntity.class)
+                .addAnnotatedClass(ProductEntity.class)
+                .addAnnotatedClass(CartEntity.class)
+                .addAnnotatedClass(CartItemEntity.class)
+                .addAnnotatedClass(OrderEntity.class)
+                .addAnnotatedClass(OrderItemEntity.class)
+                .setProperty("hibernate.connection.url",
+                        System.getProperty("benchmark.jdbc.url", "jdbc:h2:mem:orders;DB_CLOSE_DELAY=-1"))
+                .setProperty("hibernate.connection.username", System.getProperty("benchmark.jdbc.username", "sa"))
+                .setProperty("hibernate.connection.password", System.getProperty("benchmark.jdbc.password", ""))
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                .setProperty("hibernate.generate_statistics", "true");
+        applicationProperties().forEach((key, value) -> {
+            if (key.toString().startsWith(SPRING_JPA_PREFIX)) {
+                configuration.setProperty(key.toString().substring(SPRING_JPA_PREFIX.length()), value.toString());
+            }
+        });
+        sessionFactory = configuration.buildSessionFactory();
+
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            UserEntity user = new UserEntity("benchmark", "benchmark@example.com", "hash");
+            session.persist(user);
+            CategoryEntity category = new CategoryEntity();
+            category.setName("Benchmark");
+            session.persist(category);
+            for (int i = 0; i < LINES; i++) {
+                ProductEntity product = new ProductEntity("Product " + i, BigDecimal.valueOf(1999, 2));
+                product.setSku("SKU-" + i);
+                product.setStockQuantity(Integer.MAX_VALUE);
+                product.setCategory(category);
+                session.persist(product);
+            }
+            transaction.commit();
+            userId = user.getId();
+            session.createQuery("select p.id from ProductEntity p", Long.class).list().forEach(productIds::add);
+        }
+        sessionFactory.getStatistics().clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    /**
+     * Orders inserted and statements they prepared, per iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class StatementCounters {
+        public long orders;
+        public long statements;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            orders = 0;
+            statements = 0;
+        }
+    }
+
+    @Benchmark
+    public Long createOrder(StatementCounters counters) {
+        long statementsBefore = sessionFactory.getStatistics().getPrepareStatementCount();
+        Long orderId = insertOrder();
+        counters.statements += sessionFactory.getStatistics().getPrepareStatementCount() - statementsBefore;
+        counters.orders++;
+        return orderId;
+    }
+
+    private Long insertOrder() {
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            OrderEntity order = new OrderEntity();
+            order.setOrderNumber("ORD-" + ++orderNumber);
+            order.setUser(session.getReference(UserEntity.class, userId));
+            order.setShippingAddress("Benchmark street 1");
+            List<OrderItemEntity> items = new ArrayList<>(LINES);
+            BigDecimal total = BigDecimal.ZERO;
+            for (Long productId : productIds) {
+                OrderItemEntity item = new OrderItemEntity(order, session.getReference(ProductEntity.class, productId),
+                        2, BigDecimal.valueOf(1999, 2));
+                total = total.add(item.getTotalPrice());
+                items.add(item);
+            }
+            order.setOrderItems(items);
+            order.setTotalAmount(total);
+            session.persist(order);
+            transaction.commit();
+            return order.getId();
+        }
+    }
+
+    private static Properties applicationProperties() {
+        Properties properties = new Properties();
+        try (InputStream in = OrderInsertBenchmark.class.getResourceAsStream("/application.properties")) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.demo3.benchmark;
+
+import com.example.demo3.repository.ProductsRepository;
+import com.example.demo3.repository.projection.ProductSearchView;
+import com.example.demo3.search.ProductSearchIndex;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search latency on a synthetic catalog ({@code -p products=...}, one million by default). Names and
+ * descriptions draw words from fixed vocabularies, so common words match tens of thousands of products.
+ * Sample mode reports percentiles; compare p0.99 against the 10 ms target.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ProductSearchBenchmark {
+    private static final int CATEGORIES = 100;
+    private static final String[] ADJECTIVES = words("red", "blue", "green", "black", "white", "light", "heavy",
+            "classic", "modern", "compact", "premium", "budget", "wireless", "leather", "wooden", "steel");
+    private static final String[] NOUNS = words("shoes", "jacket", "phone", "laptop", "bag", "chair", "table",
+            "lamp", "watch", "camera", "speaker", "bottle", "desk", "sofa", "headphones", "backpack");
+
+    @Param("1000000")
+    private int products;
+
+    private ProductSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        index = new ProductSearchIndex(productsRepository(products));
+        index.rebuild();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        index.close();
+    }
+
+    @Benchmark
+    public Object commonWord() {
+        return index.search("shoes", null, 0, 20);
+    }
+
+    @Benchmark
+    public Object twoWords() {
+        return index.search("red shoes", null, 0, 20);
+    }
+
+    @Benchmark
+    public Object twoWordsInCategory() {
+        return index.search("wireless headphones", 42L, 0, 20);
+    }
+
+    @Benchmark
+    public Object rareWordDeepPage() {
+        return index.search("word4321", null, 4, 20);
+    }
+
+    private static String[] words(String... words) {
+        return words;
+    }
+
+    private static ProductsRepository productsRepository(int products) {
+        return (ProductsRepository) Proxy.newProxyInstance(ProductsRepository.class.getClassLoader(),
+                new Class<?>[]{ProductsRepository.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("findSearchViewsByIdGreaterThan")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    long after = (Long) args[0];
+                    int size = ((Pageable) args[1]).getPageSize();
+                    List<ProductSearchView> page = new ArrayList<>(size);
+                    for (long id = after + 1; id <= Math.min(after + size, products); id++) {
+                        page.add(product(id));
+                    }
+                    return new SliceImpl<>(page, (Pageable) args[1], after + size < products);
+                });
+    }
+
+    private static ProductSearchView product(long id) {
+        SplittableRandom random = new SplittableRandom(id);
+        String name = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " "
+                + ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + NOUNS[random.nextInt(NOUNS.length)];
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < 12; i++) {
+            description.append("word").append(random.nextInt(10_000)).append(' ');
+        }
+        String sku = "SKU-" + id;
+        long categoryId = 1 + random.nextInt(CATEGORIES);
+        return new ProductSearchView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String getDescription() {
+                return description.toString();
+            }
+
+            @Override
+            public String getSku() {
+                return sku;
+            }
+
+            @Override
+            public Long getCategoryId() {
+                return categoryId;
+            }
+
+            @Override
+            public Boolean getIsActive() {
+                return true;
+            }
+        };
+    }
+}
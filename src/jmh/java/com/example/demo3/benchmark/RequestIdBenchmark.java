@@ -0,0 +1,40 @@
+package com.example.demo3.benchmark;
+
+import com.example.demo3.utill.GenerateRequestID;
+import org.apache.logging.log4j.ThreadContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request ids are generated once per HTTP request and read by every service call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RequestIdBenchmark {
+
+    @Setup
+    public void setUp() {
+        ThreadContext.put(GenerateRequestID.REQUEST_ID_KEY, GenerateRequestID.generateRequestID());
+    }
+
+    @Benchmark
+    public String generateRequestID() {
+        return GenerateRequestID.generateRequestID();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generateRequestIDContended() {
+        return GenerateRequestID.generateRequestID();
+    }
+
+    @Benchmark
+    public String currentRequestID() {
+        return GenerateRequestID.currentRequestID();
+    }
+}
@@ -0,0 +1,251 @@
+package com.example.demo3.analytics;
+
+import com.example.demo3.entity.CategorySalesEntity;
+import com.example.demo3.entity.OrderEventPositionEntity;
+import com.example.demo3.entity.OrderEventType;
+import com.example.demo3.entity.OrderStatus;
+import com.example.demo3.entity.OrderStatusCountEntity;
+import com.example.demo3.entity.ProductSalesEntity;
+import com.example.demo3.entity.SalesHourlyEntity;
+import com.example.demo3.outbox.OrderEvent;
+import com.example.demo3.outbox.OrderEventHandler;
+import com.example.demo3.repository.CategorySalesRepository;
+import com.example.demo3.repository.OrderEventPositionRepository;
+import com.example.demo3.repository.OrderEventRepository;
+import com.example.demo3.repository.OrderItemRepository;
+import com.example.demo3.repository.OrderStatusCountRepository;
+import com.example.demo3.repository.ProductSalesRepository;
+import com.example.demo3.repository.SalesHourlyRepository;
+import com.example.demo3.repository.projection.OrderEventIdView;
+import com.example.demo3.repository.projection.OrderItemSalesView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the sales rollup tables up to date from order events: {@code sales_hourly} by the hour the order
+ * was created, {@code product_sales}, {@code category_sales} and {@code order_status_counts}. A created
+ * order adds its items, a cancelled one takes them away again, and every status change moves the order
+ * from one status count to the next, so analytics reads never aggregate orders.
+ * <p>
+ * A batch is applied with one items query and one read and write per touched rollup row. The dispatcher
+ * delivers to one node at a time, so the rows are updated in place. The id of the last applied event is
+ * stored with the rollups, which makes a replay of the handler a no-op instead of counting orders twice.
+ * <p>
+ * Orders created before the outbox existed, or whose events were purged before this handler ran, were
+ * never added. The id of the first applied event is stored as a cutoff, and later events of an order are
+ * skipped when the order's creation event is before it, so cancelling or confirming such an order does not
+ * take away what was never counted. Event ids follow the outbox delivery order, unlike order ids, which
+ * are handed out in blocks. When the creation event was purged since, the order's creation time is
+ * compared with that of the first applied event instead, which only misjudges orders placed while that
+ * event was being written.
+ */
+@Component
+public class SalesRollupHandler implements OrderEventHandler {
+    static final String NAME = "sales-rollups";
+    private static final String APPLIED = NAME + ".applied";
+    private static final String FIRST_EVENT = NAME + ".first-event";
+    // Creation time of the first applied event, in milliseconds since the epoch taken as UTC
+    private static final String FIRST_EVENT_AT = NAME + ".first-event-at";
+
+    private final OrderItemRepository orderItemRepository;
+    private final OrderEventRepository orderEventRepository;
+    private final OrderEventPositionRepository orderEventPositionRepository;
+    private final SalesHourlyRepository salesHourlyRepository;
+    private final ProductSalesRepository productSalesRepository;
+    private final CategorySalesRepository categorySalesRepository;
+    private final OrderStatusCountRepository orderStatusCountRepository;
+
+    public SalesRollupHandler(OrderItemRepository orderItemRepository,
+                              OrderEventRepository orderEventRepository,
+                              OrderEventPositionRepository orderEventPositionRepository,
+                              SalesHourlyRepository salesHourlyRepository,
+                              ProductSalesRepository productSalesRepository,
+                              CategorySalesRepository categorySalesRepository,
+                              OrderStatusCountRepository orderStatusCountRepository) {
+        this.orderItemRepository = orderItemRepository;
+        this.orderEventRepository = orderEventRepository;
+        this.orderEventPositionRepository = orderEventPositionRepository;
+        this.salesHourlyRepository = salesHourlyRepository;
+        this.productSalesRepository = productSalesRepository;
+        this.categorySalesRepository = categorySalesRepository;
+        this.orderStatusCountRepository = orderStatusCountRepository;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void handle(OrderEvent event) {
+        handleBatch(List.of(event));
+    }
+
+    @Override
+    public void handleBatch(List<OrderEvent> events) {
+        OrderEventPositionEntity applied = orderEventPositionRepository.findById(APPLIED)
+                .orElseGet(() -> new OrderEventPositionEntity(APPLIED, 0L));
+        List<OrderEvent> pending = events.stream()
+                .filter(event -> event.getId() > applied.getPosition())
+                .toList();
+        if (pending.isEmpty()) {
+            return;
+        }
+        Set<Long> addedOrders = findAddedOrders(pending);
+        Map<Long, Integer> signs = new HashMap<>();
+        Map<OrderStatus, Long> statusDeltas = new EnumMap<>(OrderStatus.class);
+        for (OrderEvent event : pending) {
+            if (event.getType() != OrderEventType.CREATED && !addedOrders.contains(event.getOrderId())) {
+                continue;
+            }
+            switch (event.getType()) {
+                case CREATED -> signs.merge(event.getOrderId(), 1, Integer::sum);
+                case CANCELLED -> signs.merge(event.getOrderId(), -1, Integer::sum);
+                default -> {
+                }
+            }
+            if (event.getPreviousStatus() != null) {
+                statusDeltas.merge(event.getPreviousStatus(), -1L, Long::sum);
+            }
+            statusDeltas.merge(event.getStatus(), 1L, Long::sum);
+        }
+        signs.values().removeIf(sign -> sign == 0);
+        if (!signs.isEmpty()) {
+            applySales(signs);
+        }
+        applyStatusCounts(statusDeltas);
+        applied.setPosition(pending.get(pending.size() - 1).getId());
+        orderEventPositionRepository.save(applied);
+    }
+
+    /**
+     * Orders of the given cancellations and status changes whose creation was applied here. Creations
+     * themselves are always applied, as every event from the first applied one onwards is.
+     */
+    private Set<Long> findAddedOrders(List<OrderEvent> events) {
+        Map<String, Long> cutoff = new HashMap<>();
+        orderEventPositionRepository.findAllById(List.of(FIRST_EVENT, FIRST_EVENT_AT))
+                .forEach(position -> cutoff.put(position.getHandler(), position.getPosition()));
+        if (!cutoff.containsKey(FIRST_EVENT)) {
+            OrderEvent first = events.get(0);
+            long firstAt = first.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli();
+            orderEventPositionRepository.saveAll(List.of(new OrderEventPositionEntity(FIRST_EVENT, first.getId()),
+                    new OrderEventPositionEntity(FIRST_EVENT_AT, firstAt)));
+            cutoff.put(FIRST_EVENT, first.getId());
+            cutoff.put(FIRST_EVENT_AT, firstAt);
+        }
+        Set<Long> orderIds = events.stream()
+                .filter(event -> event.getType() != OrderEventType.CREATED)
+                .map(OrderEvent::getOrderId)
+                .collect(Collectors.toCollection(HashSet::new));
+        Set<Long> added = new HashSet<>();
+        if (orderIds.isEmpty()) {
+            return added;
+        }
+        for (OrderEventIdView created : orderEventRepository.findIdViewsByTypeAndOrderIdIn(OrderEventType.CREATED,
+                orderIds)) {
+            if (created.getId() >= cutoff.get(FIRST_EVENT)) {
+                added.add(created.getOrderId());
+            }
+            orderIds.remove(created.getOrderId());
+        }
+        if (!orderIds.isEmpty()) {
+            LocalDateTime firstAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(cutoff.get(FIRST_EVENT_AT)),
+                    ZoneOffset.UTC);
+            for (OrderItemSalesView item : orderItemRepository.findSalesViewsByOrderIdIn(orderIds)) {
+                if (!item.getOrderCreatedAt().isBefore(firstAt)) {
+                    added.add(item.getOrderId());
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * @param signs 1 for each order to add, -1 for each order to take away
+     */
+    private void applySales(Map<Long, Integer> signs) {
+        Map<LocalDateTime, Delta> hourly = new HashMap<>();
+        Map<Long, Delta> products = new HashMap<>();
+        Map<Long, Delta> categories = new HashMap<>();
+        Set<Long> countedOrders = new HashSet<>();
+        Map<Long, Set<Long>> countedCategories = new HashMap<>();
+        for (OrderItemSalesView item : orderItemRepository.findSalesViewsByOrderIdIn(signs.keySet())) {
+            int sign = signs.get(item.getOrderId());
+            long units = (long) sign * item.getQuantity();
+            BigDecimal revenue = item.getTotalPrice().multiply(BigDecimal.valueOf(sign));
+            LocalDateTime hour = item.getOrderCreatedAt().truncatedTo(ChronoUnit.HOURS);
+            hourly.computeIfAbsent(hour, key -> new Delta())
+                    .add(countedOrders.add(item.getOrderId()) ? sign : 0, units, revenue);
+            products.computeIfAbsent(item.getProductId(), key -> new Delta()).add(sign, units, revenue);
+            if (item.getCategoryId() != null) {
+                boolean firstInCategory = countedCategories.computeIfAbsent(item.getOrderId(), key -> new HashSet<>())
+                        .add(item.getCategoryId());
+                categories.computeIfAbsent(item.getCategoryId(), key -> new Delta())
+                        .add(firstInCategory ? sign : 0, units, revenue);
+            }
+        }
+        apply(salesHourlyRepository, hourly, SalesHourlyEntity::getBucketStart, SalesHourlyEntity::new,
+                (row, delta) -> row.add(delta.orders, delta.units, delta.revenue));
+        apply(productSalesRepository, products, ProductSalesEntity::getProductId, ProductSalesEntity::new,
+                (row, delta) -> row.add(delta.orders, delta.units, delta.revenue));
+        apply(categorySalesRepository, categories, CategorySalesEntity::getCategoryId, CategorySalesEntity::new,
+                (row, delta) -> row.add(delta.orders, delta.units, delta.revenue));
+    }
+
+    private void applyStatusCounts(Map<OrderStatus, Long> deltas) {
+        deltas.values().removeIf(delta -> delta == 0);
+        apply(orderStatusCountRepository, deltas, OrderStatusCountEntity::getStatus, OrderStatusCountEntity::new,
+                OrderStatusCountEntity::add);
+    }
+
+    /**
+     * Adds each delta to its row. Loaded rows are changed in place and written when the transaction
+     * commits; rows that do not exist yet are inserted.
+     */
+    private static <K, E, D> void apply(JpaRepository<E, K> repository, Map<K, D> deltas, Function<E, K> id,
+                                        Function<K, E> create, BiConsumer<E, D> update) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Map<K, D> missing = new HashMap<>(deltas);
+        for (E row : repository.findAllById(deltas.keySet())) {
+            update.accept(row, missing.remove(id.apply(row)));
+        }
+        List<E> created = new ArrayList<>(missing.size());
+        missing.forEach((key, delta) -> {
+            E row = create.apply(key);
+            update.accept(row, delta);
+            created.add(row);
+        });
+        repository.saveAll(created);
+    }
+
+    private static final class Delta {
+        private long orders;
+        private long units;
+        private BigDecimal revenue = BigDecimal.ZERO;
+
+        private void add(long orders, long units, BigDecimal revenue) {
+            this.orders += orders;
+            this.units += units;
+            this.revenue = this.revenue.add(revenue);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo3.cache;
+
+import com.example.demo3.repository.CategoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds the current {@link CategoryTreeSnapshot}. Readers never block; a refresh builds a
+ * new snapshot from one query and publishes it with a single reference swap.
+ */
+@Component
+public class CategoryTreeCache {
+    private final CategoryRepository categoryRepository;
+    private final AtomicReference<CategoryTreeSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+    // A lock instead of synchronized: a virtual thread blocked on JDBC inside a monitor pins its carrier.
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryTreeCache.class);
+
+    public CategoryTreeCache(CategoryRepository categoryRepository) {
+        this.categoryRepository = categoryRepository;
+    }
+
+    public CategoryTreeSnapshot getSnapshot() {
+        CategoryTreeSnapshot current = snapshot.get();
+        return current != null ? current : refresh();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        refresh();
+    }
+
+    /**
+     * Picks up changes made outside this instance, e.g. by another node or directly in the database.
+     */
+    @Scheduled(fixedDelayString = "${category.tree.refresh-interval-ms:300000}",
+            initialDelayString = "${category.tree.refresh-interval-ms:300000}")
+    public void scheduledRefresh() {
+        refresh();
+    }
+
+    /**
+     * Rebuilds the snapshot once the current transaction commits, or right away when there is none,
+     * so readers never see uncommitted categories.
+     */
+    public void refreshAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh();
+                }
+            });
+        } else {
+            refresh();
+        }
+    }
+
+    public CategoryTreeSnapshot refresh() {
+        refreshLock.lock();
+        try {
+            CategoryTreeSnapshot next = CategoryTreeSnapshot.build(versions.incrementAndGet(),
+                    categoryRepository.findAllViews(), snapshot.get());
+            snapshot.set(next);
+            logger.info("Category tree snapshot refreshed. Version: {}, categories: {}", next.getVersion(), next.size());
+            return next;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+}
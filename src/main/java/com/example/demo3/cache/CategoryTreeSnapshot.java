@@ -0,0 +1,201 @@
+package com.example.demo3.cache;
+
+import com.example.demo3.repository.projection.CategoryChildView;
+import com.example.demo3.repository.projection.CategoryView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Immutable copy of the whole category tree. Nodes are kept sorted by id, and each node
+ * holds its children as an array, so lookups and paging never touch the database.
+ * A new snapshot is built and swapped in whenever categories change.
+ */
+public final class CategoryTreeSnapshot {
+    private static final Node[] NO_NODES = new Node[0];
+
+    private final long version;
+    private final long fingerprint;
+    private final Instant lastModified;
+    private final long[] ids;
+    private final Node[] nodes;
+    private final Map<Long, Node> nodesById;
+
+    private CategoryTreeSnapshot(long version, long fingerprint, Instant lastModified, Node[] nodes) {
+        this.version = version;
+        this.fingerprint = fingerprint;
+        this.lastModified = lastModified;
+        this.nodes = nodes;
+        this.ids = new long[nodes.length];
+        this.nodesById = new HashMap<>(nodes.length * 2);
+        for (int i = 0; i < nodes.length; i++) {
+            ids[i] = nodes[i].id;
+            nodesById.put(nodes[i].id, nodes[i]);
+        }
+    }
+
+    public static CategoryTreeSnapshot build(long version, List<? extends CategoryView> categories) {
+        return build(version, categories, null);
+    }
+
+    /**
+     * Builds a snapshot that keeps the last modified time of {@code previous} when the tree content
+     * did not change, so a periodic refresh does not invalidate HTTP caches.
+     */
+    public static CategoryTreeSnapshot build(long version, List<? extends CategoryView> categories,
+                                             CategoryTreeSnapshot previous) {
+        Node[] nodes = categories.stream()
+                .map(Node::new)
+                .sorted(Comparator.comparingLong(node -> node.id))
+                .toArray(Node[]::new);
+        Map<Long, List<Node>> childrenByParentId = new HashMap<>();
+        for (Node node : nodes) {
+            if (node.parentId != null) {
+                childrenByParentId.computeIfAbsent(node.parentId, parentId -> new ArrayList<>()).add(node);
+            }
+        }
+        for (Node node : nodes) {
+            List<Node> children = childrenByParentId.get(node.id);
+            node.children = children == null ? NO_NODES : children.toArray(NO_NODES);
+        }
+        long fingerprint = 1;
+        for (Node node : nodes) {
+            fingerprint = 31 * fingerprint + Objects.hash(node.id, node.name, node.description, node.parentId,
+                    node.createdAt);
+        }
+        Instant lastModified = previous != null && previous.fingerprint == fingerprint
+                ? previous.lastModified
+                : Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        return new CategoryTreeSnapshot(version, fingerprint, lastModified, nodes);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Hash of the tree content. Unlike {@link #getVersion()} it is the same on every node and
+     * across restarts as long as the categories are the same.
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * When the tree content last changed, as seen by this instance.
+     */
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    public Optional<CategoryView> findById(Long id) {
+        return Optional.ofNullable(nodesById.get(id));
+    }
+
+    public List<CategoryChildView> getChildren(Long parentId) {
+        Node parent = nodesById.get(parentId);
+        return parent == null ? List.of() : List.<CategoryChildView>of(parent.children);
+    }
+
+    /**
+     * Categories without a parent, in id order.
+     */
+    public List<CategoryChildView> getRoots() {
+        return Arrays.stream(nodes)
+                .filter(node -> node.parentId == null)
+                .<CategoryChildView>map(node -> node)
+                .toList();
+    }
+
+    /**
+     * Returns the id of the category and of all its descendants, or an empty list if it does not exist.
+     */
+    public List<Long> getSubtreeIds(Long id) {
+        Node root = nodesById.get(id);
+        if (root == null) {
+            return List.of();
+        }
+        List<Long> subtree = new ArrayList<>();
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            subtree.add(node.id);
+            for (Node child : node.children) {
+                pending.push(child);
+            }
+        }
+        return subtree;
+    }
+
+    public Page<CategoryView> findAll(Pageable pageable) {
+        int from = (int) Math.min(pageable.getOffset(), nodes.length);
+        int to = Math.min(from + pageable.getPageSize(), nodes.length);
+        return new PageImpl<>(List.of(Arrays.copyOfRange(nodes, from, to, CategoryView[].class)),
+                pageable, nodes.length);
+    }
+
+    /**
+     * Returns up to {@code pageable.getPageSize()} categories with an id greater than {@code lastId}.
+     */
+    public Slice<CategoryView> findByIdGreaterThan(long lastId, Pageable pageable) {
+        int position = Arrays.binarySearch(ids, lastId);
+        int from = position >= 0 ? position + 1 : -position - 1;
+        int to = Math.min(from + pageable.getPageSize(), nodes.length);
+        return new SliceImpl<>(List.of(Arrays.copyOfRange(nodes, from, to, CategoryView[].class)),
+                pageable, to < nodes.length);
+    }
+
+    private static final class Node implements CategoryView, CategoryChildView {
+        private final Long id;
+        private final String name;
+        private final String description;
+        private final Long parentId;
+        private final LocalDateTime createdAt;
+        private Node[] children;
+
+        private Node(CategoryView view) {
+            this.id = view.getId();
+            this.name = view.getName();
+            this.description = view.getDescription();
+            this.parentId = view.getParentId();
+            this.createdAt = view.getCreatedAt();
+        }
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getDescription() {
+            return description;
+        }
+
+        @Override
+        public Long getParentId() {
+            return parentId;
+        }
+
+        @Override
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+    }
+}
@@ -0,0 +1,540 @@
+package com.example.demo3.cart;
+
+import com.example.demo3.entity.CartEntity;
+import com.example.demo3.entity.CartItemEntity;
+import com.example.demo3.entity.UserEntity;
+import com.example.demo3.repository.CartItemRepository;
+import com.example.demo3.repository.CartRepository;
+import com.example.demo3.repository.ProductsRepository;
+import com.example.demo3.repository.UserRepository;
+import com.example.demo3.repository.projection.CartLineView;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Keeps the carts of active users in memory, keyed by username, so reading a cart or changing a quantity
+ * does not query {@code carts} and {@code cart_items}. Changes are only applied in memory and marked dirty;
+ * {@link #flush()} writes the dirty lines of all carts in one transaction, and {@link #flushForOrder(String)}
+ * writes one cart in the order transaction, before the order is created from it.
+ * <p>
+ * Carts idle for longer than the idle timeout are dropped once they are written. When the cache holds
+ * {@code cart.cache.max-carts} carts, further users are served from the database. Changes that were not
+ * written yet are lost if the process stops abruptly, and a cart changed on another node is not seen
+ * here until it is dropped, so with several nodes a user's requests should stick to one node.
+ */
+@Component
+public class CartCache {
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final ProductsRepository productsRepository;
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate writeTransaction;
+    private final boolean enabled;
+    private final int maxCarts;
+    private final Duration idleTimeout;
+    private final Map<String, CachedCart> carts = new ConcurrentHashMap<>();
+    private final Set<String> dirtyCarts = ConcurrentHashMap.newKeySet();
+    // Serializes flushes of all carts. Not synchronized, so a virtual thread waiting on JDBC here
+    // does not pin its carrier.
+    private final ReentrantLock maintenanceLock = new ReentrantLock();
+
+    private static final Logger logger = LoggerFactory.getLogger(CartCache.class);
+
+    public CartCache(CartRepository cartRepository,
+                     CartItemRepository cartItemRepository,
+                     ProductsRepository productsRepository,
+                     UserRepository userRepository,
+                     EntityManager entityManager,
+                     PlatformTransactionManager transactionManager,
+                     @Value("${cart.cache.enabled:true}") boolean enabled,
+                     @Value("${cart.cache.max-carts:100000}") int maxCarts,
+                     @Value("${cart.cache.idle-timeout-ms:600000}") long idleTimeoutMs) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.productsRepository = productsRepository;
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxCarts = maxCarts;
+        this.idleTimeout = Duration.ofMillis(idleTimeoutMs);
+    }
+
+    /**
+     * @return quantities by product id of the user's cart, or {@code null} if the cart is not kept in memory
+     * and has to be read from the database
+     */
+    public CartLines read(String username) {
+        while (true) {
+            CachedCart cart = get(username);
+            if (cart == null) {
+                return null;
+            }
+            cart.lock.lock();
+            try {
+                if (!cart.evicted) {
+                    return new CartLines(cart.exists, new LinkedHashMap<>(cart.lines));
+                }
+            } finally {
+                cart.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Sets the quantity of one product to {@code quantity} applied to the current one (0 if the product is
+     * not in the cart). A resulting quantity of 0 removes the product.
+     *
+     * @return the quantity before the change, or {@code null} if the cart is not kept in memory and has to be
+     * changed in the database
+     */
+    public Integer change(String username, Long productId, IntUnaryOperator quantity) {
+        while (true) {
+            CachedCart cart = get(username);
+            if (cart == null) {
+                return null;
+            }
+            cart.lock.lock();
+            try {
+                if (cart.evicted) {
+                    continue;
+                }
+                int previous = cart.lines.getOrDefault(productId, 0);
+                int next = quantity.applyAsInt(previous);
+                if (next != previous) {
+                    if (next == 0) {
+                        cart.lines.remove(productId);
+                    } else {
+                        cart.lines.put(productId, next);
+                    }
+                    cart.dirty.add(productId);
+                    cart.exists = true;
+                    dirtyCarts.add(username);
+                }
+                return previous;
+            } finally {
+                cart.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Removes every product from the cart.
+     *
+     * @return number of removed products, or {@code null} if the cart is not kept in memory
+     */
+    public Integer clear(String username) {
+        while (true) {
+            CachedCart cart = get(username);
+            if (cart == null) {
+                return null;
+            }
+            cart.lock.lock();
+            try {
+                if (cart.evicted) {
+                    continue;
+                }
+                int removed = cart.lines.size();
+                if (removed > 0) {
+                    cart.dirty.addAll(cart.lines.keySet());
+                    cart.lines.clear();
+                    dirtyCarts.add(username);
+                }
+                return removed;
+            } finally {
+                cart.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes the user's cart to the database in the calling order transaction, which then reads every change
+     * without a second connection. The cart is not flushed again until that transaction ends. After a commit
+     * the lines the order took out of the database are dropped here as well, and lines changed in the meantime
+     * stay for the next flush; after a rollback the written lines are dirty again.
+     */
+    public void flushForOrder(String username) {
+        if (!enabled || username == null) {
+            return;
+        }
+        boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+        CachedCart cart = carts.get(username);
+        if (cart == null) {
+            if (inTransaction) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        dropOrdered(username);
+                    }
+                });
+            }
+            return;
+        }
+        cart.flushLock.lock();
+        Pending pending = takeDirty(username, cart);
+        if (pending != null) {
+            boolean cartCreated = pending.cartId == null;
+            try {
+                writeTransaction.executeWithoutResult(status -> {
+                    write(List.of(pending));
+                    if (inTransaction) {
+                        reloadAfterWrite(pending, cartCreated);
+                    }
+                });
+            } catch (RuntimeException e) {
+                restoreDirty(pending);
+                cart.flushLock.unlock();
+                throw e;
+            }
+        }
+        if (!inTransaction) {
+            if (pending != null) {
+                cart.cartId = pending.cartId;
+            }
+            cart.flushLock.unlock();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        if (pending != null) {
+                            cart.cartId = pending.cartId;
+                        }
+                        dropOrdered(username);
+                    } else if (pending != null) {
+                        restoreDirty(pending);
+                    }
+                } finally {
+                    cart.flushLock.unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * The order reads the cart through the same persistence context, where the cart and its user may still
+     * be held as they were before the write. They are detached so the order loads them from the written rows.
+     */
+    private void reloadAfterWrite(Pending pending, boolean cartCreated) {
+        entityManager.flush();
+        if (pending.cartId != null) {
+            entityManager.detach(cartRepository.getReferenceById(pending.cartId));
+        }
+        if (cartCreated) {
+            userRepository.findByUsername(pending.username).ifPresent(entityManager::detach);
+        }
+    }
+
+    /**
+     * A cart without changes is dropped and read again on next use. Otherwise only its changed lines are
+     * kept, as the others were ordered and deleted from the database.
+     */
+    private void dropOrdered(String username) {
+        CachedCart cart = carts.get(username);
+        if (cart == null) {
+            return;
+        }
+        cart.flushLock.lock();
+        cart.lock.lock();
+        try {
+            if (cart.dirty.isEmpty()) {
+                evict(username, cart);
+            } else {
+                cart.lines.keySet().retainAll(cart.dirty);
+            }
+        } finally {
+            cart.lock.unlock();
+            cart.flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the dirty lines of every cart in one transaction, then drops carts that were idle for longer
+     * than the idle timeout. If the batch fails, carts are written one by one, so one broken cart does not
+     * hold up the others; carts that still fail are kept dirty for the next flush.
+     */
+    @Scheduled(fixedDelayString = "${cart.cache.flush-interval-ms:1000}")
+    @PreDestroy
+    public void flush() {
+        if (carts.isEmpty()) {
+            return;
+        }
+        maintenanceLock.lock();
+        try {
+            flushDirty();
+            evictIdle();
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    private void flushDirty() {
+        if (dirtyCarts.isEmpty()) {
+            return;
+        }
+        List<CachedCart> locked = new ArrayList<>();
+        List<Pending> pending = new ArrayList<>();
+        List<String> ordering = new ArrayList<>();
+        try {
+            for (String username : dirtyCarts) {
+                dirtyCarts.remove(username);
+                CachedCart cart = carts.get(username);
+                if (cart == null) {
+                    continue;
+                }
+                // A cart being ordered is written by the order transaction, or again after it ends
+                if (!cart.flushLock.tryLock()) {
+                    ordering.add(username);
+                    continue;
+                }
+                locked.add(cart);
+                Pending changes = takeDirty(username, cart);
+                if (changes != null) {
+                    pending.add(changes);
+                }
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+            try {
+                writeAll(pending);
+            } catch (RuntimeException batchFailure) {
+                logger.warn("Failed to write {} carts in one batch, writing them one by one", pending.size(), batchFailure);
+                for (Pending changes : pending) {
+                    try {
+                        writeAll(List.of(changes));
+                    } catch (RuntimeException e) {
+                        restoreDirty(changes);
+                        logger.error("Failed to write cached cart of user {}, products: {}",
+                                changes.username, changes.quantities.keySet(), e);
+                    }
+                }
+            }
+        } finally {
+            locked.forEach(cart -> cart.flushLock.unlock());
+            dirtyCarts.addAll(ordering);
+        }
+    }
+
+    private void evictIdle() {
+        long idleBefore = System.nanoTime() - idleTimeout.toNanos();
+        carts.forEach((username, cart) -> {
+            // A cart being written for an order is left for the next run
+            if (cart.lastAccess - idleBefore >= 0 || !cart.flushLock.tryLock()) {
+                return;
+            }
+            cart.lock.lock();
+            try {
+                if (cart.dirty.isEmpty()) {
+                    evict(username, cart);
+                }
+            } finally {
+                cart.lock.unlock();
+                cart.flushLock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Must be called holding both locks of a cart without dirty lines, so what the database has is
+     * what the cart had and the next use reads it back.
+     */
+    private void evict(String username, CachedCart cart) {
+        cart.evicted = true;
+        carts.remove(username, cart);
+    }
+
+    private CachedCart get(String username) {
+        if (!enabled || username == null) {
+            return null;
+        }
+        CachedCart cart = carts.get(username);
+        if (cart == null) {
+            if (carts.size() >= maxCarts) {
+                return null;
+            }
+            CachedCart loaded = load(username);
+            cart = carts.putIfAbsent(username, loaded);
+            if (cart == null) {
+                cart = loaded;
+            }
+        }
+        cart.lastAccess = System.nanoTime();
+        return cart;
+    }
+
+    private CachedCart load(String username) {
+        CachedCart cart = new CachedCart();
+        for (CartLineView line : cartRepository.findLinesByUsername(username)) {
+            cart.cartId = line.getCartId();
+            cart.exists = true;
+            if (line.getProductId() != null) {
+                cart.lines.put(line.getProductId(), line.getQuantity());
+            }
+        }
+        return cart;
+    }
+
+    /**
+     * Takes the dirty lines of a cart with their current quantities. Must be called holding the cart's
+     * flush lock, so the lines are in the database once the lock is released.
+     */
+    private Pending takeDirty(String username, CachedCart cart) {
+        cart.lock.lock();
+        try {
+            if (cart.dirty.isEmpty()) {
+                return null;
+            }
+            Map<Long, Integer> quantities = new HashMap<>();
+            cart.dirty.forEach(productId -> quantities.put(productId, cart.lines.getOrDefault(productId, 0)));
+            cart.dirty.clear();
+            return new Pending(username, cart, quantities, cart.cartId);
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    private void restoreDirty(Pending pending) {
+        pending.cart.lock.lock();
+        try {
+            pending.cart.dirty.addAll(pending.quantities.keySet());
+        } finally {
+            pending.cart.lock.unlock();
+        }
+        dirtyCarts.add(pending.username);
+    }
+
+    private void writeAll(List<Pending> pending) {
+        writeTransaction.executeWithoutResult(status -> write(pending));
+        // Only now, so a cart created by a rolled back write is created again next time
+        pending.forEach(changes -> changes.cart.cartId = changes.cartId);
+    }
+
+    private void write(List<Pending> pending) {
+        Map<Long, Pending> byCartId = new HashMap<>();
+        for (Pending changes : pending) {
+            if (changes.cartId == null) {
+                changes.cartId = createCart(changes.username);
+            }
+            if (changes.cartId != null) {
+                byCartId.put(changes.cartId, changes);
+            }
+        }
+        if (byCartId.isEmpty()) {
+            return;
+        }
+        Map<Long, Set<Long>> stored = new HashMap<>();
+        List<CartItemEntity> removed = new ArrayList<>();
+        for (CartItemEntity item : cartItemRepository.findByCartIdIn(byCartId.keySet())) {
+            Long cartId = item.getCart().getId();
+            Long productId = item.getProduct().getId();
+            stored.computeIfAbsent(cartId, key -> new HashSet<>()).add(productId);
+            Integer quantity = byCartId.get(cartId).quantities.get(productId);
+            if (quantity == null) {
+                continue;
+            }
+            if (quantity == 0) {
+                removed.add(item);
+            } else {
+                item.setQuantity(quantity);
+            }
+        }
+        List<CartItemEntity> added = new ArrayList<>();
+        byCartId.forEach((cartId, changes) -> changes.quantities.forEach((productId, quantity) -> {
+            if (quantity > 0 && !stored.getOrDefault(cartId, Set.of()).contains(productId)) {
+                added.add(new CartItemEntity(cartRepository.getReferenceById(cartId),
+                        productsRepository.getReferenceById(productId), quantity));
+            }
+        }));
+        cartItemRepository.deleteAll(removed);
+        cartItemRepository.saveAll(added);
+    }
+
+    private Long createCart(String username) {
+        UserEntity user = userRepository.findByUsername(username).orElse(null);
+        if (user == null) {
+            logger.warn("User {} not found, cached cart changes are dropped", username);
+            return null;
+        }
+        return cartRepository.findByUserId(user.getId())
+                .orElseGet(() -> cartRepository.save(new CartEntity(user)))
+                .getId();
+    }
+
+    /**
+     * Contents of a cart. {@code exists} is false for a user who never had a cart.
+     */
+    public static final class CartLines {
+        private final boolean exists;
+        private final Map<Long, Integer> quantities;
+
+        public CartLines(boolean exists, Map<Long, Integer> quantities) {
+            this.exists = exists;
+            this.quantities = quantities;
+        }
+
+        public boolean exists() {
+            return exists;
+        }
+
+        public Map<Long, Integer> getQuantities() {
+            return quantities;
+        }
+    }
+
+    /**
+     * One user's cart. {@code dirty} holds the products whose quantity changed since the last write.
+     * Fields are guarded by {@code lock}; {@code flushLock} is held while the cart is written.
+     */
+    private static final class CachedCart {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ReentrantLock flushLock = new ReentrantLock();
+        private final Map<Long, Integer> lines = new LinkedHashMap<>();
+        private final Set<Long> dirty = new HashSet<>();
+        private Long cartId;
+        private boolean exists;
+        private boolean evicted;
+        private volatile long lastAccess = System.nanoTime();
+    }
+
+    /**
+     * Quantities to write for one cart, 0 meaning the product is removed.
+     */
+    private static final class Pending {
+        private final String username;
+        private final CachedCart cart;
+        private final Map<Long, Integer> quantities;
+        private Long cartId;
+
+        private Pending(String username, CachedCart cart, Map<Long, Integer> quantities, Long cartId) {
+            this.username = username;
+            this.cart = cart;
+            this.quantities = quantities;
+            this.cartId = cartId;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo3.controller;
+
+import com.example.demo3.service.AnalyticsService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/analytics")
+@Validated
+public class AnalyticsController {
+    private final AnalyticsService analyticsService;
+
+    public AnalyticsController(AnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    @GetMapping("/sales/hourly")
+    public ResponseEntity<?> getHourlySales(@RequestHeader(name = "User-Agent", required = false) String userAgent,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(analyticsService.getHourlySales(from, to, userAgent));
+    }
+
+    @GetMapping("/sales/daily")
+    public ResponseEntity<?> getDailySales(@RequestHeader(name = "User-Agent", required = false) String userAgent,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(analyticsService.getDailySales(from, to, userAgent));
+    }
+
+    @GetMapping("/products")
+    public ResponseEntity<?> getTopProducts(@RequestHeader(name = "User-Agent", required = false) String userAgent,
+                                            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int limit) {
+        return ResponseEntity.ok(analyticsService.getTopProducts(limit, userAgent));
+    }
+
+    @GetMapping("/categories")
+    public ResponseEntity<?> getCategorySales(@RequestHeader(name = "User-Agent", required = false) String userAgent) {
+        return ResponseEntity.ok(analyticsService.getCategorySales(userAgent));
+    }
+
+    @GetMapping("/funnel")
+    public ResponseEntity<?> getOrderFunnel(@RequestHeader(name = "User-Agent", required = false) String userAgent) {
+        return ResponseEntity.ok(analyticsService.getOrderFunnel(userAgent));
+    }
+}
@@ -1,39 +1,61 @@
 package com.example.demo3.controller;
 
 import com.example.demo3.dto.CategoryCreateRequestDTO;
+import com.example.demo3.dto.ResourceVersion;
 import com.example.demo3.service.CategoryService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.net.URI;
+import java.time.Duration;
 
 @RestController
 @RequestMapping("/api/categories")
 @Validated
 public class CategoryController {
     private final CategoryService categoryService;
+    private final CacheControl cacheControl;
 
-    public CategoryController(CategoryService categoryService) {
+    public CategoryController(CategoryService categoryService,
+                              @Value("${http.cache.categories.max-age:300s}") Duration maxAge) {
         this.categoryService = categoryService;
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic();
     }
 
     @GetMapping
     public ResponseEntity<?> getAllCategories(@RequestParam(defaultValue = "0") @PositiveOrZero int page,
                                               @RequestHeader(name = "User-Agent", required = false) String userAgent,
-                                              @RequestParam(defaultValue = "10") @Min(1) @Max(50) int size) {
-        return ResponseEntity.ok(categoryService.getAllCategories(page, size, userAgent));
+                                              @RequestParam(defaultValue = "10") @Min(1) @Max(50) int size,
+                                              @RequestParam(required = false) String after,
+                                              WebRequest request) {
+        if (isNotModified(request, userAgent)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
+        if (after != null) {
+            return ResponseEntity.ok().cacheControl(cacheControl)
+                    .body(categoryService.getAllCategoriesByCursor(after, size, userAgent));
+        }
+        return ResponseEntity.ok().cacheControl(cacheControl).body(categoryService.getAllCategories(page, size, userAgent));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<?> getCategoryById(@RequestHeader(name = "User-Agent", required = false) String userAgent,
-                                             @PathVariable(name = "id") @Positive Long id) {
-        return ResponseEntity.ok(categoryService.getCategoryById(id, userAgent));
+                                             @PathVariable(name = "id") @Positive Long id,
+                                             WebRequest request) {
+        if (isNotModified(request, userAgent)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().cacheControl(cacheControl).body(categoryService.getCategoryById(id, userAgent));
     }
 
     @PostMapping
@@ -50,4 +72,10 @@ public class CategoryController {
         categoryService.deleteCategoryById(id, userAgent);
         return ResponseEntity.ok("Category deleted!");
     }
+
+    // Every category response is built from the category tree snapshot, so its fingerprint versions them all.
+    private boolean isNotModified(WebRequest request, String userAgent) {
+        ResourceVersion version = categoryService.getCategoriesVersion(userAgent);
+        return request.checkNotModified(version.getETag(), version.getLastModified().toEpochMilli());
+    }
 }
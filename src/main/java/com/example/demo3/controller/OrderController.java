@@ -1,18 +1,27 @@
 package com.example.demo3.controller;
 
 import com.example.demo3.dto.CreateOrderRequestDTO;
+import com.example.demo3.dto.OrderListView;
 import com.example.demo3.dto.UpdateOrderStatusRequestDTO;
 import com.example.demo3.entity.OrderStatus;
+import com.example.demo3.export.OrderExportFormat;
 import com.example.demo3.service.OrderService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+
 @RestController
 @RequestMapping("/api/orders")
 @Validated
@@ -25,15 +34,28 @@ public class OrderController {
 
     @PostMapping
     public ResponseEntity<?> createOrder(@RequestHeader(name = "User-Agent", required = false) String userAgent,
+                                         @RequestHeader(name = "Idempotency-Key", required = false)
+                                         @Size(min = 1, max = 255) String idempotencyKey,
                                          @Valid @RequestBody CreateOrderRequestDTO request) {
-        Long id = orderService.createOrder(request, userAgent);
+        Long id = orderService.createOrder(request, idempotencyKey, userAgent);
         return ResponseEntity.created(java.net.URI.create("/api/orders/" + id)).body("Order created! ID: " + id);
     }
 
     @GetMapping
     public ResponseEntity<?> getUserOrders(@RequestHeader(name = "User-Agent", required = false) String userAgent,
                                            @RequestParam(defaultValue = "0") @PositiveOrZero int page,
-                                           @RequestParam(defaultValue = "10") @Min(1) @Max(50) int size) {
+                                           @RequestParam(defaultValue = "10") @Min(1) @Max(50) int size,
+                                           @RequestParam(required = false) String after,
+                                           @RequestParam(defaultValue = "FULL") OrderListView view) {
+        if (view == OrderListView.SUMMARY) {
+            if (after != null) {
+                return ResponseEntity.ok(orderService.getUserOrderSummariesByCursor(after, size, userAgent));
+            }
+            return ResponseEntity.ok(orderService.getUserOrderSummaries(page, size, userAgent));
+        }
+        if (after != null) {
+            return ResponseEntity.ok(orderService.getUserOrdersByCursor(after, size, userAgent));
+        }
         return ResponseEntity.ok(orderService.getUserOrders(page, size, userAgent));
     }
 
@@ -54,10 +76,47 @@ public class OrderController {
     public ResponseEntity<?> getAllOrders(@RequestHeader(name = "User-Agent", required = false) String userAgent,
                                           @RequestParam(defaultValue = "0") @PositiveOrZero int page,
                                           @RequestParam(defaultValue = "10") @Min(1) @Max(50) int size,
-                                          @RequestParam(required = false) String status) {
+                                          @RequestParam(required = false) String status,
+                                          @RequestParam(required = false) String after) {
+        if (after != null) {
+            return ResponseEntity.ok(orderService.getAllOrdersByCursor(after, size, status, userAgent));
+        }
         return ResponseEntity.ok(orderService.getAllOrders(page, size, status, userAgent));
     }
 
+    // Written straight to the response on the request thread, so the export keeps the request id,
+    // security context and read-only transaction, and no async timeout cuts long exports short.
+    // The download headers are set when the service opens the target, after authorization and validation.
+    @GetMapping("/admin/export")
+    public void exportOrders(@RequestHeader(name = "User-Agent", required = false) String userAgent,
+                             @RequestParam(defaultValue = "NDJSON") OrderExportFormat format,
+                             @RequestParam(required = false) OrderStatus status,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                             HttpServletResponse response) {
+        orderService.exportOrders(status, from, to, format, exportFormat -> {
+            response.setContentType(exportFormat.getMediaType().toString());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                    .filename("orders." + exportFormat.getFileExtension())
+                    .build()
+                    .toString());
+            return response.getOutputStream();
+        }, userAgent);
+    }
+
+    @GetMapping("/admin/events")
+    public ResponseEntity<?> getOrderEventHandlers(@RequestHeader(name = "User-Agent", required = false) String userAgent) {
+        return ResponseEntity.ok(orderService.getOrderEventHandlers(userAgent));
+    }
+
+    @PutMapping("/admin/events/{handler}/position")
+    public ResponseEntity<?> replayOrderEvents(@RequestHeader(name = "User-Agent", required = false) String userAgent,
+                                               @PathVariable String handler,
+                                               @RequestParam @PositiveOrZero long position) {
+        orderService.replayOrderEvents(handler, position, userAgent);
+        return ResponseEntity.ok("Order event handler position updated");
+    }
+
     @PutMapping("/admin/{orderId}/status")
     public ResponseEntity<?> updateOrderStatus(@RequestHeader(name = "User-Agent", required = false) String userAgent,
                                                @PathVariable @Positive Long orderId,
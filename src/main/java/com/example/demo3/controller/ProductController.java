@@ -1,35 +1,59 @@
 package com.example.demo3.controller;
 
+import com.example.demo3.dto.AdjustProductsRequestDTO;
 import com.example.demo3.dto.ProductBasicDTO;
 import com.example.demo3.dto.ProductRequestDTO;
+import com.example.demo3.dto.ResourceVersion;
 import com.example.demo3.dto.UpdateProductRequestDTO;
+import com.example.demo3.importer.ProductImportFormat;
+import com.example.demo3.repository.ProductSort;
 import com.example.demo3.service.ProductService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.net.URI;
+import java.time.Duration;
 
 @RestController
 @RequestMapping("/api/products")
 @Validated
 public class ProductController {
     private final ProductService productService;
+    private final CacheControl cacheControl;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService,
+                             @Value("${http.cache.products.max-age:10s}") Duration maxAge) {
         this.productService = productService;
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic();
     }
 
+    // The version is read before the body, so the body is never older than the ETag sent with it.
+    // checkNotModified sets ETag and Last-Modified on the response in both outcomes.
     @GetMapping("/{id}")
     public ResponseEntity<?> getProductById(@RequestHeader(name = "User-Agent", required = false) String userAgent,
-                                            @PathVariable @Positive Long id) {
+                                            @PathVariable @Positive Long id,
+                                            WebRequest request) {
+        ResourceVersion version = productService.getProductVersion(id, userAgent);
+        if (request.checkNotModified(version.getETag(), version.getLastModified().toEpochMilli())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
         ProductBasicDTO product = productService.getProductById(id, userAgent);
-        return ResponseEntity.ok(product);
+        return ResponseEntity.ok().cacheControl(cacheControl).body(product);
     }
 
     @PostMapping
@@ -40,11 +64,52 @@ public class ProductController {
         return ResponseEntity.created(location).body("Product created! ID: " + id);
     }
 
+    // The body is read as it arrives, so a large catalog is never held in memory.
+    @PostMapping("/import")
+    public ResponseEntity<?> importProducts(@RequestHeader(name = "User-Agent", required = false) String userAgent,
+                                            @RequestParam(defaultValue = "NDJSON") ProductImportFormat format,
+                                            InputStream body) {
+        return ResponseEntity.ok(productService.importProducts(format, body, userAgent));
+    }
+
     @GetMapping
     public ResponseEntity<?> getAllProducts(@RequestParam(defaultValue = "0") @PositiveOrZero int page,
                                             @RequestHeader(name = "User-Agent", required = false) String userAgent,
+                                            @RequestParam(defaultValue = "10") @Min(1) @Max(50) int size,
+                                            @RequestParam(required = false) String after,
+                                            WebRequest request) {
+        ResourceVersion version = productService.getAllProductsVersion(userAgent);
+        if (request.checkNotModified(version.getETag(), version.getLastModified().toEpochMilli())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
+        if (after != null) {
+            return ResponseEntity.ok().cacheControl(cacheControl)
+                    .body(productService.getAllProductsByCursor(after, size, userAgent));
+        }
+        return ResponseEntity.ok().cacheControl(cacheControl).body(productService.getAllProducts(page, size, userAgent));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> searchProducts(@RequestHeader(name = "User-Agent", required = false) String userAgent,
+                                            @RequestParam @NotBlank @Size(max = 200) String q,
+                                            @RequestParam(required = false) @Positive Long categoryId,
+                                            @RequestParam(defaultValue = "0") @PositiveOrZero int page,
                                             @RequestParam(defaultValue = "10") @Min(1) @Max(50) int size) {
-        return ResponseEntity.ok(productService.getAllProducts(page, size, userAgent));
+        return ResponseEntity.ok(productService.searchProducts(q, categoryId, page, size, userAgent));
+    }
+
+    @GetMapping("/filter")
+    public ResponseEntity<?> filterProducts(@RequestHeader(name = "User-Agent", required = false) String userAgent,
+                                            @RequestParam(required = false) @Positive Long categoryId,
+                                            @RequestParam(required = false) @DecimalMin("0") BigDecimal minPrice,
+                                            @RequestParam(required = false) @DecimalMin("0") BigDecimal maxPrice,
+                                            @RequestParam(defaultValue = "false") boolean inStock,
+                                            @RequestParam(defaultValue = "true") boolean activeOnly,
+                                            @RequestParam(defaultValue = "NEWEST") ProductSort sort,
+                                            @RequestParam(defaultValue = "0") @PositiveOrZero int page,
+                                            @RequestParam(defaultValue = "10") @Min(1) @Max(50) int size) {
+        return ResponseEntity.ok(productService.filterProducts(categoryId, minPrice, maxPrice, inStock, activeOnly,
+                sort, page, size, userAgent));
     }
 
     @PutMapping
@@ -54,6 +119,12 @@ public class ProductController {
         return ResponseEntity.ok().body("Product updated successfully!");
     }
 
+    @PatchMapping
+    public ResponseEntity<?> adjustProducts(@RequestHeader(name = "User-Agent", required = false) String userAgent,
+                                            @Valid @RequestBody AdjustProductsRequestDTO request) {
+        return ResponseEntity.ok(productService.adjustProducts(request, userAgent));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<?> deleteProduct(@RequestHeader(name = "User-Agent", required = false) String userAgent,
                                            @PathVariable @Positive Long id) {
@@ -61,6 +132,14 @@ public class ProductController {
         return ResponseEntity.ok("Product status updated!");
     }
 
+    @PutMapping("/{id}/hot-inventory")
+    public ResponseEntity<?> changeHotInventory(@RequestHeader(name = "User-Agent", required = false) String userAgent,
+                                                @PathVariable @Positive Long id,
+                                                @RequestParam boolean enabled) {
+        productService.changeHotInventory(id, enabled, userAgent);
+        return ResponseEntity.ok("Product hot inventory updated!");
+    }
+
     @GetMapping("/category/{categoryId}")
     public ResponseEntity<?> getProductsByCategory(@RequestHeader(name = "User-Agent", required = false) String userAgent,
                                                    @PathVariable @Positive Long categoryId,
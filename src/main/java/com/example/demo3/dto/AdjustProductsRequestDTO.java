@@ -0,0 +1,22 @@
+package com.example.demo3.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class AdjustProductsRequestDTO {
+    @NotEmpty
+    @Size(max = 1000)
+    @Valid
+    private List<ProductAdjustmentDTO> items;
+
+    public List<ProductAdjustmentDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ProductAdjustmentDTO> items) {
+        this.items = items;
+    }
+}
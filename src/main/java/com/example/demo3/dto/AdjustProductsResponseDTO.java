@@ -0,0 +1,33 @@
+package com.example.demo3.dto;
+
+import java.util.List;
+
+public class AdjustProductsResponseDTO {
+    private int applied;
+    private int failed;
+    private List<ProductAdjustmentResultDTO> results;
+
+    public int getApplied() {
+        return applied;
+    }
+
+    public void setApplied(int applied) {
+        this.applied = applied;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<ProductAdjustmentResultDTO> getResults() {
+        return results;
+    }
+
+    public void setResults(List<ProductAdjustmentResultDTO> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo3.dto;
+
+public class CategoryFacetDTO {
+    private Long id;
+    private String name;
+    private long count;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo3.dto;
+
+import java.math.BigDecimal;
+
+public class CategorySalesDTO {
+    private Long categoryId;
+    private String name;
+    private long orders;
+    private long units;
+    private BigDecimal revenue;
+
+    public CategorySalesDTO() {
+    }
+
+    public CategorySalesDTO(Long categoryId, String name, long orders, long units, BigDecimal revenue) {
+        this.categoryId = categoryId;
+        this.name = name;
+        this.orders = orders;
+        this.units = units;
+        this.revenue = revenue;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getOrders() {
+        return orders;
+    }
+
+    public void setOrders(long orders) {
+        this.orders = orders;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public void setUnits(long units) {
+        this.units = units;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo3.dto;
+
+public class OrderEventHandlerDTO {
+    private String handler;
+    private long position;
+    private long lag;
+
+    public OrderEventHandlerDTO() {
+    }
+
+    public OrderEventHandlerDTO(String handler, long position, long lag) {
+        this.handler = handler;
+        this.position = position;
+        this.lag = lag;
+    }
+
+    public String getHandler() {
+        return handler;
+    }
+
+    public void setHandler(String handler) {
+        this.handler = handler;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public void setPosition(long position) {
+        this.position = position;
+    }
+
+    public long getLag() {
+        return lag;
+    }
+
+    public void setLag(long lag) {
+        this.lag = lag;
+    }
+}
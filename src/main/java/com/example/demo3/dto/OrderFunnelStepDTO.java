@@ -0,0 +1,42 @@
+package com.example.demo3.dto;
+
+import com.example.demo3.entity.OrderStatus;
+
+public class OrderFunnelStepDTO {
+    private OrderStatus status;
+    private long orders;
+    private long reached;
+
+    public OrderFunnelStepDTO() {
+    }
+
+    public OrderFunnelStepDTO(OrderStatus status, long orders, long reached) {
+        this.status = status;
+        this.orders = orders;
+        this.reached = reached;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+
+    public long getOrders() {
+        return orders;
+    }
+
+    public void setOrders(long orders) {
+        this.orders = orders;
+    }
+
+    public long getReached() {
+        return reached;
+    }
+
+    public void setReached(long reached) {
+        this.reached = reached;
+    }
+}
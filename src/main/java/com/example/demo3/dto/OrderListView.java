@@ -0,0 +1,10 @@
+package com.example.demo3.dto;
+
+/**
+ * How much of each order a listing returns: {@code FULL} orders with items and user,
+ * or {@code SUMMARY} headers with an item count.
+ */
+public enum OrderListView {
+    FULL,
+    SUMMARY
+}
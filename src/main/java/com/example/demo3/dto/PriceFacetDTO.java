@@ -0,0 +1,36 @@
+package com.example.demo3.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+
+public class PriceFacetDTO {
+    private BigDecimal from;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private BigDecimal to;
+    private long count;
+
+    public BigDecimal getFrom() {
+        return from;
+    }
+
+    public void setFrom(BigDecimal from) {
+        this.from = from;
+    }
+
+    public BigDecimal getTo() {
+        return to;
+    }
+
+    public void setTo(BigDecimal to) {
+        this.to = to;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+}
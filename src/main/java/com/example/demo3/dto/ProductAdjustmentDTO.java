@@ -0,0 +1,71 @@
+package com.example.demo3.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+
+import java.math.BigDecimal;
+
+public class ProductAdjustmentDTO {
+    @Positive
+    private Long id;
+    @Size(max = 100)
+    private String sku;
+    @DecimalMin("0")
+    @Digits(integer = 8, fraction = 2)
+    private BigDecimal price;
+    private Integer stockDelta;
+    private Boolean active;
+    @PositiveOrZero
+    private Long version;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public Integer getStockDelta() {
+        return stockDelta;
+    }
+
+    public void setStockDelta(Integer stockDelta) {
+        this.stockDelta = stockDelta;
+    }
+
+    public Boolean getActive() {
+        return active;
+    }
+
+    public void setActive(Boolean active) {
+        this.active = active;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo3.dto;
+
+public enum ProductAdjustmentStatus {
+    APPLIED,
+    /**
+     * Neither id nor sku, both, or nothing to change.
+     */
+    INVALID,
+    NOT_FOUND,
+    /**
+     * The product was changed after the version given in the request.
+     */
+    CONFLICT,
+    /**
+     * The stock delta would take the stock below zero.
+     */
+    INSUFFICIENT_STOCK
+}
@@ -14,6 +14,7 @@ public class ProductBasicDTO {
     private BigDecimal price;
     private Integer stockQuantity = 0;
     private Boolean isActive;
+    private Long version;
 
     private CategoryBasicDTO category;
 
@@ -86,4 +87,12 @@ public class ProductBasicDTO {
     public void setActive(Boolean active) {
         isActive = active;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,33 @@
+package com.example.demo3.dto;
+
+import java.util.List;
+
+public class ProductFilterResponseDTO {
+    private PageableResponseProducts products;
+    private List<CategoryFacetDTO> categories;
+    private List<PriceFacetDTO> prices;
+
+    public PageableResponseProducts getProducts() {
+        return products;
+    }
+
+    public void setProducts(PageableResponseProducts products) {
+        this.products = products;
+    }
+
+    public List<CategoryFacetDTO> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<CategoryFacetDTO> categories) {
+        this.categories = categories;
+    }
+
+    public List<PriceFacetDTO> getPrices() {
+        return prices;
+    }
+
+    public void setPrices(List<PriceFacetDTO> prices) {
+        this.prices = prices;
+    }
+}
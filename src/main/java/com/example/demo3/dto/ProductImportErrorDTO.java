@@ -0,0 +1,31 @@
+package com.example.demo3.dto;
+
+public class ProductImportErrorDTO {
+    private long row;
+    private String sku;
+    private String message;
+
+    public long getRow() {
+        return row;
+    }
+
+    public void setRow(long row) {
+        this.row = row;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
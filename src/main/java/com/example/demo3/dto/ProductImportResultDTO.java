@@ -0,0 +1,79 @@
+package com.example.demo3.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProductImportResultDTO {
+    private long rows;
+    private long inserted;
+    private long updated;
+    private long failed;
+    private long durationMs;
+    private long rowsPerSecond;
+    private List<ProductImportErrorDTO> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+
+    public long getRows() {
+        return rows;
+    }
+
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(long inserted) {
+        this.inserted = inserted;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(long updated) {
+        this.updated = updated;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public long getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(long rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public List<ProductImportErrorDTO> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<ProductImportErrorDTO> errors) {
+        this.errors = errors;
+    }
+
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+
+    public void setErrorsTruncated(boolean errorsTruncated) {
+        this.errorsTruncated = errorsTruncated;
+    }
+}
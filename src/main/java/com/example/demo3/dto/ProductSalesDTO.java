@@ -0,0 +1,72 @@
+package com.example.demo3.dto;
+
+import java.math.BigDecimal;
+
+public class ProductSalesDTO {
+    private Long productId;
+    private String name;
+    private String sku;
+    private long orders;
+    private long units;
+    private BigDecimal revenue;
+
+    public ProductSalesDTO() {
+    }
+
+    public ProductSalesDTO(Long productId, String name, String sku, long orders, long units, BigDecimal revenue) {
+        this.productId = productId;
+        this.name = name;
+        this.sku = sku;
+        this.orders = orders;
+        this.units = units;
+        this.revenue = revenue;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
+    public long getOrders() {
+        return orders;
+    }
+
+    public void setOrders(long orders) {
+        this.orders = orders;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public void setUnits(long units) {
+        this.units = units;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+}
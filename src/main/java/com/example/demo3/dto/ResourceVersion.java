@@ -0,0 +1,25 @@
+package com.example.demo3.dto;
+
+import java.time.Instant;
+
+/**
+ * Validators of a GET response, computed without loading the resource. Controllers check them
+ * against {@code If-None-Match}/{@code If-Modified-Since} before building the body.
+ */
+public final class ResourceVersion {
+    private final String eTag;
+    private final Instant lastModified;
+
+    public ResourceVersion(String tag, Instant lastModified) {
+        this.eTag = "W/\"" + tag + "\"";
+        this.lastModified = lastModified;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+}
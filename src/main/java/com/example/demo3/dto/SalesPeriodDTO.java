@@ -0,0 +1,53 @@
+package com.example.demo3.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class SalesPeriodDTO {
+    private LocalDateTime start;
+    private long orders;
+    private long units;
+    private BigDecimal revenue;
+
+    public SalesPeriodDTO() {
+    }
+
+    public SalesPeriodDTO(LocalDateTime start, long orders, long units, BigDecimal revenue) {
+        this.start = start;
+        this.orders = orders;
+        this.units = units;
+        this.revenue = revenue;
+    }
+
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public void setStart(LocalDateTime start) {
+        this.start = start;
+    }
+
+    public long getOrders() {
+        return orders;
+    }
+
+    public void setOrders(long orders) {
+        this.orders = orders;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public void setUnits(long units) {
+        this.units = units;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+}
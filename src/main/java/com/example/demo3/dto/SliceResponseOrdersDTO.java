@@ -0,0 +1,4 @@
+package com.example.demo3.dto;
+
+public class SliceResponseOrdersDTO extends SliceResponse<OrderEntityDTO> {
+}
@@ -0,0 +1,71 @@
+package com.example.demo3.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Units and revenue of the products in one category over all orders that were not cancelled.
+ * Maintained from order events, see {@link com.example.demo3.analytics.SalesRollupHandler}.
+ */
+@Entity
+@Table(name = "category_sales")
+public class CategorySalesEntity {
+    @Id
+    @Column(name = "category_id")
+    private Long categoryId;
+
+    @Column(name = "orders", nullable = false)
+    private long orders;
+
+    @Column(name = "units", nullable = false)
+    private long units;
+
+    @Column(name = "revenue", nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    public CategorySalesEntity() {
+    }
+
+    public CategorySalesEntity(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public void add(long orders, long units, BigDecimal revenue) {
+        this.orders += orders;
+        this.units += units;
+        this.revenue = this.revenue.add(revenue);
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public long getOrders() {
+        return orders;
+    }
+
+    public void setOrders(long orders) {
+        this.orders = orders;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public void setUnits(long units) {
+        this.units = units;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+}
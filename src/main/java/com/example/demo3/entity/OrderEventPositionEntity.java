@@ -0,0 +1,60 @@
+package com.example.demo3.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Id of the last order event a handler has processed.
+ */
+@Entity
+@Table(name = "order_event_positions")
+public class OrderEventPositionEntity {
+    @Id
+    @Column(name = "handler", length = 100)
+    private String handler;
+
+    @Column(name = "position", nullable = false)
+    private Long position;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public OrderEventPositionEntity() {
+    }
+
+    public OrderEventPositionEntity(String handler, Long position) {
+        this.handler = handler;
+        this.position = position;
+    }
+
+    public String getHandler() {
+        return handler;
+    }
+
+    public void setHandler(String handler) {
+        this.handler = handler;
+    }
+
+    public Long getPosition() {
+        return position;
+    }
+
+    public void setPosition(Long position) {
+        this.position = position;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
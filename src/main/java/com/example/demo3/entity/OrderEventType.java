@@ -0,0 +1,7 @@
+package com.example.demo3.entity;
+
+public enum OrderEventType {
+    CREATED,
+    STATUS_CHANGED,
+    CANCELLED
+}
@@ -0,0 +1,46 @@
+package com.example.demo3.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Number of orders currently in a status.
+ * Maintained from order events, see {@link com.example.demo3.analytics.SalesRollupHandler}.
+ */
+@Entity
+@Table(name = "order_status_counts")
+public class OrderStatusCountEntity {
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20)
+    private OrderStatus status;
+
+    @Column(name = "orders", nullable = false)
+    private long orders;
+
+    public OrderStatusCountEntity() {
+    }
+
+    public OrderStatusCountEntity(OrderStatus status) {
+        this.status = status;
+    }
+
+    public void add(long orders) {
+        this.orders += orders;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+
+    public long getOrders() {
+        return orders;
+    }
+
+    public void setOrders(long orders) {
+        this.orders = orders;
+    }
+}
@@ -2,16 +2,26 @@ package com.example.demo3.entity;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
+// Only changed columns are written, so saving a product does not overwrite
+// stock_quantity updated concurrently by checkout batches.
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "products")
+@DynamicUpdate
 @Table(name = "products")
 public class ProductEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_id_seq")
+    @SequenceGenerator(name = "products_id_seq", sequenceName = "products_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "name", nullable = false)
@@ -38,6 +48,12 @@ public class ProductEntity {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Bumped by every write, including the SQL stock updates. Not a JPA @Version: entity saves should keep
+    // merging with concurrent checkouts, only callers that pass an expected version are checked against it.
+    @Column(name = "version", nullable = false)
+    @ColumnDefault("0")
+    private Long version = 0L;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     @JsonBackReference("category")
@@ -55,6 +71,7 @@ public class ProductEntity {
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        version++;
     }
 
     public ProductEntity() {
@@ -137,6 +154,14 @@ public class ProductEntity {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public CategoryEntity getCategory() {
         return category;
     }
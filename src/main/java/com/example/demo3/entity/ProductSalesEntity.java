@@ -0,0 +1,71 @@
+package com.example.demo3.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Units and revenue of one product over all orders that were not cancelled.
+ * Maintained from order events, see {@link com.example.demo3.analytics.SalesRollupHandler}.
+ */
+@Entity
+@Table(name = "product_sales")
+public class ProductSalesEntity {
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "orders", nullable = false)
+    private long orders;
+
+    @Column(name = "units", nullable = false)
+    private long units;
+
+    @Column(name = "revenue", nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    public ProductSalesEntity() {
+    }
+
+    public ProductSalesEntity(Long productId) {
+        this.productId = productId;
+    }
+
+    public void add(long orders, long units, BigDecimal revenue) {
+        this.orders += orders;
+        this.units += units;
+        this.revenue = this.revenue.add(revenue);
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public long getOrders() {
+        return orders;
+    }
+
+    public void setOrders(long orders) {
+        this.orders = orders;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public void setUnits(long units) {
+        this.units = units;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo3.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Orders, units and revenue of the orders created in one hour, without cancelled orders.
+ * Maintained from order events, see {@link com.example.demo3.analytics.SalesRollupHandler}.
+ */
+@Entity
+@Table(name = "sales_hourly")
+public class SalesHourlyEntity {
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+
+    @Column(name = "orders", nullable = false)
+    private long orders;
+
+    @Column(name = "units", nullable = false)
+    private long units;
+
+    @Column(name = "revenue", nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    public SalesHourlyEntity() {
+    }
+
+    public SalesHourlyEntity(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public void add(long orders, long units, BigDecimal revenue) {
+        this.orders += orders;
+        this.units += units;
+        this.revenue = this.revenue.add(revenue);
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public long getOrders() {
+        return orders;
+    }
+
+    public void setOrders(long orders) {
+        this.orders = orders;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public void setUnits(long units) {
+        this.units = units;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.demo3.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class TooManyRequestsException extends BaseException {
+    public TooManyRequestsException(String message) {
+        super(message, HttpStatus.TOO_MANY_REQUESTS);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.demo3.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class UnprocessableEntityException extends BaseException {
+    public UnprocessableEntityException(String message) {
+        super(message, HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.demo3.export;
+
+import com.example.demo3.repository.projection.OrderExportRow;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+class CsvOrderExportWriter implements OrderExportWriter {
+    static final String HEADER = "order_id,order_number,status,total_amount,shipping_address,created_at,"
+            + "user_id,user_email,item_id,product_id,product_sku,product_name,quantity,unit_price,item_total";
+
+    private final Writer writer;
+
+    CsvOrderExportWriter(OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(HEADER);
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void write(OrderExportRow row) throws IOException {
+        writer.write(value(row.getOrderId()));
+        writer.write(',');
+        writer.write(text(row.getOrderNumber()));
+        writer.write(',');
+        writer.write(text(row.getStatus()));
+        writer.write(',');
+        writer.write(value(row.getTotalAmount()));
+        writer.write(',');
+        writer.write(text(row.getShippingAddress()));
+        writer.write(',');
+        writer.write(value(row.getCreatedAt()));
+        writer.write(',');
+        writer.write(value(row.getUserId()));
+        writer.write(',');
+        writer.write(text(row.getUserEmail()));
+        writer.write(',');
+        writer.write(value(row.getItemId()));
+        writer.write(',');
+        writer.write(value(row.getProductId()));
+        writer.write(',');
+        writer.write(text(row.getProductSku()));
+        writer.write(',');
+        writer.write(text(row.getProductName()));
+        writer.write(',');
+        writer.write(value(row.getQuantity()));
+        writer.write(',');
+        writer.write(value(row.getUnitPrice()));
+        writer.write(',');
+        writer.write(value(row.getItemTotal()));
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+
+    private static String value(Object value) {
+        return value == null ? "" : value.toString();
+    }
+
+    /**
+     * Quotes text per RFC 4180. Text starting with a formula character gets a leading apostrophe, so
+     * a spreadsheet opening the export shows user input such as addresses instead of evaluating it.
+     */
+    static String text(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        String safe = "=+-@\t\r".indexOf(value.charAt(0)) >= 0 ? "'" + value : value;
+        if (safe.indexOf(',') < 0 && safe.indexOf('"') < 0 && safe.indexOf('\n') < 0 && safe.indexOf('\r') < 0) {
+            return safe;
+        }
+        return '"' + safe.replace("\"", "\"\"") + '"';
+    }
+}
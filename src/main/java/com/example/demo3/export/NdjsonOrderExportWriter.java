@@ -0,0 +1,78 @@
+package com.example.demo3.export;
+
+import com.example.demo3.repository.projection.OrderExportRow;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+class NdjsonOrderExportWriter implements OrderExportWriter {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonGenerator generator;
+    private Long currentOrderId;
+
+    NdjsonOrderExportWriter(OutputStream out) throws IOException {
+        this.generator = JSON_FACTORY.createGenerator(out);
+        // The caller owns the response stream.
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.generator.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void write(OrderExportRow row) throws IOException {
+        if (!row.getOrderId().equals(currentOrderId)) {
+            endOrder();
+            startOrder(row);
+        }
+        if (row.getItemId() != null) {
+            generator.writeStartObject();
+            generator.writeNumberField("id", row.getItemId());
+            writeNullableNumber("productId", row.getProductId());
+            generator.writeStringField("productSku", row.getProductSku());
+            generator.writeStringField("productName", row.getProductName());
+            writeNullableNumber("quantity", row.getQuantity() == null ? null : row.getQuantity().longValue());
+            generator.writeNumberField("unitPrice", row.getUnitPrice());
+            generator.writeNumberField("totalPrice", row.getItemTotal());
+            generator.writeEndObject();
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        endOrder();
+        generator.flush();
+    }
+
+    private void startOrder(OrderExportRow row) throws IOException {
+        currentOrderId = row.getOrderId();
+        generator.writeStartObject();
+        generator.writeNumberField("id", row.getOrderId());
+        generator.writeStringField("orderNumber", row.getOrderNumber());
+        generator.writeStringField("status", row.getStatus());
+        generator.writeNumberField("totalAmount", row.getTotalAmount());
+        generator.writeStringField("shippingAddress", row.getShippingAddress());
+        generator.writeStringField("createdAt", row.getCreatedAt() == null ? null : row.getCreatedAt().toString());
+        writeNullableNumber("userId", row.getUserId());
+        generator.writeStringField("userEmail", row.getUserEmail());
+        generator.writeArrayFieldStart("items");
+    }
+
+    private void endOrder() throws IOException {
+        if (currentOrderId != null) {
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            currentOrderId = null;
+        }
+    }
+
+    private void writeNullableNumber(String field, Long value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(field);
+        } else {
+            generator.writeNumberField(field, value);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo3.export;
+
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public enum OrderExportFormat {
+    /**
+     * One JSON object per order, items nested, one order per line.
+     */
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+    /**
+     * One line per order item with the order columns repeated, after a header line.
+     */
+    CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv");
+
+    private final MediaType mediaType;
+    private final String fileExtension;
+
+    OrderExportFormat(MediaType mediaType, String fileExtension) {
+        this.mediaType = mediaType;
+        this.fileExtension = fileExtension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    public OrderExportWriter createWriter(OutputStream out) throws IOException {
+        return this == NDJSON
+                ? new NdjsonOrderExportWriter(out)
+                : new CsvOrderExportWriter(out);
+    }
+}
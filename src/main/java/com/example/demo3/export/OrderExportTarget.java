@@ -0,0 +1,13 @@
+package com.example.demo3.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Where an export is written. Opened only once the request is authorized and its filters are valid,
+ * so response headers set on open are not sent with an error.
+ */
+@FunctionalInterface
+public interface OrderExportTarget {
+    OutputStream open(OrderExportFormat format) throws IOException;
+}
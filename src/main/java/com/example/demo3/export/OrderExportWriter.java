@@ -0,0 +1,18 @@
+package com.example.demo3.export;
+
+import com.example.demo3.repository.projection.OrderExportRow;
+
+import java.io.IOException;
+
+/**
+ * Writes export rows as they arrive. Rows must come ordered by order id; a writer keeps at most
+ * the current order in memory.
+ */
+public interface OrderExportWriter {
+    void write(OrderExportRow row) throws IOException;
+
+    /**
+     * Writes whatever is still buffered and flushes the output. Does not close it.
+     */
+    void finish() throws IOException;
+}
@@ -0,0 +1,144 @@
+package com.example.demo3.idempotency;
+
+import com.example.demo3.dto.CreateOrderRequestDTO;
+import com.example.demo3.entity.IdempotencyKeyEntity;
+import com.example.demo3.repository.IdempotencyKeyRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+/**
+ * Remembers which order each Idempotency-Key created, so a retried create order request returns the
+ * original order. Keys are stored in {@code idempotency_keys}, committed together with the order, and
+ * completed keys are also kept in a bounded in-memory cache, so most retries are answered without a query.
+ * <p>
+ * A key is claimed by inserting its row before the order is created. A concurrent request with the same
+ * key then waits on the unique index and fails once the first one commits, instead of creating a second order.
+ */
+@Component
+public class OrderIdempotencyKeys {
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final Cache<String, CompletedRequest> completed;
+    private final Duration ttl;
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderIdempotencyKeys.class);
+
+    public OrderIdempotencyKeys(IdempotencyKeyRepository idempotencyKeyRepository,
+                                @Value("${idempotency.cache.max-size:10000}") long cacheMaxSize,
+                                @Value("${idempotency.key-ttl-hours:24}") long ttlHours) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Looks the key up, in memory first.
+     *
+     * @return the request that used the key, or {@code null} if the key was not used yet
+     */
+    public CompletedRequest find(String username, String key) {
+        CompletedRequest request = completed.getIfPresent(cacheKey(username, key));
+        if (request != null) {
+            return request;
+        }
+        return idempotencyKeyRepository.findByUsernameAndIdempotencyKey(username, key)
+                .filter(entity -> entity.getOrderId() != null)
+                .map(entity -> {
+                    CompletedRequest stored = new CompletedRequest(entity.getRequestHash(), entity.getOrderId());
+                    completed.put(cacheKey(username, key), stored);
+                    return stored;
+                })
+                .orElse(null);
+    }
+
+    /**
+     * Inserts the key's row right away, so a concurrent request with the same key blocks until this
+     * transaction ends. Throws {@link org.springframework.dao.DataIntegrityViolationException} if the
+     * key was taken meanwhile.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public IdempotencyKeyEntity claim(String username, String key, String requestHash) {
+        return idempotencyKeyRepository.saveAndFlush(new IdempotencyKeyEntity(username, key, requestHash));
+    }
+
+    /**
+     * Records the created order with the claimed key. It is cached once the transaction commits.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void complete(IdempotencyKeyEntity claimed, Long orderId) {
+        claimed.setOrderId(orderId);
+        String cacheKey = cacheKey(claimed.getUsername(), claimed.getIdempotencyKey());
+        CompletedRequest request = new CompletedRequest(claimed.getRequestHash(), orderId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                completed.put(cacheKey, request);
+            }
+        });
+    }
+
+    /**
+     * Hashes the fields that make up a create order request, to recognize a key reused for another request.
+     */
+    public String requestHash(CreateOrderRequestDTO request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] shippingAddress = request.getShippingAddress() == null ? new byte[0]
+                    : request.getShippingAddress().getBytes(StandardCharsets.UTF_8);
+            return HexFormat.of().formatHex(digest.digest(shippingAddress));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:3600000}",
+            initialDelayString = "${idempotency.purge-interval-ms:3600000}")
+    @Transactional
+    public void purge() {
+        int deleted = idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minus(ttl));
+        logger.info("Expired idempotency keys deleted: {}", deleted);
+    }
+
+    private static String cacheKey(String username, String key) {
+        return username + '\n' + key;
+    }
+
+    /**
+     * Hash of the request that used a key and the order it created.
+     */
+    public static final class CompletedRequest {
+        private final String requestHash;
+        private final Long orderId;
+
+        public CompletedRequest(String requestHash, Long orderId) {
+            this.requestHash = requestHash;
+            this.orderId = orderId;
+        }
+
+        public String getRequestHash() {
+            return requestHash;
+        }
+
+        public Long getOrderId() {
+            return orderId;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.demo3.importer;
+
+import com.example.demo3.dto.ProductRequestDTO;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads RFC 4180 CSV. Columns are matched by header name in any order, unknown columns are ignored.
+ */
+class CsvProductImportReader implements ProductImportReader {
+    static final String NAME = "name";
+    static final String DESCRIPTION = "description";
+    static final String PRICE = "price";
+    static final String STOCK_QUANTITY = "stock_quantity";
+    static final String SKU = "sku";
+    static final String CATEGORY_ID = "category_id";
+    private static final List<String> REQUIRED_COLUMNS = List.of(NAME, PRICE, SKU, CATEGORY_ID);
+
+    private final BufferedReader reader;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private final StringBuilder field = new StringBuilder();
+    private long row;
+
+    CsvProductImportReader(InputStream in) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<String> header = readRecord();
+        // Spreadsheets often save UTF-8 with a byte order mark.
+        if (header != null && !header.isEmpty() && header.get(0).startsWith("\uFEFF")) {
+            header.set(0, header.get(0).substring(1));
+        }
+        for (int i = 0; header != null && i < header.size(); i++) {
+            columns.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException("CSV header is missing column " + column);
+            }
+        }
+    }
+
+    @Override
+    public ProductImportRow read() throws IOException {
+        List<String> record;
+        do {
+            record = readRecord();
+            if (record == null) {
+                return null;
+            }
+        } while (record.size() == 1 && record.get(0).isEmpty());
+        String sku = value(record, SKU);
+        ProductRequestDTO product = new ProductRequestDTO();
+        product.setName(value(record, NAME));
+        product.setDescription(value(record, DESCRIPTION));
+        product.setSku(sku);
+        try {
+            String price = value(record, PRICE);
+            product.setPrice(price == null ? null : new BigDecimal(price.trim()));
+        } catch (NumberFormatException e) {
+            return ProductImportRow.failed(row, sku, PRICE + " is not a number");
+        }
+        try {
+            String stockQuantity = value(record, STOCK_QUANTITY);
+            product.setStockQuantity(stockQuantity == null ? 0 : Integer.valueOf(stockQuantity.trim()));
+        } catch (NumberFormatException e) {
+            return ProductImportRow.failed(row, sku, STOCK_QUANTITY + " is not a whole number");
+        }
+        try {
+            String categoryId = value(record, CATEGORY_ID);
+            product.setCategoryId(categoryId == null ? null : Long.valueOf(categoryId.trim()));
+        } catch (NumberFormatException e) {
+            return ProductImportRow.failed(row, sku, CATEGORY_ID + " is not a whole number");
+        }
+        return ProductImportRow.parsed(row, product);
+    }
+
+    private String value(List<String> record, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size() || record.get(index).isEmpty()) {
+            return null;
+        }
+        return record.get(index);
+    }
+
+    /**
+     * Reads the fields of the next record, which may span lines inside quotes. Line ends may be
+     * {@code \r\n} or {@code \n}.
+     *
+     * @return {@code null} at the end of the input
+     */
+    private List<String> readRecord() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        row++;
+        List<String> record = new ArrayList<>();
+        boolean quoted = false;
+        field.setLength(0);
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        record.add(field.toString());
+        return record;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo3.importer;
+
+import com.example.demo3.dto.ProductRequestDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+class NdjsonProductImportReader implements ProductImportReader {
+    private static final ObjectReader PRODUCT_READER = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .readerFor(ProductRequestDTO.class);
+
+    private final BufferedReader reader;
+    private long line;
+
+    NdjsonProductImportReader(InputStream in) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public ProductImportRow read() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+        } while (text.isBlank());
+        try {
+            ProductRequestDTO product = PRODUCT_READER.readValue(text);
+            if (product == null) {
+                return ProductImportRow.failed(line, null, "Invalid JSON");
+            }
+            // Products are matched by sku; ids are never taken from the file.
+            product.setId(null);
+            return ProductImportRow.parsed(line, product);
+        } catch (JsonMappingException e) {
+            String message = e.getPath().isEmpty()
+                    ? "Invalid JSON"
+                    : e.getPath().get(e.getPath().size() - 1).getFieldName() + " has an invalid value";
+            return ProductImportRow.failed(line, null, message);
+        } catch (JsonProcessingException e) {
+            return ProductImportRow.failed(line, null, "Invalid JSON");
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.demo3.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public enum ProductImportFormat {
+    /**
+     * One JSON object per line with the fields of a single product request.
+     */
+    NDJSON,
+    /**
+     * A header line naming the columns, then one product per line.
+     */
+    CSV;
+
+    /**
+     * @throws IllegalArgumentException if the CSV header lacks a required column
+     */
+    public ProductImportReader createReader(InputStream in) throws IOException {
+        return this == NDJSON
+                ? new NdjsonProductImportReader(in)
+                : new CsvProductImportReader(in);
+    }
+}
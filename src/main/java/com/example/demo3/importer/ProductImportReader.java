@@ -0,0 +1,13 @@
+package com.example.demo3.importer;
+
+import java.io.IOException;
+
+/**
+ * Reads an import file one row at a time, so the whole file is never held in memory.
+ */
+public interface ProductImportReader {
+    /**
+     * @return the next data row, or {@code null} at the end of the file
+     */
+    ProductImportRow read() throws IOException;
+}
@@ -0,0 +1,46 @@
+package com.example.demo3.importer;
+
+import com.example.demo3.dto.ProductRequestDTO;
+
+/**
+ * One data row of an import file: the parsed product, or the reason it could not be parsed.
+ */
+public final class ProductImportRow {
+    private final long row;
+    private final ProductRequestDTO product;
+    private final String error;
+
+    private ProductImportRow(long row, ProductRequestDTO product, String error) {
+        this.row = row;
+        this.product = product;
+        this.error = error;
+    }
+
+    static ProductImportRow parsed(long row, ProductRequestDTO product) {
+        return new ProductImportRow(row, product, null);
+    }
+
+    static ProductImportRow failed(long row, String sku, String error) {
+        ProductRequestDTO product = new ProductRequestDTO();
+        product.setSku(sku);
+        return new ProductImportRow(row, product, error);
+    }
+
+    /**
+     * Position in the file, counted from 1 and including the CSV header.
+     */
+    public long getRow() {
+        return row;
+    }
+
+    /**
+     * The parsed product. When {@link #getError()} is set, only the sku may be filled in.
+     */
+    public ProductRequestDTO getProduct() {
+        return product;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,361 @@
+package com.example.demo3.inventory;
+
+import com.example.demo3.repository.ProductsRepository;
+import com.example.demo3.repository.projection.ProductStockView;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the available stock of hot products in memory, so checkouts for a product on sale do not
+ * queue on its {@code products} row. A reservation only changes the in-memory counter; the reserved
+ * quantities are written to {@code products.stock_quantity} in batches by {@link #flush()}, and
+ * {@link #reconcile()} re-reads the database to pick up changes made elsewhere.
+ * <p>
+ * Counters are guarded by a fixed set of striped locks, so checkouts for different products rarely
+ * contend. Reservations that were not flushed yet are lost if the process stops abruptly, which is
+ * why the flush interval is kept short.
+ * <p>
+ * Counters live in the memory of one node and are seeded with the whole database stock. If several nodes
+ * manage the same product, each of them sells that stock, the unguarded flush drives
+ * {@code stock_quantity} below zero, and the next reconcile only stops further sales. With several nodes,
+ * enable a product on one node only, or not at all.
+ */
+@Component
+public class HotProductInventory {
+    private static final int STRIPES = 64;
+
+    private final ProductsRepository productsRepository;
+    private final Set<Long> configuredProductIds;
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    // Serializes flush, reconcile, enable and disable. Not synchronized, so a virtual thread
+    // waiting on JDBC here does not pin its carrier.
+    private final ReentrantLock maintenanceLock = new ReentrantLock();
+
+    private static final Logger logger = LoggerFactory.getLogger(HotProductInventory.class);
+
+    public HotProductInventory(ProductsRepository productsRepository,
+                               @Value("${inventory.hot-products:}") String hotProducts) {
+        this.productsRepository = productsRepository;
+        this.configuredProductIds = Arrays.stream(hotProducts.split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .map(Long::valueOf)
+                .collect(Collectors.toUnmodifiableSet());
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        configuredProductIds.forEach(id -> counters.computeIfAbsent(id, key -> new Counter()).managed = true);
+        reconcile();
+    }
+
+    public boolean isManaged(Long productId) {
+        Counter counter = counters.get(productId);
+        return counter != null && counter.managed;
+    }
+
+    /**
+     * Starts serving the product from memory. The counter is seeded from the database.
+     */
+    public void enable(Long productId) {
+        maintain(() -> {
+            counters.computeIfAbsent(productId, key -> new Counter()).managed = true;
+            reconcile(List.of(productId));
+        });
+        logger.info("Hot inventory enabled for product id: {}", productId);
+    }
+
+    /**
+     * Hands the product back to the database. Reservations made so far are flushed first.
+     */
+    public void disable(Long productId) {
+        Counter counter = counters.get(productId);
+        if (counter == null) {
+            return;
+        }
+        maintain(() -> {
+            withLock(productId, () -> counter.managed = false);
+            flushPending();
+        });
+        logger.info("Hot inventory disabled for product id: {}", productId);
+    }
+
+    /**
+     * Takes the quantities of managed products out of memory. Either every managed line is reserved
+     * or none is: when a line is rejected, lines reserved before it are given back right away.
+     * Within a transaction the reservation is also given back if the transaction rolls back.
+     */
+    public StockReservation reserve(Map<Long, Integer> quantitiesByProductId) {
+        Map<Long, Integer> reserved = new HashMap<>();
+        Map<Long, Integer> unmanaged = new HashMap<>();
+        List<Long> rejected = new ArrayList<>();
+        quantitiesByProductId.forEach((productId, quantity) -> {
+            Counter counter = counters.get(productId);
+            if (counter == null) {
+                unmanaged.put(productId, quantity);
+                return;
+            }
+            withLock(productId, () -> {
+                if (!counter.managed) {
+                    unmanaged.put(productId, quantity);
+                } else if (!counter.active || counter.available < quantity) {
+                    rejected.add(productId);
+                } else {
+                    counter.available -= quantity;
+                    counter.pending += quantity;
+                    reserved.put(productId, quantity);
+                }
+            });
+        });
+        StockReservation reservation = new StockReservation(reserved, unmanaged, rejected);
+        if (!rejected.isEmpty()) {
+            release(reservation);
+        } else if (!reserved.isEmpty()) {
+            onRollback(() -> release(reservation));
+        }
+        return reservation;
+    }
+
+    /**
+     * Gives reserved quantities back. Releasing the same reservation twice has no effect.
+     */
+    public void release(StockReservation reservation) {
+        if (reservation.markReleased()) {
+            reservation.getReserved().forEach((productId, quantity) -> adjust(productId, quantity));
+        }
+    }
+
+    /**
+     * Returns stock of cancelled orders to managed products.
+     *
+     * @return quantities of products that are not managed here and must be returned in the database
+     */
+    public Map<Long, Integer> restock(Map<Long, Integer> quantitiesByProductId) {
+        Map<Long, Integer> restocked = new HashMap<>();
+        Map<Long, Integer> unmanaged = new HashMap<>();
+        quantitiesByProductId.forEach((productId, quantity) -> {
+            if (isManaged(productId)) {
+                adjust(productId, quantity);
+                restocked.put(productId, quantity);
+            } else {
+                unmanaged.put(productId, quantity);
+            }
+        });
+        if (!restocked.isEmpty()) {
+            onRollback(() -> restocked.forEach((productId, quantity) -> adjust(productId, -quantity)));
+        }
+        return unmanaged;
+    }
+
+    /**
+     * Applies an admin stock change to a managed product. Stock taken away is checked against the counter,
+     * which unlike the database row already counts reservations that were not flushed yet. The change is
+     * written by the next flush and given back if the transaction rolls back or the reservation is released.
+     *
+     * @param stockDelta added to the stock, negative to take stock away
+     */
+    public StockReservation changeStock(Long productId, int stockDelta) {
+        int quantity = -stockDelta;
+        Map<Long, Integer> reserved = new HashMap<>();
+        Map<Long, Integer> unmanaged = new HashMap<>();
+        List<Long> rejected = new ArrayList<>();
+        Counter counter = counters.get(productId);
+        if (counter == null) {
+            unmanaged.put(productId, quantity);
+        } else {
+            withLock(productId, () -> {
+                if (!counter.managed) {
+                    unmanaged.put(productId, quantity);
+                } else if (quantity > 0 && counter.available < quantity) {
+                    rejected.add(productId);
+                } else {
+                    counter.available -= quantity;
+                    counter.pending += quantity;
+                    reserved.put(productId, quantity);
+                }
+            });
+        }
+        StockReservation reservation = new StockReservation(reserved, unmanaged, rejected);
+        if (!reserved.isEmpty()) {
+            onRollback(() -> release(reservation));
+        }
+        return reservation;
+    }
+
+    /**
+     * Re-reads a managed product changed by an admin once the transaction commits. The counter is not set
+     * from the values written in the transaction: a flush may have taken reservations off the counter and be
+     * waiting on the row lock of that transaction, so only a read after that flush sees the real stock.
+     */
+    public void reconcileAfterCommit(Long productId) {
+        if (!counters.containsKey(productId)) {
+            return;
+        }
+        Runnable update = () -> maintain(() -> {
+            if (isManaged(productId)) {
+                reconcile(List.of(productId));
+            }
+        });
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    /**
+     * Writes reserved quantities to the database in one batch. Failed writes are kept for the next flush.
+     */
+    @Scheduled(fixedDelayString = "${inventory.flush-interval-ms:500}")
+    @PreDestroy
+    public void flush() {
+        maintain(this::flushPending);
+    }
+
+    private void flushPending() {
+        Map<Long, Integer> deltas = new HashMap<>();
+        counters.forEach((productId, counter) -> withLock(productId, () -> {
+            if (counter.pending != 0) {
+                deltas.put(productId, Math.toIntExact(counter.pending));
+                counter.pending = 0;
+            }
+        }));
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            productsRepository.subtractStock(deltas);
+        } catch (RuntimeException e) {
+            deltas.forEach((productId, delta) -> withLock(productId,
+                    () -> counters.get(productId).pending += delta));
+            logger.error("Failed to flush hot inventory for products: {}", deltas.keySet(), e);
+        }
+    }
+
+    /**
+     * Re-seeds every managed counter from the database, so stock changed by another node
+     * or directly in the database is picked up.
+     */
+    @Scheduled(fixedDelayString = "${inventory.reconcile-interval-ms:60000}",
+            initialDelayString = "${inventory.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        maintain(() -> {
+            List<Long> managed = counters.entrySet().stream()
+                    .filter(entry -> entry.getValue().managed)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            if (!managed.isEmpty()) {
+                reconcile(managed);
+            }
+        });
+    }
+
+    private void reconcile(List<Long> productIds) {
+        // Flushing first means the rows read below already include every delta taken off the counters,
+        // so available = database stock - reservations made since.
+        flushPending();
+        Map<Long, ProductStockView> stock = productsRepository.findStockViewsByIdIn(productIds).stream()
+                .collect(Collectors.toMap(ProductStockView::getId, Function.identity()));
+        for (Long productId : productIds) {
+            Counter counter = counters.get(productId);
+            ProductStockView view = stock.get(productId);
+            if (view == null) {
+                logger.warn("Hot inventory product not found, it will reject reservations. Product id: {}", productId);
+            }
+            withLock(productId, () -> {
+                counter.available = view == null ? 0 : view.getStockQuantity() - counter.pending;
+                counter.active = view != null && Boolean.TRUE.equals(view.getIsActive());
+            });
+        }
+        logger.info("Hot inventory reconciled for {} products", productIds.size());
+    }
+
+    public long getAvailable(Long productId) {
+        Counter counter = counters.get(productId);
+        if (counter == null) {
+            return 0;
+        }
+        long[] available = new long[1];
+        withLock(productId, () -> available[0] = counter.available);
+        return available[0];
+    }
+
+    private void adjust(Long productId, int quantity) {
+        Counter counter = counters.get(productId);
+        withLock(productId, () -> {
+            counter.available += quantity;
+            counter.pending -= quantity;
+        });
+    }
+
+    private void onRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+
+    private void maintain(Runnable action) {
+        maintenanceLock.lock();
+        try {
+            action.run();
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    private void withLock(Long productId, Runnable action) {
+        ReentrantLock lock = locks[Long.hashCode(productId * 0x9E3779B97F4A7C15L) >>> 26];
+        lock.lock();
+        try {
+            action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stock of one product. {@code pending} is what was reserved (or given back, if negative)
+     * since the last flush. Fields are guarded by the product's stripe lock.
+     */
+    private static final class Counter {
+        private long available;
+        private long pending;
+        private boolean active;
+        private volatile boolean managed;
+    }
+}
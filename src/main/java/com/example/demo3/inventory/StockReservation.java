@@ -0,0 +1,39 @@
+package com.example.demo3.inventory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Result of {@link HotProductInventory#reserve(Map)} and {@link HotProductInventory#changeStock(Long, int)}.
+ * Quantities of products that are not managed in memory are returned untouched so the caller can take
+ * them from the database. A negative quantity is stock that was added rather than taken.
+ */
+public final class StockReservation {
+    private final Map<Long, Integer> reserved;
+    private final Map<Long, Integer> unmanaged;
+    private final List<Long> rejected;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    public StockReservation(Map<Long, Integer> reserved, Map<Long, Integer> unmanaged, List<Long> rejected) {
+        this.reserved = Map.copyOf(reserved);
+        this.unmanaged = Map.copyOf(unmanaged);
+        this.rejected = List.copyOf(rejected);
+    }
+
+    public Map<Long, Integer> getReserved() {
+        return reserved;
+    }
+
+    public Map<Long, Integer> getUnmanaged() {
+        return unmanaged;
+    }
+
+    public List<Long> getRejected() {
+        return rejected;
+    }
+
+    boolean markReleased() {
+        return released.compareAndSet(false, true);
+    }
+}
@@ -23,6 +23,13 @@ public class CartItemMapper {
         return dto;
     }
 
+    CartItemDTO toDTO(ProductEntity product, int quantity) {
+        CartItemDTO dto = new CartItemDTO();
+        dto.setQuantity(quantity);
+        dto.setProduct(productMapper.toDTO(product));
+        return dto;
+    }
+
     List<CartItemDTO> toDTO(List<CartItemEntity> entityList) {
         return entityList.stream()
                 .map(this::toDTO)
@@ -2,8 +2,12 @@ package com.example.demo3.mapper;
 
 import com.example.demo3.dto.CartDTO;
 import com.example.demo3.entity.CartEntity;
+import com.example.demo3.entity.ProductEntity;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Map;
+
 @Component
 public class CartMapper {
     private final CartItemMapper cartItemMapper;
@@ -17,4 +21,12 @@ public class CartMapper {
         dto.setCartItems(cartItemMapper.toDTO(cartEntity.getCartItems()));
         return dto;
     }
+
+    public CartDTO toDTO(List<ProductEntity> products, Map<Long, Integer> quantities) {
+        CartDTO dto = new CartDTO();
+        dto.setCartItems(products.stream()
+                .map(product -> cartItemMapper.toDTO(product, quantities.get(product.getId())))
+                .toList());
+        return dto;
+    }
 }
@@ -1,14 +1,19 @@
 package com.example.demo3.mapper;
 
+import com.example.demo3.cache.CategoryTreeSnapshot;
 import com.example.demo3.dto.*;
 import com.example.demo3.entity.CategoryEntity;
 import com.example.demo3.repository.CategoryRepository;
+import com.example.demo3.repository.projection.CategoryView;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
 import java.util.stream.Collectors;
 
+import static com.example.demo3.utill.CursorCodec.encode;
+
 @Component
 public class CategoryMapper {
     private final CategoryRepository categoryRepository;
@@ -36,6 +41,23 @@ public class CategoryMapper {
         return dto;
     }
 
+    public CategoryBasicDTO toDTO(CategoryView view, CategoryTreeSnapshot snapshot) {
+        CategoryBasicDTO dto = new CategoryBasicDTO();
+        dto.setId(view.getId());
+        dto.setName(view.getName());
+        dto.setDescription(view.getDescription());
+        dto.setParent(view.getParentId());
+        dto.setChildren(snapshot.getChildren(view.getId())
+                .stream()
+                .map(child -> {
+                    CategoryChildDTO childDTO = new CategoryChildDTO();
+                    childDTO.setId(child.getId());
+                    childDTO.setName(child.getName());
+                    return childDTO;
+                }).toList());
+        return dto;
+    }
+
     public List<CategoryChildDTO> toChildrenDTOList(List<CategoryEntity> entities) {
         return entities.stream().map(child -> {
             CategoryChildDTO childDTO = new CategoryChildDTO();
@@ -65,12 +87,10 @@ public class CategoryMapper {
         return entity;
     }
 
-    public PageableResponseCategoryDTO createNewPageableResponseCategoryDTO(Page<CategoryEntity> pageable) {
+    public PageableResponseCategoryDTO createNewPageableResponseCategoryDTO(Page<CategoryView> pageable,
+                                                                            CategoryTreeSnapshot snapshot) {
         PageableResponseCategoryDTO response = new PageableResponseCategoryDTO();
-        response.setContent(this.toDTOList(pageable.getContent())
-                .stream()
-                .filter(category -> category.getParent() == null)
-                .toList());
+        response.setContent(toRootDTOList(pageable.getContent(), snapshot));
         response.setLast(pageable.isLast());
         response.setFirst(pageable.isFirst());
         response.setTotalPages(pageable.getTotalPages());
@@ -80,6 +100,39 @@ public class CategoryMapper {
         return response;
     }
 
+    public SliceResponseCategoryDTO createSliceResponseCategoryDTO(Slice<CategoryView> slice,
+                                                                   CategoryTreeSnapshot snapshot) {
+        SliceResponseCategoryDTO response = new SliceResponseCategoryDTO();
+        response.setContent(toRootDTOList(slice.getContent(), snapshot));
+        response.setPageSize(slice.getSize());
+        response.setHasNext(slice.hasNext());
+        response.setNextCursor(slice.hasNext()
+                ? encode(slice.getContent().get(slice.getNumberOfElements() - 1).getId())
+                : null);
+        return response;
+    }
+
+    private List<CategoryBasicDTO> toRootDTOList(List<CategoryView> views, CategoryTreeSnapshot snapshot) {
+        return views.stream()
+                .filter(view -> view.getParentId() == null)
+                .map(view -> toDTO(view, snapshot))
+                .toList();
+    }
+
+    public CategoryDTO createCategoryDTO(CategoryView view, CategoryTreeSnapshot snapshot) {
+        CategoryDTO categoryDTO = new CategoryDTO();
+        categoryDTO.setId(view.getId());
+        categoryDTO.setName(view.getName());
+        categoryDTO.setDescription(view.getDescription());
+        categoryDTO.setParent(view.getParentId() == null
+                ? null
+                : snapshot.findById(view.getParentId())
+                .map(parent -> createCategoryDTO(parent, snapshot))
+                .orElse(null));
+        categoryDTO.setCreatedAt(view.getCreatedAt());
+        return categoryDTO;
+    }
+
     public CategoryDTO createCategoryDTO(CategoryEntity entity) {
         CategoryDTO categoryDTO = new CategoryDTO();
         categoryDTO.setId(entity.getId());
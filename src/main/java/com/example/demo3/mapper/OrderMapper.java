@@ -1,17 +1,30 @@
 package com.example.demo3.mapper;
 
 import com.example.demo3.dto.CreateOrderRequestDTO;
+import com.example.demo3.dto.ProductBasicDTO;
 import com.example.demo3.dto.OrderEntityDTO;
 import com.example.demo3.dto.OrderItemEntityDTO;
+import com.example.demo3.dto.OrderSummaryDTO;
+import com.example.demo3.dto.PageableResponseOrderSummariesDTO;
 import com.example.demo3.dto.PageableResponseOrdersDTO;
+import com.example.demo3.dto.SliceResponseOrderSummariesDTO;
+import com.example.demo3.dto.SliceResponseOrdersDTO;
+import com.example.demo3.dto.UserProfileDTO;
 import com.example.demo3.entity.*;
+import com.example.demo3.repository.projection.OrderItemView;
+import com.example.demo3.repository.projection.OrderSummaryView;
+import com.example.demo3.repository.projection.OrderView;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import static com.example.demo3.utill.CursorCodec.encode;
+
 @Component
 public class OrderMapper {
     private final OrderItemMapper orderItemMapper;
@@ -51,19 +64,105 @@ public class OrderMapper {
         return orderEntityDTO;
     }
 
-    public PageableResponseOrdersDTO createPageableResponseOrdersDTO(Page<OrderEntity> orderEntityPage) {
+    public OrderEntityDTO toOrderEntityDTO(OrderView order, List<OrderItemEntityDTO> orderItems) {
+        OrderEntityDTO orderEntityDTO = new OrderEntityDTO();
+        orderEntityDTO.setId(order.getId());
+        orderEntityDTO.setOrderNumber(order.getOrderNumber());
+        orderEntityDTO.setStatus(order.getStatus());
+        orderEntityDTO.setTotalAmount(order.getTotalAmount());
+        orderEntityDTO.setShippingAddress(order.getShippingAddress());
+        orderEntityDTO.setCreatedAt(order.getCreatedAt());
+        orderEntityDTO.setUpdatedAt(order.getUpdatedAt());
+        UserProfileDTO user = new UserProfileDTO();
+        user.setId(order.getUserId());
+        user.setUsername(order.getUserUsername());
+        user.setEmail(order.getUserEmail());
+        user.setPhone(order.getUserPhone());
+        user.setFirstName(order.getUserFirstName());
+        user.setLastName(order.getUserLastName());
+        user.setCreatedAt(order.getUserCreatedAt());
+        orderEntityDTO.setUser(user);
+        orderEntityDTO.setOrderItems(orderItems);
+        return orderEntityDTO;
+    }
+
+    public OrderItemEntityDTO toOrderItemEntityDTO(OrderItemView orderItem, ProductBasicDTO product) {
+        OrderItemEntityDTO dto = new OrderItemEntityDTO();
+        dto.setId(orderItem.getId());
+        dto.setQuantity(orderItem.getQuantity());
+        dto.setUnitPrice(orderItem.getUnitPrice());
+        dto.setTotalPrice(orderItem.getTotalPrice());
+        dto.setProduct(product);
+        return dto;
+    }
+
+    public PageableResponseOrdersDTO createPageableResponseOrdersDTO(Page<OrderView> orderPage,
+                                                                     Map<Long, List<OrderItemEntityDTO>> orderItems) {
         PageableResponseOrdersDTO request = new PageableResponseOrdersDTO();
-        request.setContent(orderEntityPage.getContent().stream()
-                .map(this::toOrderEntityDTO).toList());
-        request.setPageNumber(orderEntityPage.getPageable().getPageNumber());
-        request.setPageSize(orderEntityPage.getPageable().getPageSize());
-        request.setTotalElements(orderEntityPage.getTotalElements());
-        request.setTotalPages(orderEntityPage.getTotalPages());
-        request.setFirst(orderEntityPage.getPageable().getPageNumber() == 0);
-        request.setLast(orderEntityPage.getTotalPages() == orderEntityPage.getPageable().getPageNumber());
+        request.setContent(orderPage.getContent().stream()
+                .map(order -> toOrderEntityDTO(order, orderItems.getOrDefault(order.getId(), List.of())))
+                .toList());
+        request.setPageNumber(orderPage.getPageable().getPageNumber());
+        request.setPageSize(orderPage.getPageable().getPageSize());
+        request.setTotalElements(orderPage.getTotalElements());
+        request.setTotalPages(orderPage.getTotalPages());
+        request.setFirst(orderPage.getPageable().getPageNumber() == 0);
+        request.setLast(orderPage.getTotalPages() == orderPage.getPageable().getPageNumber());
         return request;
     }
 
+    public SliceResponseOrdersDTO createSliceResponseOrdersDTO(Slice<OrderView> orderSlice,
+                                                               Map<Long, List<OrderItemEntityDTO>> orderItems) {
+        SliceResponseOrdersDTO response = new SliceResponseOrdersDTO();
+        response.setContent(orderSlice.getContent().stream()
+                .map(order -> toOrderEntityDTO(order, orderItems.getOrDefault(order.getId(), List.of())))
+                .toList());
+        response.setPageSize(orderSlice.getSize());
+        response.setHasNext(orderSlice.hasNext());
+        response.setNextCursor(orderSlice.hasNext()
+                ? encode(orderSlice.getContent().get(orderSlice.getNumberOfElements() - 1).getId())
+                : null);
+        return response;
+    }
+
+    public OrderSummaryDTO toOrderSummaryDTO(OrderSummaryView order) {
+        OrderSummaryDTO dto = new OrderSummaryDTO();
+        dto.setId(order.getId());
+        dto.setOrderNumber(order.getOrderNumber());
+        dto.setStatus(order.getStatus());
+        dto.setTotalAmount(order.getTotalAmount());
+        dto.setItemCount(order.getItemCount() != null ? order.getItemCount() : 0);
+        dto.setCreatedAt(order.getCreatedAt());
+        return dto;
+    }
+
+    public PageableResponseOrderSummariesDTO createPageableResponseOrderSummariesDTO(Page<OrderSummaryView> orderPage) {
+        PageableResponseOrderSummariesDTO response = new PageableResponseOrderSummariesDTO();
+        response.setContent(orderPage.getContent().stream()
+                .map(this::toOrderSummaryDTO)
+                .toList());
+        response.setPageNumber(orderPage.getNumber());
+        response.setPageSize(orderPage.getSize());
+        response.setTotalElements(orderPage.getTotalElements());
+        response.setTotalPages(orderPage.getTotalPages());
+        response.setFirst(orderPage.isFirst());
+        response.setLast(orderPage.isLast());
+        return response;
+    }
+
+    public SliceResponseOrderSummariesDTO createSliceResponseOrderSummariesDTO(Slice<OrderSummaryView> orderSlice) {
+        SliceResponseOrderSummariesDTO response = new SliceResponseOrderSummariesDTO();
+        response.setContent(orderSlice.getContent().stream()
+                .map(this::toOrderSummaryDTO)
+                .toList());
+        response.setPageSize(orderSlice.getSize());
+        response.setHasNext(orderSlice.hasNext());
+        response.setNextCursor(orderSlice.hasNext()
+                ? encode(orderSlice.getContent().get(orderSlice.getNumberOfElements() - 1).getId())
+                : null);
+        return response;
+    }
+
     public OrderEntity cancelOrder(OrderEntity order) {
         order.setStatus(OrderStatus.CANCELLED);
         order.setTotalAmount(BigDecimal.ZERO);
@@ -1,20 +1,34 @@
 package com.example.demo3.mapper;
 
+import com.example.demo3.cache.CategoryTreeCache;
+import com.example.demo3.cache.CategoryTreeSnapshot;
 import com.example.demo3.dto.*;
 import com.example.demo3.entity.CategoryEntity;
 import com.example.demo3.entity.ProductEntity;
+import com.example.demo3.repository.projection.CategoryChildView;
+import com.example.demo3.repository.projection.ProductFacetCount;
+import com.example.demo3.repository.projection.ProductView;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+import static com.example.demo3.repository.ProductsRepositoryCustom.PRICE_BUCKET_BOUNDS;
+import static com.example.demo3.utill.CursorCodec.encode;
+
 @Component
 public class ProductMapper {
     private final CategoryMapper categoryMapper;
+    private final CategoryTreeCache categoryTreeCache;
 
-    public ProductMapper(CategoryMapper categoryMapper) {
+    public ProductMapper(CategoryMapper categoryMapper, CategoryTreeCache categoryTreeCache) {
         this.categoryMapper = categoryMapper;
+        this.categoryTreeCache = categoryTreeCache;
     }
 
     public ProductWithoutCategoryDTO toProductWithoutCategoryDTO(ProductEntity entity) {
@@ -36,16 +50,46 @@ public class ProductMapper {
         dto.setPrice(entity.getPrice());
         dto.setStockQuantity(entity.getStockQuantity());
         dto.setActive(entity.getIsActive());
-        CategoryBasicDTO categoryDTO = new CategoryBasicDTO();
-        categoryDTO.setId(entity.getCategory().getId());
-        categoryDTO.setName(entity.getCategory().getName());
-        categoryDTO.setDescription(entity.getCategory().getDescription());
-        categoryDTO.setChildren(categoryMapper.toChildrenDTOList(entity.getCategory().getChildren()));
-        categoryDTO.setParent(entity.getCategory().getParent() != null
-                ? entity.getCategory().getParent().getId()
-                : null);
+        dto.setVersion(entity.getVersion());
+        CategoryTreeSnapshot snapshot = categoryTreeCache.getSnapshot();
+        dto.setCategory(snapshot.findById(entity.getCategory().getId())
+                .map(category -> categoryMapper.toDTO(category, snapshot))
+                .orElseGet(() -> {
+                    CategoryBasicDTO categoryDTO = new CategoryBasicDTO();
+                    categoryDTO.setId(entity.getCategory().getId());
+                    categoryDTO.setName(entity.getCategory().getName());
+                    categoryDTO.setDescription(entity.getCategory().getDescription());
+                    categoryDTO.setChildren(categoryMapper.toChildrenDTOList(entity.getCategory().getChildren()));
+                    categoryDTO.setParent(entity.getCategory().getParent() != null
+                            ? entity.getCategory().getParent().getId()
+                            : null);
+                    return categoryDTO;
+                }));
+        return dto;
+    }
 
-        dto.setCategory(categoryDTO);
+    public ProductBasicDTO toDTO(ProductView view) {
+        ProductBasicDTO dto = new ProductBasicDTO();
+        dto.setId(view.getId());
+        dto.setName(view.getName());
+        dto.setDescription(view.getDescription());
+        dto.setPrice(view.getPrice());
+        dto.setStockQuantity(view.getStockQuantity());
+        dto.setActive(view.getIsActive());
+        if (view.getCategoryId() != null) {
+            CategoryTreeSnapshot snapshot = categoryTreeCache.getSnapshot();
+            dto.setCategory(snapshot.findById(view.getCategoryId())
+                    .map(category -> categoryMapper.toDTO(category, snapshot))
+                    .orElseGet(() -> {
+                        CategoryBasicDTO categoryDTO = new CategoryBasicDTO();
+                        categoryDTO.setId(view.getCategoryId());
+                        categoryDTO.setName(view.getCategoryName());
+                        categoryDTO.setDescription(view.getCategoryDescription());
+                        categoryDTO.setChildren(List.of());
+                        categoryDTO.setParent(view.getCategoryParentId());
+                        return categoryDTO;
+                    }));
+        }
         return dto;
     }
 
@@ -59,7 +103,7 @@ public class ProductMapper {
         return entities.map(this::toDTO);
     }
 
-    public PageableResponseProducts createPageableResponseProducts(Page<ProductEntity> pageable) {
+    public PageableResponseProducts createPageableResponseProducts(Page<ProductView> pageable) {
         PageableResponseProducts pageableResponseProducts = new PageableResponseProducts();
         pageableResponseProducts.setContent(pageable.getContent()
                 .stream()
@@ -74,6 +118,20 @@ public class ProductMapper {
         return pageableResponseProducts;
     }
 
+    public SliceResponseProducts createSliceResponseProducts(Slice<ProductView> slice) {
+        SliceResponseProducts response = new SliceResponseProducts();
+        response.setContent(slice.getContent()
+                .stream()
+                .map(this::toDTO)
+                .toList());
+        response.setPageSize(slice.getSize());
+        response.setHasNext(slice.hasNext());
+        response.setNextCursor(slice.hasNext()
+                ? encode(slice.getContent().get(slice.getNumberOfElements() - 1).getId())
+                : null);
+        return response;
+    }
+
     public ProductEntity createProduct(ProductRequestDTO product, CategoryEntity category) {
         ProductEntity productEntity = new ProductEntity();
         productEntity.setName(product.getName());
@@ -113,12 +171,9 @@ public class ProductMapper {
         return productEntity;
     }
 
-    public PageableResponseGetProductsByCategory createPageableResponseGetProductsByCategory(Page<ProductEntity> productPage) {
+    public PageableResponseGetProductsByCategory createPageableResponseGetProductsByCategory(Page<ProductWithoutCategoryDTO> productPage) {
         PageableResponseGetProductsByCategory response = new PageableResponseGetProductsByCategory();
-        response.setContent(productPage.getContent()
-                .stream()
-                .map(this::toProductWithoutCategoryDTO)
-                .toList());
+        response.setContent(productPage.getContent());
         response.setLast(productPage.isLast());
         response.setFirst(productPage.isFirst());
         response.setPageNumber(productPage.getPageable().getPageNumber());
@@ -127,4 +182,60 @@ public class ProductMapper {
         response.setTotalElements(productPage.getTotalElements());
         return response;
     }
+
+    /**
+     * Builds the filter response. Category counts are rolled up to the direct children of
+     * {@code categoryId} (the root categories when it is null) and respect the price range; price
+     * counts ignore it so every bucket stays visible.
+     */
+    public ProductFilterResponseDTO createProductFilterResponse(Page<ProductView> page,
+                                                                List<ProductFacetCount> facets,
+                                                                Long categoryId) {
+        CategoryTreeSnapshot snapshot = categoryTreeCache.getSnapshot();
+        List<CategoryChildView> facetCategories = categoryId == null
+                ? snapshot.getRoots()
+                : snapshot.getChildren(categoryId);
+        Map<Long, Integer> facetIndexByCategoryId = new HashMap<>();
+        for (int i = 0; i < facetCategories.size(); i++) {
+            for (Long id : snapshot.getSubtreeIds(facetCategories.get(i).getId())) {
+                facetIndexByCategoryId.put(id, i);
+            }
+        }
+        long[] categoryCounts = new long[facetCategories.size()];
+        long[] priceCounts = new long[PRICE_BUCKET_BOUNDS.size()];
+        for (ProductFacetCount facet : facets) {
+            priceCounts[facet.getPriceBucket()] += facet.getCount();
+            Integer index = facetIndexByCategoryId.get(facet.getCategoryId());
+            if (facet.isInPriceRange() && index != null) {
+                categoryCounts[index] += facet.getCount();
+            }
+        }
+
+        List<CategoryFacetDTO> categories = new ArrayList<>();
+        for (int i = 0; i < facetCategories.size(); i++) {
+            if (categoryCounts[i] > 0) {
+                CategoryFacetDTO dto = new CategoryFacetDTO();
+                dto.setId(facetCategories.get(i).getId());
+                dto.setName(facetCategories.get(i).getName());
+                dto.setCount(categoryCounts[i]);
+                categories.add(dto);
+            }
+        }
+        List<PriceFacetDTO> prices = new ArrayList<>();
+        for (int i = 0; i < priceCounts.length; i++) {
+            if (priceCounts[i] > 0) {
+                PriceFacetDTO dto = new PriceFacetDTO();
+                dto.setFrom(PRICE_BUCKET_BOUNDS.get(i));
+                dto.setTo(i + 1 < PRICE_BUCKET_BOUNDS.size() ? PRICE_BUCKET_BOUNDS.get(i + 1) : null);
+                dto.setCount(priceCounts[i]);
+                prices.add(dto);
+            }
+        }
+
+        ProductFilterResponseDTO response = new ProductFilterResponseDTO();
+        response.setProducts(createPageableResponseProducts(page));
+        response.setCategories(categories);
+        response.setPrices(prices);
+        return response;
+    }
 }
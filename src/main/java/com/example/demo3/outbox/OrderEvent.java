@@ -0,0 +1,80 @@
+package com.example.demo3.outbox;
+
+import com.example.demo3.entity.OrderEventEntity;
+import com.example.demo3.entity.OrderEventType;
+import com.example.demo3.entity.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Order lifecycle change as handed to {@link OrderEventHandler}s. {@code id} grows with every event,
+ * so handlers can use it to recognize events they already processed.
+ */
+public final class OrderEvent {
+    private final long id;
+    private final OrderEventType type;
+    private final Long orderId;
+    private final Long userId;
+    private final OrderStatus status;
+    private final OrderStatus previousStatus;
+    private final BigDecimal totalAmount;
+    private final LocalDateTime createdAt;
+
+    public OrderEvent(long id, OrderEventType type, Long orderId, Long userId, OrderStatus status,
+                      OrderStatus previousStatus, BigDecimal totalAmount, LocalDateTime createdAt) {
+        this.id = id;
+        this.type = type;
+        this.orderId = orderId;
+        this.userId = userId;
+        this.status = status;
+        this.previousStatus = previousStatus;
+        this.totalAmount = totalAmount;
+        this.createdAt = createdAt;
+    }
+
+    static OrderEvent from(OrderEventEntity entity) {
+        return new OrderEvent(entity.getId(), entity.getType(), entity.getOrderId(), entity.getUserId(),
+                entity.getStatus(), entity.getPreviousStatus(), entity.getTotalAmount(), entity.getCreatedAt());
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public OrderEventType getType() {
+        return type;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Status before the change, or {@code null} for {@link OrderEventType#CREATED}.
+     */
+    public OrderStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderEvent{id=" + id + ", type=" + type + ", orderId=" + orderId + ", status=" + status + "}";
+    }
+}
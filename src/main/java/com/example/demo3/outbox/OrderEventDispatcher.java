@@ -0,0 +1,214 @@
+package com.example.demo3.outbox;
+
+import com.example.demo3.entity.OrderEventEntity;
+import com.example.demo3.entity.OrderEventPositionEntity;
+import com.example.demo3.repository.OrderEventPositionRepository;
+import com.example.demo3.repository.OrderEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers rows of the {@code order_events} outbox to every {@link OrderEventHandler}, off the request
+ * threads. Each handler has its own position, the id of the last event it processed, stored in
+ * {@code order_event_positions}. A batch of events and the new position are handled in one transaction;
+ * when the handler throws, the batch is rolled back and delivered again on the next run.
+ * <p>
+ * Ids are taken in insert order, but a transaction can commit after one that took a later id. When the
+ * next id is missing, delivery waits until the event after the gap is older than the gap timeout: by then
+ * the missing event was either committed and is read on the next run, or rolled back and never will be.
+ */
+@Component
+public class OrderEventDispatcher {
+    private static final int MAX_BATCHES_PER_RUN = 10;
+
+    private final Map<String, OrderEventHandler> handlers;
+    private final Map<String, HandlerState> states;
+    private final OrderEventRepository orderEventRepository;
+    private final OrderEventPositionRepository orderEventPositionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration gapTimeout;
+    private final Duration retention;
+    private final AtomicLong latestEventId = new AtomicLong();
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderEventDispatcher.class);
+
+    public OrderEventDispatcher(List<OrderEventHandler> handlers,
+                                OrderEventRepository orderEventRepository,
+                                OrderEventPositionRepository orderEventPositionRepository,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${outbox.batch-size:100}") int batchSize,
+                                @Value("${outbox.gap-timeout-ms:10000}") long gapTimeoutMs,
+                                @Value("${outbox.retention-days:7}") int retentionDays) {
+        this.handlers = handlers.stream()
+                .collect(Collectors.toMap(OrderEventHandler::getName, Function.identity(), (first, second) -> {
+                    throw new IllegalStateException("Two order event handlers are named " + first.getName());
+                }, TreeMap::new));
+        this.states = this.handlers.keySet().stream()
+                .collect(Collectors.toMap(Function.identity(), name -> new HandlerState(name, meterRegistry)));
+        this.orderEventRepository = orderEventRepository;
+        this.orderEventPositionRepository = orderEventPositionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.gapTimeout = Duration.ofMillis(gapTimeoutMs);
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.dispatch-interval-ms:200}")
+    public void dispatch() {
+        if (handlers.isEmpty()) {
+            return;
+        }
+        Long latest = orderEventRepository.findMaxId();
+        latestEventId.set(latest == null ? 0 : latest);
+        handlers.values().forEach(this::drain);
+    }
+
+    private void drain(OrderEventHandler handler) {
+        HandlerState state = states.get(handler.getName());
+        try {
+            for (int i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+                Boolean more = transactionTemplate.execute(status -> deliverBatch(handler, state));
+                if (!Boolean.TRUE.equals(more)) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            state.failures.increment();
+            logger.error("Order event handler {} failed after event id {}, the batch will be delivered again",
+                    handler.getName(), state.position, e);
+        }
+    }
+
+    /**
+     * @return whether a full batch was delivered, so more events may be waiting
+     */
+    private boolean deliverBatch(OrderEventHandler handler, HandlerState state) {
+        OrderEventPositionEntity position = lockPosition(handler.getName());
+        List<OrderEventEntity> events = orderEventRepository.findByIdGreaterThan(position.getPosition(),
+                PageRequest.of(0, batchSize, Sort.by("id")));
+        LocalDateTime gapDeadline = LocalDateTime.now().minus(gapTimeout);
+        long last = position.getPosition();
+        List<OrderEvent> deliverable = new ArrayList<>(events.size());
+        for (OrderEventEntity event : events) {
+            if (event.getId() != last + 1 && event.getCreatedAt().isAfter(gapDeadline)) {
+                break;
+            }
+            deliverable.add(OrderEvent.from(event));
+            last = event.getId();
+        }
+        int delivered = deliverable.size();
+        if (delivered > 0) {
+            handler.handleBatch(deliverable);
+        }
+        position.setPosition(last);
+        state.position = last;
+        state.pendingSince = delivered < events.size() ? events.get(delivered).getCreatedAt() : null;
+        state.delivered.increment(delivered);
+        return delivered == batchSize;
+    }
+
+    /**
+     * Moves the handler back (or forward) so that it gets every event after {@code position} again.
+     * Events older than the retention period may already be purged.
+     */
+    public void replay(String handler, long position) {
+        if (!handlers.containsKey(handler)) {
+            throw new IllegalArgumentException("Unknown order event handler: " + handler);
+        }
+        transactionTemplate.executeWithoutResult(status -> lockPosition(handler).setPosition(position));
+        states.get(handler).position = position;
+        logger.info("Order event handler {} replays events after id {}", handler, position);
+    }
+
+    public boolean hasHandler(String handler) {
+        return handlers.containsKey(handler);
+    }
+
+    /**
+     * Stored positions by handler name. Handlers that never ran are at 0.
+     */
+    public Map<String, Long> getPositions() {
+        Map<String, Long> positions = new TreeMap<>();
+        handlers.keySet().forEach(name -> positions.put(name, 0L));
+        orderEventPositionRepository.findAllById(handlers.keySet())
+                .forEach(position -> positions.put(position.getHandler(), position.getPosition()));
+        return positions;
+    }
+
+    public long getLatestEventId() {
+        Long latest = orderEventRepository.findMaxId();
+        return latest == null ? 0 : latest;
+    }
+
+    /**
+     * Deletes events that every handler has processed and that are older than the retention period.
+     */
+    @Scheduled(fixedDelayString = "${outbox.purge-interval-ms:3600000}",
+            initialDelayString = "${outbox.purge-interval-ms:3600000}")
+    public void purge() {
+        long delivered = getPositions().values().stream()
+                .mapToLong(Long::longValue)
+                .min()
+                .orElse(Long.MAX_VALUE);
+        Integer deleted = transactionTemplate.execute(status ->
+                orderEventRepository.deleteDelivered(delivered, LocalDateTime.now().minus(retention)));
+        logger.info("Order events purged: {}", deleted);
+    }
+
+    private OrderEventPositionEntity lockPosition(String handler) {
+        return orderEventPositionRepository.findForUpdate(handler)
+                .orElseGet(() -> orderEventPositionRepository.save(new OrderEventPositionEntity(handler, 0L)));
+    }
+
+    /**
+     * Metrics of one handler. Position and pending time are refreshed by each batch.
+     */
+    private final class HandlerState {
+        private volatile long position;
+        private volatile LocalDateTime pendingSince;
+        private final Counter delivered;
+        private final Counter failures;
+
+        private HandlerState(String handler, MeterRegistry meterRegistry) {
+            this.delivered = Counter.builder("outbox.order_events.delivered")
+                    .tag("handler", handler)
+                    .register(meterRegistry);
+            this.failures = Counter.builder("outbox.order_events.failures")
+                    .tag("handler", handler)
+                    .register(meterRegistry);
+            Gauge.builder("outbox.order_events.lag", this, state -> Math.max(0, latestEventId.get() - state.position))
+                    .tag("handler", handler)
+                    .description("Events written but not yet processed by the handler")
+                    .register(meterRegistry);
+            Gauge.builder("outbox.order_events.lag.seconds", this, state -> {
+                        LocalDateTime since = state.pendingSince;
+                        return since == null ? 0 : Duration.between(since, LocalDateTime.now()).toMillis() / 1000.0;
+                    })
+                    .tag("handler", handler)
+                    .description("Age of the oldest event the handler has not processed yet")
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.demo3.outbox;
+
+import java.util.List;
+
+/**
+ * Receives order events from {@link OrderEventDispatcher}. Every handler bean is picked up and gets
+ * every event in id order, independently of the other handlers.
+ * <p>
+ * Delivery is at least once: an event is delivered again if the handler, or the commit of its batch,
+ * fails, and after a replay. Handlers run in the dispatcher's transaction, so database writes made
+ * through it commit together with the handler's position.
+ */
+public interface OrderEventHandler {
+    /**
+     * Stable name under which the handler's position is stored. Renaming a handler starts it over.
+     */
+    String getName();
+
+    void handle(OrderEvent event);
+
+    /**
+     * Handles consecutive events of one batch. Handlers that can aggregate across events override this;
+     * by default each event is passed to {@link #handle(OrderEvent)}.
+     */
+    default void handleBatch(List<OrderEvent> events) {
+        events.forEach(this::handle);
+    }
+}
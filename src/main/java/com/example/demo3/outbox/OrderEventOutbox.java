@@ -0,0 +1,32 @@
+package com.example.demo3.outbox;
+
+import com.example.demo3.entity.OrderEntity;
+import com.example.demo3.entity.OrderEventEntity;
+import com.example.demo3.entity.OrderEventType;
+import com.example.demo3.entity.OrderStatus;
+import com.example.demo3.repository.OrderEventRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Records order changes in the {@code order_events} table. The row is written in the caller's
+ * transaction, so an event exists exactly when the change it describes was committed.
+ */
+@Component
+public class OrderEventOutbox {
+    private final OrderEventRepository orderEventRepository;
+
+    public OrderEventOutbox(OrderEventRepository orderEventRepository) {
+        this.orderEventRepository = orderEventRepository;
+    }
+
+    /**
+     * @param order          saved order, with its new status
+     * @param previousStatus status before the change, or {@code null} for a new order
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(OrderEventType type, OrderEntity order, OrderStatus previousStatus) {
+        orderEventRepository.save(new OrderEventEntity(type, order, previousStatus));
+    }
+}
@@ -8,6 +8,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,6 +18,8 @@ public interface CartItemRepository extends JpaRepository<CartItemEntity, Long>
 
     Optional<CartItemEntity> findByProductId(Long productId);
 
+    List<CartItemEntity> findByCartIdIn(Collection<Long> cartIds);
+
     @Modifying
     @Transactional
     @Query("DELETE FROM CartItemEntity ci WHERE ci.cart.id = :cartId")
@@ -1,12 +1,24 @@
 package com.example.demo3.repository;
 
 import com.example.demo3.entity.CartEntity;
+import com.example.demo3.repository.projection.CartLineView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CartRepository extends JpaRepository<CartEntity, Long> {
     Optional<CartEntity> findByUserId(Long userId);
+
+    /**
+     * Items of the user's cart, oldest first. A cart without items gives one row without a product,
+     * a user without a cart gives no rows.
+     */
+    @Query("SELECT c.id AS cartId, i.product.id AS productId, i.quantity AS quantity "
+            + "FROM CartEntity c LEFT JOIN c.cartItems i WHERE c.user.username = :username ORDER BY i.id")
+    List<CartLineView> findLinesByUsername(@Param("username") String username);
 }
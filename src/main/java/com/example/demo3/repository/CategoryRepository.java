@@ -1,9 +1,16 @@
 package com.example.demo3.repository;
 
 import com.example.demo3.entity.CategoryEntity;
+import com.example.demo3.repository.projection.CategoryView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface CategoryRepository extends JpaRepository<CategoryEntity, Long> {
+    @Query("SELECT c.id AS id, c.name AS name, c.description AS description, "
+            + "c.parent.id AS parentId, c.createdAt AS createdAt FROM CategoryEntity c")
+    List<CategoryView> findAllViews();
 }
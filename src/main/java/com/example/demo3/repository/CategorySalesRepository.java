@@ -0,0 +1,17 @@
+package com.example.demo3.repository;
+
+import com.example.demo3.entity.CategorySalesEntity;
+import com.example.demo3.repository.projection.CategorySalesView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CategorySalesRepository extends JpaRepository<CategorySalesEntity, Long> {
+    @Query("SELECT s.categoryId AS categoryId, c.name AS name, s.orders AS orders, s.units AS units, "
+            + "s.revenue AS revenue FROM CategorySalesEntity s JOIN CategoryEntity c ON c.id = s.categoryId "
+            + "WHERE s.units > 0 ORDER BY s.revenue DESC, s.categoryId")
+    List<CategorySalesView> findAllByRevenue();
+}
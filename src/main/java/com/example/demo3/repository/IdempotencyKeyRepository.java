@@ -0,0 +1,20 @@
+package com.example.demo3.repository;
+
+import com.example.demo3.entity.IdempotencyKeyEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKeyEntity, Long> {
+    Optional<IdempotencyKeyEntity> findByUsernameAndIdempotencyKey(String username, String idempotencyKey);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKeyEntity k WHERE k.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,21 @@
+package com.example.demo3.repository;
+
+import com.example.demo3.entity.OrderEventPositionEntity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface OrderEventPositionRepository extends JpaRepository<OrderEventPositionEntity, String> {
+    /**
+     * Locks the handler's row until the transaction ends, so only one node delivers to a handler at a time.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM OrderEventPositionEntity p WHERE p.handler = :handler")
+    Optional<OrderEventPositionEntity> findForUpdate(@Param("handler") String handler);
+}
@@ -0,0 +1,29 @@
+package com.example.demo3.repository;
+
+import com.example.demo3.entity.OrderEventEntity;
+import com.example.demo3.entity.OrderEventType;
+import com.example.demo3.repository.projection.OrderEventIdView;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderEventRepository extends JpaRepository<OrderEventEntity, Long> {
+    List<OrderEventEntity> findByIdGreaterThan(Long id, Pageable pageable);
+
+    List<OrderEventIdView> findIdViewsByTypeAndOrderIdIn(OrderEventType type, Collection<Long> orderIds);
+
+    @Query("SELECT max(e.id) FROM OrderEventEntity e")
+    Long findMaxId();
+
+    @Modifying
+    @Query("DELETE FROM OrderEventEntity e WHERE e.id <= :id AND e.createdAt < :before")
+    int deleteDelivered(@Param("id") Long id, @Param("before") LocalDateTime before);
+}
@@ -0,0 +1,36 @@
+package com.example.demo3.repository;
+
+import com.example.demo3.entity.OrderStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Conditions of the order export. {@code null} fields do not filter.
+ */
+public final class OrderExportFilter {
+    private final OrderStatus status;
+    private final LocalDateTime createdFrom;
+    private final LocalDateTime createdBefore;
+
+    /**
+     * @param createdFrom   inclusive lower bound of the order creation time
+     * @param createdBefore exclusive upper bound of the order creation time
+     */
+    public OrderExportFilter(OrderStatus status, LocalDateTime createdFrom, LocalDateTime createdBefore) {
+        this.status = status;
+        this.createdFrom = createdFrom;
+        this.createdBefore = createdBefore;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getCreatedFrom() {
+        return createdFrom;
+    }
+
+    public LocalDateTime getCreatedBefore() {
+        return createdBefore;
+    }
+}
@@ -1,12 +1,27 @@
 package com.example.demo3.repository;
 
 import com.example.demo3.entity.OrderItemEntity;
+import com.example.demo3.repository.projection.OrderItemSalesView;
+import com.example.demo3.repository.projection.OrderItemView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItemEntity, Long> {
     List<OrderItemEntity> findByOrderId(Long id);
+
+    @Query("SELECT i.order.id AS orderId, i.id AS id, i.product.id AS productId, i.quantity AS quantity, "
+            + "i.unitPrice AS unitPrice, i.totalPrice AS totalPrice "
+            + "FROM OrderItemEntity i WHERE i.order.id IN :orderIds ORDER BY i.id")
+    List<OrderItemView> findViewsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    @Query("SELECT o.id AS orderId, o.createdAt AS orderCreatedAt, p.id AS productId, p.category.id AS categoryId, "
+            + "i.quantity AS quantity, i.totalPrice AS totalPrice "
+            + "FROM OrderItemEntity i JOIN i.order o JOIN i.product p WHERE o.id IN :orderIds")
+    List<OrderItemSalesView> findSalesViewsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
 }
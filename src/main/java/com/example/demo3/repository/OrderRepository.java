@@ -2,14 +2,66 @@ package com.example.demo3.repository;
 
 import com.example.demo3.entity.OrderEntity;
 import com.example.demo3.entity.OrderStatus;
+import com.example.demo3.repository.projection.OrderSummaryView;
+import com.example.demo3.repository.projection.OrderView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface OrderRepository extends JpaRepository<OrderEntity, Long> {
+public interface OrderRepository extends JpaRepository<OrderEntity, Long>, OrderRepositoryCustom {
+    String ORDER_VIEW_SELECT = "SELECT o.id AS id, o.orderNumber AS orderNumber, o.status AS status, "
+            + "o.totalAmount AS totalAmount, o.shippingAddress AS shippingAddress, "
+            + "o.createdAt AS createdAt, o.updatedAt AS updatedAt, "
+            + "u.id AS userId, u.username AS userUsername, u.email AS userEmail, u.phone AS userPhone, "
+            + "u.firstName AS userFirstName, u.lastName AS userLastName, u.createdAt AS userCreatedAt "
+            + "FROM OrderEntity o JOIN o.user u";
+
+    // Orders of a user picked by username, so listing them does not need the user row loaded first
+    String ORDER_SUMMARY_SELECT = "SELECT o.id AS id, o.orderNumber AS orderNumber, o.status AS status, "
+            + "o.totalAmount AS totalAmount, o.createdAt AS createdAt, COALESCE(SUM(i.quantity), 0) AS itemCount "
+            + "FROM OrderEntity o JOIN o.user u LEFT JOIN o.orderItems i WHERE u.username = :username";
+    String ORDER_SUMMARY_GROUP_BY = " GROUP BY o.id, o.orderNumber, o.status, o.totalAmount, o.createdAt";
+
     Page<OrderEntity> findByUserId(Long userId, Pageable pageable);
 
     Page<OrderEntity> findByStatus(OrderStatus status, Pageable pageable);
+
+    @Query(value = ORDER_VIEW_SELECT,
+            countQuery = "SELECT count(o) FROM OrderEntity o")
+    Page<OrderView> findAllViews(Pageable pageable);
+
+    @Query(value = ORDER_VIEW_SELECT + " WHERE u.id = :userId",
+            countQuery = "SELECT count(o) FROM OrderEntity o WHERE o.user.id = :userId")
+    Page<OrderView> findViewsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(value = ORDER_VIEW_SELECT + " WHERE o.status = :status",
+            countQuery = "SELECT count(o) FROM OrderEntity o WHERE o.status = :status")
+    Page<OrderView> findViewsByStatus(@Param("status") OrderStatus status, Pageable pageable);
+
+    @Query(ORDER_VIEW_SELECT + " WHERE o.id > :id")
+    Slice<OrderView> findViewsByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+
+    @Query(ORDER_VIEW_SELECT + " WHERE u.id = :userId AND o.id > :id")
+    Slice<OrderView> findViewsByUserIdAndIdGreaterThan(@Param("userId") Long userId,
+                                                       @Param("id") Long id,
+                                                       Pageable pageable);
+
+    @Query(ORDER_VIEW_SELECT + " WHERE o.status = :status AND o.id > :id")
+    Slice<OrderView> findViewsByStatusAndIdGreaterThan(@Param("status") OrderStatus status,
+                                                       @Param("id") Long id,
+                                                       Pageable pageable);
+
+    @Query(value = ORDER_SUMMARY_SELECT + ORDER_SUMMARY_GROUP_BY,
+            countQuery = "SELECT count(o) FROM OrderEntity o WHERE o.user.username = :username")
+    Page<OrderSummaryView> findSummariesByUsername(@Param("username") String username, Pageable pageable);
+
+    @Query(ORDER_SUMMARY_SELECT + " AND o.id > :id" + ORDER_SUMMARY_GROUP_BY)
+    Slice<OrderSummaryView> findSummariesByUsernameAndIdGreaterThan(@Param("username") String username,
+                                                                    @Param("id") Long id,
+                                                                    Pageable pageable);
 }
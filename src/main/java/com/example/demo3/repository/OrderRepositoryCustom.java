@@ -0,0 +1,14 @@
+package com.example.demo3.repository;
+
+import com.example.demo3.repository.projection.OrderExportRow;
+
+import java.util.function.Consumer;
+
+public interface OrderRepositoryCustom {
+    /**
+     * Streams matching orders with their items, ordered by order id and item id, to {@code consumer}
+     * from a forward-only cursor. Rows are fetched in bounded batches and never collected, so memory
+     * use does not depend on the number of orders. The cursor only streams inside a transaction.
+     */
+    void exportRows(OrderExportFilter filter, Consumer<OrderExportRow> consumer);
+}
@@ -0,0 +1,75 @@
+package com.example.demo3.repository;
+
+import com.example.demo3.repository.projection.OrderExportRow;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+    static final int EXPORT_FETCH_SIZE = 500;
+
+    private static final String EXPORT_SELECT = "SELECT o.id AS order_id, o.order_number, o.status, "
+            + "o.total_amount, o.shipping_address, o.created_at, o.user_id, u.email AS user_email, "
+            + "oi.id AS item_id, oi.product_id, p.sku AS product_sku, p.name AS product_name, "
+            + "oi.quantity, oi.unit_price, oi.total_price "
+            + "FROM orders o JOIN users u ON u.id = o.user_id "
+            + "LEFT JOIN order_items oi ON oi.order_id = o.id "
+            + "LEFT JOIN products p ON p.id = oi.product_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void exportRows(OrderExportFilter filter, Consumer<OrderExportRow> consumer) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(EXPORT_SELECT).append(" WHERE 1 = 1");
+        if (filter.getStatus() != null) {
+            sql.append(" AND o.status = ?");
+            args.add(filter.getStatus().name());
+        }
+        if (filter.getCreatedFrom() != null) {
+            sql.append(" AND o.created_at >= ?");
+            args.add(Timestamp.valueOf(filter.getCreatedFrom()));
+        }
+        if (filter.getCreatedBefore() != null) {
+            sql.append(" AND o.created_at < ?");
+            args.add(Timestamp.valueOf(filter.getCreatedBefore()));
+        }
+        sql.append(" ORDER BY o.id, oi.id");
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(EXPORT_FETCH_SIZE);
+            for (int i = 0; i < args.size(); i++) {
+                statement.setObject(i + 1, args.get(i));
+            }
+            return statement;
+        }, rs -> {
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            consumer.accept(new OrderExportRow(
+                    rs.getLong("order_id"),
+                    rs.getString("order_number"),
+                    rs.getString("status"),
+                    rs.getBigDecimal("total_amount"),
+                    rs.getString("shipping_address"),
+                    createdAt != null ? createdAt.toLocalDateTime() : null,
+                    rs.getObject("user_id", Long.class),
+                    rs.getString("user_email"),
+                    rs.getObject("item_id", Long.class),
+                    rs.getObject("product_id", Long.class),
+                    rs.getString("product_sku"),
+                    rs.getString("product_name"),
+                    rs.getObject("quantity", Integer.class),
+                    rs.getBigDecimal("unit_price"),
+                    rs.getBigDecimal("total_price")));
+        });
+    }
+}
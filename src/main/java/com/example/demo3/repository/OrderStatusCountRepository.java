@@ -0,0 +1,10 @@
+package com.example.demo3.repository;
+
+import com.example.demo3.entity.OrderStatus;
+import com.example.demo3.entity.OrderStatusCountEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OrderStatusCountRepository extends JpaRepository<OrderStatusCountEntity, OrderStatus> {
+}
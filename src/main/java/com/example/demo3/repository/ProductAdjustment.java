@@ -0,0 +1,48 @@
+package com.example.demo3.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * One change applied by {@link ProductsRepositoryCustom#adjust(java.util.List)}. {@code null} fields are
+ * left as they are.
+ */
+public final class ProductAdjustment {
+    private final Long productId;
+    private final BigDecimal price;
+    private final int stockDelta;
+    private final Boolean active;
+    private final Long expectedVersion;
+
+    /**
+     * @param stockDelta      added to the stock, negative to take stock away
+     * @param active          new active flag, or {@code null} to keep it unless the stock is refilled
+     * @param expectedVersion version the product must still have, or {@code null} to skip the check
+     */
+    public ProductAdjustment(Long productId, BigDecimal price, int stockDelta, Boolean active, Long expectedVersion) {
+        this.productId = productId;
+        this.price = price;
+        this.stockDelta = stockDelta;
+        this.active = active;
+        this.expectedVersion = expectedVersion;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public int getStockDelta() {
+        return stockDelta;
+    }
+
+    public Boolean getActive() {
+        return active;
+    }
+
+    public Long getExpectedVersion() {
+        return expectedVersion;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.demo3.repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Conditions of the product filter. {@code null} fields do not filter.
+ */
+public final class ProductFilter {
+    private final List<Long> categoryIds;
+    private final BigDecimal minPrice;
+    private final BigDecimal maxPrice;
+    private final boolean inStockOnly;
+    private final boolean activeOnly;
+
+    /**
+     * @param categoryIds categories whose products match, usually a category with its descendants
+     */
+    public ProductFilter(Collection<Long> categoryIds, BigDecimal minPrice, BigDecimal maxPrice,
+                         boolean inStockOnly, boolean activeOnly) {
+        this.categoryIds = categoryIds == null ? null : List.copyOf(categoryIds);
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.inStockOnly = inStockOnly;
+        this.activeOnly = activeOnly;
+    }
+
+    public List<Long> getCategoryIds() {
+        return categoryIds;
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public boolean isInStockOnly() {
+        return inStockOnly;
+    }
+
+    public boolean isActiveOnly() {
+        return activeOnly;
+    }
+}
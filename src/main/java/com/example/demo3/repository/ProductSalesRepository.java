@@ -0,0 +1,18 @@
+package com.example.demo3.repository;
+
+import com.example.demo3.entity.ProductSalesEntity;
+import com.example.demo3.repository.projection.ProductSalesView;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ProductSalesRepository extends JpaRepository<ProductSalesEntity, Long> {
+    @Query("SELECT s.productId AS productId, p.name AS name, p.sku AS sku, s.orders AS orders, s.units AS units, "
+            + "s.revenue AS revenue FROM ProductSalesEntity s JOIN ProductEntity p ON p.id = s.productId "
+            + "WHERE s.units > 0 ORDER BY s.units DESC, s.productId")
+    List<ProductSalesView> findTopByUnits(Pageable pageable);
+}
@@ -0,0 +1,21 @@
+package com.example.demo3.repository;
+
+/**
+ * Sort orders of the product filter. Each ends with the id, so pages are stable.
+ */
+public enum ProductSort {
+    NEWEST("p.created_at DESC, p.id DESC"),
+    PRICE_ASC("p.price ASC, p.id ASC"),
+    PRICE_DESC("p.price DESC, p.id DESC"),
+    NAME("p.name ASC, p.id ASC");
+
+    private final String orderBy;
+
+    ProductSort(String orderBy) {
+        this.orderBy = orderBy;
+    }
+
+    String getOrderBy() {
+        return orderBy;
+    }
+}
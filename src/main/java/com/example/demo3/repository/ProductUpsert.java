@@ -0,0 +1,56 @@
+package com.example.demo3.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * One product written by {@link ProductsRepositoryCustom#upsertBySku(java.util.List)}. The id is used
+ * only when no product has the sku yet.
+ */
+public final class ProductUpsert {
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final BigDecimal price;
+    private final int stockQuantity;
+    private final Long categoryId;
+    private final String sku;
+
+    public ProductUpsert(Long id, String name, String description, BigDecimal price, int stockQuantity,
+                         Long categoryId, String sku) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+        this.categoryId = categoryId;
+        this.sku = sku;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public int getStockQuantity() {
+        return stockQuantity;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+}
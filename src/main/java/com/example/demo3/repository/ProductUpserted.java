@@ -0,0 +1,39 @@
+package com.example.demo3.repository;
+
+/**
+ * One product as written by {@link ProductsRepositoryCustom#upsertBySku(java.util.List)}. The id is the
+ * one the product has in the database, which differs from the proposed one when the sku already existed.
+ */
+public final class ProductUpserted {
+    private final Long id;
+    private final String sku;
+    private final boolean active;
+    private final boolean inserted;
+
+    /**
+     * @param active   active flag after the write
+     * @param inserted {@code true} when the row was inserted, {@code false} when an existing one was updated
+     */
+    public ProductUpserted(Long id, String sku, boolean active, boolean inserted) {
+        this.id = id;
+        this.sku = sku;
+        this.active = active;
+        this.inserted = inserted;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public boolean isInserted() {
+        return inserted;
+    }
+}
@@ -1,16 +1,89 @@
 package com.example.demo3.repository;
 
+import com.example.demo3.dto.ProductWithoutCategoryDTO;
 import com.example.demo3.entity.ProductEntity;
+import com.example.demo3.repository.projection.ProductSearchView;
+import com.example.demo3.repository.projection.ProductSkuView;
+import com.example.demo3.repository.projection.ProductStateView;
+import com.example.demo3.repository.projection.ProductStockView;
+import com.example.demo3.repository.projection.ProductVersionView;
+import com.example.demo3.repository.projection.ProductView;
+import com.example.demo3.repository.projection.ProductsVersionView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ProductsRepository extends JpaRepository<ProductEntity, Long> {
+public interface ProductsRepository extends JpaRepository<ProductEntity, Long>, ProductsRepositoryCustom {
+    String PRODUCT_VIEW_SELECT = "SELECT p.id AS id, p.name AS name, p.description AS description, "
+            + "p.price AS price, p.stockQuantity AS stockQuantity, p.isActive AS isActive, "
+            + "c.id AS categoryId, c.name AS categoryName, c.description AS categoryDescription, "
+            + "c.parent.id AS categoryParentId "
+            + "FROM ProductEntity p LEFT JOIN p.category c";
+
     Optional<ProductEntity> findBySku(String sku);
 
     Page<ProductEntity> findByCategoryId(Long categoryId, Pageable pageable);
+
+    @Query(value = "SELECT new com.example.demo3.dto.ProductWithoutCategoryDTO("
+            + "p.id, p.name, p.description, p.price, p.stockQuantity, p.isActive) "
+            + "FROM ProductEntity p WHERE p.category.id = :categoryId",
+            countQuery = "SELECT count(p) FROM ProductEntity p WHERE p.category.id = :categoryId")
+    Page<ProductWithoutCategoryDTO> findDTOsByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
+
+    /**
+     * Loads the product together with its category, so mapping to {@code ProductBasicDTO}
+     * needs no extra lookup. Category children are loaded in batches through
+     * {@code CategoryEntity.children}.
+     */
+    @EntityGraph(attributePaths = "category")
+    Optional<ProductEntity> findWithCategoryById(Long id);
+
+    /**
+     * Reads only the columns {@code ProductBasicDTO} needs. Category children are
+     * fetched separately for the whole page.
+     */
+    @Query(value = PRODUCT_VIEW_SELECT,
+            countQuery = "SELECT count(p) FROM ProductEntity p")
+    Page<ProductView> findAllViews(Pageable pageable);
+
+    @Query(PRODUCT_VIEW_SELECT + " WHERE p.id > :id")
+    Slice<ProductView> findViewsByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+
+    @Query(PRODUCT_VIEW_SELECT + " WHERE p.id IN :ids")
+    List<ProductView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.id AS id, p.stockQuantity AS stockQuantity, p.isActive AS isActive "
+            + "FROM ProductEntity p WHERE p.id IN :ids")
+    List<ProductStockView> findStockViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.id AS id, p.sku AS sku, p.isActive AS isActive FROM ProductEntity p WHERE p.sku IN :skus")
+    List<ProductSkuView> findSkuViewsBySkuIn(@Param("skus") Collection<String> skus);
+
+    @Query("SELECT p.id AS id, p.price AS price, p.stockQuantity AS stockQuantity, p.isActive AS isActive, "
+            + "p.version AS version FROM ProductEntity p WHERE p.id IN :ids")
+    List<ProductStateView> findStateViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Reads the fields the search index needs, in id order, for rebuilding the index page by page.
+     */
+    @Query("SELECT p.id AS id, p.name AS name, p.description AS description, p.sku AS sku, "
+            + "p.category.id AS categoryId, p.isActive AS isActive "
+            + "FROM ProductEntity p WHERE p.id > :id")
+    Slice<ProductSearchView> findSearchViewsByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT p.updatedAt AS updatedAt FROM ProductEntity p WHERE p.id = :id")
+    Optional<ProductVersionView> findVersionById(@Param("id") Long id);
+
+    @Query("SELECT count(p) AS count, max(p.updatedAt) AS updatedAt FROM ProductEntity p")
+    ProductsVersionView findVersion();
 }
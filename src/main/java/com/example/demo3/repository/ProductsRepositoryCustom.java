@@ -0,0 +1,77 @@
+package com.example.demo3.repository;
+
+import com.example.demo3.repository.projection.ProductFacetCount;
+import com.example.demo3.repository.projection.ProductView;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+public interface ProductsRepositoryCustom {
+    /**
+     * Lower bounds of the price buckets counted by {@link #countFacets(ProductFilter)}. Bucket {@code i}
+     * holds prices from {@code PRICE_BUCKET_BOUNDS[i]} up to, not including, the next bound; the last
+     * bucket is open ended.
+     */
+    List<BigDecimal> PRICE_BUCKET_BOUNDS = List.of(BigDecimal.ZERO, BigDecimal.valueOf(25), BigDecimal.valueOf(50),
+            BigDecimal.valueOf(100), BigDecimal.valueOf(250), BigDecimal.valueOf(500), BigDecimal.valueOf(1000));
+
+    /**
+     * Subtracts the given quantities in one JDBC batch. A row is updated only while the
+     * product is active and has enough stock, so concurrent orders cannot oversell.
+     *
+     * @param quantitiesByProductId quantity to take for each product id
+     * @return ids of products whose row was not updated
+     */
+    List<Long> decreaseStock(Map<Long, Integer> quantitiesByProductId);
+
+    /**
+     * Adds the given quantities back in one JDBC batch.
+     */
+    void increaseStock(Map<Long, Integer> quantitiesByProductId);
+
+    /**
+     * Subtracts the given quantities in one JDBC batch without any checks. Used to write back
+     * reservations already checked in memory; a negative quantity gives stock back.
+     */
+    void subtractStock(Map<Long, Integer> quantitiesByProductId);
+
+    /**
+     * Returns one page of products matching the filter. The total is not counted here, it comes from
+     * {@link #countFacets(ProductFilter)}.
+     */
+    List<ProductView> findViewsByFilter(ProductFilter filter, ProductSort sort, Pageable pageable);
+
+    /**
+     * Counts products matching the filter per category and price bucket in one aggregated query.
+     * The price range is not applied as a condition but reported in {@link ProductFacetCount#isInPriceRange()},
+     * so the price facet can show every bucket while the category facet and the total respect the range.
+     */
+    List<ProductFacetCount> countFacets(ProductFilter filter);
+
+    /**
+     * Takes {@code count} new product ids from {@code products_id_seq}, in blocks of the entity's
+     * allocation size, so they never collide with ids Hibernate hands out.
+     */
+    List<Long> allocateIds(int count);
+
+    /**
+     * Inserts products whose sku is new and updates name, description, price, stock and category of
+     * the others, in one statement. The active flag of existing products is kept; new products are
+     * active when they have stock. Skus must be unique within the list.
+     *
+     * @return the written products in no particular order, with the ids they have in the database
+     */
+    List<ProductUpserted> upsertBySku(List<ProductUpsert> products);
+
+    /**
+     * Applies the adjustments in one JDBC batch, in id order and in list order for the same product. A
+     * product whose stock was at zero or below and is refilled becomes active again, unless the adjustment
+     * sets the flag itself.
+     *
+     * @return rows updated per adjustment, in list order. 0 means the product does not exist, the stock
+     * would go negative or the product no longer has the expected version
+     */
+    int[] adjust(List<ProductAdjustment> adjustments);
+}
@@ -0,0 +1,371 @@
+package com.example.demo3.repository;
+
+import com.example.demo3.entity.ProductEntity;
+import com.example.demo3.repository.projection.ProductFacetCount;
+import com.example.demo3.repository.projection.ProductView;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ProductsRepositoryCustomImpl implements ProductsRepositoryCustom {
+    private static final String DECREASE_STOCK_SQL = "UPDATE products "
+            + "SET stock_quantity = stock_quantity - ?, version = version + 1, updated_at = CURRENT_TIMESTAMP "
+            + "WHERE id = ? AND stock_quantity >= ? AND is_active";
+    private static final String INCREASE_STOCK_SQL = "UPDATE products "
+            + "SET stock_quantity = stock_quantity + ?, version = version + 1, updated_at = CURRENT_TIMESTAMP "
+            + "WHERE id = ?";
+    // Unguarded: HotProductInventory already checked the quantities against its counter, which is only
+    // right while a single node manages the product.
+    private static final String SUBTRACT_STOCK_SQL = "UPDATE products "
+            + "SET stock_quantity = stock_quantity - ?, version = version + 1, updated_at = CURRENT_TIMESTAMP "
+            + "WHERE id = ?";
+    // Casts let PostgreSQL type the parameters that may be null. SET expressions read the old row. The guard
+    // only sees the row, so stock of hot products is changed through HotProductInventory instead.
+    private static final String ADJUST_SQL = "UPDATE products SET "
+            + "price = COALESCE(CAST(? AS DECIMAL(10, 2)), price), "
+            + "stock_quantity = stock_quantity + ?, "
+            + "is_active = CASE WHEN CAST(? AS BOOLEAN) IS NOT NULL THEN CAST(? AS BOOLEAN) "
+            + "WHEN stock_quantity <= 0 AND stock_quantity + ? > 0 THEN TRUE ELSE is_active END, "
+            + "version = version + 1, updated_at = CURRENT_TIMESTAMP "
+            + "WHERE id = ? AND stock_quantity + ? >= 0 "
+            + "AND (CAST(? AS BIGINT) IS NULL OR version = CAST(? AS BIGINT))";
+
+    private static final String PRODUCT_VIEW_SELECT = "SELECT p.id, p.name, p.description, p.price, "
+            + "p.stock_quantity, p.is_active, c.id AS category_id, c.name AS category_name, "
+            + "c.description AS category_description, c.parent_id AS category_parent_id "
+            + "FROM products p LEFT JOIN categories c ON c.id = p.category_id";
+
+    // Must match allocationSize of ProductEntity: each sequence value reserves the block ending at it.
+    private static final int ID_ALLOCATION_SIZE = 50;
+    private static final String ALLOCATE_IDS_SQL = "SELECT nextval('products_id_seq') FROM generate_series(1, ?)";
+    private static final String UPSERT_COLUMNS = "id, name, description, price, stock_quantity, category_id, sku, "
+            + "is_active, version, created_at, updated_at";
+    // Both statements take one row per product and return the written rows. An inserted row has no
+    // xmax on PostgreSQL and still version 0 after MERGE, while an update always bumps the version.
+    private static final String POSTGRESQL_UPSERT_SQL = "INSERT INTO products (" + UPSERT_COLUMNS + ") VALUES %s "
+            + "ON CONFLICT (sku) DO UPDATE SET name = EXCLUDED.name, description = EXCLUDED.description, "
+            + "price = EXCLUDED.price, stock_quantity = EXCLUDED.stock_quantity, "
+            + "category_id = EXCLUDED.category_id, version = products.version + 1, updated_at = EXCLUDED.updated_at "
+            + "RETURNING id, sku, is_active, (xmax = 0) AS inserted";
+    private static final String POSTGRESQL_UPSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, 0, CURRENT_TIMESTAMP, "
+            + "CURRENT_TIMESTAMP)";
+    // Standard SQL for databases without ON CONFLICT, such as H2 in tests.
+    private static final String MERGE_UPSERT_SQL = "SELECT id, sku, is_active, version = 0 AS inserted "
+            + "FROM FINAL TABLE (MERGE INTO products p USING (VALUES %s) "
+            + "AS s(id, name, description, price, stock_quantity, category_id, sku, is_active) ON p.sku = s.sku "
+            + "WHEN MATCHED THEN UPDATE SET name = s.name, description = s.description, price = s.price, "
+            + "stock_quantity = s.stock_quantity, category_id = s.category_id, version = p.version + 1, "
+            + "updated_at = CURRENT_TIMESTAMP "
+            + "WHEN NOT MATCHED THEN INSERT (" + UPSERT_COLUMNS + ") VALUES (s.id, s.name, s.description, "
+            + "s.price, s.stock_quantity, s.category_id, s.sku, s.is_active, 0, CURRENT_TIMESTAMP, "
+            + "CURRENT_TIMESTAMP))";
+    private static final String MERGE_UPSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private volatile Boolean postgreSql;
+
+    public ProductsRepositoryCustomImpl(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public List<Long> decreaseStock(Map<Long, Integer> quantitiesByProductId) {
+        List<Map.Entry<Long, Integer>> lines = sortedById(quantitiesByProductId);
+        if (lines.isEmpty()) {
+            return List.of();
+        }
+        int[] updated = jdbcTemplate.batchUpdate(DECREASE_STOCK_SQL,
+                lines.stream()
+                        .map(line -> new Object[]{line.getValue(), line.getKey(), line.getValue()})
+                        .toList());
+        evictFromCache(ids(lines));
+        List<Long> rejected = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                rejected.add(lines.get(i).getKey());
+            }
+        }
+        return rejected;
+    }
+
+    @Override
+    public void increaseStock(Map<Long, Integer> quantitiesByProductId) {
+        update(INCREASE_STOCK_SQL, quantitiesByProductId);
+    }
+
+    @Override
+    public void subtractStock(Map<Long, Integer> quantitiesByProductId) {
+        update(SUBTRACT_STOCK_SQL, quantitiesByProductId);
+    }
+
+    private void update(String sql, Map<Long, Integer> quantitiesByProductId) {
+        List<Map.Entry<Long, Integer>> lines = sortedById(quantitiesByProductId);
+        if (lines.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(sql,
+                lines.stream()
+                        .map(line -> new Object[]{line.getValue(), line.getKey()})
+                        .toList());
+        evictFromCache(ids(lines));
+    }
+
+    @Override
+    public int[] adjust(List<ProductAdjustment> adjustments) {
+        if (adjustments.isEmpty()) {
+            return new int[0];
+        }
+        // Stable sort, so adjustments of one product still apply in request order.
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < adjustments.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparing(i -> adjustments.get(i).getProductId()));
+        int[] updated = jdbcTemplate.batchUpdate(ADJUST_SQL,
+                order.stream()
+                        .map(adjustments::get)
+                        .map(adjustment -> new Object[]{adjustment.getPrice(), adjustment.getStockDelta(),
+                                adjustment.getActive(), adjustment.getActive(), adjustment.getStockDelta(),
+                                adjustment.getProductId(), adjustment.getStockDelta(),
+                                adjustment.getExpectedVersion(), adjustment.getExpectedVersion()})
+                        .toList());
+        evictFromCache(adjustments.stream().map(ProductAdjustment::getProductId).distinct().toList());
+        int[] result = new int[adjustments.size()];
+        for (int i = 0; i < updated.length; i++) {
+            result[order.get(i)] = updated[i];
+        }
+        return result;
+    }
+
+    @Override
+    public List<Long> allocateIds(int count) {
+        if (count <= 0) {
+            return List.of();
+        }
+        List<Long> blocks = jdbcTemplate.queryForList(ALLOCATE_IDS_SQL, Long.class,
+                (count + ID_ALLOCATION_SIZE - 1) / ID_ALLOCATION_SIZE);
+        List<Long> ids = new ArrayList<>(count);
+        for (Long last : blocks) {
+            for (long id = Math.max(1, last - ID_ALLOCATION_SIZE + 1); id <= last && ids.size() < count; id++) {
+                ids.add(id);
+            }
+        }
+        // A fresh sequence starts at 1, whose block holds only id 1.
+        if (ids.size() < count) {
+            ids.addAll(allocateIds(count - ids.size()));
+        }
+        return ids;
+    }
+
+    // Skus must be unique within one call, since ON CONFLICT and MERGE cannot touch the same row twice
+    // in one statement.
+    @Transactional
+    @Override
+    public List<ProductUpserted> upsertBySku(List<ProductUpsert> products) {
+        if (products.isEmpty()) {
+            return List.of();
+        }
+        boolean onPostgreSql = isPostgreSql();
+        String rows = String.join(", ",
+                Collections.nCopies(products.size(), onPostgreSql ? POSTGRESQL_UPSERT_ROW : MERGE_UPSERT_ROW));
+        List<Object> args = new ArrayList<>(products.size() * 8);
+        for (ProductUpsert product : products) {
+            Collections.addAll(args, product.getId(), product.getName(), product.getDescription(),
+                    product.getPrice(), product.getStockQuantity(), product.getCategoryId(), product.getSku(),
+                    product.getStockQuantity() > 0);
+        }
+        List<ProductUpserted> written = jdbcTemplate.query(
+                String.format(onPostgreSql ? POSTGRESQL_UPSERT_SQL : MERGE_UPSERT_SQL, rows),
+                (rs, rowNum) -> new ProductUpserted(rs.getLong("id"), rs.getString("sku"),
+                        rs.getBoolean("is_active"), rs.getBoolean("inserted")),
+                args.toArray());
+        evictFromCache(written.stream().map(ProductUpserted::getId).toList());
+        return written;
+    }
+
+    private boolean isPostgreSql() {
+        Boolean result = postgreSql;
+        if (result == null) {
+            String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            result = "PostgreSQL".equals(database);
+            postgreSql = result;
+        }
+        return result;
+    }
+
+    @Override
+    public List<ProductView> findViewsByFilter(ProductFilter filter, ProductSort sort, Pageable pageable) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(PRODUCT_VIEW_SELECT).append(where(filter, args));
+        if (filter.getMinPrice() != null) {
+            sql.append(" AND p.price >= ?");
+            args.add(filter.getMinPrice());
+        }
+        if (filter.getMaxPrice() != null) {
+            sql.append(" AND p.price <= ?");
+            args.add(filter.getMaxPrice());
+        }
+        sql.append(" ORDER BY ").append(sort.getOrderBy()).append(" LIMIT ? OFFSET ?");
+        args.add(pageable.getPageSize());
+        args.add(pageable.getOffset());
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new ProductRow(
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("description"),
+                rs.getBigDecimal("price"),
+                rs.getObject("stock_quantity", Integer.class),
+                rs.getObject("is_active", Boolean.class),
+                rs.getObject("category_id", Long.class),
+                rs.getString("category_name"),
+                rs.getString("category_description"),
+                rs.getObject("category_parent_id", Long.class)), args.toArray());
+    }
+
+    @Override
+    public List<ProductFacetCount> countFacets(ProductFilter filter) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder bucket = new StringBuilder("CASE");
+        for (int i = 1; i < PRICE_BUCKET_BOUNDS.size(); i++) {
+            bucket.append(" WHEN p.price < ? THEN ").append(i - 1);
+            args.add(PRICE_BUCKET_BOUNDS.get(i));
+        }
+        bucket.append(" ELSE ").append(PRICE_BUCKET_BOUNDS.size() - 1).append(" END");
+        String inPriceRange = "1";
+        if (filter.getMinPrice() != null || filter.getMaxPrice() != null) {
+            List<String> conditions = new ArrayList<>();
+            if (filter.getMinPrice() != null) {
+                conditions.add("p.price >= ?");
+                args.add(filter.getMinPrice());
+            }
+            if (filter.getMaxPrice() != null) {
+                conditions.add("p.price <= ?");
+                args.add(filter.getMaxPrice());
+            }
+            inPriceRange = "CASE WHEN " + String.join(" AND ", conditions) + " THEN 1 ELSE 0 END";
+        }
+        String sql = "SELECT category_id, price_bucket, in_price_range, COUNT(*) AS products FROM ("
+                + "SELECT p.category_id, " + bucket + " AS price_bucket, " + inPriceRange + " AS in_price_range "
+                + "FROM products p" + where(filter, args)
+                + ") f GROUP BY category_id, price_bucket, in_price_range";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new ProductFacetCount(
+                rs.getObject("category_id", Long.class),
+                rs.getInt("price_bucket"),
+                rs.getInt("in_price_range") == 1,
+                rs.getLong("products")), args.toArray());
+    }
+
+    private static String where(ProductFilter filter, List<Object> args) {
+        StringBuilder where = new StringBuilder(" WHERE 1 = 1");
+        if (filter.getCategoryIds() != null) {
+            if (filter.getCategoryIds().isEmpty()) {
+                return " WHERE 1 = 0";
+            }
+            where.append(" AND p.category_id IN (")
+                    .append(String.join(", ", Collections.nCopies(filter.getCategoryIds().size(), "?")))
+                    .append(")");
+            args.addAll(filter.getCategoryIds());
+        }
+        if (filter.isActiveOnly()) {
+            where.append(" AND p.is_active = TRUE");
+        }
+        if (filter.isInStockOnly()) {
+            where.append(" AND p.stock_quantity > 0");
+        }
+        return where.toString();
+    }
+
+    // These updates bypass Hibernate, so cached products would keep the old stock. Entries are evicted now
+    // and again after commit, since another transaction may cache the pre-commit row in between.
+    private void evictFromCache(List<Long> ids) {
+        Cache cache = entityManagerFactory.getCache();
+        Runnable evict = () -> ids.forEach(id -> cache.evict(ProductEntity.class, id));
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        }
+    }
+
+    private static List<Long> ids(List<Map.Entry<Long, Integer>> lines) {
+        return lines.stream().map(Map.Entry::getKey).toList();
+    }
+
+    // Rows are always locked in id order so two orders sharing products cannot deadlock.
+    private static List<Map.Entry<Long, Integer>> sortedById(Map<Long, Integer> quantitiesByProductId) {
+        return new ArrayList<>(new TreeMap<>(quantitiesByProductId).entrySet());
+    }
+
+    private record ProductRow(Long id, String name, String description, BigDecimal price, Integer stockQuantity,
+                              Boolean isActive, Long categoryId, String categoryName, String categoryDescription,
+                              Long categoryParentId) implements ProductView {
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getDescription() {
+            return description;
+        }
+
+        @Override
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        @Override
+        public Integer getStockQuantity() {
+            return stockQuantity;
+        }
+
+        @Override
+        public Boolean getIsActive() {
+            return isActive;
+        }
+
+        @Override
+        public Long getCategoryId() {
+            return categoryId;
+        }
+
+        @Override
+        public String getCategoryName() {
+            return categoryName;
+        }
+
+        @Override
+        public String getCategoryDescription() {
+            return categoryDescription;
+        }
+
+        @Override
+        public Long getCategoryParentId() {
+            return categoryParentId;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.demo3.repository;
+
+import com.example.demo3.entity.SalesHourlyEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SalesHourlyRepository extends JpaRepository<SalesHourlyEntity, LocalDateTime> {
+    List<SalesHourlyEntity> findByBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+            LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,9 @@
+package com.example.demo3.repository.projection;
+
+public interface CartLineView {
+    Long getCartId();
+
+    Long getProductId();
+
+    Integer getQuantity();
+}
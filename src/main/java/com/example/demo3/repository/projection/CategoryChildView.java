@@ -0,0 +1,9 @@
+package com.example.demo3.repository.projection;
+
+public interface CategoryChildView {
+    Long getParentId();
+
+    Long getId();
+
+    String getName();
+}
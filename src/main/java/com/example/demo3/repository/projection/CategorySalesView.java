@@ -0,0 +1,15 @@
+package com.example.demo3.repository.projection;
+
+import java.math.BigDecimal;
+
+public interface CategorySalesView {
+    Long getCategoryId();
+
+    String getName();
+
+    long getOrders();
+
+    long getUnits();
+
+    BigDecimal getRevenue();
+}
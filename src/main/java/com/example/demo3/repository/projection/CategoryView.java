@@ -0,0 +1,15 @@
+package com.example.demo3.repository.projection;
+
+import java.time.LocalDateTime;
+
+public interface CategoryView {
+    Long getId();
+
+    String getName();
+
+    String getDescription();
+
+    Long getParentId();
+
+    LocalDateTime getCreatedAt();
+}
@@ -0,0 +1,7 @@
+package com.example.demo3.repository.projection;
+
+public interface OrderEventIdView {
+    Long getId();
+
+    Long getOrderId();
+}
@@ -0,0 +1,106 @@
+package com.example.demo3.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One order item joined with its order. An order without items gives one row whose item fields are null.
+ */
+public final class OrderExportRow {
+    private final Long orderId;
+    private final String orderNumber;
+    private final String status;
+    private final BigDecimal totalAmount;
+    private final String shippingAddress;
+    private final LocalDateTime createdAt;
+    private final Long userId;
+    private final String userEmail;
+    private final Long itemId;
+    private final Long productId;
+    private final String productSku;
+    private final String productName;
+    private final Integer quantity;
+    private final BigDecimal unitPrice;
+    private final BigDecimal itemTotal;
+
+    public OrderExportRow(Long orderId, String orderNumber, String status, BigDecimal totalAmount,
+                          String shippingAddress, LocalDateTime createdAt, Long userId, String userEmail,
+                          Long itemId, Long productId, String productSku, String productName,
+                          Integer quantity, BigDecimal unitPrice, BigDecimal itemTotal) {
+        this.orderId = orderId;
+        this.orderNumber = orderNumber;
+        this.status = status;
+        this.totalAmount = totalAmount;
+        this.shippingAddress = shippingAddress;
+        this.createdAt = createdAt;
+        this.userId = userId;
+        this.userEmail = userEmail;
+        this.itemId = itemId;
+        this.productId = productId;
+        this.productSku = productSku;
+        this.productName = productName;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+        this.itemTotal = itemTotal;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public String getOrderNumber() {
+        return orderNumber;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public String getShippingAddress() {
+        return shippingAddress;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUserEmail() {
+        return userEmail;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getProductSku() {
+        return productSku;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public BigDecimal getUnitPrice() {
+        return unitPrice;
+    }
+
+    public BigDecimal getItemTotal() {
+        return itemTotal;
+    }
+}
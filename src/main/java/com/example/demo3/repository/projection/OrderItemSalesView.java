@@ -0,0 +1,18 @@
+package com.example.demo3.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public interface OrderItemSalesView {
+    Long getOrderId();
+
+    LocalDateTime getOrderCreatedAt();
+
+    Long getProductId();
+
+    Long getCategoryId();
+
+    Integer getQuantity();
+
+    BigDecimal getTotalPrice();
+}
@@ -0,0 +1,17 @@
+package com.example.demo3.repository.projection;
+
+import java.math.BigDecimal;
+
+public interface OrderItemView {
+    Long getOrderId();
+
+    Long getId();
+
+    Long getProductId();
+
+    Integer getQuantity();
+
+    BigDecimal getUnitPrice();
+
+    BigDecimal getTotalPrice();
+}
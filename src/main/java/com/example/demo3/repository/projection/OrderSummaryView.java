@@ -0,0 +1,23 @@
+package com.example.demo3.repository.projection;
+
+import com.example.demo3.entity.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Order header with the number of units ordered, for order history lists.
+ */
+public interface OrderSummaryView {
+    Long getId();
+
+    String getOrderNumber();
+
+    OrderStatus getStatus();
+
+    BigDecimal getTotalAmount();
+
+    Long getItemCount();
+
+    LocalDateTime getCreatedAt();
+}
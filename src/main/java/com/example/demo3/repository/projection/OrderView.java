@@ -0,0 +1,39 @@
+package com.example.demo3.repository.projection;
+
+import com.example.demo3.entity.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Order header joined with the owning user's profile columns.
+ */
+public interface OrderView {
+    Long getId();
+
+    String getOrderNumber();
+
+    OrderStatus getStatus();
+
+    BigDecimal getTotalAmount();
+
+    String getShippingAddress();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+
+    Long getUserId();
+
+    String getUserUsername();
+
+    String getUserEmail();
+
+    String getUserPhone();
+
+    String getUserFirstName();
+
+    String getUserLastName();
+
+    LocalDateTime getUserCreatedAt();
+}
@@ -0,0 +1,35 @@
+package com.example.demo3.repository.projection;
+
+/**
+ * Number of filtered products in one category and price bucket. {@code inPriceRange} tells whether
+ * these products also pass the price filter, so one query serves both the category and the price facet.
+ */
+public final class ProductFacetCount {
+    private final Long categoryId;
+    private final int priceBucket;
+    private final boolean inPriceRange;
+    private final long count;
+
+    public ProductFacetCount(Long categoryId, int priceBucket, boolean inPriceRange, long count) {
+        this.categoryId = categoryId;
+        this.priceBucket = priceBucket;
+        this.inPriceRange = inPriceRange;
+        this.count = count;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public int getPriceBucket() {
+        return priceBucket;
+    }
+
+    public boolean isInPriceRange() {
+        return inPriceRange;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
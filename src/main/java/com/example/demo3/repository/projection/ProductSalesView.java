@@ -0,0 +1,17 @@
+package com.example.demo3.repository.projection;
+
+import java.math.BigDecimal;
+
+public interface ProductSalesView {
+    Long getProductId();
+
+    String getName();
+
+    String getSku();
+
+    long getOrders();
+
+    long getUnits();
+
+    BigDecimal getRevenue();
+}
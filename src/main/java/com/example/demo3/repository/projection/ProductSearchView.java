@@ -0,0 +1,15 @@
+package com.example.demo3.repository.projection;
+
+public interface ProductSearchView {
+    Long getId();
+
+    String getName();
+
+    String getDescription();
+
+    String getSku();
+
+    Long getCategoryId();
+
+    Boolean getIsActive();
+}
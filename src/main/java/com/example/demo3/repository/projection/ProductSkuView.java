@@ -0,0 +1,7 @@
+package com.example.demo3.repository.projection;
+
+public interface ProductSkuView {
+    Long getId();
+
+    String getSku();
+}
@@ -0,0 +1,15 @@
+package com.example.demo3.repository.projection;
+
+import java.math.BigDecimal;
+
+public interface ProductStateView {
+    Long getId();
+
+    BigDecimal getPrice();
+
+    Integer getStockQuantity();
+
+    Boolean getIsActive();
+
+    Long getVersion();
+}
@@ -0,0 +1,9 @@
+package com.example.demo3.repository.projection;
+
+public interface ProductStockView {
+    Long getId();
+
+    Integer getStockQuantity();
+
+    Boolean getIsActive();
+}
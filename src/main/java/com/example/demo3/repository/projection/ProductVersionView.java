@@ -0,0 +1,7 @@
+package com.example.demo3.repository.projection;
+
+import java.time.LocalDateTime;
+
+public interface ProductVersionView {
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,28 @@
+package com.example.demo3.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Product row joined with its category, read without hydrating entities.
+ */
+public interface ProductView {
+    Long getId();
+
+    String getName();
+
+    String getDescription();
+
+    BigDecimal getPrice();
+
+    Integer getStockQuantity();
+
+    Boolean getIsActive();
+
+    Long getCategoryId();
+
+    String getCategoryName();
+
+    String getCategoryDescription();
+
+    Long getCategoryParentId();
+}
@@ -0,0 +1,12 @@
+package com.example.demo3.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Product count and newest update time, enough to tell whether any product list changed.
+ */
+public interface ProductsVersionView {
+    Long getCount();
+
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,245 @@
+package com.example.demo3.search;
+
+import com.example.demo3.entity.ProductEntity;
+import com.example.demo3.repository.ProductsRepository;
+import com.example.demo3.repository.projection.ProductSearchView;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollectorManager;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory Lucene index over product name, description and sku. Only active products are indexed.
+ * <p>
+ * The index is built from the database when the application starts and kept current by
+ * {@link #indexAfterCommit(ProductEntity)}. Writes become visible to searches on the next
+ * {@link #refresh()}, at most {@code search.refresh-interval-ms} later. Products changed directly in
+ * the database are picked up on the next restart.
+ */
+@Component
+public class ProductSearchIndex {
+    static final int EXACT_COUNT_THRESHOLD = 1000;
+    static final int MAX_RESULT_WINDOW = 10_000;
+    private static final int REBUILD_PAGE_SIZE = 1000;
+    private static final String ID = "id";
+    private static final String NAME = "name";
+    private static final String DESCRIPTION = "description";
+    private static final String SKU = "sku";
+    private static final String CATEGORY_ID = "categoryId";
+    private static final float NAME_BOOST = 3f;
+    private static final float SKU_BOOST = 2f;
+
+    private final ProductsRepository productsRepository;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    public ProductSearchIndex(ProductsRepository productsRepository) {
+        this.productsRepository = productsRepository;
+        try {
+            this.writer = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(analyzer));
+            this.searcherManager = new SearcherManager(writer, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.nanoTime();
+        long indexed = 0;
+        long lastId = 0;
+        try {
+            writer.deleteAll();
+            Slice<ProductSearchView> slice;
+            do {
+                slice = productsRepository.findSearchViewsByIdGreaterThan(lastId,
+                        PageRequest.of(0, REBUILD_PAGE_SIZE, Sort.by("id")));
+                for (ProductSearchView product : slice) {
+                    // updateDocument, not addDocument: indexAfterCommit may have written this product already.
+                    if (Boolean.TRUE.equals(product.getIsActive())) {
+                        writer.updateDocument(idTerm(product.getId()), document(product.getId(), product.getName(),
+                                product.getDescription(), product.getSku(), product.getCategoryId()));
+                        indexed++;
+                    }
+                    lastId = product.getId();
+                }
+            } while (slice.hasNext());
+            writer.commit();
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        logger.info("Product search index rebuilt. Products: {}, took {} ms",
+                indexed, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Indexes the product once the current transaction commits, or right away when there is none.
+     * Inactive products are removed from the index.
+     */
+    public void indexAfterCommit(ProductEntity product) {
+        Long id = product.getId();
+        Document document = Boolean.TRUE.equals(product.getIsActive())
+                ? document(id, product.getName(), product.getDescription(), product.getSku(),
+                product.getCategory() != null ? product.getCategory().getId() : null)
+                : null;
+        Runnable write = () -> {
+            try {
+                if (document != null) {
+                    writer.updateDocument(idTerm(id), document);
+                } else {
+                    writer.deleteDocuments(idTerm(id));
+                }
+            } catch (IOException e) {
+                logger.error("Failed to index product id: {}", id, e);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    write.run();
+                }
+            });
+        } else {
+            write.run();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${search.refresh-interval-ms:1000}")
+    public void refresh() {
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            logger.error("Failed to refresh product search index", e);
+        }
+    }
+
+    /**
+     * Finds active products whose name, description or sku contain every word of {@code text}.
+     * Matches in the name rank highest, then sku, then description.
+     *
+     * @param categoryId only products of this category, or {@code null} for all
+     */
+    public ProductSearchResult search(String text, Long categoryId, int page, int size) {
+        List<String> terms = analyze(text);
+        int window = (page + 1) * size;
+        if (terms.isEmpty() || window > MAX_RESULT_WINDOW) {
+            return new ProductSearchResult(List.of(), 0);
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (String term : terms) {
+            query.add(new BooleanQuery.Builder()
+                    .add(new BoostQuery(new TermQuery(new Term(NAME, term)), NAME_BOOST), BooleanClause.Occur.SHOULD)
+                    .add(new BoostQuery(new TermQuery(new Term(SKU, term)), SKU_BOOST), BooleanClause.Occur.SHOULD)
+                    .add(new TermQuery(new Term(DESCRIPTION, term)), BooleanClause.Occur.SHOULD)
+                    .build(), BooleanClause.Occur.MUST);
+        }
+        if (categoryId != null) {
+            query.add(LongPoint.newExactQuery(CATEGORY_ID, categoryId), BooleanClause.Occur.FILTER);
+        }
+        return search(query.build(), page * size, window);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+    }
+
+    private ProductSearchResult search(Query query, int from, int window) {
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs topDocs = searcher.search(query,
+                        new TopScoreDocCollectorManager(window, Math.max(window, EXACT_COUNT_THRESHOLD)));
+                StoredFields storedFields = searcher.storedFields();
+                List<Long> ids = new ArrayList<>();
+                ScoreDoc[] hits = topDocs.scoreDocs;
+                for (int i = from; i < hits.length; i++) {
+                    ids.add(Long.valueOf(storedFields.document(hits[i].doc).get(ID)));
+                }
+                return new ProductSearchResult(ids, topDocs.totalHits.value);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream tokens = analyzer.tokenStream(NAME, text)) {
+            CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (tokens.incrementToken()) {
+                terms.add(term.toString());
+            }
+            tokens.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    private static Term idTerm(Long id) {
+        return new Term(ID, id.toString());
+    }
+
+    private static Document document(Long id, String name, String description, String sku, Long categoryId) {
+        Document document = new Document();
+        document.add(new StringField(ID, id.toString(), Field.Store.YES));
+        document.add(new TextField(NAME, name, Field.Store.NO));
+        if (description != null) {
+            document.add(new TextField(DESCRIPTION, description, Field.Store.NO));
+        }
+        if (sku != null) {
+            document.add(new TextField(SKU, sku, Field.Store.NO));
+        }
+        if (categoryId != null) {
+            document.add(new LongPoint(CATEGORY_ID, categoryId));
+        }
+        return document;
+    }
+}
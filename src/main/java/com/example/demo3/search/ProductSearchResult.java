@@ -0,0 +1,25 @@
+package com.example.demo3.search;
+
+import java.util.List;
+
+/**
+ * One page of {@link ProductSearchIndex#search} hits, best match first.
+ * {@code totalHits} is exact up to {@link ProductSearchIndex#EXACT_COUNT_THRESHOLD} and a lower bound above it.
+ */
+public final class ProductSearchResult {
+    private final List<Long> productIds;
+    private final long totalHits;
+
+    public ProductSearchResult(List<Long> productIds, long totalHits) {
+        this.productIds = List.copyOf(productIds);
+        this.totalHits = totalHits;
+    }
+
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+
+    public long getTotalHits() {
+        return totalHits;
+    }
+}
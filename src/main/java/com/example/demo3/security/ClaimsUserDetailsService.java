@@ -0,0 +1,18 @@
+package com.example.demo3.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.Collection;
+
+/**
+ * User details service that can also build a principal from verified token claims.
+ */
+public interface ClaimsUserDetailsService extends UserDetailsService {
+
+    /**
+     * Builds user details from token claims without touching the database.
+     * The user entity is loaded only if a caller asks for it.
+     */
+    CustomUserDetails loadUserFromClaims(String username, Collection<? extends GrantedAuthority> authorities);
+}
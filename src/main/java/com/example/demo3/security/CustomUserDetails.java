@@ -6,56 +6,76 @@ import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class CustomUserDetails implements UserDetails {
-    private final UserEntity user;
-    private final Long id;
+    private final String username;
+    private final Collection<? extends GrantedAuthority> authorities;
+    private final Supplier<UserEntity> userLoader;
+    private UserEntity user;
 
     public CustomUserDetails(UserEntity user) {
         this.user = user;
-        this.id = user.getId();
+        this.username = user.getUsername();
+        this.authorities = List.of(user.getRole());
+        this.userLoader = () -> user;
+    }
+
+    /**
+     * Creates a principal from verified token claims.
+     * The user entity is loaded on first access and reused for the rest of the request.
+     */
+    public CustomUserDetails(String username,
+                             Collection<? extends GrantedAuthority> authorities,
+                             Supplier<UserEntity> userLoader) {
+        this.username = username;
+        this.authorities = List.copyOf(authorities);
+        this.userLoader = userLoader;
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return List.of(user.getRole());
+        return authorities;
     }
 
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return getUser().getPassword();
     }
 
     @Override
     public String getUsername() {
-        return user.getUsername();
+        return username;
     }
 
     @Override
     public boolean isAccountNonExpired() {
-        return user.isActive();
+        return getUser().isActive();
     }
 
     @Override
     public boolean isAccountNonLocked() {
-        return user.isActive();
+        return getUser().isActive();
     }
 
     @Override
     public boolean isCredentialsNonExpired() {
-        return user.isActive();
+        return getUser().isActive();
     }
 
     @Override
     public boolean isEnabled() {
-        return user.isActive();
+        return getUser().isActive();
     }
 
     public UserEntity getUser() {
+        if (user == null) {
+            user = userLoader.get();
+        }
         return user;
     }
 
     public Long getId() {
-        return this.id;
+        return getUser().getId();
     }
 }
@@ -6,28 +6,35 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * JWT authentication filter for validating tokens and setting authentication.
+ * In claims-only mode the principal is built from the token and the user row is loaded lazily.
  */
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthFilter.class);
     private final JwtUtil jwtUtil;
-    private final UserDetailsService userDetailsService;
+    private final ClaimsUserDetailsService userDetailsService;
+    private final boolean claimsOnlyAuthentication;
 
-    public JwtAuthFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
+    public JwtAuthFilter(JwtUtil jwtUtil,
+                         ClaimsUserDetailsService userDetailsService,
+                         @Value("${jwt.claims-only-authentication:true}") boolean claimsOnlyAuthentication) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.claimsOnlyAuthentication = claimsOnlyAuthentication;
     }
 
     @Override
@@ -37,18 +44,21 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         String header = request.getHeader("Authorization");
         String token = JwtUtil.removeBearerPrefix(header);
-        String username = null;
         try {
-            if (token != null && jwtUtil.validateJwtToken(token)) {
-                username = jwtUtil.getUsernameFromJwt(token);
+            VerifiedToken verifiedToken = token != null ? jwtUtil.verifyJwtToken(token).orElse(null) : null;
+            if (verifiedToken != null) {
+                String username = verifiedToken.getUsername();
                 if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                    List<GrantedAuthority> authorities = verifiedToken.getAuthorities();
+                    UserDetails userDetails = claimsOnlyAuthentication
+                            ? userDetailsService.loadUserFromClaims(username, authorities)
+                            : userDetailsService.loadUserByUsername(username);
                     if (userDetails != null) {
                         UsernamePasswordAuthenticationToken auth =
                                 new UsernamePasswordAuthenticationToken(
                                         userDetails,
                                         null,
-                                        jwtUtil.getAuthoritiesFromToken(token)
+                                        authorities
                                 );
                         auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                         SecurityContextHolder.getContext().setAuthentication(auth);
@@ -1,5 +1,8 @@
 package com.example.demo3.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
@@ -11,8 +14,12 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -27,19 +34,28 @@ public class JwtUtil {
     private final String jwtSecret;
     private final long accessTokenExpirationMs;
     private final long refreshTokenExpirationMs;
+    private final Cache<String, VerifiedToken> verifiedTokens;
     private Key signingKey;
+    private JwtParser jwtParser;
 
     public JwtUtil(
             @Value("${jwt.secret}") String jwtSecret,
             @Value("${jwt.access-token-expiration-ms}") long accessTokenExpirationMs,
-            @Value("${jwt.refresh-token-expiration-ms}") long refreshTokenExpirationMs) {
+            @Value("${jwt.refresh-token-expiration-ms}") long refreshTokenExpirationMs,
+            @Value("${jwt.verified-token-cache.max-size:10000}") long verifiedTokenCacheMaxSize) {
         this.jwtSecret = jwtSecret;
         this.accessTokenExpirationMs = accessTokenExpirationMs;
         this.refreshTokenExpirationMs = refreshTokenExpirationMs;
+        this.verifiedTokens = verifiedTokenCacheMaxSize > 0
+                ? Caffeine.newBuilder()
+                .maximumSize(verifiedTokenCacheMaxSize)
+                .expireAfter(new TokenExpiry())
+                .build()
+                : null;
     }
 
     /**
-     * Initializes the signing key and validates its length.
+     * Initializes the signing key and parser and validates the key length.
      */
     @PostConstruct
     private void init() {
@@ -48,6 +64,9 @@ public class JwtUtil {
             throw new IllegalArgumentException("JWT secret too short");
         }
         signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
     /**
@@ -81,37 +100,29 @@ public class JwtUtil {
      * Extracts username from JWT token.
      */
     public String getUsernameFromJwt(String token) {
-        return getClaims(token).map(Claims::getSubject).orElse(null);
+        return getVerifiedToken(token).getUsername();
     }
 
     /**
      * Extracts authorities from JWT token.
      */
     public List<GrantedAuthority> getAuthoritiesFromToken(String token) {
-        return getClaims(token)
-                .map(claims -> {
-                    Object roles = claims.get(ROLES_CLAIM);
-                    if (roles instanceof List<?> rolesList) {
-                        List<GrantedAuthority> authorities = new ArrayList<>();
-                        for (Object role : rolesList) {
-                            if (role != null) {
-                                authorities.add(new SimpleGrantedAuthority(role.toString()));
-                            }
-                        }
-                        return authorities;
-                    }
-                    return Collections.<GrantedAuthority>emptyList();
-                })
-                .orElse(Collections.emptyList());
+        return getVerifiedToken(token).getAuthorities();
     }
 
     /**
      * Validates JWT token and logs errors.
      */
     public boolean validateJwtToken(String token) {
+        return verifyJwtToken(token).isPresent();
+    }
+
+    /**
+     * Verifies the token once and returns its claims, or empty if the token is invalid.
+     */
+    public Optional<VerifiedToken> verifyJwtToken(String token) {
         try {
-            getClaims(token);
-            return true;
+            return Optional.of(getVerifiedToken(token));
         } catch (ExpiredJwtException e) {
             logger.warn("JWT token expired: {}", e.getMessage());
         } catch (UnsupportedJwtException e) {
@@ -123,26 +134,66 @@ public class JwtUtil {
         } catch (IllegalArgumentException e) {
             logger.warn("JWT token illegal argument: {}", e.getMessage());
         }
-        return false;
+        return Optional.empty();
     }
 
     /**
-     * Removes Bearer prefix and parses claims.
+     * Removes Bearer prefix and returns verified claims, parsing the token only on a cache miss.
+     * With a cache size of 0 every token is parsed.
      */
-    private Optional<Claims> getClaims(String token) {
+    private VerifiedToken getVerifiedToken(String token) {
         String cleanedToken = removeBearerPrefix(token);
+        if (cleanedToken == null || cleanedToken.isBlank()) {
+            throw new IllegalArgumentException("JWT token is empty");
+        }
+        if (verifiedTokens == null) {
+            return toVerifiedToken(getClaims(cleanedToken));
+        }
+        String tokenHash = hash(cleanedToken);
+        VerifiedToken cached = verifiedTokens.getIfPresent(tokenHash);
+        if (cached != null && !cached.isExpired(System.currentTimeMillis())) {
+            return cached;
+        }
+        VerifiedToken verified = toVerifiedToken(getClaims(cleanedToken));
+        if (verified.getExpiration() != null) {
+            verifiedTokens.put(tokenHash, verified);
+        }
+        return verified;
+    }
+
+    /**
+     * Checks the signature and parses claims.
+     */
+    private Claims getClaims(String token) {
         try {
-            return Optional.of(Jwts.parserBuilder()
-                    .setSigningKey(signingKey)
-                    .build()
-                    .parseClaimsJws(cleanedToken)
-                    .getBody());
+            return jwtParser.parseClaimsJws(token).getBody();
         } catch (JwtException | IllegalArgumentException e) {
             logger.error("Failed to parse JWT claims: {}", e.getMessage());
             throw e;
         }
     }
 
+    private static VerifiedToken toVerifiedToken(Claims claims) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        if (claims.get(ROLES_CLAIM) instanceof List<?> rolesList) {
+            for (Object role : rolesList) {
+                if (role != null) {
+                    authorities.add(new SimpleGrantedAuthority(role.toString()));
+                }
+            }
+        }
+        return new VerifiedToken(claims.getSubject(), authorities, claims.getExpiration());
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
     /**
      * Removes "Bearer " prefix from token if present.
      */
@@ -152,4 +203,25 @@ public class JwtUtil {
         }
         return token;
     }
+
+    /**
+     * Expires cached entries at the token's own expiration time.
+     */
+    private static class TokenExpiry implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            long ttlMs = value.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(ttlMs, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package com.example.demo3.security;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -63,6 +64,10 @@ public class SecurityConfig {
                                 "/api/categories",
                                 "/api/categories/{id}")
                         .permitAll()
+                        .requestMatchers(HttpMethod.GET, "/actuator/health")
+                        .permitAll()
+                        .requestMatchers("/actuator/**")
+                        .hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
@@ -84,8 +89,13 @@ public class SecurityConfig {
         return source;
     }
 
+    /**
+     * Hashes made with another version or a lower strength are upgraded on the next successful login.
+     */
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BCryptPasswordEncoder passwordEncoder(
+            @Value("${password.bcrypt.version:$2A}") BCryptPasswordEncoder.BCryptVersion version,
+            @Value("${password.bcrypt.strength:10}") int strength) {
+        return new VersionedBCryptPasswordEncoder(version, strength);
     }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.example.demo3.security;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Claims of a JWT whose signature and expiration have already been checked.
+ */
+public final class VerifiedToken {
+    private final String username;
+    private final List<GrantedAuthority> authorities;
+    private final Date expiration;
+
+    public VerifiedToken(String username, List<GrantedAuthority> authorities, Date expiration) {
+        this.username = username;
+        this.authorities = List.copyOf(authorities);
+        this.expiration = expiration;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    public Date getExpiration() {
+        return expiration;
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return expiration != null && expiration.getTime() <= nowMillis;
+    }
+}
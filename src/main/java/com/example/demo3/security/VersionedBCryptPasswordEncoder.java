@@ -0,0 +1,24 @@
+package com.example.demo3.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt encoder that also asks for a rehash when a stored hash was made with another BCrypt version,
+ * not only with a lower strength.
+ */
+public class VersionedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+    private final String versionPrefix;
+
+    public VersionedBCryptPasswordEncoder(BCryptVersion version, int strength) {
+        super(version, strength);
+        this.versionPrefix = version.getVersion() + "$";
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isEmpty()) {
+            return false;
+        }
+        return !encodedPassword.startsWith(versionPrefix) || super.upgradeEncoding(encodedPassword);
+    }
+}
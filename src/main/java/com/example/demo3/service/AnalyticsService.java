@@ -0,0 +1,21 @@
+package com.example.demo3.service;
+
+import com.example.demo3.dto.CategorySalesDTO;
+import com.example.demo3.dto.OrderFunnelStepDTO;
+import com.example.demo3.dto.ProductSalesDTO;
+import com.example.demo3.dto.SalesPeriodDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface AnalyticsService {
+    List<SalesPeriodDTO> getHourlySales(LocalDate from, LocalDate to, String userAgent);
+
+    List<SalesPeriodDTO> getDailySales(LocalDate from, LocalDate to, String userAgent);
+
+    List<ProductSalesDTO> getTopProducts(int limit, String userAgent);
+
+    List<CategorySalesDTO> getCategorySales(String userAgent);
+
+    List<OrderFunnelStepDTO> getOrderFunnel(String userAgent);
+}
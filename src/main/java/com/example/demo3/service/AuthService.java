@@ -5,6 +5,11 @@ import com.example.demo3.entity.UserEntity;
 public interface AuthService {
     UserEntity getCurrentAuthenticatedUser();
 
+    /**
+     * Name of the authenticated user, taken from the token without loading the user.
+     */
+    String getCurrentUsername();
+
     void validateToken(String token, String requestId);
 
     UserEntity validateTokenAndGetUser(String token, String requestId);
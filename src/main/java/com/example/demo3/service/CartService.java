@@ -15,4 +15,6 @@ public interface CartService {
     int clearCart(String userAgent);
 
     void deleteAllByCartId(Long id);
+
+    void flushCartForOrder(String username);
 }
@@ -3,11 +3,17 @@ package com.example.demo3.service;
 import com.example.demo3.dto.CategoryCreateRequestDTO;
 import com.example.demo3.dto.CategoryDTO;
 import com.example.demo3.dto.PageableResponseCategoryDTO;
+import com.example.demo3.dto.ResourceVersion;
+import com.example.demo3.dto.SliceResponseCategoryDTO;
 import com.example.demo3.entity.CategoryEntity;
 
 public interface CategoryService {
+    ResourceVersion getCategoriesVersion(String userAgent);
+
     PageableResponseCategoryDTO getAllCategories(int page, int size, String userAgent);
 
+    SliceResponseCategoryDTO getAllCategoriesByCursor(String after, int size, String userAgent);
+
     CategoryEntity getCategory(Long id, String requestId);
 
     CategoryDTO getCategoryById(Long id, String userAgent);
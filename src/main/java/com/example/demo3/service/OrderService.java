@@ -2,19 +2,63 @@ package com.example.demo3.service;
 
 import com.example.demo3.dto.CreateOrderRequestDTO;
 import com.example.demo3.dto.OrderEntityDTO;
+import com.example.demo3.dto.OrderEventHandlerDTO;
+import com.example.demo3.dto.PageableResponseOrderSummariesDTO;
 import com.example.demo3.dto.PageableResponseOrdersDTO;
+import com.example.demo3.dto.SliceResponseOrderSummariesDTO;
+import com.example.demo3.dto.SliceResponseOrdersDTO;
 import com.example.demo3.dto.UpdateOrderStatusRequestDTO;
+import com.example.demo3.entity.OrderStatus;
+import com.example.demo3.export.OrderExportFormat;
+import com.example.demo3.export.OrderExportTarget;
+
+import java.time.LocalDate;
+import java.util.List;
 
 public interface OrderService {
-    Long createOrder(CreateOrderRequestDTO request, String userAgent);
+    /**
+     * Creates an order from the user's cart. A request repeating an earlier {@code idempotencyKey} of the
+     * same user returns the order created the first time, without creating another one.
+     *
+     * @param idempotencyKey key chosen by the client for this request, or null
+     */
+    Long createOrder(CreateOrderRequestDTO request, String idempotencyKey, String userAgent);
 
     PageableResponseOrdersDTO getUserOrders(int page, int size, String userAgent);
 
+    SliceResponseOrdersDTO getUserOrdersByCursor(String after, int size, String userAgent);
+
+    /**
+     * Lists the user's orders without items, each with the number of units ordered, from one query.
+     */
+    PageableResponseOrderSummariesDTO getUserOrderSummaries(int page, int size, String userAgent);
+
+    SliceResponseOrderSummariesDTO getUserOrderSummariesByCursor(String after, int size, String userAgent);
+
     OrderEntityDTO getOrderDetails(Long id, String userAgent);
 
     void cancelOrder(Long orderId, String userAgent);
 
     PageableResponseOrdersDTO getAllOrders(int page, int size, String status, String userAgent);
 
+    SliceResponseOrdersDTO getAllOrdersByCursor(String after, int size, String status, String userAgent);
+
+    /**
+     * Writes all orders matching the filters, with their items, to the target while reading them.
+     * The target is opened after the filters are validated.
+     *
+     * @param from first day of order creation to include, or null
+     * @param to   last day of order creation to include, or null
+     */
+    void exportOrders(OrderStatus status, LocalDate from, LocalDate to, OrderExportFormat format,
+                      OrderExportTarget target, String userAgent);
+
     void updateOrderStatus(Long orderId, UpdateOrderStatusRequestDTO request, String userAgent);
+
+    List<OrderEventHandlerDTO> getOrderEventHandlers(String userAgent);
+
+    /**
+     * Makes the handler process every order event after {@code position} again.
+     */
+    void replayOrderEvents(String handler, long position, String userAgent);
 }
@@ -4,29 +4,53 @@ import com.example.demo3.dto.*;
 import com.example.demo3.entity.CartItemEntity;
 import com.example.demo3.entity.OrderItemEntity;
 import com.example.demo3.entity.ProductEntity;
+import com.example.demo3.importer.ProductImportFormat;
+import com.example.demo3.repository.ProductSort;
 
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface ProductService {
     ProductBasicDTO getProductById(Long id, String userAgent);
 
+    ResourceVersion getProductVersion(Long id, String userAgent);
+
+    ResourceVersion getAllProductsVersion(String userAgent);
+
     PageableResponseProducts getAllProducts(int page, int size, String userAgent);
 
+    SliceResponseProducts getAllProductsByCursor(String after, int size, String userAgent);
+
+    PageableResponseProducts searchProducts(String query, Long categoryId, int page, int size, String userAgent);
+
+    ProductFilterResponseDTO filterProducts(Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                                            boolean inStockOnly, boolean activeOnly, ProductSort sort,
+                                            int page, int size, String userAgent);
+
     Long addProduct(ProductRequestDTO product, String userAgent);
 
+    ProductImportResultDTO importProducts(ProductImportFormat format, InputStream in, String userAgent);
+
     void updateProduct(UpdateProductRequestDTO product, String userAgent);
 
     void changeIsActive(Long id, String userAgent);
 
+    AdjustProductsResponseDTO adjustProducts(AdjustProductsRequestDTO request, String userAgent);
+
+    void changeHotInventory(Long id, boolean enabled, String userAgent);
+
     ProductEntity validateAndGetProduct(Long productId, String requestId);
 
     ProductEntity getProduct(Long productId, String requestId);
 
+    Map<Long, ProductBasicDTO> getProductDTOsByIds(Collection<Long> productIds);
+
     PageableResponseGetProductsByCategory getAllProductByCategoryId(Long categoryId, int page, int size, String userAgent);
 
     void increaseStockForOrderItems(List<OrderItemEntity> orderItems);
 
-    void decreaseStockForOrderItems(List<CartItemEntity> cartItems);
-
-    void validateProductsForOrder(List<CartItemEntity> cartItems, String requestId);
+    void decreaseStockForOrderItems(List<CartItemEntity> cartItems, String requestId);
 }
@@ -0,0 +1,181 @@
+package com.example.demo3.service.impl;
+
+import com.example.demo3.dto.CategorySalesDTO;
+import com.example.demo3.dto.OrderFunnelStepDTO;
+import com.example.demo3.dto.ProductSalesDTO;
+import com.example.demo3.dto.SalesPeriodDTO;
+import com.example.demo3.entity.OrderStatus;
+import com.example.demo3.entity.OrderStatusCountEntity;
+import com.example.demo3.entity.SalesHourlyEntity;
+import com.example.demo3.exception.BadRequestException;
+import com.example.demo3.repository.CategorySalesRepository;
+import com.example.demo3.repository.OrderStatusCountRepository;
+import com.example.demo3.repository.ProductSalesRepository;
+import com.example.demo3.repository.SalesHourlyRepository;
+import com.example.demo3.service.AnalyticsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.demo3.utill.GenerateRequestID.currentRequestID;
+
+/**
+ * Reads the sales rollups kept by {@link com.example.demo3.analytics.SalesRollupHandler}. Nothing here
+ * touches the orders tables; figures trail the orders by the order events dispatch delay.
+ */
+@Service
+public class AnalyticsServiceImpl implements AnalyticsService {
+    private static final int MAX_HOURLY_DAYS = 31;
+    private static final int DEFAULT_DAILY_DAYS = 30;
+    private static final int MAX_DAILY_DAYS = 366;
+    private static final List<OrderStatus> FULFILMENT = List.of(OrderStatus.PENDING, OrderStatus.CONFIRMED,
+            OrderStatus.SHIPPED, OrderStatus.DELIVERED);
+
+    private final SalesHourlyRepository salesHourlyRepository;
+    private final ProductSalesRepository productSalesRepository;
+    private final CategorySalesRepository categorySalesRepository;
+    private final OrderStatusCountRepository orderStatusCountRepository;
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsServiceImpl.class);
+
+    public AnalyticsServiceImpl(SalesHourlyRepository salesHourlyRepository,
+                                ProductSalesRepository productSalesRepository,
+                                CategorySalesRepository categorySalesRepository,
+                                OrderStatusCountRepository orderStatusCountRepository) {
+        this.salesHourlyRepository = salesHourlyRepository;
+        this.productSalesRepository = productSalesRepository;
+        this.categorySalesRepository = categorySalesRepository;
+        this.orderStatusCountRepository = orderStatusCountRepository;
+    }
+
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional(readOnly = true)
+    @Override
+    public List<SalesPeriodDTO> getHourlySales(LocalDate from, LocalDate to, String userAgent) {
+        String requestId = currentRequestID();
+        logger.info("Attempt to get hourly sales. Request id: {}, user agent: {}, from: {}, to: {}.",
+                requestId, userAgent, from, to);
+        List<SalesPeriodDTO> response = findHourly(from, to, 1, MAX_HOURLY_DAYS, requestId).stream()
+                .map(row -> new SalesPeriodDTO(row.getBucketStart(), row.getOrders(), row.getUnits(), row.getRevenue()))
+                .toList();
+        logger.info("Hourly sales retrieved: {}, request id: {}", response.size(), requestId);
+        return response;
+    }
+
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional(readOnly = true)
+    @Override
+    public List<SalesPeriodDTO> getDailySales(LocalDate from, LocalDate to, String userAgent) {
+        String requestId = currentRequestID();
+        logger.info("Attempt to get daily sales. Request id: {}, user agent: {}, from: {}, to: {}.",
+                requestId, userAgent, from, to);
+        Map<LocalDate, SalesPeriodDTO> days = new LinkedHashMap<>();
+        for (SalesHourlyEntity row : findHourly(from, to, DEFAULT_DAILY_DAYS, MAX_DAILY_DAYS, requestId)) {
+            SalesPeriodDTO day = days.computeIfAbsent(row.getBucketStart().toLocalDate(),
+                    date -> new SalesPeriodDTO(date.atStartOfDay(), 0, 0, BigDecimal.ZERO));
+            day.setOrders(day.getOrders() + row.getOrders());
+            day.setUnits(day.getUnits() + row.getUnits());
+            day.setRevenue(day.getRevenue().add(row.getRevenue()));
+        }
+        List<SalesPeriodDTO> response = new ArrayList<>(days.values());
+        logger.info("Daily sales retrieved: {}, request id: {}", response.size(), requestId);
+        return response;
+    }
+
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional(readOnly = true)
+    @Override
+    public List<ProductSalesDTO> getTopProducts(int limit, String userAgent) {
+        String requestId = currentRequestID();
+        logger.info("Attempt to get top products. Request id: {}, user agent: {}, limit: {}.",
+                requestId, userAgent, limit);
+        List<ProductSalesDTO> response = productSalesRepository.findTopByUnits(PageRequest.of(0, limit)).stream()
+                .map(view -> new ProductSalesDTO(view.getProductId(), view.getName(), view.getSku(),
+                        view.getOrders(), view.getUnits(), view.getRevenue()))
+                .toList();
+        logger.info("Top products retrieved: {}, request id: {}", response.size(), requestId);
+        return response;
+    }
+
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional(readOnly = true)
+    @Override
+    public List<CategorySalesDTO> getCategorySales(String userAgent) {
+        String requestId = currentRequestID();
+        logger.info("Attempt to get category sales. Request id: {}, user agent: {}.", requestId, userAgent);
+        List<CategorySalesDTO> response = categorySalesRepository.findAllByRevenue().stream()
+                .map(view -> new CategorySalesDTO(view.getCategoryId(), view.getName(), view.getOrders(),
+                        view.getUnits(), view.getRevenue()))
+                .toList();
+        logger.info("Category sales retrieved: {}, request id: {}", response.size(), requestId);
+        return response;
+    }
+
+    /**
+     * Orders in each status, and how many orders ever reached it. An order passes the statuses in
+     * {@link #FULFILMENT} order and can only be cancelled while pending, so the counts of the later
+     * statuses are enough to know how many orders got past each one.
+     */
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional(readOnly = true)
+    @Override
+    public List<OrderFunnelStepDTO> getOrderFunnel(String userAgent) {
+        String requestId = currentRequestID();
+        logger.info("Attempt to get order funnel. Request id: {}, user agent: {}.", requestId, userAgent);
+        Map<OrderStatus, Long> counts = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            counts.put(status, 0L);
+        }
+        for (OrderStatusCountEntity row : orderStatusCountRepository.findAll()) {
+            counts.put(row.getStatus(), row.getOrders());
+        }
+        long cancelled = counts.get(OrderStatus.CANCELLED);
+        long reached = 0;
+        OrderFunnelStepDTO[] steps = new OrderFunnelStepDTO[FULFILMENT.size()];
+        for (int i = FULFILMENT.size() - 1; i >= 0; i--) {
+            OrderStatus status = FULFILMENT.get(i);
+            reached += counts.get(status);
+            steps[i] = new OrderFunnelStepDTO(status, counts.get(status),
+                    status == OrderStatus.PENDING ? reached + cancelled : reached);
+        }
+        List<OrderFunnelStepDTO> response = new ArrayList<>(List.of(steps));
+        response.add(new OrderFunnelStepDTO(OrderStatus.CANCELLED, cancelled, cancelled));
+        logger.info("Order funnel retrieved, request id: {}", requestId);
+        return response;
+    }
+
+    /**
+     * Rows of the days from {@code from} to {@code to}, both inclusive. Without {@code to} the range ends
+     * today, without {@code from} it spans {@code defaultDays}.
+     */
+    private List<SalesHourlyEntity> findHourly(LocalDate from, LocalDate to, int defaultDays, int maxDays,
+                                               String requestId) {
+        if (to == null) {
+            to = LocalDate.now();
+        }
+        if (from == null) {
+            from = to.minusDays(defaultDays - 1);
+        }
+        if (from.isAfter(to)) {
+            throw new BadRequestException("From date must not be after to date. Request id: " + requestId);
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxDays) {
+            throw new BadRequestException("Date range must not be longer than " + maxDays + " days. Request id: "
+                    + requestId);
+        }
+        return salesHourlyRepository.findByBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+                from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+    }
+}
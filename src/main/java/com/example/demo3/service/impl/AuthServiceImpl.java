@@ -39,6 +39,15 @@ public class AuthServiceImpl implements AuthService {
         throw new BadRequestException("Invalid authentication principal");
     }
 
+    @Override
+    public String getCurrentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            throw new BadRequestException("User not authenticated");
+        }
+        return authentication.getName();
+    }
+
     public AuthServiceImpl(JwtUtil jwtUtil, UserService userService) {
         this.jwtUtil = jwtUtil;
         this.userService = userService;
@@ -1,5 +1,6 @@
 package com.example.demo3.service.impl;
 
+import com.example.demo3.cart.CartCache;
 import com.example.demo3.dto.CartDTO;
 import com.example.demo3.dto.UpdateCartItemRequestDTO;
 import com.example.demo3.entity.CartEntity;
@@ -21,7 +22,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 
-import static com.example.demo3.utill.GenerateRequestID.generateRequestID;
+import java.util.List;
+
+import static com.example.demo3.utill.GenerateRequestID.currentRequestID;
 
 @Service
 public class CartServiceImpl implements CartService {
@@ -31,6 +34,7 @@ public class CartServiceImpl implements CartService {
     private final AuthService authService;
     private final CartMapper cartMapper;
     private final CartItemMapper cartItemMapper;
+    private final CartCache cartCache;
 
     private static final Logger logger = LoggerFactory.getLogger(CartServiceImpl.class);
 
@@ -41,21 +45,35 @@ public class CartServiceImpl implements CartService {
                            CartMapper cartMapper,
                            ProductService productService,
                            AuthService authService,
-                           CartItemMapper cartItemMapper) {
+                           CartItemMapper cartItemMapper,
+                           CartCache cartCache) {
         this.cartRepository = cartRepository;
         this.cartItemRepository = cartItemRepository;
         this.authService = authService;
         this.cartMapper = cartMapper;
         this.productService = productService;
         this.cartItemMapper = cartItemMapper;
+        this.cartCache = cartCache;
     }
 
     @PreAuthorize("isAuthenticated()")
     @Transactional
     @Override
     public CartDTO getCart(String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("Attempt to get a cart request id:{}, user agent: {}", requestId, userAgent);
+        String username = authService.getCurrentUsername();
+        CartCache.CartLines cached = cartCache.read(username);
+        if (cached != null) {
+            if (!cached.exists()) {
+                throw new NoContentException("Cart is empty");
+            }
+            List<ProductEntity> products = cached.getQuantities().keySet().stream()
+                    .map(productId -> productService.getProduct(productId, requestId))
+                    .toList();
+            logger.info("Successfully retrieved cached cart request id: {}, for user: {}", requestId, username);
+            return cartMapper.toDTO(products, cached.getQuantities());
+        }
         UserEntity user = authService.getCurrentAuthenticatedUser();
         CartEntity cart = cartRepository.findByUserId(user.getId())
                 .orElseThrow(() -> new NoContentException("Cart is empty"));
@@ -69,12 +87,18 @@ public class CartServiceImpl implements CartService {
     @Transactional
     @Override
     public void addItemToCart(Long productId, String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("Attempt to add item to a cart request id: {}, user agent: {}, product id: {}",
                 requestId, userAgent, productId);
+        ProductEntity product = productService.validateAndGetProduct(productId, requestId);
+        Integer previous = cartCache.change(authService.getCurrentUsername(), productId, quantity -> quantity + 1);
+        if (previous != null) {
+            logger.info("Successfully added product ID {} (quantity: {}) to cached cart, request id: {}",
+                    productId, previous + 1, requestId);
+            return;
+        }
         UserEntity user = authService.getCurrentAuthenticatedUser();
         CartEntity cart = getOrCreateCartForUser(user);
-        ProductEntity product = productService.validateAndGetProduct(productId, requestId);
         CartItemEntity cartItem = cartItemRepository.findByCartIdAndProductId(cart.getId(), product.getId())
                 .map(item -> cartItemMapper.changeQuantity(item, item.getQuantity() + 1))
                 .orElseGet(() -> cartItemMapper.createNewCartItemEntity(cart, product, DEFAULT_ITEM_QUANTITY));
@@ -87,11 +111,16 @@ public class CartServiceImpl implements CartService {
     @Transactional
     @Override
     public void updateCartItem(Long productId, UpdateCartItemRequestDTO request, String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("Attempt to update cart item request id: {}, product id: {}, quantity: {}, user agent: {}",
                 requestId, productId, request.getQuantity(), userAgent);
-        UserEntity user = authService.getCurrentAuthenticatedUser();
         ProductEntity product = productService.validateAndGetProduct(productId, requestId);
+        if (cartCache.change(authService.getCurrentUsername(), productId, quantity -> request.getQuantity()) != null) {
+            logger.info("Successfully updated product ID {} (quantity: {}) in cached cart, request id: {}",
+                    productId, request.getQuantity(), requestId);
+            return;
+        }
+        UserEntity user = authService.getCurrentAuthenticatedUser();
         CartEntity cart = getOrCreateCartForUser(user);
         CartItemEntity cartItemEntity = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
                 .map(cartItem -> cartItemMapper.changeQuantity(cartItem, request.getQuantity()))
@@ -105,9 +134,18 @@ public class CartServiceImpl implements CartService {
     @Transactional
     @Override
     public void removeItemFromCart(Long productId, String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("Attempt to remove item from cart. Request id: {}, user agent: {}, product id: {}",
                 requestId, userAgent, productId);
+        Integer previous = cartCache.change(authService.getCurrentUsername(), productId, quantity -> 0);
+        if (previous != null) {
+            if (previous == 0) {
+                throw new NotFoundException("No product with the ID:" + productId
+                        + " in the cart! Request id: " + requestId);
+            }
+            logger.info("Successfully removed product ID {} from cached cart, request id: {}.", productId, requestId);
+            return;
+        }
         UserEntity user = authService.getCurrentAuthenticatedUser();
         CartEntity cart = getOrCreateCartForUser(user);
         CartItemEntity deleteEntity = cartItemRepository
@@ -123,8 +161,20 @@ public class CartServiceImpl implements CartService {
     @Transactional
     @Override
     public int clearCart(String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("Attempt clear cart. Request id: {}, user agent: {}", requestId, userAgent);
+        String username = authService.getCurrentUsername();
+        CartCache.CartLines cached = cartCache.read(username);
+        if (cached != null) {
+            if (!cached.exists()) {
+                throw new NotFoundException("User don`t have cart! Request id: " + requestId);
+            }
+            Integer deletedItems = cartCache.clear(username);
+            if (deletedItems != null) {
+                logger.info("Successfully clear cached cart for user {}, request id: {}", username, requestId);
+                return deletedItems;
+            }
+        }
         UserEntity user = authService.getCurrentAuthenticatedUser();
         CartEntity cart = cartRepository.findByUserId(user.getId())
                 .orElseThrow(() -> new NotFoundException("User don`t have cart! Request id: " + requestId));
@@ -139,6 +189,11 @@ public class CartServiceImpl implements CartService {
         cartItemRepository.deleteAllByCartId(id);
     }
 
+    @Override
+    public void flushCartForOrder(String username) {
+        cartCache.flushForOrder(username);
+    }
+
     @Transactional
     private CartEntity getOrCreateCartForUser(UserEntity user) {
         return cartRepository.findByUserId(user.getId())
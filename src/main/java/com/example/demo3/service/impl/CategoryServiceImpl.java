@@ -1,48 +1,81 @@
 package com.example.demo3.service.impl;
 
+import com.example.demo3.cache.CategoryTreeCache;
+import com.example.demo3.cache.CategoryTreeSnapshot;
 import com.example.demo3.dto.CategoryCreateRequestDTO;
 import com.example.demo3.dto.CategoryDTO;
 import com.example.demo3.dto.PageableResponseCategoryDTO;
+import com.example.demo3.dto.ResourceVersion;
+import com.example.demo3.dto.SliceResponseCategoryDTO;
 import com.example.demo3.entity.CategoryEntity;
 import com.example.demo3.exception.NotFoundException;
 import com.example.demo3.mapper.CategoryMapper;
 import com.example.demo3.repository.CategoryRepository;
+import com.example.demo3.repository.projection.CategoryView;
 import com.example.demo3.service.CategoryService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 
-import static com.example.demo3.utill.GenerateRequestID.generateRequestID;
+import static com.example.demo3.utill.CursorCodec.decode;
+import static com.example.demo3.utill.GenerateRequestID.currentRequestID;
 
 @Service
 public class CategoryServiceImpl implements CategoryService {
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
+    private final CategoryTreeCache categoryTreeCache;
 
     private static final Logger logger = LoggerFactory.getLogger(CategoryServiceImpl.class);
 
     public CategoryServiceImpl(CategoryRepository categoryRepository,
-                               CategoryMapper categoryMapper) {
+                               CategoryMapper categoryMapper,
+                               CategoryTreeCache categoryTreeCache) {
         this.categoryRepository = categoryRepository;
         this.categoryMapper = categoryMapper;
+        this.categoryTreeCache = categoryTreeCache;
     }
 
+    @Override
+    public ResourceVersion getCategoriesVersion(String userAgent) {
+        String requestId = currentRequestID();
+        logger.debug("Attempt to get categories version request id: {}, user agent: {}", requestId, userAgent);
+        CategoryTreeSnapshot snapshot = categoryTreeCache.getSnapshot();
+        return new ResourceVersion("c" + Long.toHexString(snapshot.getFingerprint()), snapshot.getLastModified());
+    }
 
     @Override
     public PageableResponseCategoryDTO getAllCategories(int page, int size, String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("Attempt to get all categories pageable request id: {}, user agent: {}, page {}, size: {}",
                 requestId, userAgent, page, size);
-        Page<CategoryEntity> pageable = categoryRepository.findAll(PageRequest.of(page, size));
-        PageableResponseCategoryDTO response = categoryMapper.createNewPageableResponseCategoryDTO(pageable);
+        CategoryTreeSnapshot snapshot = categoryTreeCache.getSnapshot();
+        Page<CategoryView> pageable = snapshot.findAll(PageRequest.of(page, size));
+        PageableResponseCategoryDTO response = categoryMapper.createNewPageableResponseCategoryDTO(pageable, snapshot);
         logger.info("Success get all categories pageable. Total elements: {}, total pages: {}, request id: {}",
                 response.getTotalElements(), response.getTotalPages(), requestId);
         return response;
     }
 
+    @Override
+    public SliceResponseCategoryDTO getAllCategoriesByCursor(String after, int size, String userAgent) {
+        String requestId = currentRequestID();
+        logger.info("Attempt to get all categories by cursor request id: {}, user agent: {}, after: {}, size: {}",
+                requestId, userAgent, after, size);
+        CategoryTreeSnapshot snapshot = categoryTreeCache.getSnapshot();
+        Slice<CategoryView> slice = snapshot.findByIdGreaterThan(decode(after, requestId),
+                PageRequest.of(0, size, Sort.by("id")));
+        SliceResponseCategoryDTO response = categoryMapper.createSliceResponseCategoryDTO(slice, snapshot);
+        logger.info("Success get all categories by cursor. Elements: {}, has next: {}, request id: {}",
+                slice.getNumberOfElements(), response.isHasNext(), requestId);
+        return response;
+    }
+
     @Override
     public CategoryEntity getCategory(Long id, String requestId) {
         return categoryRepository.findById(id)
@@ -52,9 +85,12 @@ public class CategoryServiceImpl implements CategoryService {
 
     @Override
     public CategoryDTO getCategoryById(Long id, String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("Attempt to get category by id: {}, request id: {}, userAgent: {}", id, requestId, userAgent);
-        CategoryDTO categoryDTO = categoryMapper.createCategoryDTO(getCategory(id, requestId));
+        CategoryTreeSnapshot snapshot = categoryTreeCache.getSnapshot();
+        CategoryDTO categoryDTO = snapshot.findById(id)
+                .map(category -> categoryMapper.createCategoryDTO(category, snapshot))
+                .orElseGet(() -> categoryMapper.createCategoryDTO(getCategory(id, requestId)));
         logger.info("Success category retried with id: {}, request id: {}", categoryDTO.getId(), requestId);
         return categoryDTO;
     }
@@ -62,7 +98,7 @@ public class CategoryServiceImpl implements CategoryService {
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @Override
     public Long createCategory(CategoryCreateRequestDTO request, String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("Attempt to create category request id: {}, user agent: {}, category: {}",
                 requestId, userAgent, request.toString());
         if (request.getParent() != null) {
@@ -71,6 +107,7 @@ public class CategoryServiceImpl implements CategoryService {
                             + ". Request id: " + requestId));
         }
         CategoryEntity category = categoryRepository.save(categoryMapper.requestToEntity(request));
+        categoryTreeCache.refreshAfterCommit();
         logger.info("Success category created request id: {}, category id:{}", requestId, category.getId());
         return category.getId();
     }
@@ -85,10 +122,11 @@ public class CategoryServiceImpl implements CategoryService {
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @Override
     public void deleteCategoryById(Long id, String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("Attempt to delete category by id: {}, request id: {}, userAgent: {}", id, requestId, userAgent);
         CategoryEntity category = getCategory(id, requestId);
         categoryRepository.delete(category);
+        categoryTreeCache.refreshAfterCommit();
         logger.info("Success category deleted request id: {}, category id:{}", requestId, category.getId());
     }
-}
\ No newline at end of file
+}
@@ -2,30 +2,58 @@ package com.example.demo3.service.impl;
 
 import com.example.demo3.dto.CreateOrderRequestDTO;
 import com.example.demo3.dto.OrderEntityDTO;
+import com.example.demo3.dto.OrderEventHandlerDTO;
+import com.example.demo3.dto.OrderItemEntityDTO;
+import com.example.demo3.dto.PageableResponseOrderSummariesDTO;
 import com.example.demo3.dto.PageableResponseOrdersDTO;
+import com.example.demo3.dto.ProductBasicDTO;
+import com.example.demo3.dto.SliceResponseOrderSummariesDTO;
+import com.example.demo3.dto.SliceResponseOrdersDTO;
 import com.example.demo3.dto.UpdateOrderStatusRequestDTO;
 import com.example.demo3.entity.*;
 import com.example.demo3.exception.BadRequestException;
+import com.example.demo3.exception.ConflictException;
 import com.example.demo3.exception.ForbiddenException;
 import com.example.demo3.exception.NotFoundException;
+import com.example.demo3.exception.UnprocessableEntityException;
+import com.example.demo3.export.OrderExportFormat;
+import com.example.demo3.export.OrderExportTarget;
+import com.example.demo3.export.OrderExportWriter;
+import com.example.demo3.idempotency.OrderIdempotencyKeys;
 import com.example.demo3.mapper.OrderMapper;
+import com.example.demo3.outbox.OrderEventDispatcher;
+import com.example.demo3.outbox.OrderEventOutbox;
+import com.example.demo3.repository.OrderExportFilter;
 import com.example.demo3.repository.OrderItemRepository;
 import com.example.demo3.repository.OrderRepository;
+import com.example.demo3.repository.projection.OrderItemView;
+import com.example.demo3.repository.projection.OrderSummaryView;
+import com.example.demo3.repository.projection.OrderView;
 import com.example.demo3.service.AuthService;
 import com.example.demo3.service.CartService;
 import com.example.demo3.service.OrderService;
 import com.example.demo3.service.ProductService;
-import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
-import static com.example.demo3.utill.GenerateRequestID.generateRequestID;
+import static com.example.demo3.utill.CursorCodec.decode;
+import static com.example.demo3.utill.GenerateRequestID.currentRequestID;
 
 @Service
 public class OrderServiceImpl implements OrderService {
@@ -35,19 +63,28 @@ public class OrderServiceImpl implements OrderService {
     private final ProductService productService;
     private final CartService cartService;
     private final OrderMapper orderMapper;
+    private final OrderEventOutbox orderEventOutbox;
+    private final OrderEventDispatcher orderEventDispatcher;
+    private final OrderIdempotencyKeys orderIdempotencyKeys;
 
     public OrderServiceImpl(OrderRepository orderRepository,
                             OrderItemRepository orderItemRepository,
                             AuthService authService,
                             ProductService productService,
                             CartService cartService,
-                            OrderMapper orderMapper) {
+                            OrderMapper orderMapper,
+                            OrderEventOutbox orderEventOutbox,
+                            OrderEventDispatcher orderEventDispatcher,
+                            OrderIdempotencyKeys orderIdempotencyKeys) {
         this.orderRepository = orderRepository;
         this.orderItemRepository = orderItemRepository;
         this.authService = authService;
         this.productService = productService;
         this.cartService = cartService;
         this.orderMapper = orderMapper;
+        this.orderEventOutbox = orderEventOutbox;
+        this.orderEventDispatcher = orderEventDispatcher;
+        this.orderIdempotencyKeys = orderIdempotencyKeys;
     }
 
     private static final Logger logger = LoggerFactory.getLogger(OrderServiceImpl.class);
@@ -55,40 +92,113 @@ public class OrderServiceImpl implements OrderService {
     @PreAuthorize("isAuthenticated()")
     @Transactional
     @Override
-    public Long createOrder(CreateOrderRequestDTO request, String userAgent) {
-        String requestId = generateRequestID();
-        logger.info("Attempt to create order. Request id: {}, user agent: {}", requestId, userAgent);
+    public Long createOrder(CreateOrderRequestDTO request, String idempotencyKey, String userAgent) {
+        String requestId = currentRequestID();
+        logger.info("Attempt to create order. Request id: {}, user agent: {}, idempotency key: {}",
+                requestId, userAgent, idempotencyKey);
+        IdempotencyKeyEntity claimedKey = null;
+        if (idempotencyKey != null) {
+            String username = authService.getCurrentUsername();
+            String requestHash = orderIdempotencyKeys.requestHash(request);
+            OrderIdempotencyKeys.CompletedRequest previous = orderIdempotencyKeys.find(username, idempotencyKey);
+            if (previous != null) {
+                if (!previous.getRequestHash().equals(requestHash)) {
+                    throw new UnprocessableEntityException("Idempotency-Key was already used with a different request. "
+                            + "Request id: " + requestId);
+                }
+                logger.info("Order already created with this idempotency key, order id {}, request id: {}",
+                        previous.getOrderId(), requestId);
+                return previous.getOrderId();
+            }
+            claimedKey = claimIdempotencyKey(username, idempotencyKey, requestHash, requestId);
+        }
+        cartService.flushCartForOrder(authService.getCurrentUsername());
         UserEntity user = authService.getCurrentAuthenticatedUser();
         if (user.getCart() == null || user.getCart().getCartItems().isEmpty()) {
             throw new NotFoundException("User cart is empty or not found. Request id:" + requestId);
         }
         List<CartItemEntity> cartItems = user.getCart().getCartItems();
-        productService.validateProductsForOrder(cartItems, requestId);
+        productService.decreaseStockForOrderItems(cartItems, requestId);
         OrderEntity order = orderRepository.save(orderMapper.createOrder(user, request, cartItems));
-        productService.decreaseStockForOrderItems(cartItems);
         cartService.deleteAllByCartId(user.getCart().getId());
+        orderEventOutbox.append(OrderEventType.CREATED, order, null);
+        if (claimedKey != null) {
+            orderIdempotencyKeys.complete(claimedKey, order.getId());
+        }
         logger.info("Order created for user id {}, order id {}, request id: {}", user.getId(), order.getId(), requestId);
         return order.getId();
     }
 
     @PreAuthorize("isAuthenticated()")
+    @Transactional(readOnly = true)
     @Override
     public PageableResponseOrdersDTO getUserOrders(int page, int size, String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("Attempt to get users orders. Request id: {}, user agent: {}, page: {}, size: {}.",
                 requestId, userAgent, page, size);
         UserEntity user = authService.getCurrentAuthenticatedUser();
-        Page<OrderEntity> orderEntityPage = orderRepository.findByUserId(user.getId(), PageRequest.of(page, size));
-        PageableResponseOrdersDTO response = orderMapper.createPageableResponseOrdersDTO(orderEntityPage);
+        Page<OrderView> orderPage = orderRepository.findViewsByUserId(user.getId(), PageRequest.of(page, size));
+        PageableResponseOrdersDTO response = orderMapper.createPageableResponseOrdersDTO(orderPage,
+                getOrderItems(orderPage.getContent()));
         logger.info("User with id {} orders retrieved. Total elements: {}, total pages: {}",
                 user.getId(), response.getTotalElements(), response.getTotalPages());
         return response;
     }
 
     @PreAuthorize("isAuthenticated()")
+    @Transactional(readOnly = true)
+    @Override
+    public SliceResponseOrdersDTO getUserOrdersByCursor(String after, int size, String userAgent) {
+        String requestId = currentRequestID();
+        logger.info("Attempt to get users orders by cursor. Request id: {}, user agent: {}, after: {}, size: {}.",
+                requestId, userAgent, after, size);
+        UserEntity user = authService.getCurrentAuthenticatedUser();
+        Slice<OrderView> orderSlice = orderRepository.findViewsByUserIdAndIdGreaterThan(user.getId(),
+                decode(after, requestId), PageRequest.of(0, size, Sort.by("id")));
+        SliceResponseOrdersDTO response = orderMapper.createSliceResponseOrdersDTO(orderSlice,
+                getOrderItems(orderSlice.getContent()));
+        logger.info("User with id {} orders retrieved by cursor. Elements: {}, has next: {}, request id: {}",
+                user.getId(), orderSlice.getNumberOfElements(), response.isHasNext(), requestId);
+        return response;
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    @Transactional(readOnly = true)
+    @Override
+    public PageableResponseOrderSummariesDTO getUserOrderSummaries(int page, int size, String userAgent) {
+        String requestId = currentRequestID();
+        logger.info("Attempt to get users order summaries. Request id: {}, user agent: {}, page: {}, size: {}.",
+                requestId, userAgent, page, size);
+        String username = authService.getCurrentUsername();
+        Page<OrderSummaryView> orderPage = orderRepository.findSummariesByUsername(username,
+                PageRequest.of(page, size, Sort.by("id")));
+        PageableResponseOrderSummariesDTO response = orderMapper.createPageableResponseOrderSummariesDTO(orderPage);
+        logger.info("User {} order summaries retrieved. Total elements: {}, total pages: {}, request id: {}",
+                username, response.getTotalElements(), response.getTotalPages(), requestId);
+        return response;
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    @Transactional(readOnly = true)
+    @Override
+    public SliceResponseOrderSummariesDTO getUserOrderSummariesByCursor(String after, int size, String userAgent) {
+        String requestId = currentRequestID();
+        logger.info("Attempt to get users order summaries by cursor. Request id: {}, user agent: {}, after: {}, size: {}.",
+                requestId, userAgent, after, size);
+        String username = authService.getCurrentUsername();
+        Slice<OrderSummaryView> orderSlice = orderRepository.findSummariesByUsernameAndIdGreaterThan(username,
+                decode(after, requestId), PageRequest.of(0, size, Sort.by("id")));
+        SliceResponseOrderSummariesDTO response = orderMapper.createSliceResponseOrderSummariesDTO(orderSlice);
+        logger.info("User {} order summaries retrieved by cursor. Elements: {}, has next: {}, request id: {}",
+                username, orderSlice.getNumberOfElements(), response.isHasNext(), requestId);
+        return response;
+    }
+
+    @PreAuthorize("isAuthenticated()")
+    @Transactional(readOnly = true)
     @Override
     public OrderEntityDTO getOrderDetails(Long id, String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("Attempt to get order details. Request id: {}, user agent: {}, order id: {}.",
                 requestId, userAgent, id);
         OrderEntity order = orderRepository.findById(id)
@@ -105,7 +215,7 @@ public class OrderServiceImpl implements OrderService {
     @Transactional
     @Override
     public void cancelOrder(Long orderId, String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("Attempt to cancel order. Request id: {}, user agent: {}, order id: {}.",
                 requestId, userAgent, orderId);
         OrderEntity order = orderRepository.findById(orderId)
@@ -120,35 +230,95 @@ public class OrderServiceImpl implements OrderService {
             throw new NotFoundException("No items in order id: " + orderId + ". Request id: " + requestId);
         }
         productService.increaseStockForOrderItems(orderItems);
-        orderRepository.save(orderMapper.cancelOrder(order));
+        OrderEntity cancelled = orderRepository.save(orderMapper.cancelOrder(order));
+        orderEventOutbox.append(OrderEventType.CANCELLED, cancelled, OrderStatus.PENDING);
         logger.info("Success. OrderId {} canceled, request id: {}", orderId, requestId);
     }
 
     @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional(readOnly = true)
     @Override
     public PageableResponseOrdersDTO getAllOrders(int page, int size, String status, String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("Attempt to get all orders. Request id: {}, user agent: {}, page: {}, size: {}.",
                 requestId, userAgent, page, size);
-        Page<OrderEntity> orderEntityPage;
+        Page<OrderView> orderPage;
         String message;
         if (status == null) {
-            orderEntityPage = orderRepository.findAll(PageRequest.of(page, size));
+            orderPage = orderRepository.findAllViews(PageRequest.of(page, size));
             message = "All orders retrieved without status filter. Request id: " + requestId;
         } else {
-            orderEntityPage = orderRepository.findByStatus(OrderStatus.valueOf(status), PageRequest.of(page, size));
+            orderPage = orderRepository.findViewsByStatus(OrderStatus.valueOf(status), PageRequest.of(page, size));
             message = "Orders retrieved with status: " + status + ". Request id: " + requestId;
         }
-        PageableResponseOrdersDTO response = orderMapper.createPageableResponseOrdersDTO(orderEntityPage);
+        PageableResponseOrdersDTO response = orderMapper.createPageableResponseOrdersDTO(orderPage,
+                getOrderItems(orderPage.getContent()));
         logger.info(message);
         return response;
     }
 
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional(readOnly = true)
+    @Override
+    public SliceResponseOrdersDTO getAllOrdersByCursor(String after, int size, String status, String userAgent) {
+        String requestId = currentRequestID();
+        logger.info("Attempt to get all orders by cursor. Request id: {}, user agent: {}, after: {}, size: {}.",
+                requestId, userAgent, after, size);
+        long lastId = decode(after, requestId);
+        PageRequest pageRequest = PageRequest.of(0, size, Sort.by("id"));
+        Slice<OrderView> orderSlice;
+        String message;
+        if (status == null) {
+            orderSlice = orderRepository.findViewsByIdGreaterThan(lastId, pageRequest);
+            message = "All orders retrieved by cursor without status filter. Request id: " + requestId;
+        } else {
+            orderSlice = orderRepository.findViewsByStatusAndIdGreaterThan(OrderStatus.valueOf(status), lastId,
+                    pageRequest);
+            message = "Orders retrieved by cursor with status: " + status + ". Request id: " + requestId;
+        }
+        SliceResponseOrdersDTO response = orderMapper.createSliceResponseOrdersDTO(orderSlice,
+                getOrderItems(orderSlice.getContent()));
+        logger.info(message);
+        return response;
+    }
+
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional(readOnly = true)
+    @Override
+    public void exportOrders(OrderStatus status, LocalDate from, LocalDate to, OrderExportFormat format,
+                             OrderExportTarget target, String userAgent) {
+        String requestId = currentRequestID();
+        logger.info("Attempt to export orders. Request id: {}, user agent: {}, status: {}, from: {}, to: {}, format: {}.",
+                requestId, userAgent, status, from, to, format);
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new BadRequestException("From date must not be after to date. Request id: " + requestId);
+        }
+        OrderExportFilter filter = new OrderExportFilter(status,
+                from != null ? from.atStartOfDay() : null,
+                to != null ? to.plusDays(1).atStartOfDay() : null);
+        AtomicLong rows = new AtomicLong();
+        try {
+            OrderExportWriter writer = format.createWriter(target.open(format));
+            orderRepository.exportRows(filter, row -> {
+                try {
+                    writer.write(row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows.incrementAndGet();
+            });
+            writer.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        logger.info("Success export orders. Request id: {}, rows: {}", requestId, rows.get());
+    }
+
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @Transactional
     @Override
     public void updateOrderStatus(Long orderId, UpdateOrderStatusRequestDTO request, String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("Attempt to update order status. Request id: {}, user agent; {},  status request: {}.",
                 requestId, userAgent, request);
         OrderEntity order = orderRepository.findById(orderId)
@@ -162,11 +332,49 @@ public class OrderServiceImpl implements OrderService {
                             order.getStatus(), request.getStatus(), requestId)
             );
         }
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(request.getStatus());
-        orderRepository.save(order);
+        orderEventOutbox.append(OrderEventType.STATUS_CHANGED, orderRepository.save(order), previousStatus);
         logger.info("Success orderId {} status change to {}, request id: {}", orderId, request.getStatus(), requestId);
     }
 
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Override
+    public List<OrderEventHandlerDTO> getOrderEventHandlers(String userAgent) {
+        String requestId = currentRequestID();
+        logger.info("Attempt to get order event handlers. Request id: {}, user agent: {}.", requestId, userAgent);
+        long latest = orderEventDispatcher.getLatestEventId();
+        List<OrderEventHandlerDTO> response = orderEventDispatcher.getPositions().entrySet().stream()
+                .map(entry -> new OrderEventHandlerDTO(entry.getKey(), entry.getValue(),
+                        Math.max(0, latest - entry.getValue())))
+                .toList();
+        logger.info("Order event handlers retrieved: {}, request id: {}", response.size(), requestId);
+        return response;
+    }
+
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Override
+    public void replayOrderEvents(String handler, long position, String userAgent) {
+        String requestId = currentRequestID();
+        logger.info("Attempt to replay order events. Request id: {}, user agent: {}, handler: {}, position: {}.",
+                requestId, userAgent, handler, position);
+        if (!orderEventDispatcher.hasHandler(handler)) {
+            throw new NotFoundException("Order event handler not found: " + handler + ". Request id: " + requestId);
+        }
+        orderEventDispatcher.replay(handler, position);
+        logger.info("Success order event handler {} moved to position {}, request id: {}", handler, position, requestId);
+    }
+
+    private IdempotencyKeyEntity claimIdempotencyKey(String username, String idempotencyKey, String requestHash,
+                                                     String requestId) {
+        try {
+            return orderIdempotencyKeys.claim(username, idempotencyKey, requestHash);
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictException("A request with this Idempotency-Key is already in progress, retry it later. "
+                    + "Request id: " + requestId);
+        }
+    }
+
     private boolean isValidStatusTransition(OrderStatus currentStatus, OrderStatus requestStatus) {
         if (currentStatus.equals(OrderStatus.PENDING) &&
                 requestStatus.equals(OrderStatus.CONFIRMED)) {
@@ -185,4 +393,25 @@ public class OrderServiceImpl implements OrderService {
             throw new ForbiddenException("You don`t have access to this order. Request id: " + requestId);
         }
     }
+
+    /**
+     * Loads the items of all given orders with one query, and their products with one more,
+     * instead of walking each order's item collection.
+     */
+    private Map<Long, List<OrderItemEntityDTO>> getOrderItems(List<OrderView> orders) {
+        if (orders.isEmpty()) {
+            return Map.of();
+        }
+        List<OrderItemView> orderItems = orderItemRepository.findViewsByOrderIdIn(orders.stream()
+                .map(OrderView::getId)
+                .toList());
+        Map<Long, ProductBasicDTO> products = productService.getProductDTOsByIds(orderItems.stream()
+                .map(OrderItemView::getProductId)
+                .distinct()
+                .toList());
+        return orderItems.stream()
+                .collect(Collectors.groupingBy(OrderItemView::getOrderId,
+                        Collectors.mapping(orderItem -> orderMapper.toOrderItemEntityDTO(orderItem,
+                                products.get(orderItem.getProductId())), Collectors.toList())));
+    }
 }
@@ -1,5 +1,7 @@
 package com.example.demo3.service.impl;
 
+import com.example.demo3.cache.CategoryTreeCache;
+import com.example.demo3.cache.CategoryTreeSnapshot;
 import com.example.demo3.dto.*;
 import com.example.demo3.entity.CartItemEntity;
 import com.example.demo3.entity.CategoryEntity;
@@ -7,69 +9,239 @@ import com.example.demo3.entity.OrderItemEntity;
 import com.example.demo3.entity.ProductEntity;
 import com.example.demo3.exception.BadRequestException;
 import com.example.demo3.exception.NotFoundException;
+import com.example.demo3.importer.ProductImportFormat;
+import com.example.demo3.importer.ProductImportReader;
+import com.example.demo3.importer.ProductImportRow;
+import com.example.demo3.inventory.HotProductInventory;
+import com.example.demo3.inventory.StockReservation;
 import com.example.demo3.mapper.ProductMapper;
+import com.example.demo3.repository.ProductAdjustment;
+import com.example.demo3.repository.ProductFilter;
+import com.example.demo3.repository.ProductSort;
+import com.example.demo3.repository.ProductUpsert;
+import com.example.demo3.repository.ProductUpserted;
 import com.example.demo3.repository.ProductsRepository;
+import com.example.demo3.repository.projection.ProductFacetCount;
+import com.example.demo3.repository.projection.ProductSkuView;
+import com.example.demo3.repository.projection.ProductStateView;
+import com.example.demo3.repository.projection.ProductView;
+import com.example.demo3.repository.projection.ProductsVersionView;
+import com.example.demo3.search.ProductSearchIndex;
+import com.example.demo3.search.ProductSearchResult;
 import com.example.demo3.service.AuthService;
 import com.example.demo3.service.CategoryService;
 import com.example.demo3.service.ProductService;
-import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import static com.example.demo3.utill.GenerateRequestID.generateRequestID;
+import static com.example.demo3.utill.CursorCodec.decode;
+import static com.example.demo3.utill.GenerateRequestID.currentRequestID;
 
 @Service
 public class ProductServiceImpl implements ProductService {
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+    private static final int MAX_IMPORT_ERRORS = 1000;
+    private static final int MAX_NAME_LENGTH = 255;
+    private static final int MAX_SKU_LENGTH = 100;
+    // products.price is DECIMAL(10,2)
+    private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+
     private final ProductsRepository productsRepository;
     private final ProductMapper productMapper;
     private final CategoryService categoryService;
     private final AuthService authService;
+    private final HotProductInventory hotProductInventory;
+    private final ProductSearchIndex productSearchIndex;
+    private final CategoryTreeCache categoryTreeCache;
 
     private static final Logger logger = LoggerFactory.getLogger(ProductServiceImpl.class);
 
     public ProductServiceImpl(ProductsRepository productsRepository,
                               ProductMapper productMapper,
                               CategoryService categoryService,
-                              AuthService authService) {
+                              AuthService authService,
+                              HotProductInventory hotProductInventory,
+                              ProductSearchIndex productSearchIndex,
+                              CategoryTreeCache categoryTreeCache) {
         this.productsRepository = productsRepository;
         this.productMapper = productMapper;
         this.categoryService = categoryService;
         this.authService = authService;
+        this.hotProductInventory = hotProductInventory;
+        this.productSearchIndex = productSearchIndex;
+        this.categoryTreeCache = categoryTreeCache;
     }
 
+    @Transactional(readOnly = true)
     @Override
     public ProductBasicDTO getProductById(Long id, String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("Attempt to get product by id. Request id: {}, user agent: {}, product id: {}.",
                 requestId, userAgent, id);
-        ProductBasicDTO response = productMapper.toDTO(getProduct(id, requestId));
+        ProductEntity product = productsRepository.findWithCategoryById(id)
+                .orElseThrow(() -> new NotFoundException("Product with this id don`t exist. ID:" + id
+                        + ". Request id: " + requestId));
+        ProductBasicDTO response = productMapper.toDTO(product);
         logger.info("Success to get product with id {}, request id: {}", response.getId(), requestId);
         return response;
     }
 
+    // Product responses embed their category, so the category tree is part of every product version.
+    @Transactional(readOnly = true)
+    @Override
+    public ResourceVersion getProductVersion(Long id, String userAgent) {
+        String requestId = currentRequestID();
+        logger.debug("Attempt to get product version. Request id: {}, user agent: {}, product id: {}.",
+                requestId, userAgent, id);
+        LocalDateTime updatedAt = productsRepository.findVersionById(id)
+                .orElseThrow(() -> new NotFoundException("Product with this id don`t exist. ID:" + id
+                        + ". Request id: " + requestId))
+                .getUpdatedAt();
+        return productsVersion("p" + id, updatedAt);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public ResourceVersion getAllProductsVersion(String userAgent) {
+        String requestId = currentRequestID();
+        logger.debug("Attempt to get products version. Request id: {}, user agent: {}.", requestId, userAgent);
+        ProductsVersionView version = productsRepository.findVersion();
+        return productsVersion("p" + version.getCount(), version.getUpdatedAt());
+    }
+
+    private ResourceVersion productsVersion(String tag, LocalDateTime updatedAt) {
+        CategoryTreeSnapshot snapshot = categoryTreeCache.getSnapshot();
+        Instant productsModified = updatedAt == null
+                ? Instant.EPOCH
+                : updatedAt.atZone(ZoneId.systemDefault()).toInstant();
+        Instant lastModified = productsModified.truncatedTo(ChronoUnit.SECONDS).isAfter(snapshot.getLastModified())
+                ? productsModified.truncatedTo(ChronoUnit.SECONDS)
+                : snapshot.getLastModified();
+        return new ResourceVersion(tag + "-" + Long.toHexString(productsModified.toEpochMilli())
+                + "-c" + Long.toHexString(snapshot.getFingerprint()), lastModified);
+    }
+
+    @Transactional(readOnly = true)
     @Override
     public PageableResponseProducts getAllProducts(int page, int size, String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("Attempt to get all products. Request id: {}, user agent: {}, page: {}, size: {}.",
                 requestId, userAgent, page, size);
-        Page<ProductEntity> pageable = productsRepository.findAll(PageRequest.of(page, size));
+        Page<ProductView> pageable = productsRepository.findAllViews(PageRequest.of(page, size));
         PageableResponseProducts response = productMapper.createPageableResponseProducts(pageable);
         logger.info("Success attempt to get all products pageable. Request id: {}, total elements: {}, total pages: {}",
                 requestId, response.getTotalElements(), response.getTotalPages());
         return response;
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public SliceResponseProducts getAllProductsByCursor(String after, int size, String userAgent) {
+        String requestId = currentRequestID();
+        logger.info("Attempt to get all products by cursor. Request id: {}, user agent: {}, after: {}, size: {}.",
+                requestId, userAgent, after, size);
+        Slice<ProductView> slice = productsRepository.findViewsByIdGreaterThan(decode(after, requestId),
+                PageRequest.of(0, size, Sort.by("id")));
+        SliceResponseProducts response = productMapper.createSliceResponseProducts(slice);
+        logger.info("Success attempt to get all products by cursor. Request id: {}, elements: {}, has next: {}",
+                requestId, slice.getNumberOfElements(), response.isHasNext());
+        return response;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public PageableResponseProducts searchProducts(String query, Long categoryId, int page, int size, String userAgent) {
+        String requestId = currentRequestID();
+        logger.info("Attempt to search products. Request id: {}, user agent: {}, query: {}, category id: {}, page: {}, size: {}.",
+                requestId, userAgent, query, categoryId, page, size);
+        ProductSearchResult result = productSearchIndex.search(query, categoryId, page, size);
+        Map<Long, ProductView> views = result.getProductIds().isEmpty()
+                ? Map.of()
+                : productsRepository.findViewsByIdIn(result.getProductIds()).stream()
+                .collect(Collectors.toMap(ProductView::getId, Function.identity()));
+        // Keep the index ranking; ids deleted since they were indexed have no view and are skipped.
+        List<ProductView> ranked = result.getProductIds().stream()
+                .map(views::get)
+                .filter(Objects::nonNull)
+                .toList();
+        PageableResponseProducts response = productMapper.createPageableResponseProducts(
+                new PageImpl<>(ranked, PageRequest.of(page, size), result.getTotalHits()));
+        logger.info("Success search products. Request id: {}, total elements: {}, total pages: {}",
+                requestId, response.getTotalElements(), response.getTotalPages());
+        return response;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public ProductFilterResponseDTO filterProducts(Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                                                   boolean inStockOnly, boolean activeOnly, ProductSort sort,
+                                                   int page, int size, String userAgent) {
+        String requestId = currentRequestID();
+        logger.info("Attempt to filter products. Request id: {}, user agent: {}, category id: {}, min price: {}, "
+                        + "max price: {}, in stock only: {}, active only: {}, sort: {}, page: {}, size: {}.",
+                requestId, userAgent, categoryId, minPrice, maxPrice, inStockOnly, activeOnly, sort, page, size);
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new BadRequestException("Min price must not be greater than max price. Request id: " + requestId);
+        }
+        List<Long> categoryIds = null;
+        if (categoryId != null) {
+            categoryIds = categoryTreeCache.getSnapshot().getSubtreeIds(categoryId);
+            if (categoryIds.isEmpty()) {
+                throw new NotFoundException("Category with this id don`t exist. ID:" + categoryId
+                        + ". Request id: " + requestId);
+            }
+        }
+        ProductFilter filter = new ProductFilter(categoryIds, minPrice, maxPrice, inStockOnly, activeOnly);
+        List<ProductFacetCount> facets = productsRepository.countFacets(filter);
+        long total = facets.stream()
+                .filter(ProductFacetCount::isInPriceRange)
+                .mapToLong(ProductFacetCount::getCount)
+                .sum();
+        PageRequest pageRequest = PageRequest.of(page, size);
+        // The facet query already counted the matches, so an empty or out of range page needs no second query.
+        List<ProductView> content = pageRequest.getOffset() < total
+                ? productsRepository.findViewsByFilter(filter, sort, pageRequest)
+                : List.of();
+        ProductFilterResponseDTO response = productMapper.createProductFilterResponse(
+                new PageImpl<>(content, pageRequest, total), facets, categoryId);
+        logger.info("Success filter products. Request id: {}, total elements: {}, total pages: {}",
+                requestId, total, response.getProducts().getTotalPages());
+        return response;
+    }
+
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @Transactional
     @Override
     public Long addProduct(ProductRequestDTO product, String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("Attempt to add product. Request id: {}, user agent: {}, product: {}.",
                 requestId, userAgent, product.toString());
         CategoryEntity category = categoryService.getCategory(product.getCategoryId(), requestId);
@@ -78,15 +250,170 @@ public class ProductServiceImpl implements ProductService {
                     throw new BadRequestException("Sku must be unique. Request id: " + requestId);
                 });
         ProductEntity productEntity = productsRepository.save(productMapper.createProduct(product, category));
+        productSearchIndex.indexAfterCommit(productEntity);
         logger.info("Success product created id: {}, request id: {}", productEntity.getId(), requestId);
         return productEntity.getId();
     }
 
+    // Not transactional: upsertBySku commits each chunk on its own, so a large file neither holds one long
+    // transaction nor loses the chunks already written when a later one fails.
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Override
+    public ProductImportResultDTO importProducts(ProductImportFormat format, InputStream in, String userAgent) {
+        String requestId = currentRequestID();
+        logger.info("Attempt to import products. Request id: {}, user agent: {}, format: {}.",
+                requestId, userAgent, format);
+        long started = System.nanoTime();
+        ProductImportReader reader;
+        try {
+            reader = format.createReader(in);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage() + ". Request id: " + requestId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        CategoryTreeSnapshot categories = categoryTreeCache.getSnapshot();
+        ProductImportResultDTO result = new ProductImportResultDTO();
+        Map<String, ProductImportRow> chunk = new LinkedHashMap<>();
+        try {
+            ProductImportRow row;
+            while ((row = reader.read()) != null) {
+                result.setRows(result.getRows() + 1);
+                String error = row.getError() != null
+                        ? row.getError()
+                        : validateImportedProduct(row.getProduct(), categories);
+                if (error != null) {
+                    addImportError(result, row, error);
+                    continue;
+                }
+                // A sku repeated in the file is written after the chunk holding its earlier row, so the
+                // last row wins just as it would across chunks.
+                if (chunk.size() == IMPORT_CHUNK_SIZE || chunk.containsKey(row.getProduct().getSku())) {
+                    importChunk(chunk.values(), result, requestId);
+                    chunk.clear();
+                }
+                chunk.put(row.getProduct().getSku(), row);
+            }
+            importChunk(chunk.values(), result, requestId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long durationMs = (System.nanoTime() - started) / 1_000_000;
+        result.setDurationMs(durationMs);
+        result.setRowsPerSecond(result.getRows() * 1000 / Math.max(1, durationMs));
+        logger.info("Success products imported. Request id: {}, rows: {}, inserted: {}, updated: {}, failed: {}, "
+                        + "took {} ms", requestId, result.getRows(), result.getInserted(), result.getUpdated(),
+                result.getFailed(), durationMs);
+        return result;
+    }
+
+    private void importChunk(Collection<ProductImportRow> rows, ProductImportResultDTO result, String requestId) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Map<String, ProductSkuView> existing = productsRepository.findSkuViewsBySkuIn(rows.stream()
+                        .map(row -> row.getProduct().getSku())
+                        .toList())
+                .stream()
+                .collect(Collectors.toMap(ProductSkuView::getSku, Function.identity()));
+        Iterator<Long> newIds = productsRepository.allocateIds(rows.size() - existing.size()).iterator();
+        List<ProductUpsert> products = new ArrayList<>(rows.size());
+        for (ProductImportRow row : rows) {
+            ProductRequestDTO product = row.getProduct();
+            ProductSkuView current = existing.get(product.getSku());
+            products.add(new ProductUpsert(current != null ? current.getId() : newIds.next(),
+                    product.getName(), product.getDescription(), product.getPrice(),
+                    Objects.requireNonNullElse(product.getStockQuantity(), 0), product.getCategoryId(),
+                    product.getSku()));
+        }
+        List<ProductUpserted> written;
+        try {
+            written = productsRepository.upsertBySku(products);
+        } catch (DataAccessException e) {
+            logger.error("Failed to import products chunk. Request id: {}", requestId, e);
+            rows.forEach(row -> addImportError(result, row, "Could not be saved"));
+            return;
+        }
+        // A sku inserted by someone else since the lookup is updated under its own id, so counts and
+        // the index follow what the upsert actually did. The chunk is committed, so these take effect
+        // right away.
+        Map<String, ProductUpserted> writtenBySku = written.stream()
+                .collect(Collectors.toMap(ProductUpserted::getSku, Function.identity()));
+        for (ProductUpsert product : products) {
+            ProductUpserted row = writtenBySku.get(product.getSku());
+            if (row.isInserted()) {
+                result.setInserted(result.getInserted() + 1);
+            } else {
+                result.setUpdated(result.getUpdated() + 1);
+                hotProductInventory.reconcileAfterCommit(row.getId());
+            }
+            productSearchIndex.indexAfterCommit(toSearchEntity(product, row.getId(), row.isActive()));
+        }
+    }
+
+    // Mirrors the request constraints of addProduct and the column limits, since one bad row would fail
+    // the whole batch in the database.
+    private static String validateImportedProduct(ProductRequestDTO product, CategoryTreeSnapshot categories) {
+        if (product.getName() == null || product.getName().isBlank()) {
+            return "Name must not be blank";
+        }
+        if (product.getName().length() > MAX_NAME_LENGTH) {
+            return "Name must be at most " + MAX_NAME_LENGTH + " characters";
+        }
+        if (product.getSku() == null || product.getSku().isBlank()) {
+            return "Sku must not be blank";
+        }
+        if (product.getSku().length() > MAX_SKU_LENGTH) {
+            return "Sku must be at most " + MAX_SKU_LENGTH + " characters";
+        }
+        if (product.getPrice() == null) {
+            return "Price is required";
+        }
+        if (product.getPrice().signum() < 0 || product.getPrice().compareTo(MAX_PRICE) > 0) {
+            return "Price must be between 0 and " + MAX_PRICE;
+        }
+        if (product.getStockQuantity() != null && product.getStockQuantity() < 0) {
+            return "Stock quantity must not be negative";
+        }
+        if (product.getCategoryId() == null) {
+            return "Category is required";
+        }
+        if (categories.findById(product.getCategoryId()).isEmpty()) {
+            return "Category not found with ID: " + product.getCategoryId();
+        }
+        return null;
+    }
+
+    private static void addImportError(ProductImportResultDTO result, ProductImportRow row, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() == MAX_IMPORT_ERRORS) {
+            result.setErrorsTruncated(true);
+            return;
+        }
+        ProductImportErrorDTO error = new ProductImportErrorDTO();
+        error.setRow(row.getRow());
+        error.setSku(row.getProduct().getSku());
+        error.setMessage(message);
+        result.getErrors().add(error);
+    }
+
+    private static ProductEntity toSearchEntity(ProductUpsert product, Long id, boolean active) {
+        CategoryEntity category = new CategoryEntity();
+        category.setId(product.getCategoryId());
+        ProductEntity entity = new ProductEntity(product.getName(), product.getPrice());
+        entity.setId(id);
+        entity.setDescription(product.getDescription());
+        entity.setSku(product.getSku());
+        entity.setCategory(category);
+        entity.setIsActive(active);
+        return entity;
+    }
+
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @Transactional
     @Override
     public void updateProduct(UpdateProductRequestDTO request, String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("Attempt to update product. Request id: {}, user agent: {}, product: {}.",
                 requestId, userAgent, request.toString());
         ProductEntity product = productsRepository.findById(request.getId())
@@ -102,6 +429,8 @@ public class ProductServiceImpl implements ProductService {
             productMapper.updateProductCategory(category, product);
         }
         productsRepository.save(productMapper.updateProduct(request, product));
+        hotProductInventory.reconcileAfterCommit(product.getId());
+        productSearchIndex.indexAfterCommit(product);
         logger.info("Success product updated productId:{}, request id: {}", product.getId(), requestId);
     }
 
@@ -109,7 +438,7 @@ public class ProductServiceImpl implements ProductService {
     @Transactional
     @Override
     public void changeIsActive(Long id, String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("Attempt to change is active product. Request id: {}, user agent: {}, product id: {}.",
                 requestId, userAgent, id);
         ProductEntity product = productsRepository.findById(id)
@@ -117,9 +446,171 @@ public class ProductServiceImpl implements ProductService {
                         + ". Request id: " + requestId));
         product.setIsActive(!product.getIsActive());
         productsRepository.save(product);
+        hotProductInventory.reconcileAfterCommit(id);
+        productSearchIndex.indexAfterCommit(product);
         logger.info("Success change productId: {} active is {}, request id: {}", id, product.getIsActive(), requestId);
     }
 
+    // One transaction for the whole request; items that cannot be applied are reported and do not roll back
+    // the others.
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Transactional
+    @Override
+    public AdjustProductsResponseDTO adjustProducts(AdjustProductsRequestDTO request, String userAgent) {
+        String requestId = currentRequestID();
+        List<ProductAdjustmentDTO> items = request.getItems();
+        logger.info("Attempt to adjust products. Request id: {}, user agent: {}, items: {}.",
+                requestId, userAgent, items.size());
+        List<String> skus = items.stream()
+                .map(ProductAdjustmentDTO::getSku)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Map<String, Long> idsBySku = skus.isEmpty()
+                ? Map.of()
+                : productsRepository.findSkuViewsBySkuIn(skus).stream()
+                .collect(Collectors.toMap(ProductSkuView::getSku, ProductSkuView::getId));
+        Map<Long, ProductStateView> before = findStates(items.stream()
+                .map(item -> item.getId() != null ? item.getId() : idsBySku.get(item.getSku()))
+                .filter(Objects::nonNull)
+                .toList());
+
+        List<ProductAdjustmentResultDTO> results = new ArrayList<>(items.size());
+        List<ProductAdjustmentResultDTO> pending = new ArrayList<>();
+        List<ProductAdjustment> adjustments = new ArrayList<>();
+        List<StockReservation> stockChanges = new ArrayList<>();
+        List<ProductAdjustmentResultDTO> insufficient = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            ProductAdjustmentDTO item = items.get(i);
+            ProductAdjustmentResultDTO result = new ProductAdjustmentResultDTO();
+            result.setIndex(i);
+            result.setId(item.getId());
+            result.setSku(item.getSku());
+            results.add(result);
+            if ((item.getId() == null) == (item.getSku() == null)) {
+                result.setStatus(ProductAdjustmentStatus.INVALID);
+                result.setMessage("Exactly one of id and sku is required");
+                continue;
+            }
+            if (item.getPrice() == null && item.getStockDelta() == null && item.getActive() == null) {
+                result.setStatus(ProductAdjustmentStatus.INVALID);
+                result.setMessage("Nothing to change");
+                continue;
+            }
+            Long id = item.getId() != null ? item.getId() : idsBySku.get(item.getSku());
+            if (id == null || !before.containsKey(id)) {
+                result.setStatus(ProductAdjustmentStatus.NOT_FOUND);
+                continue;
+            }
+            result.setId(id);
+            int stockDelta = Objects.requireNonNullElse(item.getStockDelta(), 0);
+            Boolean active = item.getActive();
+            StockReservation stockChange = null;
+            // The row of a hot product misses reservations that were not flushed yet, so its stock is changed
+            // through the in-memory counter and the next flush writes it.
+            if (stockDelta != 0 && hotProductInventory.isManaged(id)) {
+                long available = hotProductInventory.getAvailable(id);
+                StockReservation change = hotProductInventory.changeStock(id, stockDelta);
+                if (!change.getRejected().isEmpty()) {
+                    result.setStatus(ProductAdjustmentStatus.INSUFFICIENT_STOCK);
+                    result.setMessage("Stock would go below zero");
+                    insufficient.add(result);
+                    continue;
+                }
+                if (change.getUnmanaged().isEmpty()) {
+                    stockChange = change;
+                    if (active == null && available <= 0 && available + stockDelta > 0) {
+                        active = true;
+                    }
+                    stockDelta = 0;
+                }
+            }
+            pending.add(result);
+            stockChanges.add(stockChange);
+            adjustments.add(new ProductAdjustment(id, item.getPrice(), stockDelta, active, item.getVersion()));
+        }
+
+        int[] updated = productsRepository.adjust(adjustments);
+        Map<Long, ProductStateView> after = findStates(Stream.concat(pending.stream(), insufficient.stream())
+                .map(ProductAdjustmentResultDTO::getId)
+                .toList());
+        insufficient.forEach(result -> setState(result, after.get(result.getId())));
+        for (int i = 0; i < pending.size(); i++) {
+            ProductAdjustmentResultDTO result = pending.get(i);
+            ProductAdjustment adjustment = adjustments.get(i);
+            ProductStateView state = after.get(adjustment.getProductId());
+            if (updated[i] == 0 && stockChanges.get(i) != null) {
+                hotProductInventory.release(stockChanges.get(i));
+            }
+            setState(result, state);
+            if (updated[i] > 0) {
+                result.setStatus(ProductAdjustmentStatus.APPLIED);
+            } else if (adjustment.getExpectedVersion() != null
+                    && !adjustment.getExpectedVersion().equals(state.getVersion())) {
+                result.setStatus(ProductAdjustmentStatus.CONFLICT);
+                result.setMessage("Product was changed after version " + adjustment.getExpectedVersion());
+            } else {
+                result.setStatus(ProductAdjustmentStatus.INSUFFICIENT_STOCK);
+                result.setMessage("Stock would go below zero");
+            }
+        }
+
+        List<Long> flipped = new ArrayList<>();
+        after.values().forEach(state -> {
+            hotProductInventory.reconcileAfterCommit(state.getId());
+            if (!Objects.equals(before.get(state.getId()).getIsActive(), state.getIsActive())) {
+                flipped.add(state.getId());
+            }
+        });
+        if (!flipped.isEmpty()) {
+            productsRepository.findAllById(flipped).forEach(productSearchIndex::indexAfterCommit);
+        }
+
+        AdjustProductsResponseDTO response = new AdjustProductsResponseDTO();
+        response.setResults(results);
+        response.setApplied((int) results.stream()
+                .filter(result -> result.getStatus() == ProductAdjustmentStatus.APPLIED)
+                .count());
+        response.setFailed(results.size() - response.getApplied());
+        logger.info("Success products adjusted. Request id: {}, applied: {}, failed: {}",
+                requestId, response.getApplied(), response.getFailed());
+        return response;
+    }
+
+    private void setState(ProductAdjustmentResultDTO result, ProductStateView state) {
+        result.setPrice(state.getPrice());
+        result.setStockQuantity(hotProductInventory.isManaged(state.getId())
+                ? Math.toIntExact(hotProductInventory.getAvailable(state.getId()))
+                : state.getStockQuantity());
+        result.setActive(state.getIsActive());
+        result.setVersion(state.getVersion());
+    }
+
+    private Map<Long, ProductStateView> findStates(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return productsRepository.findStateViewsByIdIn(ids.stream().distinct().toList()).stream()
+                .collect(Collectors.toMap(ProductStateView::getId, Function.identity()));
+    }
+
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Override
+    public void changeHotInventory(Long id, boolean enabled, String userAgent) {
+        String requestId = currentRequestID();
+        logger.info("Attempt to change hot inventory. Request id: {}, user agent: {}, product id: {}, enabled: {}.",
+                requestId, userAgent, id, enabled);
+        if (!productsRepository.existsById(id)) {
+            throw new NotFoundException("Product not found with ID:" + id + ". Request id: " + requestId);
+        }
+        if (enabled) {
+            hotProductInventory.enable(id);
+        } else {
+            hotProductInventory.disable(id);
+        }
+        logger.info("Success change productId: {} hot inventory is {}, request id: {}", id, enabled, requestId);
+    }
+
     @Override
     public ProductEntity validateAndGetProduct(Long productId, String requestId) {
         ProductEntity product = getProduct(productId, requestId);
@@ -140,12 +631,14 @@ public class ProductServiceImpl implements ProductService {
                         + ". Request id: " + requestId));
     }
 
+    @Transactional(readOnly = true)
     @Override
     public PageableResponseGetProductsByCategory getAllProductByCategoryId(Long categoryId, int page, int size, String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("Attempt to change is active product. Request id: {}, user agent: {}, page: {}, size: {}.",
                 requestId, userAgent, page, size);
-        Page<ProductEntity> productPage = productsRepository.findByCategoryId(categoryId, PageRequest.of(page, size));
+        Page<ProductWithoutCategoryDTO> productPage = productsRepository.findDTOsByCategoryId(categoryId,
+                PageRequest.of(page, size));
         PageableResponseGetProductsByCategory response = productMapper.createPageableResponseGetProductsByCategory(productPage);
         logger.info("Success get pageable response get all products by categoryId: {}. Request id: {}, Total pages: {}, total elements: {}",
                 categoryId, requestId, response.getTotalPages(), response.getTotalPages());
@@ -155,47 +648,56 @@ public class ProductServiceImpl implements ProductService {
     @Transactional
     @Override
     public void increaseStockForOrderItems(List<OrderItemEntity> orderItems) {
-        for (OrderItemEntity orderItem : orderItems) {
-            ProductEntity product = orderItem.getProduct();
-            product.setStockQuantity(product.getStockQuantity() + orderItem.getQuantity());
-        }
-        productsRepository.saveAll(orderItems.stream().map(OrderItemEntity::getProduct).toList());
+        Map<Long, Integer> quantities = orderItems.stream()
+                .collect(Collectors.groupingBy(item -> item.getProduct().getId(),
+                        Collectors.summingInt(OrderItemEntity::getQuantity)));
+        productsRepository.increaseStock(hotProductInventory.restock(quantities));
     }
 
     @Transactional
     @Override
-    public void decreaseStockForOrderItems(List<CartItemEntity> cartItems) {
-        for (CartItemEntity cartItem : cartItems) {
-            ProductEntity product = cartItem.getProduct();
-            product.setStockQuantity(product.getStockQuantity() - cartItem.getQuantity());
-        }
-        productsRepository.saveAll(cartItems.stream().map(CartItemEntity::getProduct).toList());
-    }
-
-    @Override
-    public void validateProductsForOrder(List<CartItemEntity> cartItems, String requestId) {
-        for (CartItemEntity item : cartItems) {
-            ProductEntity product = productsRepository.findById(item.getProduct().getId())
-                    .orElseThrow(() -> new NotFoundException("Product with ID " + item.getProduct().getId()
-                            + " not found. Request id: " + requestId));
-            if (!product.getIsActive()) {
-                throw new BadRequestException("Product " + product.getName()
-                        + " is disabled. Request id: " + requestId);
-            }
-            if (item.getQuantity() > product.getStockQuantity()) {
-                throw new BadRequestException("Not enough '" + product.getName()
-                        + "' in stock. Available: " + product.getStockQuantity()
-                        + ", requested: " + item.getQuantity()
-                        + ". Request id: " + requestId);
+    public void decreaseStockForOrderItems(List<CartItemEntity> cartItems, String requestId) {
+        Map<Long, Integer> quantities = cartItems.stream()
+                .collect(Collectors.groupingBy(item -> item.getProduct().getId(),
+                        Collectors.summingInt(CartItemEntity::getQuantity)));
+        StockReservation reservation = hotProductInventory.reserve(quantities);
+        List<Long> rejected = reservation.getRejected();
+        if (rejected.isEmpty()) {
+            rejected = productsRepository.decreaseStock(reservation.getUnmanaged());
+            if (!rejected.isEmpty()) {
+                hotProductInventory.release(reservation);
             }
         }
+        if (!rejected.isEmpty()) {
+            List<Long> rejectedIds = rejected;
+            String products = cartItems.stream()
+                    .map(CartItemEntity::getProduct)
+                    .filter(product -> rejectedIds.contains(product.getId()))
+                    .map(product -> "'" + product.getName() + "'")
+                    .distinct()
+                    .collect(Collectors.joining(", "));
+            throw new BadRequestException("Not enough stock or product is disabled: " + products
+                    + ". Request id: " + requestId);
+        }
     }
 
     @Transactional
     private void changeIsActive(ProductEntity product, String requestId) {
         product.setIsActive(!product.getIsActive());
         productsRepository.save(product);
+        hotProductInventory.reconcileAfterCommit(product.getId());
+        productSearchIndex.indexAfterCommit(product);
         logger.info("Success change is active for productId: {} to {}. Request id: {}",
                 product.getId(), product.getIsActive(), requestId);
     }
+
+    @Override
+    public Map<Long, ProductBasicDTO> getProductDTOsByIds(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        return productsRepository.findViewsByIdIn(productIds)
+                .stream()
+                .collect(Collectors.toMap(ProductView::getId, productMapper::toDTO));
+    }
 }
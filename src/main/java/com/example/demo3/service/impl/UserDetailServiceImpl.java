@@ -3,15 +3,18 @@ package com.example.demo3.service.impl;
 import com.example.demo3.entity.UserEntity;
 import com.example.demo3.exception.NotFoundException;
 import com.example.demo3.repository.UserRepository;
+import com.example.demo3.security.ClaimsUserDetailsService;
 import com.example.demo3.security.CustomUserDetails;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+
 @Service
-public class UserDetailServiceImpl implements UserDetailsService {
+public class UserDetailServiceImpl implements ClaimsUserDetailsService {
     private final UserRepository userRepository;
 
     private static final Logger logger = LoggerFactory.getLogger(UserDetailServiceImpl.class);
@@ -22,9 +25,17 @@ public class UserDetailServiceImpl implements UserDetailsService {
 
     @Override
     public UserDetails loadUserByUsername(String username) {
+        return new CustomUserDetails(loadUserEntity(username));
+    }
+
+    @Override
+    public CustomUserDetails loadUserFromClaims(String username, Collection<? extends GrantedAuthority> authorities) {
+        return new CustomUserDetails(username, authorities, () -> loadUserEntity(username));
+    }
+
+    private UserEntity loadUserEntity(String username) {
         logger.info("Loading user by username: {}", username);
-        UserEntity user = userRepository.findByUsername(username)
+        return userRepository.findByUsername(username)
                 .orElseThrow(() -> new NotFoundException("User with this username not found"));
-        return new CustomUserDetails(user);
     }
 }
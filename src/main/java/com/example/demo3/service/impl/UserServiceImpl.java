@@ -6,44 +6,43 @@ import com.example.demo3.exception.BadRequestException;
 import com.example.demo3.exception.NotFoundException;
 import com.example.demo3.mapper.UserMapper;
 import com.example.demo3.repository.UserRepository;
+import com.example.demo3.security.PasswordHashingService;
 import com.example.demo3.service.TokenService;
 import com.example.demo3.service.UserService;
-import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Collections;
 
-import static com.example.demo3.utill.GenerateRequestID.generateRequestID;
+import static com.example.demo3.utill.GenerateRequestID.currentRequestID;
 
 @Service
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final TokenService tokenService;
     private final UserMapper userMapper;
 
     public static final Logger logger = LoggerFactory.getLogger(UserServiceImpl.class);
 
     public UserServiceImpl(UserRepository userRepository,
-                           PasswordEncoder passwordEncoder,
+                           PasswordHashingService passwordHashingService,
                            TokenService tokenService,
                            UserMapper userMapper) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.tokenService = tokenService;
         this.userMapper = userMapper;
     }
 
-    @Transactional
+    // Not transactional on purpose: a request waiting for the hashing pool must not hold a database connection.
     @Override
     public JwtResponseDTO registerUser(UserRegistrationRequestDTO request, String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("Attempt to register user. Request id: {}, user agent: {}, user: {}.",
                 requestId, userAgent, request.toString());
         userRepository.findByUsername(request.getUsername())
@@ -60,22 +59,26 @@ public class UserServiceImpl implements UserService {
         String accessToken = tokenService.generateAccessTokenForAuth(request.getUsername());
         String refreshToken = tokenService.generateRefreshToken(request.getUsername());
         UserEntity userEntity = userRepository
-                .save(userMapper.createUserEntity(request, refreshToken, passwordEncoder.encode(request.getPassword())));
+                .save(userMapper.createUserEntity(request, refreshToken, passwordHashingService.encode(request.getPassword())));
         logger.info("Success! Request id: {}. Saved user: {}", requestId, userEntity.getId());
         return new JwtResponseDTO(accessToken, refreshToken, userEntity.getId());
     }
 
-    @Transactional
+    // Not transactional for the same reason as registerUser.
     @Override
     public JwtResponseDTO loginUser(UserLoginDTO request, String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("Attempt to login user. Request id: {}, user agent: {}, user: {}.",
                 requestId, userAgent, request.toString());
         UserEntity user = userRepository.findByUsername(request.getUsername())
                 .orElseThrow(() -> new NotFoundException("User with this username not exist. Request id: " + requestId));
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHashingService.matches(request.getPassword(), user.getPassword())) {
             throw new BadRequestException("Incorrect password. Request id: " + requestId);
         }
+        if (passwordHashingService.needsRehash(user.getPassword())) {
+            user.setPassword(passwordHashingService.encode(request.getPassword()));
+            logger.info("Password hash upgraded for user: {}, Request id: {}", user.getId(), requestId);
+        }
         String accessToken = tokenService.generateAccessToken(user.getUsername(), Collections.singletonList(user.getRole()));
         String refreshToken = tokenService.generateRefreshToken(request.getUsername());
         user.setRefreshToken(refreshToken);
@@ -87,7 +90,7 @@ public class UserServiceImpl implements UserService {
     @PreAuthorize("isAuthenticated()")
     @Override
     public UserProfileDTO getMyProfile(String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("User attempt to get own profile. Request id: {}, user agent: {}",
                 requestId, userAgent);
         UserEntity entity = userRepository.findByUsername(getCurrentUsername())
@@ -99,7 +102,7 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public UserProfileDTO getUserProfile(Long id, String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("User attempt to get profile. Request id: {}, user agent: {}, profile id: {}",
                 requestId, userAgent, id);
         UserEntity entity = userRepository.findById(id)
@@ -112,7 +115,7 @@ public class UserServiceImpl implements UserService {
     @PreAuthorize("isAuthenticated()")
     @Override
     public void updateUserProfile(UserUpdateRequestDTO request, String userAgent) {
-        String requestId = generateRequestID();
+        String requestId = currentRequestID();
         logger.info("Attempt to update profile. Request id: {}, user agent: {}",
                 requestId, userAgent);
         UserEntity entity = userRepository.findByUsername(getCurrentUsername())
@@ -0,0 +1,37 @@
+package com.example.demo3.utill;
+
+import com.example.demo3.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes the last seen id into an opaque cursor for keyset pagination.
+ */
+public class CursorCodec {
+    private static final String PREFIX = "id:";
+
+    public static String encode(Long lastId) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the id to continue after. An empty cursor starts from the beginning.
+     */
+    public static long decode(String cursor, String requestId) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Unknown cursor format");
+            }
+            return Long.parseLong(decoded.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor. Request id: " + requestId);
+        }
+    }
+}
@@ -1,9 +1,30 @@
 package com.example.demo3.utill;
 
+import org.apache.logging.log4j.ThreadContext;
+
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class GenerateRequestID {
+    public static final String REQUEST_ID_KEY = "requestId";
+
+    /**
+     * Creates a random id in UUID format. Ids only correlate log lines, so they come from
+     * {@link ThreadLocalRandom} instead of the shared {@code SecureRandom} behind {@link UUID#randomUUID()}.
+     */
     public static String generateRequestID() {
-        return UUID.randomUUID().toString();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSigBits = (random.nextLong() & 0xffffffffffff0fffL) | 0x0000000000004000L;
+        long leastSigBits = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits).toString();
+    }
+
+    /**
+     * Returns the id of the HTTP request being handled, set once per request by {@code RequestIdFilter}.
+     * Outside a request, e.g. in scheduled jobs, a new id is generated.
+     */
+    public static String currentRequestID() {
+        String requestId = ThreadContext.get(REQUEST_ID_KEY);
+        return requestId != null ? requestId : generateRequestID();
     }
 }
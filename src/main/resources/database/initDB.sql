@@ -69,4 +69,85 @@ CREATE TABLE if NOT EXISTS order_items (
     quantity INTEGER NOT NULL,
     unit_price DECIMAL(10,2) NOT NULL,
     total_price DECIMAL(10,2) NOT NULL
-);
\ No newline at end of file
+);
+
+-- Entities take ids from these sequences in blocks of 50 (allocationSize), so the step must match
+ALTER SEQUENCE users_id_seq INCREMENT BY 50;
+ALTER SEQUENCE categories_id_seq INCREMENT BY 50;
+ALTER SEQUENCE products_id_seq INCREMENT BY 50;
+ALTER SEQUENCE carts_id_seq INCREMENT BY 50;
+ALTER SEQUENCE cart_items_id_seq INCREMENT BY 50;
+ALTER SEQUENCE orders_id_seq INCREMENT BY 50;
+ALTER SEQUENCE order_items_id_seq INCREMENT BY 50;
+
+-- Product filtering narrows by category subtree and price range
+CREATE INDEX IF NOT EXISTS idx_products_category_id ON products(category_id);
+CREATE INDEX IF NOT EXISTS idx_products_price ON products(price);
+
+-- Order items are read per order; the export also filters orders by creation time
+CREATE INDEX IF NOT EXISTS idx_order_items_order_id ON order_items(order_id);
+CREATE INDEX IF NOT EXISTS idx_orders_created_at ON orders(created_at);
+
+-- Row version, bumped by every write; bulk adjustments can require the version the caller last read
+ALTER TABLE products ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+-- Order lifecycle outbox, written with the order change and delivered to handlers in id order
+CREATE TABLE IF NOT EXISTS order_events (
+    id BIGSERIAL PRIMARY KEY,
+    type VARCHAR(20) NOT NULL,
+    order_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    previous_status VARCHAR(20),
+    total_amount DECIMAL(10,2) NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW()
+);
+
+CREATE TABLE IF NOT EXISTS order_event_positions (
+    handler VARCHAR(100) PRIMARY KEY,
+    position BIGINT NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT NOW()
+);
+
+-- Idempotency-Key of create order requests, per user, with the order the first request created
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id BIGSERIAL PRIMARY KEY,
+    username VARCHAR(50) NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    order_id BIGINT REFERENCES orders(id) ON DELETE CASCADE,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+    UNIQUE(username, idempotency_key)
+);
+ALTER SEQUENCE idempotency_keys_id_seq INCREMENT BY 50;
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created_at ON idempotency_keys(created_at);
+
+-- Order history lists read a user's orders by id
+CREATE INDEX IF NOT EXISTS idx_orders_user_id ON orders(user_id, id);
+
+-- Sales rollups, kept up to date from order events by the sales-rollups handler
+CREATE TABLE IF NOT EXISTS sales_hourly (
+    bucket_start TIMESTAMP PRIMARY KEY,
+    orders BIGINT NOT NULL DEFAULT 0,
+    units BIGINT NOT NULL DEFAULT 0,
+    revenue DECIMAL(14,2) NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS product_sales (
+    product_id BIGINT PRIMARY KEY,
+    orders BIGINT NOT NULL DEFAULT 0,
+    units BIGINT NOT NULL DEFAULT 0,
+    revenue DECIMAL(14,2) NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS category_sales (
+    category_id BIGINT PRIMARY KEY,
+    orders BIGINT NOT NULL DEFAULT 0,
+    units BIGINT NOT NULL DEFAULT 0,
+    revenue DECIMAL(14,2) NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS order_status_counts (
+    status VARCHAR(20) PRIMARY KEY,
+    orders BIGINT NOT NULL DEFAULT 0
+);
@@ -0,0 +1,168 @@
+package com.example.demo3.analytics;
+
+import com.example.demo3.entity.*;
+import com.example.demo3.outbox.OrderEvent;
+import com.example.demo3.repository.testutil.BaseRepositoryTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static com.example.demo3.repository.testutil.TestDataFactory.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@Import(SalesRollupHandler.class)
+class SalesRollupHandlerTest extends BaseRepositoryTest<SalesRollupHandler> {
+
+    private static OrderEvent event(long id, OrderEventType type, OrderEntity order, OrderStatus status,
+                                    OrderStatus previousStatus) {
+        return new OrderEvent(id, type, order.getId(), order.getUser().getId(), status, previousStatus,
+                order.getTotalAmount(), order.getCreatedAt());
+    }
+
+    private OrderEvent persistEvent(OrderEventType type, OrderEntity order, OrderStatus previousStatus) {
+        OrderEventEntity entity = entityManager.persistAndFlush(new OrderEventEntity(type, order, previousStatus));
+        return new OrderEvent(entity.getId(), entity.getType(), entity.getOrderId(), entity.getUserId(),
+                entity.getStatus(), entity.getPreviousStatus(), entity.getTotalAmount(), entity.getCreatedAt());
+    }
+
+    @Test
+    @DisplayName("Should add created orders, take cancelled ones away and move status counts")
+    void handleBatch_ShouldUpdateRollups() {
+        UserEntity user = createAndPersistUser(entityManager);
+        CategoryEntity category = createAndPersistCategory(entityManager);
+        ProductEntity phone = createAndPersistProductWithCategory(entityManager, category);
+        ProductEntity charger = createAndPersistProductWithCategory(entityManager, category);
+        OrderEntity kept = createAndPersistOrder(entityManager, user);
+        createAndPersistOrderItem(entityManager, kept, phone, 2, BigDecimal.valueOf(100));
+        createAndPersistOrderItem(entityManager, kept, charger, 1, BigDecimal.valueOf(20));
+        OrderEntity cancelled = createAndPersistOrder(entityManager, user);
+        createAndPersistOrderItem(entityManager, cancelled, phone, 1, BigDecimal.valueOf(100));
+
+        underTest.handleBatch(List.of(
+                event(1, OrderEventType.CREATED, kept, OrderStatus.PENDING, null),
+                event(2, OrderEventType.CREATED, cancelled, OrderStatus.PENDING, null)));
+        underTest.handleBatch(List.of(
+                event(3, OrderEventType.STATUS_CHANGED, kept, OrderStatus.CONFIRMED, OrderStatus.PENDING),
+                event(4, OrderEventType.CANCELLED, cancelled, OrderStatus.CANCELLED, OrderStatus.PENDING)));
+        clearPersistenceContext();
+
+        ProductSalesEntity phoneSales = entityManager.find(ProductSalesEntity.class, phone.getId());
+        assertEquals(1, phoneSales.getOrders());
+        assertEquals(2, phoneSales.getUnits());
+        assertEquals(0, BigDecimal.valueOf(200).compareTo(phoneSales.getRevenue()));
+        CategorySalesEntity categorySales = entityManager.find(CategorySalesEntity.class, category.getId());
+        assertEquals(1, categorySales.getOrders());
+        assertEquals(3, categorySales.getUnits());
+        assertEquals(0, BigDecimal.valueOf(220).compareTo(categorySales.getRevenue()));
+        SalesHourlyEntity hour = entityManager.find(SalesHourlyEntity.class,
+                kept.getCreatedAt().truncatedTo(ChronoUnit.HOURS));
+        assertEquals(1, hour.getOrders());
+        assertEquals(0, BigDecimal.valueOf(220).compareTo(hour.getRevenue()));
+        assertEquals(0, entityManager.find(OrderStatusCountEntity.class, OrderStatus.PENDING).getOrders());
+        assertEquals(1, entityManager.find(OrderStatusCountEntity.class, OrderStatus.CONFIRMED).getOrders());
+        assertEquals(1, entityManager.find(OrderStatusCountEntity.class, OrderStatus.CANCELLED).getOrders());
+    }
+
+    @Test
+    @DisplayName("Should ignore events that were already applied")
+    void handleBatch_ShouldIgnoreReplayedEvents() {
+        UserEntity user = createAndPersistUser(entityManager);
+        ProductEntity product = createAndPersistProduct(entityManager);
+        OrderEntity order = createAndPersistOrder(entityManager, user);
+        createAndPersistOrderItem(entityManager, order, product, 3, BigDecimal.TEN);
+        List<OrderEvent> events = List.of(event(1, OrderEventType.CREATED, order, OrderStatus.PENDING, null));
+
+        underTest.handleBatch(events);
+        underTest.handleBatch(events);
+        clearPersistenceContext();
+
+        assertEquals(3, entityManager.find(ProductSalesEntity.class, product.getId()).getUnits());
+        assertEquals(1, entityManager.find(OrderStatusCountEntity.class, OrderStatus.PENDING).getOrders());
+    }
+
+    @Test
+    @DisplayName("Should count an order whose creation was delivered after the first event, even with a lower id")
+    void handleBatch_ShouldFollowEventOrderNotOrderIds() {
+        UserEntity user = createAndPersistUser(entityManager);
+        ProductEntity product = createAndPersistProduct(entityManager);
+        OrderEntity lower = createAndPersistOrder(entityManager, user);
+        createAndPersistOrderItem(entityManager, lower, product, 1, BigDecimal.TEN);
+        OrderEntity higher = createAndPersistOrder(entityManager, user);
+        createAndPersistOrderItem(entityManager, higher, product, 2, BigDecimal.TEN);
+        OrderEvent higherCreated = persistEvent(OrderEventType.CREATED, higher, null);
+        OrderEvent lowerCreated = persistEvent(OrderEventType.CREATED, lower, null);
+
+        underTest.handleBatch(List.of(higherCreated));
+        underTest.handleBatch(List.of(lowerCreated));
+        assertEquals(3, entityManager.find(ProductSalesEntity.class, product.getId()).getUnits());
+        lower.setStatus(OrderStatus.CANCELLED);
+        underTest.handleBatch(List.of(persistEvent(OrderEventType.CANCELLED, lower, OrderStatus.PENDING)));
+        clearPersistenceContext();
+
+        ProductSalesEntity sales = entityManager.find(ProductSalesEntity.class, product.getId());
+        assertEquals(1, sales.getOrders());
+        assertEquals(2, sales.getUnits());
+        assertEquals(1, entityManager.find(OrderStatusCountEntity.class, OrderStatus.PENDING).getOrders());
+        assertEquals(1, entityManager.find(OrderStatusCountEntity.class, OrderStatus.CANCELLED).getOrders());
+    }
+
+    @Test
+    @DisplayName("Should skip cancelling and confirming orders that were created before the first applied event")
+    void handleBatch_ShouldSkipOrdersNeverAdded() {
+        UserEntity user = createAndPersistUser(entityManager);
+        ProductEntity product = createAndPersistProduct(entityManager);
+        OrderEntity beforeHandler = createAndPersistOrder(entityManager, user);
+        createAndPersistOrderItem(entityManager, beforeHandler, product, 5, BigDecimal.TEN);
+        persistEvent(OrderEventType.CREATED, beforeHandler, null);
+        OrderEntity beforeOutbox = createAndPersistOrder(entityManager, user);
+        createAndPersistOrderItem(entityManager, beforeOutbox, product, 4, BigDecimal.TEN);
+        beforeOutbox.setCreatedAt(beforeOutbox.getCreatedAt().minusDays(1));
+        OrderEntity counted = createAndPersistOrder(entityManager, user);
+        createAndPersistOrderItem(entityManager, counted, product, 1, BigDecimal.TEN);
+
+        underTest.handleBatch(List.of(persistEvent(OrderEventType.CREATED, counted, null)));
+        beforeHandler.setStatus(OrderStatus.CANCELLED);
+        beforeOutbox.setStatus(OrderStatus.CONFIRMED);
+        underTest.handleBatch(List.of(
+                persistEvent(OrderEventType.CANCELLED, beforeHandler, OrderStatus.PENDING),
+                persistEvent(OrderEventType.STATUS_CHANGED, beforeOutbox, OrderStatus.PENDING)));
+        clearPersistenceContext();
+
+        ProductSalesEntity sales = entityManager.find(ProductSalesEntity.class, product.getId());
+        assertEquals(1, sales.getOrders());
+        assertEquals(1, sales.getUnits());
+        assertEquals(0, BigDecimal.TEN.compareTo(sales.getRevenue()));
+        SalesHourlyEntity hour = entityManager.find(SalesHourlyEntity.class,
+                counted.getCreatedAt().truncatedTo(ChronoUnit.HOURS));
+        assertEquals(1, hour.getOrders());
+        assertEquals(1, entityManager.find(OrderStatusCountEntity.class, OrderStatus.PENDING).getOrders());
+        assertNull(entityManager.find(OrderStatusCountEntity.class, OrderStatus.CONFIRMED));
+        assertNull(entityManager.find(OrderStatusCountEntity.class, OrderStatus.CANCELLED));
+    }
+
+    @Test
+    @DisplayName("Should take away a cancelled order whose creation event was purged after it was counted")
+    void handleBatch_WhenCreationEventIsPurged_ShouldUseCreationTime() {
+        UserEntity user = createAndPersistUser(entityManager);
+        ProductEntity product = createAndPersistProduct(entityManager);
+        OrderEntity first = createAndPersistOrder(entityManager, user);
+        createAndPersistOrderItem(entityManager, first, product, 1, BigDecimal.TEN);
+        underTest.handleBatch(List.of(persistEvent(OrderEventType.CREATED, first, null)));
+        OrderEntity purged = createAndPersistOrder(entityManager, user);
+        createAndPersistOrderItem(entityManager, purged, product, 3, BigDecimal.TEN);
+        OrderEvent purgedCreated = persistEvent(OrderEventType.CREATED, purged, null);
+        underTest.handleBatch(List.of(purgedCreated));
+
+        entityManager.remove(entityManager.find(OrderEventEntity.class, purgedCreated.getId()));
+        purged.setStatus(OrderStatus.CANCELLED);
+        underTest.handleBatch(List.of(persistEvent(OrderEventType.CANCELLED, purged, OrderStatus.PENDING)));
+        clearPersistenceContext();
+
+        assertEquals(1, entityManager.find(ProductSalesEntity.class, product.getId()).getUnits());
+        assertEquals(1, entityManager.find(OrderStatusCountEntity.class, OrderStatus.CANCELLED).getOrders());
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.demo3.cache;
+
+import com.example.demo3.repository.projection.CategoryChildView;
+import com.example.demo3.repository.projection.CategoryView;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategoryTreeSnapshotTest {
+
+    private static final CategoryTreeSnapshot SNAPSHOT = CategoryTreeSnapshot.build(7L, List.of(
+            category(3L, "Phones", 1L),
+            category(1L, "Electronics", null),
+            category(2L, "Laptops", 1L),
+            category(4L, "Books", null)));
+
+    private static CategoryView category(Long id, String name, Long parentId) {
+        return new CategoryView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String getDescription() {
+                return null;
+            }
+
+            @Override
+            public Long getParentId() {
+                return parentId;
+            }
+
+            @Override
+            public LocalDateTime getCreatedAt() {
+                return null;
+            }
+        };
+    }
+
+    @Nested
+    @DisplayName("Lookup tests")
+    class Lookup {
+
+        @Test
+        @DisplayName("Should find category by id")
+        void findById_ShouldFindCategoryById() {
+            assertEquals("Laptops", SNAPSHOT.findById(2L).orElseThrow().getName());
+            assertTrue(SNAPSHOT.findById(99L).isEmpty());
+            assertEquals(7L, SNAPSHOT.getVersion());
+        }
+
+        @Test
+        @DisplayName("Should return children sorted by id")
+        void getChildren_ShouldReturnChildrenSortedById() {
+            List<CategoryChildView> children = SNAPSHOT.getChildren(1L);
+
+            assertEquals(List.of(2L, 3L), children.stream().map(CategoryChildView::getId).toList());
+            assertTrue(SNAPSHOT.getChildren(4L).isEmpty());
+            assertTrue(SNAPSHOT.getChildren(99L).isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should return category with all descendants")
+        void getSubtreeIds_ShouldReturnCategoryWithDescendants() {
+            assertEquals(List.of(1L, 2L, 3L), SNAPSHOT.getSubtreeIds(1L).stream().sorted().toList());
+            assertEquals(List.of(4L), SNAPSHOT.getSubtreeIds(4L));
+            assertTrue(SNAPSHOT.getSubtreeIds(99L).isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should return root categories")
+        void getRoots_ShouldReturnRootCategories() {
+            assertEquals(List.of(1L, 4L), SNAPSHOT.getRoots().stream().map(CategoryChildView::getId).toList());
+        }
+    }
+
+    @Nested
+    @DisplayName("Paging tests")
+    class Paging {
+
+        @Test
+        @DisplayName("Should return page in id order")
+        void findAll_ShouldReturnPageInIdOrder() {
+            Page<CategoryView> result = SNAPSHOT.findAll(PageRequest.of(1, 3));
+
+            assertEquals(4, result.getTotalElements());
+            assertEquals(List.of(4L), result.getContent().stream().map(CategoryView::getId).toList());
+        }
+
+        @Test
+        @DisplayName("Should return slice after id")
+        void findByIdGreaterThan_ShouldReturnSliceAfterId() {
+            Slice<CategoryView> result = SNAPSHOT.findByIdGreaterThan(1L, PageRequest.of(0, 2));
+
+            assertEquals(List.of(2L, 3L), result.getContent().stream().map(CategoryView::getId).toList());
+            assertTrue(result.hasNext());
+            assertFalse(SNAPSHOT.findByIdGreaterThan(3L, PageRequest.of(0, 2)).hasNext());
+        }
+    }
+
+    @Nested
+    @DisplayName("Version tests")
+    class Version {
+
+        @Test
+        @DisplayName("Should keep fingerprint and last modified when content is unchanged")
+        void build_ShouldKeepLastModifiedWhenContentUnchanged() {
+            CategoryTreeSnapshot next = CategoryTreeSnapshot.build(8L, List.of(
+                    category(1L, "Electronics", null),
+                    category(2L, "Laptops", 1L),
+                    category(3L, "Phones", 1L),
+                    category(4L, "Books", null)), SNAPSHOT);
+
+            assertEquals(SNAPSHOT.getFingerprint(), next.getFingerprint());
+            assertSame(SNAPSHOT.getLastModified(), next.getLastModified());
+        }
+
+        @Test
+        @DisplayName("Should change fingerprint when a category changes")
+        void build_ShouldChangeFingerprintWhenContentChanges() {
+            CategoryTreeSnapshot next = CategoryTreeSnapshot.build(8L, List.of(
+                    category(1L, "Electronics", null),
+                    category(2L, "Laptops", 1L),
+                    category(3L, "Phones", 4L),
+                    category(4L, "Books", null)), SNAPSHOT);
+
+            assertNotEquals(SNAPSHOT.getFingerprint(), next.getFingerprint());
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.demo3.cart;
+
+import com.example.demo3.entity.CartEntity;
+import com.example.demo3.entity.CartItemEntity;
+import com.example.demo3.entity.ProductEntity;
+import com.example.demo3.repository.CartItemRepository;
+import com.example.demo3.repository.CartRepository;
+import com.example.demo3.repository.ProductsRepository;
+import com.example.demo3.repository.UserRepository;
+import com.example.demo3.repository.projection.CartLineView;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class CartCacheTest {
+
+    private static final String USERNAME = "username";
+    private static final long CART_ID = 7L;
+    private static final long STORED_PRODUCT_ID = 1L;
+    private static final long NEW_PRODUCT_ID = 2L;
+
+    private CartRepository cartRepository;
+    private CartItemRepository cartItemRepository;
+    private EntityManager entityManager;
+    private PlatformTransactionManager transactionManager;
+    private CartItemEntity storedItem;
+    private CartCache underTest;
+
+    private static CartLineView line(Long productId, Integer quantity) {
+        return new CartLineView() {
+            @Override
+            public Long getCartId() {
+                return CART_ID;
+            }
+
+            @Override
+            public Long getProductId() {
+                return productId;
+            }
+
+            @Override
+            public Integer getQuantity() {
+                return quantity;
+            }
+        };
+    }
+
+    @BeforeEach
+    void setUp() {
+        cartRepository = mock(CartRepository.class);
+        cartItemRepository = mock(CartItemRepository.class);
+        ProductsRepository productsRepository = mock(ProductsRepository.class);
+        CartEntity cart = new CartEntity();
+        cart.setId(CART_ID);
+        ProductEntity product = new ProductEntity();
+        product.setId(STORED_PRODUCT_ID);
+        storedItem = new CartItemEntity(cart, product, 2);
+        when(cartRepository.findLinesByUsername(USERNAME)).thenReturn(List.of(line(STORED_PRODUCT_ID, 2)));
+        when(cartRepository.getReferenceById(CART_ID)).thenReturn(cart);
+        when(productsRepository.getReferenceById(anyLong())).thenAnswer(invocation -> {
+            ProductEntity reference = new ProductEntity();
+            reference.setId(invocation.getArgument(0));
+            return reference;
+        });
+        when(cartItemRepository.findByCartIdIn(anyCollection())).thenReturn(List.of(storedItem));
+        entityManager = mock(EntityManager.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        underTest = new CartCache(cartRepository, cartItemRepository, productsRepository, mock(UserRepository.class),
+                entityManager, transactionManager, true, 100, 600_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Ends the simulated order transaction the way the transaction manager would.
+     */
+    private static void completeOrderTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<CartItemEntity> savedItems() {
+        ArgumentCaptor<List<CartItemEntity>> saved = ArgumentCaptor.forClass(List.class);
+        verify(cartItemRepository).saveAll(saved.capture());
+        return saved.getValue();
+    }
+
+    @Nested
+    @DisplayName("Change tests")
+    class Change {
+
+        @Test
+        @DisplayName("Should load the cart once and keep changes in memory until the flush")
+        void change_ShouldApplyInMemory() {
+            assertEquals(2, underTest.change(USERNAME, STORED_PRODUCT_ID, quantity -> quantity + 1));
+            assertEquals(0, underTest.change(USERNAME, NEW_PRODUCT_ID, quantity -> quantity + 1));
+
+            assertEquals(Map.of(STORED_PRODUCT_ID, 3, NEW_PRODUCT_ID, 1), underTest.read(USERNAME).getQuantities());
+            verify(cartRepository, times(1)).findLinesByUsername(USERNAME);
+            verifyNoInteractions(cartItemRepository);
+
+            underTest.flush();
+
+            assertEquals(3, storedItem.getQuantity());
+            List<CartItemEntity> added = savedItems();
+            assertEquals(1, added.size());
+            assertEquals(NEW_PRODUCT_ID, added.get(0).getProduct().getId());
+            assertEquals(1, added.get(0).getQuantity());
+
+            underTest.flush();
+
+            verify(cartItemRepository, times(1)).findByCartIdIn(anyCollection());
+        }
+
+        @Test
+        @DisplayName("Should delete removed products")
+        void clear_ShouldDeleteStoredItems() {
+            assertEquals(1, underTest.clear(USERNAME));
+
+            underTest.flush();
+
+            verify(cartItemRepository).deleteAll(List.of(storedItem));
+            assertTrue(underTest.read(USERNAME).getQuantities().isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should leave carts to the database when the cache is disabled")
+        void change_WhenDisabled_ShouldReturnNull() {
+            CartCache disabled = new CartCache(cartRepository, cartItemRepository, mock(ProductsRepository.class),
+                    mock(UserRepository.class), mock(EntityManager.class), mock(PlatformTransactionManager.class),
+                    false, 100, 600_000);
+
+            assertNull(disabled.change(USERNAME, STORED_PRODUCT_ID, quantity -> quantity + 1));
+            assertNull(disabled.read(USERNAME));
+            verifyNoInteractions(cartRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("Flush for order tests")
+    class FlushForOrder {
+
+        @Test
+        @DisplayName("Should write the user's changes right away")
+        void flushForOrder_ShouldWriteChanges() {
+            underTest.change(USERNAME, NEW_PRODUCT_ID, quantity -> 4);
+
+            underTest.flushForOrder(USERNAME);
+
+            assertEquals(4, savedItems().get(0).getQuantity());
+            verifyNoInteractions(entityManager);
+        }
+
+        @Test
+        @DisplayName("Should keep changes that failed to be written for the next flush")
+        void flushForOrder_WhenWriteFails_ShouldKeepChanges() {
+            underTest.change(USERNAME, NEW_PRODUCT_ID, quantity -> 4);
+            when(cartItemRepository.saveAll(any())).thenThrow(new IllegalStateException("Database is down"))
+                    .thenAnswer(invocation -> new ArrayList<>(invocation.getArgument(0)));
+
+            assertThrows(IllegalStateException.class, () -> underTest.flushForOrder(USERNAME));
+            underTest.flush();
+
+            verify(cartItemRepository, times(2)).saveAll(any());
+        }
+
+        @Test
+        @DisplayName("Should write in the order transaction and not flush the cart again until it ends")
+        void flushForOrder_ShouldJoinOrderTransaction() throws Exception {
+            TransactionSynchronizationManager.initSynchronization();
+            underTest.change(USERNAME, NEW_PRODUCT_ID, quantity -> 4);
+
+            underTest.flushForOrder(USERNAME);
+            underTest.change(USERNAME, STORED_PRODUCT_ID, quantity -> 5);
+            CompletableFuture.runAsync(underTest::flush).get(5, TimeUnit.SECONDS);
+
+            ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+            verify(transactionManager).getTransaction(definition.capture());
+            assertEquals(TransactionDefinition.PROPAGATION_REQUIRED, definition.getValue().getPropagationBehavior());
+            verify(cartItemRepository, times(1)).saveAll(any());
+            verify(entityManager).flush();
+            verify(entityManager).detach(argThat(cart -> ((CartEntity) cart).getId() == CART_ID));
+
+            completeOrderTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+            assertEquals(Map.of(STORED_PRODUCT_ID, 5), underTest.read(USERNAME).getQuantities());
+            CompletableFuture.runAsync(underTest::flush).get(5, TimeUnit.SECONDS);
+            assertEquals(5, storedItem.getQuantity());
+        }
+
+        @Test
+        @DisplayName("Should mark the written lines dirty again when the order transaction rolls back")
+        void flushForOrder_WhenOrderRollsBack_ShouldKeepChanges() {
+            TransactionSynchronizationManager.initSynchronization();
+            underTest.change(USERNAME, NEW_PRODUCT_ID, quantity -> 4);
+            underTest.flushForOrder(USERNAME);
+
+            completeOrderTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+            underTest.flush();
+
+            verify(cartItemRepository, times(2)).saveAll(any());
+            assertEquals(Map.of(STORED_PRODUCT_ID, 2, NEW_PRODUCT_ID, 4), underTest.read(USERNAME).getQuantities());
+        }
+
+        @Test
+        @DisplayName("Should read the cart again after the order without changes commits")
+        void flushForOrder_WhenOrderCommits_ShouldDropOrderedCart() {
+            TransactionSynchronizationManager.initSynchronization();
+            underTest.read(USERNAME);
+            underTest.flushForOrder(USERNAME);
+
+            completeOrderTransaction(TransactionSynchronization.STATUS_COMMITTED);
+            underTest.read(USERNAME);
+
+            verify(cartRepository, times(2)).findLinesByUsername(USERNAME);
+            verify(cartItemRepository, never()).saveAll(any());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo3.export;
+
+import com.example.demo3.repository.projection.OrderExportRow;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OrderExportWriterTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2025, 5, 1, 10, 30);
+
+    private static OrderExportRow row(long orderId, Long itemId, String address) {
+        return new OrderExportRow(orderId, "ORD-" + orderId, "PENDING", new BigDecimal("20.00"), address,
+                CREATED_AT, 7L, "user@example.com", itemId, itemId == null ? null : 100 + itemId,
+                itemId == null ? null : "SKU-" + itemId, itemId == null ? null : "Product " + itemId,
+                itemId == null ? null : 2, itemId == null ? null : new BigDecimal("5.00"),
+                itemId == null ? null : new BigDecimal("10.00"));
+    }
+
+    private static String export(OrderExportFormat format, List<OrderExportRow> rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OrderExportWriter writer = format.createWriter(out);
+        for (OrderExportRow row : rows) {
+            writer.write(row);
+        }
+        writer.finish();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Nested
+    @DisplayName("NDJSON tests")
+    class Ndjson {
+
+        @Test
+        @DisplayName("Should write one line per order with its items nested")
+        void write_ShouldGroupItemsByOrder() throws IOException {
+            String result = export(OrderExportFormat.NDJSON, List.of(
+                    row(1, 1L, "Main St 1"), row(1, 2L, "Main St 1"), row(2, null, "Side St 2")));
+
+            String[] lines = result.split("\n");
+            assertEquals(2, lines.length);
+            ObjectMapper objectMapper = new ObjectMapper();
+            JsonNode first = objectMapper.readTree(lines[0]);
+            assertEquals(1, first.get("id").asLong());
+            assertEquals("2025-05-01T10:30", first.get("createdAt").asText());
+            assertEquals(2, first.get("items").size());
+            assertEquals("SKU-2", first.get("items").get(1).get("productSku").asText());
+            assertEquals(0, objectMapper.readTree(lines[1]).get("items").size());
+        }
+    }
+
+    @Nested
+    @DisplayName("CSV tests")
+    class Csv {
+
+        @Test
+        @DisplayName("Should write header and one line per item")
+        void write_ShouldWriteLinePerItem() throws IOException {
+            String result = export(OrderExportFormat.CSV, List.of(row(1, 1L, "Main St 1"), row(2, null, "Side St 2")));
+
+            String[] lines = result.split("\r\n");
+            assertEquals(CsvOrderExportWriter.HEADER, lines[0]);
+            assertEquals("1,ORD-1,PENDING,20.00,Main St 1,2025-05-01T10:30,7,user@example.com,1,101,SKU-1,Product 1,2,5.00,10.00",
+                    lines[1]);
+            assertEquals("2,ORD-2,PENDING,20.00,Side St 2,2025-05-01T10:30,7,user@example.com,,,,,,,", lines[2]);
+        }
+
+        @Test
+        @DisplayName("Should quote separators and defuse formulas")
+        void text_ShouldQuoteAndDefuseFormulas() {
+            assertEquals("\"Main St, 1\"", CsvOrderExportWriter.text("Main St, 1"));
+            assertEquals("\"Say \"\"hi\"\"\"", CsvOrderExportWriter.text("Say \"hi\""));
+            assertEquals("'=SUM(A1:A2)", CsvOrderExportWriter.text("=SUM(A1:A2)"));
+        }
+    }
+}
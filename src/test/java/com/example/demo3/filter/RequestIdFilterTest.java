@@ -0,0 +1,63 @@
+package com.example.demo3.filter;
+
+import org.apache.logging.log4j.ThreadContext;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.example.demo3.filter.RequestIdFilter.REQUEST_ID_HEADER;
+import static com.example.demo3.utill.GenerateRequestID.REQUEST_ID_KEY;
+import static com.example.demo3.utill.GenerateRequestID.currentRequestID;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestIdFilterTest {
+
+    private final RequestIdFilter underTest = new RequestIdFilter();
+
+    private String filter(MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+        AtomicReference<String> seenByChain = new AtomicReference<>();
+        underTest.doFilter(request, response, (req, res) -> seenByChain.set(currentRequestID()));
+        return seenByChain.get();
+    }
+
+    @Test
+    @DisplayName("Should generate one id per request and return it in the response header")
+    void doFilter_ShouldGenerateRequestId() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        String requestId = filter(new MockHttpServletRequest(), response);
+
+        assertEquals(4, UUID.fromString(requestId).version());
+        assertEquals(requestId, response.getHeader(REQUEST_ID_HEADER));
+        assertNull(ThreadContext.get(REQUEST_ID_KEY));
+    }
+
+    @Test
+    @DisplayName("Should reuse a valid incoming request id")
+    void doFilter_ShouldReuseIncomingRequestId() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(REQUEST_ID_HEADER, "gateway-42.a_b");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        String requestId = filter(request, response);
+
+        assertEquals("gateway-42.a_b", requestId);
+        assertEquals("gateway-42.a_b", response.getHeader(REQUEST_ID_HEADER));
+    }
+
+    @Test
+    @DisplayName("Should replace an incoming request id that is unsafe to log")
+    void doFilter_ShouldReplaceUnsafeRequestId() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(REQUEST_ID_HEADER, "abc\ninjected log line");
+
+        String requestId = filter(request, new MockHttpServletResponse());
+
+        assertNotEquals("abc\ninjected log line", requestId);
+        assertDoesNotThrow(() -> UUID.fromString(requestId));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo3.importer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProductImportReaderTest {
+
+    private static List<ProductImportRow> read(ProductImportFormat format, String content) throws IOException {
+        ProductImportReader reader = format.createReader(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+        List<ProductImportRow> rows = new ArrayList<>();
+        ProductImportRow row;
+        while ((row = reader.read()) != null) {
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    @Nested
+    @DisplayName("CSV tests")
+    class Csv {
+
+        @Test
+        @DisplayName("Should match columns by header and unquote fields")
+        void read_ShouldParseQuotedFields() throws IOException {
+            List<ProductImportRow> rows = read(ProductImportFormat.CSV, "\uFEFFsku,Name,price,category_id,notes\r\n"
+                    + "SH-1,\"Shoes, \"\"red\"\"\",19.99,3,x\r\n"
+                    + "\r\n"
+                    + "BG-2,\"Bag\nwith strap\",5,4\n");
+
+            assertEquals(2, rows.size());
+            ProductImportRow first = rows.get(0);
+            assertEquals(2, first.getRow());
+            assertEquals("Shoes, \"red\"", first.getProduct().getName());
+            assertEquals(new BigDecimal("19.99"), first.getProduct().getPrice());
+            assertEquals(0, first.getProduct().getStockQuantity());
+            assertEquals(3L, first.getProduct().getCategoryId());
+            assertNull(first.getProduct().getDescription());
+            assertEquals(4, rows.get(1).getRow());
+            assertEquals("Bag\nwith strap", rows.get(1).getProduct().getName());
+        }
+
+        @Test
+        @DisplayName("Should report a row with an unparsable number")
+        void read_ShouldReportInvalidNumber() throws IOException {
+            List<ProductImportRow> rows = read(ProductImportFormat.CSV, "name,price,sku,category_id\n"
+                    + "Shoes,cheap,SH-1,3\n");
+
+            assertEquals("price is not a number", rows.get(0).getError());
+            assertEquals("SH-1", rows.get(0).getProduct().getSku());
+        }
+
+        @Test
+        @DisplayName("Should reject a header without a required column")
+        void createReader_ShouldRejectMissingColumn() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> read(ProductImportFormat.CSV, "name,price,category_id\n"));
+        }
+    }
+
+    @Nested
+    @DisplayName("NDJSON tests")
+    class Ndjson {
+
+        @Test
+        @DisplayName("Should read one product per line and ignore ids")
+        void read_ShouldParseLines() throws IOException {
+            List<ProductImportRow> rows = read(ProductImportFormat.NDJSON,
+                    "{\"id\":9,\"name\":\"Shoes\",\"price\":19.99,\"stockQuantity\":5,\"sku\":\"SH-1\",\"categoryId\":3}\n"
+                            + "\n"
+                            + "{\"name\":\"Bag\",\"price\":\"abc\",\"sku\":\"BG-2\",\"categoryId\":4}\n"
+                            + "{\"name\":\n");
+
+            assertEquals(3, rows.size());
+            assertNull(rows.get(0).getProduct().getId());
+            assertEquals(5, rows.get(0).getProduct().getStockQuantity());
+            assertEquals(3, rows.get(1).getRow());
+            assertEquals("price has an invalid value", rows.get(1).getError());
+            assertEquals("Invalid JSON", rows.get(2).getError());
+        }
+    }
+}
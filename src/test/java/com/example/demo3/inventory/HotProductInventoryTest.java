@@ -0,0 +1,285 @@
+package com.example.demo3.inventory;
+
+import com.example.demo3.repository.ProductsRepository;
+import com.example.demo3.repository.projection.ProductStockView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+class HotProductInventoryTest {
+
+    private static final long HOT_PRODUCT_ID = 1L;
+    private static final long SMALL_HOT_PRODUCT_ID = 2L;
+    private static final long COLD_PRODUCT_ID = 3L;
+    private static final int HOT_PRODUCT_STOCK = 1000;
+    private static final int SMALL_HOT_PRODUCT_STOCK = 50;
+
+    private ProductsRepository productsRepository;
+    private HotProductInventory underTest;
+    private final Map<Long, Integer> flushed = new ConcurrentHashMap<>();
+
+    private static ProductStockView stock(Long id, int quantity, boolean active) {
+        return new ProductStockView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Integer getStockQuantity() {
+                return quantity;
+            }
+
+            @Override
+            public Boolean getIsActive() {
+                return active;
+            }
+        };
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        productsRepository = mock(ProductsRepository.class);
+        when(productsRepository.findStockViewsByIdIn(anyCollection())).thenReturn(List.of(
+                stock(HOT_PRODUCT_ID, HOT_PRODUCT_STOCK, true),
+                stock(SMALL_HOT_PRODUCT_ID, SMALL_HOT_PRODUCT_STOCK, true)));
+        doAnswer(invocation -> {
+            Map<Long, Integer> deltas = invocation.getArgument(0);
+            deltas.forEach((id, delta) -> flushed.merge(id, delta, Integer::sum));
+            return null;
+        }).when(productsRepository).subtractStock(anyMap());
+        underTest = new HotProductInventory(productsRepository, HOT_PRODUCT_ID + ", " + SMALL_HOT_PRODUCT_ID);
+        underTest.start();
+    }
+
+    private int reserveConcurrently(Map<Long, Integer> cart, int threads, int attemptsPerThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicBoolean done = new AtomicBoolean();
+        try {
+            Future<?> flusher = executor.submit(() -> {
+                while (!done.get()) {
+                    underTest.flush();
+                }
+            });
+            List<Future<?>> buyers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                buyers.add(executor.submit(() -> {
+                    start.await();
+                    for (int attempt = 0; attempt < attemptsPerThread; attempt++) {
+                        if (underTest.reserve(cart).getRejected().isEmpty()) {
+                            reserved.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> buyer : buyers) {
+                buyer.get(30, TimeUnit.SECONDS);
+            }
+            done.set(true);
+            flusher.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        underTest.flush();
+        return reserved.get();
+    }
+
+    @Nested
+    @DisplayName("Concurrent reservation tests")
+    class ConcurrentReservation {
+
+        @Test
+        @DisplayName("Should never oversell when many buyers race for one product")
+        void reserve_ShouldNeverOversell() throws Exception {
+            int reserved = reserveConcurrently(Map.of(HOT_PRODUCT_ID, 1), 32, 100);
+
+            assertEquals(HOT_PRODUCT_STOCK, reserved);
+            assertEquals(0, underTest.getAvailable(HOT_PRODUCT_ID));
+            assertEquals(HOT_PRODUCT_STOCK, flushed.get(HOT_PRODUCT_ID));
+        }
+
+        @Test
+        @DisplayName("Should reserve every line of a cart or none of them")
+        void reserve_ShouldReserveAllLinesOrNone() throws Exception {
+            int reserved = reserveConcurrently(Map.of(HOT_PRODUCT_ID, 1, SMALL_HOT_PRODUCT_ID, 1), 16, 20);
+
+            assertEquals(SMALL_HOT_PRODUCT_STOCK, reserved);
+            assertEquals(0, underTest.getAvailable(SMALL_HOT_PRODUCT_ID));
+            assertEquals(HOT_PRODUCT_STOCK - SMALL_HOT_PRODUCT_STOCK, underTest.getAvailable(HOT_PRODUCT_ID));
+            assertEquals(SMALL_HOT_PRODUCT_STOCK, flushed.get(HOT_PRODUCT_ID));
+            assertEquals(SMALL_HOT_PRODUCT_STOCK, flushed.get(SMALL_HOT_PRODUCT_ID));
+        }
+    }
+
+    @Nested
+    @DisplayName("Reserve tests")
+    class Reserve {
+
+        @Test
+        @DisplayName("Should pass products that are not managed through untouched")
+        void reserve_ShouldReturnUnmanagedLines() {
+            StockReservation reservation = underTest.reserve(Map.of(HOT_PRODUCT_ID, 2, COLD_PRODUCT_ID, 3));
+
+            assertEquals(Map.of(HOT_PRODUCT_ID, 2), reservation.getReserved());
+            assertEquals(Map.of(COLD_PRODUCT_ID, 3), reservation.getUnmanaged());
+            assertTrue(reservation.getRejected().isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should give stock back once when released twice")
+        void release_ShouldGiveStockBackOnce() {
+            StockReservation reservation = underTest.reserve(Map.of(HOT_PRODUCT_ID, 5));
+            underTest.flush();
+
+            underTest.release(reservation);
+            underTest.release(reservation);
+            underTest.flush();
+
+            assertEquals(HOT_PRODUCT_STOCK, underTest.getAvailable(HOT_PRODUCT_ID));
+            assertEquals(0, flushed.get(HOT_PRODUCT_ID));
+        }
+
+        @Test
+        @DisplayName("Should reject inactive products after reconcile")
+        void reserve_ShouldRejectInactiveProduct() {
+            when(productsRepository.findStockViewsByIdIn(anyCollection())).thenReturn(List.of(
+                    stock(HOT_PRODUCT_ID, HOT_PRODUCT_STOCK, false),
+                    stock(SMALL_HOT_PRODUCT_ID, SMALL_HOT_PRODUCT_STOCK, true)));
+            underTest.reconcile();
+
+            StockReservation reservation = underTest.reserve(Map.of(HOT_PRODUCT_ID, 1));
+
+            assertEquals(List.of(HOT_PRODUCT_ID), reservation.getRejected());
+        }
+
+        @Test
+        @DisplayName("Should hand products back to the database when disabled")
+        void disable_ShouldFlushAndStopManaging() {
+            underTest.reserve(Map.of(HOT_PRODUCT_ID, 4));
+
+            underTest.disable(HOT_PRODUCT_ID);
+
+            assertFalse(underTest.isManaged(HOT_PRODUCT_ID));
+            assertEquals(4, flushed.get(HOT_PRODUCT_ID));
+            assertEquals(Map.of(HOT_PRODUCT_ID, 1), underTest.reserve(Map.of(HOT_PRODUCT_ID, 1)).getUnmanaged());
+        }
+    }
+
+    @Nested
+    @DisplayName("Admin change tests")
+    class AdminChange {
+
+        @Test
+        @DisplayName("Should check stock taken away against reservations that were not flushed yet")
+        void changeStock_ShouldRejectStockAlreadyReserved() {
+            underTest.reserve(Map.of(SMALL_HOT_PRODUCT_ID, SMALL_HOT_PRODUCT_STOCK));
+
+            StockReservation rejected = underTest.changeStock(SMALL_HOT_PRODUCT_ID, -1);
+            StockReservation added = underTest.changeStock(SMALL_HOT_PRODUCT_ID, 10);
+            underTest.flush();
+
+            assertEquals(List.of(SMALL_HOT_PRODUCT_ID), rejected.getRejected());
+            assertEquals(Map.of(SMALL_HOT_PRODUCT_ID, -10), added.getReserved());
+            assertEquals(10, underTest.getAvailable(SMALL_HOT_PRODUCT_ID));
+            assertEquals(SMALL_HOT_PRODUCT_STOCK - 10, flushed.get(SMALL_HOT_PRODUCT_ID));
+        }
+
+        @Test
+        @DisplayName("Should take the added stock back when the change is released")
+        void changeStock_WhenReleased_ShouldUndoChange() {
+            StockReservation change = underTest.changeStock(HOT_PRODUCT_ID, -100);
+
+            underTest.release(change);
+            underTest.flush();
+
+            assertEquals(HOT_PRODUCT_STOCK, underTest.getAvailable(HOT_PRODUCT_ID));
+            assertEquals(Map.of(COLD_PRODUCT_ID, 5), underTest.changeStock(COLD_PRODUCT_ID, -5).getUnmanaged());
+        }
+
+        @Test
+        @DisplayName("Should count a flush that waited on the row lock of an admin adjustment")
+        void reconcileAfterCommit_WhenFlushWaitsOnAdjustment_ShouldKeepFlushedReservations() throws Exception {
+            AtomicLong databaseStock = new AtomicLong(HOT_PRODUCT_STOCK);
+            when(productsRepository.findStockViewsByIdIn(anyCollection())).thenAnswer(invocation -> List.of(
+                    stock(HOT_PRODUCT_ID, Math.toIntExact(databaseStock.get()), true)));
+            CountDownLatch flushWaiting = new CountDownLatch(1);
+            CountDownLatch adjustmentCommitted = new CountDownLatch(1);
+            doAnswer(invocation -> {
+                Map<Long, Integer> deltas = invocation.getArgument(0);
+                flushWaiting.countDown();
+                adjustmentCommitted.await();
+                databaseStock.addAndGet(-deltas.getOrDefault(HOT_PRODUCT_ID, 0));
+                return null;
+            }).when(productsRepository).subtractStock(anyMap());
+            underTest.reserve(Map.of(HOT_PRODUCT_ID, 5));
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                Future<?> flush = executor.submit(underTest::flush);
+                assertTrue(flushWaiting.await(5, TimeUnit.SECONDS));
+
+                TransactionSynchronizationManager.initSynchronization();
+                try {
+                    databaseStock.addAndGet(100);
+                    underTest.reconcileAfterCommit(HOT_PRODUCT_ID);
+                    adjustmentCommitted.countDown();
+                    TransactionSynchronizationManager.getSynchronizations()
+                            .forEach(TransactionSynchronization::afterCommit);
+                } finally {
+                    TransactionSynchronizationManager.clearSynchronization();
+                }
+                flush.get(5, TimeUnit.SECONDS);
+            } finally {
+                executor.shutdownNow();
+            }
+
+            assertEquals(HOT_PRODUCT_STOCK - 5 + 100, databaseStock.get());
+            assertEquals(HOT_PRODUCT_STOCK - 5 + 100, underTest.getAvailable(HOT_PRODUCT_ID));
+        }
+    }
+
+    @Nested
+    @DisplayName("Flush tests")
+    class Flush {
+
+        @Test
+        @DisplayName("Should keep reservations for the next flush when writing fails")
+        void flush_ShouldKeepPendingOnFailure() {
+            underTest.reserve(Map.of(HOT_PRODUCT_ID, 3));
+            doThrow(new RuntimeException("database is down"))
+                    .doNothing()
+                    .when(productsRepository).subtractStock(anyMap());
+
+            underTest.flush();
+            underTest.flush();
+            underTest.flush();
+
+            verify(productsRepository, times(2)).subtractStock(Map.of(HOT_PRODUCT_ID, 3));
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.demo3.outbox;
+
+import com.example.demo3.entity.OrderEventEntity;
+import com.example.demo3.entity.OrderEventPositionEntity;
+import com.example.demo3.entity.OrderEventType;
+import com.example.demo3.entity.OrderStatus;
+import com.example.demo3.repository.OrderEventPositionRepository;
+import com.example.demo3.repository.OrderEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderEventDispatcherTest {
+
+    private static final int BATCH_SIZE = 2;
+    private static final long GAP_TIMEOUT_MS = 10_000;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<OrderEventEntity> events = new ArrayList<>();
+    private final Map<String, OrderEventPositionEntity> positions = new HashMap<>();
+    private OrderEventRepository orderEventRepository;
+    private OrderEventPositionRepository orderEventPositionRepository;
+
+    private static OrderEventEntity event(long id, LocalDateTime createdAt) {
+        OrderEventEntity event = new OrderEventEntity();
+        event.setId(id);
+        event.setType(OrderEventType.CREATED);
+        event.setOrderId(id * 10);
+        event.setUserId(1L);
+        event.setStatus(OrderStatus.PENDING);
+        event.setTotalAmount(BigDecimal.TEN);
+        event.setCreatedAt(createdAt);
+        return event;
+    }
+
+    private static OrderEventHandler handler(String name, List<Long> received) {
+        return new OrderEventHandler() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public void handle(OrderEvent event) {
+                received.add(event.getId());
+            }
+        };
+    }
+
+    @BeforeEach
+    void setUp() {
+        orderEventRepository = mock(OrderEventRepository.class);
+        orderEventPositionRepository = mock(OrderEventPositionRepository.class);
+        when(orderEventRepository.findByIdGreaterThan(anyLong(), any())).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            Pageable pageable = invocation.getArgument(1);
+            return events.stream()
+                    .filter(event -> event.getId() > after)
+                    .limit(pageable.getPageSize())
+                    .toList();
+        });
+        when(orderEventRepository.findMaxId()).thenAnswer(invocation -> events.isEmpty() ? null
+                : events.get(events.size() - 1).getId());
+        when(orderEventPositionRepository.findForUpdate(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(positions.get(invocation.<String>getArgument(0))));
+        when(orderEventPositionRepository.save(any())).thenAnswer(invocation -> {
+            OrderEventPositionEntity position = invocation.getArgument(0);
+            positions.put(position.getHandler(), position);
+            return position;
+        });
+    }
+
+    private OrderEventDispatcher dispatcher(OrderEventHandler... handlers) {
+        return new OrderEventDispatcher(List.of(handlers), orderEventRepository, orderEventPositionRepository,
+                mock(PlatformTransactionManager.class), meterRegistry, BATCH_SIZE, GAP_TIMEOUT_MS, 7);
+    }
+
+    @Nested
+    @DisplayName("Dispatch tests")
+    class Dispatch {
+
+        @Test
+        @DisplayName("Should deliver events in id order to every handler and store each position")
+        void dispatch_ShouldDeliverInOrder() {
+            LocalDateTime now = LocalDateTime.now();
+            for (long id = 1; id <= 5; id++) {
+                events.add(event(id, now));
+            }
+            List<Long> emails = new ArrayList<>();
+            List<Long> analytics = new ArrayList<>();
+            OrderEventDispatcher underTest = dispatcher(handler("emails", emails), handler("analytics", analytics));
+
+            underTest.dispatch();
+
+            assertEquals(List.of(1L, 2L, 3L, 4L, 5L), emails);
+            assertEquals(List.of(1L, 2L, 3L, 4L, 5L), analytics);
+            assertEquals(5L, positions.get("emails").getPosition());
+            assertEquals(0, meterRegistry.get("outbox.order_events.lag").tag("handler", "emails").gauge().value());
+            assertEquals(5, meterRegistry.get("outbox.order_events.delivered").tag("handler", "analytics")
+                    .counter().count());
+        }
+
+        @Test
+        @DisplayName("Should wait at a recent gap and skip a gap older than the timeout")
+        void dispatch_ShouldWaitForMissingIds() {
+            events.add(event(1, LocalDateTime.now()));
+            events.add(event(3, LocalDateTime.now()));
+            List<Long> received = new ArrayList<>();
+            OrderEventDispatcher underTest = dispatcher(handler("emails", received));
+
+            underTest.dispatch();
+
+            assertEquals(List.of(1L), received);
+            assertEquals(2, meterRegistry.get("outbox.order_events.lag").tag("handler", "emails").gauge().value());
+
+            events.get(1).setCreatedAt(LocalDateTime.now().minusSeconds(GAP_TIMEOUT_MS / 1000 + 1));
+            underTest.dispatch();
+
+            assertEquals(List.of(1L, 3L), received);
+            assertEquals(3L, positions.get("emails").getPosition());
+        }
+
+        @Test
+        @DisplayName("Should keep the position of a failing handler and still serve the others")
+        void dispatch_ShouldRetryFailedBatch() {
+            events.add(event(1, LocalDateTime.now()));
+            List<Long> received = new ArrayList<>();
+            OrderEventHandler failing = new OrderEventHandler() {
+                @Override
+                public String getName() {
+                    return "warehouse";
+                }
+
+                @Override
+                public void handle(OrderEvent event) {
+                    throw new IllegalStateException("Warehouse is down");
+                }
+            };
+            positions.put("warehouse", new OrderEventPositionEntity("warehouse", 0L));
+            OrderEventDispatcher underTest = dispatcher(failing, handler("emails", received));
+
+            underTest.dispatch();
+
+            assertEquals(List.of(1L), received);
+            assertEquals(0L, positions.get("warehouse").getPosition());
+            assertEquals(1, meterRegistry.get("outbox.order_events.failures").tag("handler", "warehouse")
+                    .counter().count());
+        }
+    }
+
+    @Nested
+    @DisplayName("Replay tests")
+    class Replay {
+
+        @Test
+        @DisplayName("Should deliver events after the given position again")
+        void replay_ShouldRedeliver() {
+            LocalDateTime now = LocalDateTime.now();
+            for (long id = 1; id <= 3; id++) {
+                events.add(event(id, now));
+            }
+            List<Long> received = new ArrayList<>();
+            OrderEventDispatcher underTest = dispatcher(handler("emails", received));
+            underTest.dispatch();
+
+            underTest.replay("emails", 1L);
+            underTest.dispatch();
+
+            assertEquals(List.of(1L, 2L, 3L, 2L, 3L), received);
+        }
+
+        @Test
+        @DisplayName("Should reject an unknown handler")
+        void replay_ShouldRejectUnknownHandler() {
+            OrderEventDispatcher underTest = dispatcher(handler("emails", new ArrayList<>()));
+
+            assertThrows(IllegalArgumentException.class, () -> underTest.replay("warehouse", 0L));
+        }
+    }
+}
@@ -2,16 +2,31 @@ package com.example.demo3.repository;
 
 import com.example.demo3.entity.OrderEntity;
 import com.example.demo3.entity.OrderStatus;
+import com.example.demo3.entity.ProductEntity;
 import com.example.demo3.entity.UserEntity;
+import com.example.demo3.repository.projection.OrderExportRow;
+import com.example.demo3.repository.projection.OrderSummaryView;
+import com.example.demo3.repository.projection.OrderView;
 import com.example.demo3.repository.testutil.BaseRepositoryTest;
 import com.example.demo3.repository.testutil.TestDataFactory;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class OrderRepositoryTest extends BaseRepositoryTest<OrderRepository> {
@@ -77,4 +92,170 @@ class OrderRepositoryTest extends BaseRepositoryTest<OrderRepository> {
             assertEquals(0, result.getTotalElements());
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Find views by user id tests")
+    class FindViewsByUserId {
+
+        @Test
+        @DisplayName("Should find order views with user columns")
+        void findViewsByUserId_ShouldFindOrderViewsWithUserColumns() {
+            UserEntity user = TestDataFactory.createAndPersistUser(entityManager);
+            OrderEntity order = TestDataFactory.createAndPersistOrder(entityManager, user);
+
+            Page<OrderView> result = underTest.findViewsByUserId(user.getId(), PageRequest.of(0, 10));
+
+            assertEquals(1, result.getTotalElements());
+            OrderView view = result.getContent().get(0);
+            assertEquals(order.getId(), view.getId());
+            assertEquals(order.getOrderNumber(), view.getOrderNumber());
+            assertEquals(OrderStatus.PENDING, view.getStatus());
+            assertEquals(user.getId(), view.getUserId());
+            assertEquals(user.getUsername(), view.getUserUsername());
+        }
+    }
+
+    @Nested
+    @DisplayName("Find views by user id and id greater than tests")
+    class FindViewsByUserIdAndIdGreaterThan {
+
+        @Test
+        @DisplayName("Should return only user orders after id")
+        void findViewsByUserIdAndIdGreaterThan_ShouldReturnOnlyUserOrdersAfterId() {
+            UserEntity user = TestDataFactory.createAndPersistUser(entityManager);
+            UserEntity otherUser = TestDataFactory.createAndPersistUser(entityManager);
+            OrderEntity first = TestDataFactory.createAndPersistOrder(entityManager, user);
+            TestDataFactory.createAndPersistOrder(entityManager, otherUser);
+            OrderEntity second = TestDataFactory.createAndPersistOrder(entityManager, user);
+
+            Slice<OrderView> result = underTest.findViewsByUserIdAndIdGreaterThan(user.getId(), first.getId(),
+                    PageRequest.of(0, 10, Sort.by("id")));
+
+            assertEquals(1, result.getNumberOfElements());
+            assertEquals(second.getId(), result.getContent().get(0).getId());
+            assertFalse(result.hasNext());
+        }
+    }
+
+    @Nested
+    @DisplayName("Find summaries by username tests")
+    class FindSummariesByUsername {
+
+        private UserEntity user;
+        private OrderEntity withItems;
+        private OrderEntity withoutItems;
+
+        @BeforeEach
+        void setUp() {
+            user = TestDataFactory.createAndPersistUser(entityManager);
+            UserEntity otherUser = TestDataFactory.createAndPersistUser(entityManager);
+            ProductEntity[] products = TestDataFactory.createAndPersistProducts(entityManager, 2);
+            withItems = TestDataFactory.createAndPersistOrder(entityManager, user);
+            TestDataFactory.createAndPersistOrderItem(entityManager, withItems, products[0], 2, BigDecimal.TEN);
+            TestDataFactory.createAndPersistOrderItem(entityManager, withItems, products[1], 3, BigDecimal.ONE);
+            TestDataFactory.createAndPersistOrderItem(entityManager,
+                    TestDataFactory.createAndPersistOrder(entityManager, otherUser), products[0]);
+            withoutItems = TestDataFactory.createAndPersistOrder(entityManager, user);
+            clearPersistenceContext();
+        }
+
+        @Test
+        @DisplayName("Should return the user's orders with the units ordered")
+        void findSummariesByUsername_ShouldCountUnits() {
+            Page<OrderSummaryView> result = underTest.findSummariesByUsername(user.getUsername(),
+                    PageRequest.of(0, 10, Sort.by("id")));
+
+            assertEquals(2, result.getTotalElements());
+            OrderSummaryView first = result.getContent().get(0);
+            assertEquals(withItems.getId(), first.getId());
+            assertEquals(withItems.getOrderNumber(), first.getOrderNumber());
+            assertEquals(OrderStatus.PENDING, first.getStatus());
+            assertEquals(5L, first.getItemCount());
+            assertEquals(0L, result.getContent().get(1).getItemCount());
+        }
+
+        @Test
+        @DisplayName("Should return summaries after the cursor")
+        void findSummariesByUsernameAndIdGreaterThan_ShouldReturnOrdersAfterId() {
+            Slice<OrderSummaryView> result = underTest.findSummariesByUsernameAndIdGreaterThan(user.getUsername(),
+                    withItems.getId(), PageRequest.of(0, 10, Sort.by("id")));
+
+            assertEquals(1, result.getNumberOfElements());
+            assertEquals(withoutItems.getId(), result.getContent().get(0).getId());
+            assertFalse(result.hasNext());
+        }
+    }
+
+    @Nested
+    @DisplayName("Find views by status and id greater than tests")
+    class FindViewsByStatusAndIdGreaterThan {
+
+        @Test
+        @DisplayName("Should return orders with status after id")
+        void findViewsByStatusAndIdGreaterThan_ShouldReturnOrdersWithStatusAfterId() {
+            UserEntity user = TestDataFactory.createAndPersistUser(entityManager);
+            TestDataFactory.createAndPersistOrder(entityManager, user);
+            OrderEntity confirmed = TestDataFactory.createAndPersistOrderWithStatus(entityManager, user,
+                    OrderStatus.CONFIRMED);
+
+            Slice<OrderView> result = underTest.findViewsByStatusAndIdGreaterThan(OrderStatus.CONFIRMED, 0L,
+                    PageRequest.of(0, 10, Sort.by("id")));
+
+            assertEquals(1, result.getNumberOfElements());
+            assertEquals(confirmed.getId(), result.getContent().get(0).getId());
+        }
+    }
+
+    @Nested
+    @DisplayName("Export rows tests")
+    class ExportRows {
+
+        private OrderEntity withItems;
+        private OrderEntity withoutItems;
+        private OrderEntity confirmed;
+        private ProductEntity product;
+
+        private List<OrderExportRow> export(OrderExportFilter filter) {
+            List<OrderExportRow> rows = new ArrayList<>();
+            underTest.exportRows(filter, rows::add);
+            return rows;
+        }
+
+        @BeforeEach
+        void setUp() {
+            UserEntity user = TestDataFactory.createAndPersistUser(entityManager);
+            ProductEntity[] products = TestDataFactory.createAndPersistProducts(entityManager, 2);
+            product = products[0];
+            withItems = TestDataFactory.createAndPersistOrder(entityManager, user);
+            TestDataFactory.createAndPersistOrderItem(entityManager, withItems, products[0]);
+            TestDataFactory.createAndPersistOrderItem(entityManager, withItems, products[1]);
+            withoutItems = TestDataFactory.createAndPersistOrder(entityManager, user);
+            confirmed = TestDataFactory.createAndPersistOrderWithStatus(entityManager, user, OrderStatus.CONFIRMED);
+            TestDataFactory.createAndPersistOrderItem(entityManager, confirmed, products[0]);
+        }
+
+        @Test
+        @DisplayName("Should stream one row per item in order id order and keep orders without items")
+        void exportRows_ShouldStreamItemsOfAllOrders() {
+            List<OrderExportRow> rows = export(new OrderExportFilter(null, null, null));
+
+            assertEquals(Arrays.asList(withItems.getId(), withItems.getId(), withoutItems.getId(), confirmed.getId()),
+                    rows.stream().map(OrderExportRow::getOrderId).toList());
+            assertEquals(product.getSku(), rows.get(0).getProductSku());
+            assertEquals(withItems.getUser().getEmail(), rows.get(0).getUserEmail());
+            assertNull(rows.get(2).getItemId());
+            assertEquals("CONFIRMED", rows.get(3).getStatus());
+        }
+
+        @Test
+        @DisplayName("Should filter by status and creation time")
+        void exportRows_ShouldFilterByStatusAndCreationTime() {
+            LocalDateTime now = LocalDateTime.now();
+
+            assertEquals(List.of(confirmed.getId()), export(new OrderExportFilter(OrderStatus.CONFIRMED, null, null))
+                    .stream().map(OrderExportRow::getOrderId).toList());
+            assertEquals(4, export(new OrderExportFilter(null, now.minusDays(1), now.plusDays(1))).size());
+            assertTrue(export(new OrderExportFilter(null, now.plusDays(1), null)).isEmpty());
+        }
+    }
+}
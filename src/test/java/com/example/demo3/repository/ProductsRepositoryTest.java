@@ -1,22 +1,65 @@
 package com.example.demo3.repository;
 
+import com.example.demo3.cache.CategoryTreeCache;
+import com.example.demo3.dto.PageableResponseProducts;
+import com.example.demo3.dto.ProductBasicDTO;
+import com.example.demo3.dto.ProductWithoutCategoryDTO;
 import com.example.demo3.entity.CategoryEntity;
 import com.example.demo3.entity.ProductEntity;
+import com.example.demo3.inventory.HotProductInventory;
+import com.example.demo3.mapper.CategoryMapper;
+import com.example.demo3.mapper.ProductMapper;
+import com.example.demo3.repository.projection.ProductFacetCount;
+import com.example.demo3.repository.projection.ProductSearchView;
+import com.example.demo3.repository.projection.ProductSkuView;
+import com.example.demo3.repository.projection.ProductsVersionView;
+import com.example.demo3.repository.projection.ProductView;
 import com.example.demo3.repository.testutil.BaseRepositoryTest;
 import com.example.demo3.repository.testutil.TestDataFactory;
+import com.example.demo3.search.ProductSearchIndex;
+import com.example.demo3.service.AuthService;
+import com.example.demo3.service.CategoryService;
+import com.example.demo3.service.impl.ProductServiceImpl;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
 
 class ProductsRepositoryTest extends BaseRepositoryTest<ProductsRepository> {
 
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Nested
     @DisplayName("Find by sku tests")
     class FindBySku {
@@ -73,4 +116,479 @@ class ProductsRepositoryTest extends BaseRepositoryTest<ProductsRepository> {
             assertEquals(0, result.getTotalElements());
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Find DTOs by category id tests")
+    class FindDTOsByCategoryId {
+
+        @Test
+        @DisplayName("Should find product DTOs by category id")
+        void findDTOsByCategoryId_ShouldFindProductDTOsByCategoryId() {
+            CategoryEntity category = TestDataFactory.createAndPersistCategory(entityManager);
+            ProductEntity product = TestDataFactory.createAndPersistProductWithCategory(entityManager, category);
+
+            Page<ProductWithoutCategoryDTO> result = underTest.findDTOsByCategoryId(category.getId(),
+                    PageRequest.of(0, 10));
+
+            assertEquals(1, result.getTotalElements());
+            assertEquals(product.getId(), result.getContent().get(0).getId());
+            assertEquals(product.getName(), result.getContent().get(0).getName());
+        }
+    }
+
+    @Nested
+    @DisplayName("Find with category by id tests")
+    class FindWithCategoryById {
+
+        @Test
+        @DisplayName("Should load product with initialized category")
+        void findWithCategoryById_ShouldLoadProductWithInitializedCategory() {
+            CategoryEntity category = TestDataFactory.createAndPersistCategory(entityManager);
+            ProductEntity product = TestDataFactory.createAndPersistProductWithCategory(entityManager, category);
+            clearPersistenceContext();
+
+            Optional<ProductEntity> result = underTest.findWithCategoryById(product.getId());
+
+            assertTrue(result.isPresent());
+            assertTrue(Hibernate.isInitialized(result.get().getCategory()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Find all views tests")
+    class FindAllViews {
+
+        @Test
+        @DisplayName("Should list a product page through the service in constant number of queries")
+        void getAllProducts_ShouldListProductPageInConstantNumberOfQueries() {
+            CategoryTreeCache categoryTreeCache = new CategoryTreeCache(categoryRepository);
+            ProductMapper productMapper = new ProductMapper(new CategoryMapper(categoryRepository), categoryTreeCache);
+            ProductServiceImpl productService = new ProductServiceImpl(underTest, productMapper,
+                    mock(CategoryService.class), mock(AuthService.class), mock(HotProductInventory.class),
+                    mock(ProductSearchIndex.class), categoryTreeCache);
+            for (int i = 0; i < 5; i++) {
+                CategoryEntity parent = TestDataFactory.createAndPersistCategory(entityManager, "Parent " + i);
+                CategoryEntity category = TestDataFactory.createAndPersistChildCategory(entityManager, parent,
+                        "Category " + i);
+                TestDataFactory.createAndPersistChildCategory(entityManager, category, "Child " + i);
+                for (int j = 0; j < 4; j++) {
+                    TestDataFactory.createAndPersistProductWithCategory(entityManager, category);
+                }
+            }
+            clearPersistenceContext();
+            categoryTreeCache.refresh();
+            Statistics statistics = entityManager.getEntityManager()
+                    .getEntityManagerFactory()
+                    .unwrap(SessionFactory.class)
+                    .getStatistics();
+            statistics.setStatisticsEnabled(true);
+            statistics.clear();
+
+            PageableResponseProducts result = productService.getAllProducts(0, 20, "test");
+            List<ProductBasicDTO> dtos = result.getContent();
+
+            assertEquals(20, dtos.size());
+            assertEquals(20, result.getTotalElements());
+            assertTrue(dtos.stream().allMatch(dto -> dto.getCategory().getParent() != null
+                    && dto.getCategory().getChildren().size() == 1));
+            // page select and count select, categories come from the snapshot
+            assertEquals(2, statistics.getPrepareStatementCount());
+            assertEquals(0, statistics.getEntityLoadCount());
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    @Nested
+    @DisplayName("Find views by id greater than tests")
+    class FindViewsByIdGreaterThan {
+
+        @Test
+        @DisplayName("Should return next slice after id")
+        void findViewsByIdGreaterThan_ShouldReturnNextSliceAfterId() {
+            ProductEntity[] products = TestDataFactory.createAndPersistProducts(entityManager, 3);
+
+            Slice<ProductView> result = underTest.findViewsByIdGreaterThan(products[0].getId(),
+                    PageRequest.of(0, 1, Sort.by("id")));
+
+            assertEquals(1, result.getNumberOfElements());
+            assertEquals(products[1].getId(), result.getContent().get(0).getId());
+            assertTrue(result.hasNext());
+        }
+
+        @Test
+        @DisplayName("Should return last slice without next")
+        void findViewsByIdGreaterThan_ShouldReturnLastSliceWithoutNext() {
+            ProductEntity[] products = TestDataFactory.createAndPersistProducts(entityManager, 3);
+
+            Slice<ProductView> result = underTest.findViewsByIdGreaterThan(products[1].getId(),
+                    PageRequest.of(0, 10, Sort.by("id")));
+
+            assertEquals(1, result.getNumberOfElements());
+            assertEquals(products[2].getId(), result.getContent().get(0).getId());
+            assertFalse(result.hasNext());
+        }
+    }
+
+    @Nested
+    @DisplayName("Find search views by id greater than tests")
+    class FindSearchViewsByIdGreaterThan {
+
+        @Test
+        @DisplayName("Should return indexed fields with category id")
+        void findSearchViewsByIdGreaterThan_ShouldReturnIndexedFields() {
+            CategoryEntity category = TestDataFactory.createAndPersistCategory(entityManager);
+            ProductEntity product = TestDataFactory.createAndPersistProductWithCategory(entityManager, category);
+            clearPersistenceContext();
+
+            Slice<ProductSearchView> result = underTest.findSearchViewsByIdGreaterThan(product.getId() - 1,
+                    PageRequest.of(0, 10, Sort.by("id")));
+
+            ProductSearchView view = result.getContent().get(0);
+            assertEquals(product.getId(), view.getId());
+            assertEquals(product.getSku(), view.getSku());
+            assertEquals(product.getName(), view.getName());
+            assertEquals(category.getId(), view.getCategoryId());
+            assertTrue(view.getIsActive());
+        }
+    }
+
+    @Nested
+    @DisplayName("Decrease stock tests")
+    class DecreaseStock {
+
+        private ProductEntity createProductWithStock(int stock, boolean active) {
+            ProductEntity product = TestDataFactory.createAndPersistProduct(entityManager);
+            product.setStockQuantity(stock);
+            product.setIsActive(active);
+            return entityManager.persistAndFlush(product);
+        }
+
+        @Test
+        @DisplayName("Should decrease stock of every product in the batch")
+        void decreaseStock_ShouldDecreaseStock() {
+            ProductEntity first = createProductWithStock(5, true);
+            ProductEntity second = createProductWithStock(3, true);
+
+            List<Long> rejected = underTest.decreaseStock(Map.of(first.getId(), 5, second.getId(), 1));
+            clearPersistenceContext();
+
+            assertTrue(rejected.isEmpty());
+            assertEquals(0, entityManager.find(ProductEntity.class, first.getId()).getStockQuantity());
+            assertEquals(2, entityManager.find(ProductEntity.class, second.getId()).getStockQuantity());
+        }
+
+        @Test
+        @DisplayName("Should reject products with not enough stock or disabled")
+        void decreaseStock_ShouldRejectNotEnoughStockOrDisabled() {
+            ProductEntity enough = createProductWithStock(5, true);
+            ProductEntity notEnough = createProductWithStock(1, true);
+            ProductEntity disabled = createProductWithStock(5, false);
+
+            List<Long> rejected = underTest.decreaseStock(Map.of(
+                    enough.getId(), 2, notEnough.getId(), 2, disabled.getId(), 2));
+            clearPersistenceContext();
+
+            assertEquals(List.of(notEnough.getId(), disabled.getId()), rejected);
+            assertEquals(1, entityManager.find(ProductEntity.class, notEnough.getId()).getStockQuantity());
+            assertEquals(5, entityManager.find(ProductEntity.class, disabled.getId()).getStockQuantity());
+        }
+    }
+
+    @Nested
+    @DisplayName("Increase stock tests")
+    class IncreaseStock {
+
+        @Test
+        @DisplayName("Should increase stock of every product in the batch")
+        void increaseStock_ShouldIncreaseStock() {
+            ProductEntity product = TestDataFactory.createAndPersistProduct(entityManager);
+
+            underTest.increaseStock(Map.of(product.getId(), 4));
+            clearPersistenceContext();
+
+            assertEquals(4, entityManager.find(ProductEntity.class, product.getId()).getStockQuantity());
+        }
+    }
+
+    @Nested
+    @DisplayName("Version tests")
+    class Version {
+
+        @Test
+        @DisplayName("Should read update time of one product")
+        void findVersionById_ShouldReadUpdatedAt() {
+            Long id = TestDataFactory.createAndPersistProduct(entityManager).getId();
+            clearPersistenceContext();
+
+            assertEquals(entityManager.find(ProductEntity.class, id).getUpdatedAt(),
+                    underTest.findVersionById(id).orElseThrow().getUpdatedAt());
+            assertTrue(underTest.findVersionById(id + 1000).isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should count products and read newest update time")
+        void findVersion_ShouldCountProductsAndReadNewestUpdate() {
+            ProductEntity[] products = TestDataFactory.createAndPersistProducts(entityManager, 2);
+            clearPersistenceContext();
+
+            ProductsVersionView result = underTest.findVersion();
+
+            assertEquals(2L, result.getCount());
+            assertEquals(entityManager.find(ProductEntity.class, products[1].getId()).getUpdatedAt(),
+                    result.getUpdatedAt());
+        }
+    }
+
+    @Nested
+    @DisplayName("Upsert by sku tests")
+    class UpsertBySku {
+
+        @Test
+        @DisplayName("Should allocate distinct ids that Hibernate does not hand out")
+        void allocateIds_ShouldNotCollideWithHibernate() {
+            List<Long> ids = underTest.allocateIds(120);
+            Long persisted = TestDataFactory.createAndPersistProduct(entityManager).getId();
+
+            assertEquals(120, ids.stream().distinct().count());
+            assertFalse(ids.contains(persisted));
+        }
+
+        @Test
+        @DisplayName("Should insert new skus and update existing ones")
+        void upsertBySku_ShouldInsertAndUpdate() {
+            CategoryEntity category = TestDataFactory.createAndPersistCategory(entityManager);
+            ProductEntity existing = TestDataFactory.createAndPersistProductWithCategory(entityManager, category);
+            existing.setIsActive(false);
+            entityManager.flush();
+            Long newId = underTest.allocateIds(1).get(0);
+
+            List<ProductUpserted> written = underTest.upsertBySku(List.of(
+                    new ProductUpsert(existing.getId(), "Renamed", "Updated", new BigDecimal("12.50"), 7,
+                            category.getId(), existing.getSku()),
+                    new ProductUpsert(newId, "Imported", null, new BigDecimal("3.00"), 0,
+                            category.getId(), "IMPORTED-SKU")));
+            clearPersistenceContext();
+
+            assertEquals(Map.of(existing.getSku(), false, "IMPORTED-SKU", true), written.stream()
+                    .collect(Collectors.toMap(ProductUpserted::getSku, ProductUpserted::isInserted)));
+
+            ProductEntity updated = entityManager.find(ProductEntity.class, existing.getId());
+            assertEquals("Renamed", updated.getName());
+            assertEquals(7, updated.getStockQuantity());
+            assertFalse(updated.getIsActive());
+            ProductEntity inserted = underTest.findBySku("IMPORTED-SKU").orElseThrow();
+            assertEquals(newId, inserted.getId());
+            assertFalse(inserted.getIsActive());
+            assertEquals(Map.of(existing.getSku(), existing.getId(), "IMPORTED-SKU", newId),
+                    underTest.findSkuViewsBySkuIn(List.of(existing.getSku(), "IMPORTED-SKU", "MISSING")).stream()
+                            .collect(Collectors.toMap(ProductSkuView::getSku, ProductSkuView::getId)));
+        }
+
+        @Test
+        @DisplayName("Should report the stored id when the sku was inserted since the lookup")
+        void upsertBySku_WhenSkuAlreadyExists_ShouldReturnStoredId() {
+            CategoryEntity category = TestDataFactory.createAndPersistCategory(entityManager);
+            ProductEntity existing = TestDataFactory.createAndPersistProductWithCategory(entityManager, category);
+            Long proposedId = underTest.allocateIds(1).get(0);
+
+            List<ProductUpserted> written = underTest.upsertBySku(List.of(new ProductUpsert(proposedId, "Imported",
+                    null, new BigDecimal("3.00"), 4, category.getId(), existing.getSku())));
+            clearPersistenceContext();
+
+            assertEquals(1, written.size());
+            assertEquals(existing.getId(), written.get(0).getId());
+            assertFalse(written.get(0).isInserted());
+            assertNull(entityManager.find(ProductEntity.class, proposedId));
+            assertEquals("Imported", entityManager.find(ProductEntity.class, existing.getId()).getName());
+        }
+    }
+
+    @Nested
+    @DisplayName("Adjust tests")
+    class Adjust {
+
+        private ProductEntity createProduct(int stock, boolean active) {
+            ProductEntity product = TestDataFactory.createAndPersistProduct(entityManager);
+            product.setStockQuantity(stock);
+            product.setIsActive(active);
+            entityManager.flush();
+            return product;
+        }
+
+        @Test
+        @DisplayName("Should change price and stock and bump the version")
+        void adjust_ShouldApplyChanges() {
+            ProductEntity product = createProduct(5, true);
+            Long version = product.getVersion();
+
+            int[] result = underTest.adjust(List.of(
+                    new ProductAdjustment(product.getId(), new BigDecimal("9.99"), -2, null, version),
+                    new ProductAdjustment(product.getId(), null, 10, null, null)));
+            clearPersistenceContext();
+
+            assertEquals(List.of(1, 1), Arrays.stream(result).boxed().toList());
+            ProductEntity adjusted = entityManager.find(ProductEntity.class, product.getId());
+            assertEquals(new BigDecimal("9.99"), adjusted.getPrice());
+            assertEquals(13, adjusted.getStockQuantity());
+            assertEquals(version + 2, adjusted.getVersion());
+        }
+
+        @Test
+        @DisplayName("Should activate a sold out product when its stock is refilled")
+        void adjust_ShouldActivateRefilledProduct() {
+            ProductEntity soldOut = createProduct(0, false);
+            ProductEntity disabled = createProduct(3, false);
+            ProductEntity keptOff = createProduct(0, false);
+
+            underTest.adjust(List.of(
+                    new ProductAdjustment(soldOut.getId(), null, 4, null, null),
+                    new ProductAdjustment(disabled.getId(), null, 4, null, null),
+                    new ProductAdjustment(keptOff.getId(), null, 4, false, null)));
+            clearPersistenceContext();
+
+            assertTrue(entityManager.find(ProductEntity.class, soldOut.getId()).getIsActive());
+            assertFalse(entityManager.find(ProductEntity.class, disabled.getId()).getIsActive());
+            assertFalse(entityManager.find(ProductEntity.class, keptOff.getId()).getIsActive());
+        }
+
+        @Test
+        @DisplayName("Should skip adjustments with a stale version or too little stock")
+        void adjust_ShouldRejectConflicts() {
+            ProductEntity product = createProduct(1, true);
+
+            int[] result = underTest.adjust(List.of(
+                    new ProductAdjustment(product.getId(), BigDecimal.ONE, 0, null, product.getVersion() + 1),
+                    new ProductAdjustment(product.getId(), null, -2, null, null),
+                    new ProductAdjustment(product.getId() + 1000, null, 1, null, null)));
+            clearPersistenceContext();
+
+            assertEquals(List.of(0, 0, 0), Arrays.stream(result).boxed().toList());
+            assertEquals(1, entityManager.find(ProductEntity.class, product.getId()).getStockQuantity());
+        }
+    }
+
+    @Nested
+    @DisplayName("Filter tests")
+    class Filter {
+
+        private CategoryEntity shoes;
+        private CategoryEntity bags;
+        private ProductEntity cheapShoes;
+        private ProductEntity expensiveShoes;
+        private ProductEntity bag;
+
+        private ProductEntity createProduct(CategoryEntity category, String price, int stock, boolean active) {
+            ProductEntity product = TestDataFactory.createAndPersistProductWithCategory(entityManager, category);
+            product.setPrice(new BigDecimal(price));
+            product.setStockQuantity(stock);
+            product.setIsActive(active);
+            return entityManager.persistAndFlush(product);
+        }
+
+        @BeforeEach
+        void setUp() {
+            shoes = TestDataFactory.createAndPersistCategory(entityManager, "Shoes");
+            bags = TestDataFactory.createAndPersistCategory(entityManager, "Bags");
+            cheapShoes = createProduct(shoes, "19.99", 5, true);
+            expensiveShoes = createProduct(shoes, "120.00", 0, true);
+            bag = createProduct(bags, "60.00", 2, true);
+            createProduct(bags, "30.00", 1, false);
+        }
+
+        @Test
+        @DisplayName("Should filter by category, price and stock and sort by price")
+        void findViewsByFilter_ShouldApplyFilterAndSort() {
+            ProductFilter filter = new ProductFilter(null, new BigDecimal("10"), new BigDecimal("100"), true, true);
+
+            List<ProductView> result = underTest.findViewsByFilter(filter, ProductSort.PRICE_DESC,
+                    PageRequest.of(0, 10));
+
+            assertEquals(List.of(bag.getId(), cheapShoes.getId()), result.stream().map(ProductView::getId).toList());
+            assertEquals(bags.getId(), result.get(0).getCategoryId());
+            assertEquals("Bags", result.get(0).getCategoryName());
+        }
+
+        @Test
+        @DisplayName("Should return the requested page")
+        void findViewsByFilter_ShouldReturnRequestedPage() {
+            ProductFilter filter = new ProductFilter(List.of(shoes.getId()), null, null, false, true);
+
+            List<ProductView> result = underTest.findViewsByFilter(filter, ProductSort.PRICE_ASC,
+                    PageRequest.of(1, 1));
+
+            assertEquals(List.of(expensiveShoes.getId()), result.stream().map(ProductView::getId).toList());
+        }
+
+        @Test
+        @DisplayName("Should count matches per category and price bucket in one query")
+        void countFacets_ShouldCountPerCategoryAndPriceBucket() {
+            ProductFilter filter = new ProductFilter(null, null, new BigDecimal("100"), false, true);
+
+            List<ProductFacetCount> result = underTest.countFacets(filter);
+
+            assertEquals(3, result.size());
+            ProductFacetCount expensive = result.stream()
+                    .filter(facet -> !facet.isInPriceRange())
+                    .findFirst()
+                    .orElseThrow();
+            assertEquals(shoes.getId(), expensive.getCategoryId());
+            assertEquals(3, expensive.getPriceBucket());
+            assertEquals(1, expensive.getCount());
+            assertTrue(result.stream()
+                    .anyMatch(facet -> facet.getCategoryId().equals(bags.getId()) && facet.getPriceBucket() == 2));
+        }
+    }
+
+    @Nested
+    @DisplayName("Second level cache tests")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    class SecondLevelCache {
+
+        private static final long PRODUCT_ID = 1_000_000L;
+
+        // Read-write regions only serve entries cached before the reading transaction started, so these tests
+        // run without the test transaction and every repository call commits on its own.
+        @BeforeEach
+        void insertProduct() {
+            jdbcTemplate.update("INSERT INTO products (id, name, price, sku, stock_quantity, is_active) "
+                    + "VALUES (?, 'Cached product', 10.00, 'CACHED-SKU', 5, TRUE)", PRODUCT_ID);
+        }
+
+        @AfterEach
+        void deleteProduct() {
+            jdbcTemplate.update("DELETE FROM products WHERE id = ?", PRODUCT_ID);
+            entityManagerFactory.getCache().evictAll();
+        }
+
+        private Statistics statistics() {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.setStatisticsEnabled(true);
+            statistics.clear();
+            return statistics;
+        }
+
+        @Test
+        @DisplayName("Should load product from second level cache after first read")
+        void findById_ShouldHitSecondLevelCache() {
+            underTest.findById(PRODUCT_ID);
+            Statistics statistics = statistics();
+
+            Optional<ProductEntity> result = underTest.findById(PRODUCT_ID);
+
+            assertTrue(result.isPresent());
+            assertEquals(1, statistics.getSecondLevelCacheHitCount());
+            assertEquals(0, statistics.getPrepareStatementCount());
+            statistics.setStatisticsEnabled(false);
+        }
+
+        @Test
+        @DisplayName("Should evict cached product when stock changes over JDBC")
+        void decreaseStock_ShouldEvictCachedProduct() {
+            underTest.findById(PRODUCT_ID);
+
+            underTest.decreaseStock(Map.of(PRODUCT_ID, 2));
+
+            assertEquals(3, underTest.findById(PRODUCT_ID).orElseThrow().getStockQuantity());
+        }
+    }
+}
@@ -71,6 +71,14 @@ public class TestDataFactory {
         return entityManager.persistAndFlush(category);
     }
 
+    public static CategoryEntity createAndPersistChildCategory(TestEntityManager entityManager,
+                                                              CategoryEntity parent, String name) {
+        CategoryEntity category = new CategoryEntity();
+        category.setName(name);
+        category.setParent(parent);
+        return entityManager.persistAndFlush(category);
+    }
+
     public static CartEntity createAndPersistCart(TestEntityManager entityManager, UserEntity user) {
         CartEntity cart = new CartEntity(user);
         return entityManager.persistAndFlush(cart);
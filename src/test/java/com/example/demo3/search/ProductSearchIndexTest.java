@@ -0,0 +1,179 @@
+package com.example.demo3.search;
+
+import com.example.demo3.entity.CategoryEntity;
+import com.example.demo3.entity.ProductEntity;
+import com.example.demo3.repository.ProductsRepository;
+import com.example.demo3.repository.projection.ProductSearchView;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexTest {
+
+    private static final long SHOES = 10L;
+    private static final long BAGS = 20L;
+
+    private ProductsRepository productsRepository;
+    private ProductSearchIndex underTest;
+
+    private static ProductSearchView product(long id, String name, String description, String sku,
+                                             long categoryId, boolean active) {
+        return new ProductSearchView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String getDescription() {
+                return description;
+            }
+
+            @Override
+            public String getSku() {
+                return sku;
+            }
+
+            @Override
+            public Long getCategoryId() {
+                return categoryId;
+            }
+
+            @Override
+            public Boolean getIsActive() {
+                return active;
+            }
+        };
+    }
+
+    @BeforeEach
+    void setUp() {
+        productsRepository = mock(ProductsRepository.class);
+        PageRequest firstPage = PageRequest.of(0, 1000, Sort.by("id"));
+        when(productsRepository.findSearchViewsByIdGreaterThan(eq(0L), any())).thenReturn(new SliceImpl<>(List.of(
+                product(1, "Red running shoes", "Light shoes for road running", "SH-RED-1", SHOES, true),
+                product(2, "Leather bag", "Red leather bag with a shoulder strap", "BG-RED-2", BAGS, true),
+                product(3, "Blue running shoes", "Trail shoes", "SH-BLUE-3", SHOES, true)), firstPage, true));
+        when(productsRepository.findSearchViewsByIdGreaterThan(eq(3L), any())).thenReturn(new SliceImpl<>(List.of(
+                product(4, "Red sandals", "Old summer model", "SH-RED-4", SHOES, false))));
+        underTest = new ProductSearchIndex(productsRepository);
+        underTest.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        underTest.close();
+    }
+
+    @Nested
+    @DisplayName("Search tests")
+    class Search {
+
+        @Test
+        @DisplayName("Should rank name matches above description matches")
+        void search_ShouldRankNameMatchesFirst() {
+            ProductSearchResult result = underTest.search("red", null, 0, 10);
+
+            assertEquals(List.of(1L, 2L), result.getProductIds());
+            assertEquals(2, result.getTotalHits());
+        }
+
+        @Test
+        @DisplayName("Should require every word of the query")
+        void search_ShouldRequireEveryWord() {
+            assertEquals(List.of(1L), underTest.search("red running", null, 0, 10).getProductIds());
+        }
+
+        @Test
+        @DisplayName("Should match sku parts case insensitively")
+        void search_ShouldMatchSku() {
+            assertEquals(List.of(3L), underTest.search("sh-blue", null, 0, 10).getProductIds());
+        }
+
+        @Test
+        @DisplayName("Should filter by category")
+        void search_ShouldFilterByCategory() {
+            assertEquals(List.of(2L), underTest.search("red", BAGS, 0, 10).getProductIds());
+        }
+
+        @Test
+        @DisplayName("Should return the requested page")
+        void search_ShouldReturnRequestedPage() {
+            ProductSearchResult result = underTest.search("shoes", null, 1, 1);
+
+            assertEquals(1, result.getProductIds().size());
+            assertEquals(2, result.getTotalHits());
+        }
+
+        @Test
+        @DisplayName("Should return nothing for a query without words")
+        void search_ShouldReturnNothingForPunctuation() {
+            assertTrue(underTest.search("-- !", null, 0, 10).getProductIds().isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("Index after commit tests")
+    class IndexAfterCommit {
+
+        private ProductEntity entity(long id, String name, boolean active) {
+            CategoryEntity category = new CategoryEntity();
+            category.setId(SHOES);
+            ProductEntity product = new ProductEntity(name, BigDecimal.TEN);
+            product.setId(id);
+            product.setSku("SKU-" + id);
+            product.setCategory(category);
+            product.setIsActive(active);
+            return product;
+        }
+
+        @Test
+        @DisplayName("Should make a new product searchable after refresh")
+        void indexAfterCommit_ShouldAddProduct() {
+            underTest.indexAfterCommit(entity(5, "Green running shoes", true));
+            underTest.refresh();
+
+            assertEquals(List.of(5L), underTest.search("green", SHOES, 0, 10).getProductIds());
+        }
+
+        @Test
+        @DisplayName("Should remove a product that was disabled")
+        void indexAfterCommit_ShouldRemoveInactiveProduct() {
+            underTest.indexAfterCommit(entity(1, "Red running shoes", false));
+            underTest.refresh();
+
+            assertEquals(List.of(2L), underTest.search("red", null, 0, 10).getProductIds());
+        }
+
+        @Test
+        @DisplayName("Should replace the indexed text of an updated product")
+        void indexAfterCommit_ShouldReplaceProduct() {
+            underTest.indexAfterCommit(entity(3, "Blue hiking boots", true));
+            underTest.refresh();
+
+            assertTrue(underTest.search("running", null, 0, 10).getProductIds().stream().noneMatch(id -> id == 3L));
+            assertEquals(List.of(3L), underTest.search("boots", null, 0, 10).getProductIds());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.demo3.security;
+
+import com.example.demo3.entity.UserEntity;
+import com.example.demo3.entity.UserRole;
+import com.example.demo3.exception.NotFoundException;
+import com.example.demo3.repository.UserRepository;
+import com.example.demo3.service.impl.UserDetailServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JwtAuthFilterTest {
+
+    private static final String SECRET = "8a749699d319f64523ee1b523dd2e437e19e199978b77df684b06c21ff5e3d86";
+    private static final String USERNAME = "username";
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 600_000, 600_000, 100);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private Authentication filter(boolean claimsOnly, String role) throws Exception {
+        JwtAuthFilter underTest = new JwtAuthFilter(jwtUtil, new UserDetailServiceImpl(userRepository), claimsOnly);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization",
+                "Bearer " + jwtUtil.generateAccessToken(USERNAME, List.of(new SimpleGrantedAuthority(role))));
+        AtomicReference<Authentication> seenByChain = new AtomicReference<>();
+        underTest.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> seenByChain.set(SecurityContextHolder.getContext().getAuthentication()));
+        return seenByChain.get();
+    }
+
+    private static UserEntity user() {
+        UserEntity user = new UserEntity();
+        user.setId(1L);
+        user.setUsername(USERNAME);
+        user.setRole(UserRole.ROLE_CUSTOMER);
+        user.setActive(true);
+        return user;
+    }
+
+    @Test
+    @DisplayName("Should authenticate with the roles from the token claims without loading the user")
+    void doFilter_ShouldTakeRolesFromClaims() throws Exception {
+        Authentication authentication = filter(true, "ROLE_ADMIN");
+
+        assertNotNull(authentication);
+        assertEquals(USERNAME, authentication.getName());
+        assertEquals(List.of("ROLE_ADMIN"), authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList());
+        assertInstanceOf(CustomUserDetails.class, authentication.getPrincipal());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("Should decide a role check without touching the user repository")
+    void doFilter_RoleCheckShouldNotLoadUser() throws Exception {
+        Authentication authentication = filter(true, "ROLE_ADMIN");
+
+        assertTrue(AuthorityAuthorizationManager.hasRole("ADMIN").check(() -> authentication, null).isGranted());
+        assertFalse(AuthorityAuthorizationManager.hasRole("CUSTOMER").check(() -> authentication, null).isGranted());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("Should load the user once on first access and reuse it")
+    void doFilter_ShouldLoadUserLazilyOnce() throws Exception {
+        when(userRepository.findByUsername(USERNAME)).thenReturn(Optional.of(user()));
+        CustomUserDetails principal = (CustomUserDetails) filter(true, "ROLE_CUSTOMER").getPrincipal();
+        verifyNoInteractions(userRepository);
+
+        assertEquals(1L, principal.getId());
+        assertTrue(principal.isEnabled());
+
+        verify(userRepository, times(1)).findByUsername(USERNAME);
+    }
+
+    @Test
+    @DisplayName("Should authenticate a deleted user and fail only when the user is accessed")
+    void doFilter_WhenUserIsMissing_ShouldThrowOnFirstAccess() throws Exception {
+        when(userRepository.findByUsername(USERNAME)).thenReturn(Optional.empty());
+        Authentication authentication = filter(true, "ROLE_CUSTOMER");
+
+        assertNotNull(authentication);
+        CustomUserDetails principal = (CustomUserDetails) authentication.getPrincipal();
+        assertThrows(NotFoundException.class, principal::getUser);
+        verify(userRepository).findByUsername(USERNAME);
+    }
+
+    @Test
+    @DisplayName("Should load the user while filtering when claims-only authentication is off")
+    void doFilter_WhenClaimsOnlyIsOff_ShouldLoadUser() throws Exception {
+        when(userRepository.findByUsername(USERNAME)).thenReturn(Optional.of(user()));
+
+        Authentication authentication = filter(false, "ROLE_CUSTOMER");
+
+        assertNotNull(authentication);
+        verify(userRepository).findByUsername(USERNAME);
+    }
+}
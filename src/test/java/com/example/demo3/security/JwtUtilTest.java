@@ -0,0 +1,110 @@
+package com.example.demo3.security;
+
+import io.jsonwebtoken.JwtParser;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "8a749699d319f64523ee1b523dd2e437e19e199978b77df684b06c21ff5e3d86";
+    private static final String USERNAME = "username";
+
+    private static JwtUtil jwtUtil(long accessTokenExpirationMs) {
+        return jwtUtil(accessTokenExpirationMs, 100);
+    }
+
+    private static JwtUtil jwtUtil(long accessTokenExpirationMs, long cacheSize) {
+        JwtUtil jwtUtil = new JwtUtil(SECRET, accessTokenExpirationMs, 600_000, cacheSize);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        return jwtUtil;
+    }
+
+    private static String accessToken(JwtUtil jwtUtil) {
+        return jwtUtil.generateAccessToken(USERNAME, List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER")));
+    }
+
+    @Test
+    @DisplayName("Should answer a verified token from the cache without checking the signature again")
+    void verifyJwtToken_WhenCached_ShouldSkipParser() {
+        JwtUtil underTest = jwtUtil(600_000);
+        String token = accessToken(underTest);
+        VerifiedToken first = underTest.verifyJwtToken(token).orElseThrow();
+        JwtParser parser = mock(JwtParser.class);
+        ReflectionTestUtils.setField(underTest, "jwtParser", parser);
+
+        VerifiedToken second = underTest.verifyJwtToken("Bearer " + token).orElseThrow();
+
+        assertSame(first, second);
+        assertEquals(USERNAME, second.getUsername());
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_CUSTOMER")), second.getAuthorities());
+        verifyNoInteractions(parser);
+    }
+
+    @Test
+    @DisplayName("Should stop authenticating a cached token at its expiration")
+    void verifyJwtToken_WhenCachedTokenExpires_ShouldReject() throws InterruptedException {
+        JwtUtil underTest = jwtUtil(1_000);
+        String token = accessToken(underTest);
+        VerifiedToken verified = underTest.verifyJwtToken(token).orElseThrow();
+
+        long untilExpired = verified.getExpiration().getTime() - System.currentTimeMillis();
+        Thread.sleep(Math.max(untilExpired, 0) + 50);
+
+        assertTrue(underTest.verifyJwtToken(token).isEmpty());
+        assertFalse(underTest.validateJwtToken(token));
+    }
+
+    @Test
+    @DisplayName("Should reject a tampered token that shares its header and claims with a cached one")
+    void verifyJwtToken_WhenSignatureIsTampered_ShouldReject() {
+        JwtUtil underTest = jwtUtil(600_000);
+        String token = accessToken(underTest);
+        assertTrue(underTest.verifyJwtToken(token).isPresent());
+        int signatureStart = token.lastIndexOf('.') + 1;
+        char first = token.charAt(signatureStart);
+        String tampered = token.substring(0, signatureStart) + (first == 'A' ? 'B' : 'A')
+                + token.substring(signatureStart + 1);
+
+        assertTrue(underTest.verifyJwtToken(tampered).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reject a token whose claims were changed after a cached verification")
+    void verifyJwtToken_WhenClaimsAreTampered_ShouldReject() {
+        JwtUtil underTest = jwtUtil(600_000);
+        String token = accessToken(underTest);
+        assertTrue(underTest.verifyJwtToken(token).isPresent());
+        String[] parts = token.split("\\.");
+        Base64.Decoder decoder = Base64.getUrlDecoder();
+        String claims = new String(decoder.decode(parts[1]), StandardCharsets.UTF_8)
+                .replace("ROLE_CUSTOMER", "ROLE_ADMIN");
+        String tampered = parts[0] + "."
+                + Base64.getUrlEncoder().withoutPadding().encodeToString(claims.getBytes(StandardCharsets.UTF_8))
+                + "." + parts[2];
+
+        assertTrue(underTest.verifyJwtToken(tampered).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should check the signature of every request when the cache size is 0")
+    void verifyJwtToken_WhenCacheIsDisabled_ShouldAlwaysParse() {
+        JwtUtil underTest = jwtUtil(600_000, 0);
+        String token = accessToken(underTest);
+        VerifiedToken first = underTest.verifyJwtToken(token).orElseThrow();
+
+        VerifiedToken second = underTest.verifyJwtToken(token).orElseThrow();
+
+        assertNotSame(first, second);
+        assertEquals(first.getUsername(), second.getUsername());
+    }
+}
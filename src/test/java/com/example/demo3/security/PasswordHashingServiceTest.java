@@ -0,0 +1,85 @@
+package com.example.demo3.security;
+
+import com.example.demo3.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordHashingServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordHashingService underTest;
+
+    @AfterEach
+    void tearDown() {
+        underTest.shutdown();
+    }
+
+    @Nested
+    @DisplayName("Admission tests")
+    class Admission {
+
+        @Test
+        @DisplayName("Should reject with too many requests when pool and queue are full")
+        void encode_ShouldRejectWhenSaturated() throws Exception {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            PasswordEncoder encoder = mock(PasswordEncoder.class);
+            when(encoder.encode(any())).thenAnswer(invocation -> {
+                started.countDown();
+                release.await();
+                return "hash";
+            });
+            underTest = new PasswordHashingService(encoder, meterRegistry, 1, 1);
+
+            CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> underTest.encode("first"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> underTest.encode("second"));
+            while (meterRegistry.get("password.hashing.queue.size").gauge().value() < 1) {
+                Thread.onSpinWait();
+            }
+
+            assertThrows(TooManyRequestsException.class, () -> underTest.encode("third"));
+            assertEquals(1, meterRegistry.get("password.hashing.rejected").counter().count());
+
+            release.countDown();
+            assertEquals("hash", running.get(5, TimeUnit.SECONDS));
+            assertEquals("hash", queued.get(5, TimeUnit.SECONDS));
+            assertEquals(2, meterRegistry.get("password.hashing.duration").tag("operation", "encode").timer().count());
+        }
+    }
+
+    @Nested
+    @DisplayName("Rehash tests")
+    class Rehash {
+
+        @Test
+        @DisplayName("Should ask for rehash when version or strength changed")
+        void needsRehash_ShouldDetectOutdatedHashes() {
+            underTest = new PasswordHashingService(
+                    new VersionedBCryptPasswordEncoder(BCryptPasswordEncoder.BCryptVersion.$2B, 5),
+                    meterRegistry, 1, 1);
+            String current = underTest.encode("password");
+
+            assertTrue(underTest.matches("password", current));
+            assertFalse(underTest.needsRehash(current));
+            assertTrue(underTest.needsRehash(new BCryptPasswordEncoder(BCryptPasswordEncoder.BCryptVersion.$2A, 5)
+                    .encode("password")));
+            assertTrue(underTest.needsRehash(new BCryptPasswordEncoder(BCryptPasswordEncoder.BCryptVersion.$2B, 4)
+                    .encode("password")));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.demo3.service.impl;
+
+import com.example.demo3.dto.OrderFunnelStepDTO;
+import com.example.demo3.dto.SalesPeriodDTO;
+import com.example.demo3.entity.OrderStatus;
+import com.example.demo3.entity.OrderStatusCountEntity;
+import com.example.demo3.entity.SalesHourlyEntity;
+import com.example.demo3.exception.BadRequestException;
+import com.example.demo3.repository.CategorySalesRepository;
+import com.example.demo3.repository.OrderStatusCountRepository;
+import com.example.demo3.repository.ProductSalesRepository;
+import com.example.demo3.repository.SalesHourlyRepository;
+import com.example.demo3.service.impl.testutil.BaseServiceTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+class AnalyticsServiceImplTest extends BaseServiceTest {
+
+    @Mock
+    private SalesHourlyRepository salesHourlyRepository;
+    @Mock
+    private ProductSalesRepository productSalesRepository;
+    @Mock
+    private CategorySalesRepository categorySalesRepository;
+    @Mock
+    private OrderStatusCountRepository orderStatusCountRepository;
+
+    @InjectMocks
+    private AnalyticsServiceImpl underTest;
+
+    private static SalesHourlyEntity hour(LocalDate day, int hour, long orders, long units, int revenue) {
+        SalesHourlyEntity row = new SalesHourlyEntity(day.atTime(hour, 0));
+        row.add(orders, units, BigDecimal.valueOf(revenue));
+        return row;
+    }
+
+    private static OrderStatusCountEntity count(OrderStatus status, long orders) {
+        OrderStatusCountEntity row = new OrderStatusCountEntity(status);
+        row.add(orders);
+        return row;
+    }
+
+    @Nested
+    @DisplayName("Get daily sales tests")
+    class GetDailySales {
+
+        @Test
+        @DisplayName("Should add up the hours of each day")
+        void getDailySales_ShouldSumHours() {
+            LocalDate day = LocalDate.of(2025, 3, 1);
+            when(salesHourlyRepository.findByBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+                    day.atStartOfDay(), day.plusDays(2).atStartOfDay()))
+                    .thenReturn(List.of(hour(day, 9, 2, 3, 30), hour(day, 17, 1, 1, 15), hour(day.plusDays(1), 8, 1, 4, 40)));
+
+            List<SalesPeriodDTO> result = underTest.getDailySales(day, day.plusDays(1), USER_AGENT);
+
+            assertThat(result).hasSize(2);
+            assertThat(result.get(0).getStart()).isEqualTo(day.atStartOfDay());
+            assertThat(result.get(0).getOrders()).isEqualTo(3);
+            assertThat(result.get(0).getUnits()).isEqualTo(4);
+            assertThat(result.get(0).getRevenue()).isEqualByComparingTo("45");
+            assertThat(result.get(1).getRevenue()).isEqualByComparingTo("40");
+        }
+
+        @Test
+        @DisplayName("Should reject a range that is too long")
+        void getDailySales_ShouldRejectLongRange() {
+            LocalDate from = LocalDate.of(2024, 1, 1);
+
+            assertThrows(BadRequestException.class,
+                    () -> underTest.getDailySales(from, from.plusYears(2), USER_AGENT));
+            verifyNoInteractions(salesHourlyRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("Get order funnel tests")
+    class GetOrderFunnel {
+
+        @Test
+        @DisplayName("Should count orders that reached each status")
+        void getOrderFunnel_ShouldCountReachedStatuses() {
+            when(orderStatusCountRepository.findAll()).thenReturn(List.of(count(OrderStatus.PENDING, 4),
+                    count(OrderStatus.CONFIRMED, 3), count(OrderStatus.DELIVERED, 2), count(OrderStatus.CANCELLED, 1)));
+
+            List<OrderFunnelStepDTO> result = underTest.getOrderFunnel(USER_AGENT);
+
+            assertThat(result).extracting(OrderFunnelStepDTO::getStatus).containsExactly(OrderStatus.PENDING,
+                    OrderStatus.CONFIRMED, OrderStatus.SHIPPED, OrderStatus.DELIVERED, OrderStatus.CANCELLED);
+            assertThat(result).extracting(OrderFunnelStepDTO::getOrders).containsExactly(4L, 3L, 0L, 2L, 1L);
+            assertThat(result).extracting(OrderFunnelStepDTO::getReached).containsExactly(10L, 5L, 2L, 2L, 1L);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.demo3.service.impl;
 
+import com.example.demo3.cart.CartCache;
 import com.example.demo3.dto.CartDTO;
 import com.example.demo3.dto.UpdateCartItemRequestDTO;
 import com.example.demo3.entity.CartEntity;
@@ -7,6 +8,7 @@ import com.example.demo3.entity.CartItemEntity;
 import com.example.demo3.entity.ProductEntity;
 import com.example.demo3.entity.UserEntity;
 import com.example.demo3.exception.BadRequestException;
+import com.example.demo3.exception.NoContentException;
 import com.example.demo3.exception.NotFoundException;
 import com.example.demo3.mapper.CartItemMapper;
 import com.example.demo3.mapper.CartMapper;
@@ -19,14 +21,19 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.IntUnaryOperator;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -45,6 +52,8 @@ class CartServiceImplTest extends BaseServiceTest {
     private CartMapper cartMapper;
     @Mock
     private CartItemMapper cartItemMapper;
+    @Mock
+    private CartCache cartCache;
 
     @InjectMocks
     private CartServiceImpl underTest;
@@ -106,6 +115,33 @@ class CartServiceImplTest extends BaseServiceTest {
             inOrder.verify(cartRepository).findByUserId(USER.getId());
             inOrder.verify(cartRepository).save(any());
         }
+
+        @Test
+        @DisplayName("Should return cached cart without reading it from the database")
+        void getCart_WhenCached_ShouldReturnCachedCart() {
+            Map<Long, Integer> quantities = Map.of(PRODUCT_ID, 2);
+            when(authService.getCurrentUsername()).thenReturn(USERNAME);
+            when(cartCache.read(USERNAME)).thenReturn(new CartCache.CartLines(true, quantities));
+            when(productService.getProduct(eq(PRODUCT_ID), anyString())).thenReturn(PRODUCT);
+            when(cartMapper.toDTO(List.of(PRODUCT), quantities)).thenReturn(EXPECTED_CART_DTO);
+
+            CartDTO result = underTest.getCart(USER_AGENT);
+
+            assertThat(result).isNotNull().isEqualTo(EXPECTED_CART_DTO);
+            verify(authService, never()).getCurrentAuthenticatedUser();
+            verifyNoInteractions(cartRepository, cartItemRepository);
+        }
+
+        @Test
+        @DisplayName("When cached user has no cart should throw no content exception")
+        void getCart_WhenCachedUserHasNoCart_ShouldThrowNoContentException() {
+            when(authService.getCurrentUsername()).thenReturn(USERNAME);
+            when(cartCache.read(USERNAME)).thenReturn(new CartCache.CartLines(false, Map.of()));
+
+            assertThrows(NoContentException.class, () -> underTest.getCart(USER_AGENT));
+
+            verifyNoInteractions(cartRepository, cartMapper);
+        }
     }
 
     @Nested
@@ -300,6 +336,30 @@ class CartServiceImplTest extends BaseServiceTest {
             inOrder.verify(cartRepository).findByUserId(eq(USER.getId()));
             inOrder.verify(cartItemRepository).findByCartIdAndProductId(eq(CART.getId()), eq(PRODUCT.getId()));
         }
+
+        @Test
+        @DisplayName("Should remove item from cached cart")
+        void removeItemFromCart_WhenCached_ShouldSetQuantityToZero() {
+            when(authService.getCurrentUsername()).thenReturn(USERNAME);
+            ArgumentCaptor<IntUnaryOperator> quantity = ArgumentCaptor.forClass(IntUnaryOperator.class);
+            when(cartCache.change(eq(USERNAME), eq(PRODUCT_ID), quantity.capture())).thenReturn(3);
+
+            underTest.removeItemFromCart(PRODUCT_ID, USER_AGENT);
+
+            assertEquals(0, quantity.getValue().applyAsInt(3));
+            verifyNoInteractions(cartRepository, cartItemRepository);
+        }
+
+        @Test
+        @DisplayName("When product is not in cached cart should throw not found exception")
+        void removeItemFromCart_WhenNotInCachedCart_ShouldThrowNotFoundException() {
+            when(authService.getCurrentUsername()).thenReturn(USERNAME);
+            when(cartCache.change(eq(USERNAME), eq(PRODUCT_ID), any())).thenReturn(0);
+
+            assertThrows(NotFoundException.class, () -> underTest.removeItemFromCart(PRODUCT_ID, USER_AGENT));
+
+            verifyNoInteractions(cartRepository, cartItemRepository);
+        }
     }
 
     @Nested
@@ -339,6 +399,31 @@ class CartServiceImplTest extends BaseServiceTest {
             inOrder.verify(cartRepository).findByUserId(eq(USER.getId()));
             inOrder.verify(cartItemRepository).deleteAllByCartId(eq(CART.getId()));
         }
+
+        @Test
+        @DisplayName("Should clear cached cart without deleting from the database")
+        void clearCart_WhenCached_ShouldReturnNumberOfClearedItems() {
+            when(authService.getCurrentUsername()).thenReturn(USERNAME);
+            when(cartCache.read(USERNAME)).thenReturn(new CartCache.CartLines(true, Map.of(PRODUCT_ID, 2)));
+            when(cartCache.clear(USERNAME)).thenReturn(1);
+
+            int result = underTest.clearCart(USER_AGENT);
+
+            assertEquals(1, result);
+            verifyNoInteractions(cartRepository, cartItemRepository);
+        }
+
+        @Test
+        @DisplayName("When cached user has no cart should throw cart not found")
+        void clearCart_WhenCachedUserHasNoCart_ShouldThrowCartNotFound() {
+            when(authService.getCurrentUsername()).thenReturn(USERNAME);
+            when(cartCache.read(USERNAME)).thenReturn(new CartCache.CartLines(false, Map.of()));
+
+            assertThrows(NotFoundException.class, () -> underTest.clearCart(USER_AGENT));
+
+            verify(cartCache, never()).clear(anyString());
+            verifyNoInteractions(cartRepository, cartItemRepository);
+        }
     }
 
     @Nested
@@ -1,5 +1,7 @@
 package com.example.demo3.service.impl;
 
+import com.example.demo3.cache.CategoryTreeCache;
+import com.example.demo3.cache.CategoryTreeSnapshot;
 import com.example.demo3.dto.CategoryCreateRequestDTO;
 import com.example.demo3.dto.PageableResponseCategoryDTO;
 import com.example.demo3.entity.CategoryEntity;
@@ -14,9 +16,8 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -31,6 +32,8 @@ class CategoryServiceImplTest extends BaseServiceTest {
     private CategoryMapper categoryMapper;
     @Mock
     private CategoryRepository categoryRepository;
+    @Mock
+    private CategoryTreeCache categoryTreeCache;
 
     @InjectMocks
     private CategoryServiceImpl underTest;
@@ -49,11 +52,11 @@ class CategoryServiceImplTest extends BaseServiceTest {
         @Test
         @DisplayName("Should return pageable response")
         void getAllCategories() {
-            Page<CategoryEntity> pageable = Page.empty();
+            CategoryTreeSnapshot snapshot = CategoryTreeSnapshot.build(1L, List.of());
             PageableResponseCategoryDTO response = new PageableResponseCategoryDTO();
 
-            when(categoryRepository.findAll(PageRequest.of(DEFAULT_PAGE, DEFAULT_PAGE_SIZE))).thenReturn(pageable);
-            when(categoryMapper.createNewPageableResponseCategoryDTO(pageable)).thenReturn(response);
+            when(categoryTreeCache.getSnapshot()).thenReturn(snapshot);
+            when(categoryMapper.createNewPageableResponseCategoryDTO(any(), eq(snapshot))).thenReturn(response);
 
             PageableResponseCategoryDTO result = underTest.getAllCategories(DEFAULT_PAGE, DEFAULT_PAGE_SIZE, USER_AGENT);
 
@@ -61,9 +64,10 @@ class CategoryServiceImplTest extends BaseServiceTest {
                     .isNotNull()
                     .isEqualTo(response);
 
-            InOrder inOrder = inOrder(categoryRepository, categoryMapper);
-            inOrder.verify(categoryRepository).findAll(PageRequest.of(DEFAULT_PAGE, DEFAULT_PAGE_SIZE));
-            inOrder.verify(categoryMapper).createNewPageableResponseCategoryDTO(pageable);
+            InOrder inOrder = inOrder(categoryTreeCache, categoryMapper);
+            inOrder.verify(categoryTreeCache).getSnapshot();
+            inOrder.verify(categoryMapper).createNewPageableResponseCategoryDTO(any(), eq(snapshot));
+            verifyNoInteractions(categoryRepository);
         }
     }
 
@@ -150,4 +154,4 @@ class CategoryServiceImplTest extends BaseServiceTest {
             verify(categoryRepository).existsById(1L);
         }
     }
-}
\ No newline at end of file
+}
@@ -2,28 +2,50 @@ package com.example.demo3.service.impl;
 
 import com.example.demo3.dto.CreateOrderRequestDTO;
 import com.example.demo3.dto.OrderEntityDTO;
+import com.example.demo3.dto.PageableResponseOrderSummariesDTO;
 import com.example.demo3.dto.PageableResponseOrdersDTO;
 import com.example.demo3.dto.UpdateOrderStatusRequestDTO;
 import com.example.demo3.entity.*;
 import com.example.demo3.exception.BadRequestException;
+import com.example.demo3.exception.ConflictException;
 import com.example.demo3.exception.ForbiddenException;
 import com.example.demo3.exception.NotFoundException;
+import com.example.demo3.exception.UnprocessableEntityException;
+import com.example.demo3.export.OrderExportFormat;
+import com.example.demo3.export.OrderExportTarget;
+import com.example.demo3.idempotency.OrderIdempotencyKeys;
 import com.example.demo3.mapper.OrderMapper;
+import com.example.demo3.outbox.OrderEventDispatcher;
+import com.example.demo3.outbox.OrderEventOutbox;
+import com.example.demo3.repository.OrderExportFilter;
 import com.example.demo3.repository.OrderItemRepository;
 import com.example.demo3.repository.OrderRepository;
+import com.example.demo3.repository.projection.OrderExportRow;
+import com.example.demo3.repository.projection.OrderSummaryView;
+import com.example.demo3.repository.projection.OrderView;
 import com.example.demo3.service.impl.testutil.BaseServiceTest;
 import org.junit.jupiter.api.*;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -42,12 +64,18 @@ class OrderServiceImplTest extends BaseServiceTest {
     private CartServiceImpl cartService;
     @Mock
     private OrderItemRepository orderItemRepository;
+    @Mock
+    private OrderEventOutbox orderEventOutbox;
+    @Mock
+    private OrderEventDispatcher orderEventDispatcher;
+    @Mock
+    private OrderIdempotencyKeys orderIdempotencyKeys;
 
     @InjectMocks
     private OrderServiceImpl underTest;
 
     private static final UserEntity USER = new UserEntity();
-    private static final Page<OrderEntity> PAGE_EMPTY = Page.empty();
+    private static final Page<OrderView> PAGE_EMPTY = Page.empty();
     private static final OrderEntity ORDER = new OrderEntity();
     private static final OrderEntity ANOTHER_USER_ORDER = new OrderEntity();
 
@@ -91,12 +119,12 @@ class OrderServiceImplTest extends BaseServiceTest {
             when(orderMapper.createOrder(USER, REQUEST, List.of(CART_ITEM))).thenReturn(ORDER);
             when(orderRepository.save(ORDER)).thenReturn(ORDER);
 
-            underTest.createOrder(REQUEST, USER_AGENT);
+            underTest.createOrder(REQUEST, null, USER_AGENT);
 
             InOrder inOrder = inOrder(orderMapper, orderRepository, productService, cartService);
+            inOrder.verify(productService).decreaseStockForOrderItems(eq(List.of(CART_ITEM)), anyString());
             inOrder.verify(orderMapper).createOrder(USER, REQUEST, List.of(CART_ITEM));
             inOrder.verify(orderRepository).save(ORDER);
-            inOrder.verify(productService).decreaseStockForOrderItems(List.of(CART_ITEM));
             inOrder.verify(cartService).deleteAllByCartId(USER.getCart().getId());
         }
 
@@ -107,7 +135,7 @@ class OrderServiceImplTest extends BaseServiceTest {
 
             when(authService.validateTokenAndGetUser(eq(TOKEN), anyString())).thenReturn(USER);
 
-            assertThrows(NotFoundException.class, () -> underTest.createOrder(REQUEST, USER_AGENT));
+            assertThrows(NotFoundException.class, () -> underTest.createOrder(REQUEST, null, USER_AGENT));
 
             verify(authService).validateTokenAndGetUser(eq(TOKEN), anyString());
         }
@@ -120,7 +148,7 @@ class OrderServiceImplTest extends BaseServiceTest {
             when(authService.validateTokenAndGetUser(eq(TOKEN), anyString())).thenReturn(USER);
 
             NotFoundException exception = assertThrows(NotFoundException.class,
-                    () -> underTest.createOrder(REQUEST, USER_AGENT));
+                    () -> underTest.createOrder(REQUEST, null, USER_AGENT));
 
             assertThat(exception).isNotNull();
 
@@ -128,6 +156,55 @@ class OrderServiceImplTest extends BaseServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Create order with idempotency key tests")
+    class CreateOrderWithIdempotencyKey {
+
+        private static final CreateOrderRequestDTO REQUEST = new CreateOrderRequestDTO();
+        private static final String KEY = "retry-key";
+        private static final String REQUEST_HASH = "request-hash";
+
+        @BeforeEach
+        void stubKeys() {
+            when(authService.getCurrentUsername()).thenReturn(USERNAME);
+            when(orderIdempotencyKeys.requestHash(REQUEST)).thenReturn(REQUEST_HASH);
+        }
+
+        @Test
+        @DisplayName("Should return the first order without touching cart or stock")
+        void createOrder_WhenKeyRepeated_ShouldReturnFirstOrder() {
+            when(orderIdempotencyKeys.find(USERNAME, KEY))
+                    .thenReturn(new OrderIdempotencyKeys.CompletedRequest(REQUEST_HASH, EXISTING_ENTITY_ID));
+
+            assertThat(underTest.createOrder(REQUEST, KEY, USER_AGENT)).isEqualTo(EXISTING_ENTITY_ID);
+
+            verify(authService, never()).getCurrentAuthenticatedUser();
+            verifyNoInteractions(productService, cartService, orderRepository, orderEventOutbox);
+        }
+
+        @Test
+        @DisplayName("Should throw unprocessable entity exception when the key was used for another request")
+        void createOrder_WhenKeyReusedForOtherRequest_ShouldThrowUnprocessableEntityException() {
+            when(orderIdempotencyKeys.find(USERNAME, KEY))
+                    .thenReturn(new OrderIdempotencyKeys.CompletedRequest("other-hash", EXISTING_ENTITY_ID));
+
+            assertThrows(UnprocessableEntityException.class, () -> underTest.createOrder(REQUEST, KEY, USER_AGENT));
+
+            verifyNoInteractions(productService, cartService, orderRepository);
+        }
+
+        @Test
+        @DisplayName("Should throw conflict exception when the same key is being processed")
+        void createOrder_WhenKeyClaimedConcurrently_ShouldThrowConflictException() {
+            when(orderIdempotencyKeys.claim(USERNAME, KEY, REQUEST_HASH))
+                    .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+            assertThrows(ConflictException.class, () -> underTest.createOrder(REQUEST, KEY, USER_AGENT));
+
+            verifyNoInteractions(productService, cartService, orderRepository);
+        }
+    }
+
     @Nested
     @DisplayName("Get user orders tests")
     class GetUserOrders {
@@ -138,9 +215,9 @@ class OrderServiceImplTest extends BaseServiceTest {
             PageableResponseOrdersDTO response = new PageableResponseOrdersDTO();
 
             when(authService.validateTokenAndGetUser(eq(TOKEN), anyString())).thenReturn(USER);
-            when(orderRepository.findByUserId(USER.getId(), PageRequest.of(DEFAULT_PAGE, DEFAULT_PAGE_SIZE)))
+            when(orderRepository.findViewsByUserId(USER.getId(), PageRequest.of(DEFAULT_PAGE, DEFAULT_PAGE_SIZE)))
                     .thenReturn(PAGE_EMPTY);
-            when(orderMapper.createPageableResponseOrdersDTO(PAGE_EMPTY)).thenReturn(response);
+            when(orderMapper.createPageableResponseOrdersDTO(PAGE_EMPTY, Map.of())).thenReturn(response);
 
             PageableResponseOrdersDTO result = underTest
                     .getUserOrders(DEFAULT_PAGE, DEFAULT_PAGE_SIZE, USER_AGENT);
@@ -148,8 +225,31 @@ class OrderServiceImplTest extends BaseServiceTest {
             assertThat(result).isNotNull().isSameAs(response);
 
             InOrder inOrder = inOrder(orderRepository, orderMapper);
-            inOrder.verify(orderRepository).findByUserId(USER.getId(), PageRequest.of(DEFAULT_PAGE, DEFAULT_PAGE_SIZE));
-            inOrder.verify(orderMapper).createPageableResponseOrdersDTO(PAGE_EMPTY);
+            inOrder.verify(orderRepository).findViewsByUserId(USER.getId(), PageRequest.of(DEFAULT_PAGE, DEFAULT_PAGE_SIZE));
+            inOrder.verify(orderMapper).createPageableResponseOrdersDTO(PAGE_EMPTY, Map.of());
+        }
+    }
+
+    @Nested
+    @DisplayName("Get user order summaries tests")
+    class GetUserOrderSummaries {
+
+        @Test
+        @DisplayName("Should return summaries without loading the user or order items")
+        void getUserOrderSummaries_ShouldReturnSummaries() {
+            Page<OrderSummaryView> summaries = Page.empty();
+            PageableResponseOrderSummariesDTO response = new PageableResponseOrderSummariesDTO();
+
+            when(authService.getCurrentUsername()).thenReturn(USERNAME);
+            when(orderRepository.findSummariesByUsername(USERNAME, PageRequest.of(DEFAULT_PAGE, DEFAULT_PAGE_SIZE,
+                    Sort.by("id")))).thenReturn(summaries);
+            when(orderMapper.createPageableResponseOrderSummariesDTO(summaries)).thenReturn(response);
+
+            assertThat(underTest.getUserOrderSummaries(DEFAULT_PAGE, DEFAULT_PAGE_SIZE, USER_AGENT))
+                    .isEqualTo(response);
+
+            verify(authService, never()).getCurrentAuthenticatedUser();
+            verifyNoInteractions(orderItemRepository, productService);
         }
     }
 
@@ -326,8 +426,8 @@ class OrderServiceImplTest extends BaseServiceTest {
         @Test
         @DisplayName("Should return orders without status")
         void getAllOrders_ShouldReturnOrdersWithoutStatus() {
-            when(orderRepository.findAll(PageRequest.of(DEFAULT_PAGE, DEFAULT_PAGE_SIZE))).thenReturn(PAGE_EMPTY);
-            when(orderMapper.createPageableResponseOrdersDTO(PAGE_EMPTY)).thenReturn(RESPONSE);
+            when(orderRepository.findAllViews(PageRequest.of(DEFAULT_PAGE, DEFAULT_PAGE_SIZE))).thenReturn(PAGE_EMPTY);
+            when(orderMapper.createPageableResponseOrdersDTO(PAGE_EMPTY, Map.of())).thenReturn(RESPONSE);
 
             PageableResponseOrdersDTO result = underTest
                     .getAllOrders(DEFAULT_PAGE, DEFAULT_PAGE_SIZE, null, USER_AGENT);
@@ -336,8 +436,8 @@ class OrderServiceImplTest extends BaseServiceTest {
 
             InOrder inOrder = inOrder(authService, orderRepository, orderMapper);
             inOrder.verify(authService).checkIsUserAdmin(eq(TOKEN), anyString());
-            inOrder.verify(orderRepository).findAll(PageRequest.of(DEFAULT_PAGE, DEFAULT_PAGE_SIZE));
-            inOrder.verify(orderMapper).createPageableResponseOrdersDTO(PAGE_EMPTY);
+            inOrder.verify(orderRepository).findAllViews(PageRequest.of(DEFAULT_PAGE, DEFAULT_PAGE_SIZE));
+            inOrder.verify(orderMapper).createPageableResponseOrdersDTO(PAGE_EMPTY, Map.of());
         }
 
         @Test
@@ -345,10 +445,10 @@ class OrderServiceImplTest extends BaseServiceTest {
         void getAllOrders_ShouldReturnOrdersWithStatus() {
             String status = "PENDING";
 
-            when(orderRepository.findByStatus(OrderStatus.valueOf(status),
+            when(orderRepository.findViewsByStatus(OrderStatus.valueOf(status),
                     PageRequest.of(DEFAULT_PAGE, DEFAULT_PAGE_SIZE)))
                     .thenReturn(PAGE_EMPTY);
-            when(orderMapper.createPageableResponseOrdersDTO(PAGE_EMPTY)).thenReturn(RESPONSE);
+            when(orderMapper.createPageableResponseOrdersDTO(PAGE_EMPTY, Map.of())).thenReturn(RESPONSE);
 
             PageableResponseOrdersDTO result = underTest
                     .getAllOrders(DEFAULT_PAGE, DEFAULT_PAGE_SIZE, status, USER_AGENT);
@@ -357,9 +457,50 @@ class OrderServiceImplTest extends BaseServiceTest {
 
             InOrder inOrder = inOrder(authService, orderRepository, orderMapper);
             inOrder.verify(authService).checkIsUserAdmin(eq(TOKEN), anyString());
-            inOrder.verify(orderRepository).findByStatus(OrderStatus.valueOf(status),
+            inOrder.verify(orderRepository).findViewsByStatus(OrderStatus.valueOf(status),
                     PageRequest.of(DEFAULT_PAGE, DEFAULT_PAGE_SIZE));
-            inOrder.verify(orderMapper).createPageableResponseOrdersDTO(PAGE_EMPTY);
+            inOrder.verify(orderMapper).createPageableResponseOrdersDTO(PAGE_EMPTY, Map.of());
+        }
+    }
+
+    @Nested
+    @DisplayName("Export orders tests")
+    class ExportOrders {
+
+        private static final LocalDate FROM = LocalDate.of(2025, 5, 1);
+        private static final LocalDate TO = LocalDate.of(2025, 5, 31);
+
+        @Test
+        @DisplayName("Should write streamed rows with the whole last day included")
+        @SuppressWarnings("unchecked")
+        void exportOrders_ShouldWriteStreamedRows() {
+            OrderExportRow row = new OrderExportRow(EXISTING_ENTITY_ID, "ORD-1", "PENDING", BigDecimal.TEN,
+                    "Address", null, EXISTING_ENTITY_ID, "user@example.com", null, null, null, null, null, null, null);
+            doAnswer(invocation -> {
+                invocation.<Consumer<OrderExportRow>>getArgument(1).accept(row);
+                return null;
+            }).when(orderRepository).exportRows(any(), any());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            underTest.exportOrders(OrderStatus.PENDING, FROM, TO, OrderExportFormat.CSV, format -> out, USER_AGENT);
+
+            ArgumentCaptor<OrderExportFilter> filter = ArgumentCaptor.forClass(OrderExportFilter.class);
+            verify(orderRepository).exportRows(filter.capture(), any());
+            assertThat(filter.getValue().getCreatedFrom()).isEqualTo(FROM.atStartOfDay());
+            assertThat(filter.getValue().getCreatedBefore()).isEqualTo(TO.plusDays(1).atStartOfDay());
+            assertThat(out.toString(StandardCharsets.UTF_8).split("\r\n")[1])
+                    .isEqualTo("1,ORD-1,PENDING,10,Address,,1,user@example.com,,,,,,,");
+        }
+
+        @Test
+        @DisplayName("Should throw bad request when from is after to")
+        void exportOrders_ShouldThrowWhenRangeInvalid() {
+            OrderExportTarget target = mock(OrderExportTarget.class);
+
+            assertThrows(BadRequestException.class, () -> underTest.exportOrders(null, TO, FROM,
+                    OrderExportFormat.NDJSON, target, USER_AGENT));
+
+            verifyNoInteractions(orderRepository, target);
         }
     }
 
@@ -418,6 +559,20 @@ class OrderServiceImplTest extends BaseServiceTest {
             inOrder.verify(orderRepository).save(ORDER);
         }
 
+        @Test
+        @DisplayName("Should record the status change in the outbox")
+        void updateOrderStatus_ShouldAppendStatusChangedEvent() {
+            REQUEST.setStatus(OrderStatus.CONFIRMED);
+            ORDER.setStatus(OrderStatus.PENDING);
+
+            when(orderRepository.findById(1L)).thenReturn(Optional.of(ORDER));
+            when(orderRepository.save(ORDER)).thenReturn(ORDER);
+
+            underTest.updateOrderStatus(1L, REQUEST, USER_AGENT);
+
+            verify(orderEventOutbox).append(OrderEventType.STATUS_CHANGED, ORDER, OrderStatus.PENDING);
+        }
+
         @Test
         @DisplayName("Should update order to shipped")
         void updateOrderStatus_ShouldUpdateOrderToShipped() {
@@ -476,4 +631,27 @@ class OrderServiceImplTest extends BaseServiceTest {
             verify(orderRepository).findById(1L);
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Replay order events tests")
+    class ReplayOrderEvents {
+
+        @Test
+        @DisplayName("Should move the handler position")
+        void replayOrderEvents_ShouldReplay() {
+            when(orderEventDispatcher.hasHandler("rollups")).thenReturn(true);
+
+            underTest.replayOrderEvents("rollups", 42L, USER_AGENT);
+
+            verify(orderEventDispatcher).replay("rollups", 42L);
+        }
+
+        @Test
+        @DisplayName("Should throw not found exception for an unknown handler")
+        void replayOrderEvents_ShouldThrowNotFoundException() {
+            assertThrows(NotFoundException.class, () -> underTest.replayOrderEvents("unknown", 0L, USER_AGENT));
+
+            verify(orderEventDispatcher, never()).replay(anyString(), anyLong());
+        }
+    }
+}
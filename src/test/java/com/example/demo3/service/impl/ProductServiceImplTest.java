@@ -1,5 +1,7 @@
 package com.example.demo3.service.impl;
 
+import com.example.demo3.cache.CategoryTreeCache;
+import com.example.demo3.cache.CategoryTreeSnapshot;
 import com.example.demo3.dto.*;
 import com.example.demo3.entity.CartItemEntity;
 import com.example.demo3.entity.CategoryEntity;
@@ -7,23 +9,49 @@ import com.example.demo3.entity.OrderItemEntity;
 import com.example.demo3.entity.ProductEntity;
 import com.example.demo3.exception.BadRequestException;
 import com.example.demo3.exception.NotFoundException;
+import com.example.demo3.importer.ProductImportFormat;
+import com.example.demo3.inventory.HotProductInventory;
+import com.example.demo3.inventory.StockReservation;
 import com.example.demo3.mapper.ProductMapper;
+import com.example.demo3.repository.ProductAdjustment;
+import com.example.demo3.repository.ProductFilter;
+import com.example.demo3.repository.ProductSort;
+import com.example.demo3.repository.ProductUpsert;
+import com.example.demo3.repository.ProductUpserted;
 import com.example.demo3.repository.ProductsRepository;
+import com.example.demo3.repository.projection.CategoryView;
+import com.example.demo3.repository.projection.ProductFacetCount;
+import com.example.demo3.repository.projection.ProductSkuView;
+import com.example.demo3.repository.projection.ProductStateView;
+import com.example.demo3.repository.projection.ProductVersionView;
+import com.example.demo3.repository.projection.ProductView;
+import com.example.demo3.search.ProductSearchIndex;
+import com.example.demo3.search.ProductSearchResult;
 import com.example.demo3.service.impl.testutil.BaseServiceTest;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import static com.example.demo3.utill.CursorCodec.encode;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.*;
@@ -39,12 +67,19 @@ class ProductServiceImplTest extends BaseServiceTest {
     private CategoryServiceImpl categoryService;
     @Mock
     private AuthServiceImpl authService;
+    @Mock
+    private HotProductInventory hotProductInventory;
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+    @Mock
+    private CategoryTreeCache categoryTreeCache;
 
     @InjectMocks
     private ProductServiceImpl underTest;
 
     private static final ProductEntity PRODUCT = new ProductEntity();
-    private static final Page<ProductEntity> EMPTY_PAGE = Page.empty();
+    private static final Page<ProductView> EMPTY_VIEW_PAGE = Page.empty();
+    private static final Page<ProductWithoutCategoryDTO> EMPTY_DTO_PAGE = Page.empty();
     private static final CartItemEntity CART_ITEM_ENTITY = new CartItemEntity();
     private static final CategoryEntity CATEGORY = new CategoryEntity();
     private static final int PRODUCT_STOCK_QUANTITY = 10;
@@ -70,7 +105,7 @@ class ProductServiceImplTest extends BaseServiceTest {
         @Test
         @DisplayName("Should return product DTO")
         void getProductById_ShouldReturnProductDTO() {
-            when(productsRepository.findById(PRODUCT.getId())).thenReturn(Optional.of(PRODUCT));
+            when(productsRepository.findWithCategoryById(PRODUCT.getId())).thenReturn(Optional.of(PRODUCT));
             when(productMapper.toDTO(PRODUCT)).thenReturn(RESPONSE);
 
             ProductBasicDTO result = underTest.getProductById(PRODUCT.getId(), USER_AGENT);
@@ -78,18 +113,18 @@ class ProductServiceImplTest extends BaseServiceTest {
             assertThat(result).isNotNull().isSameAs(RESPONSE);
 
             InOrder inOrder = inOrder(productsRepository, productMapper);
-            inOrder.verify(productsRepository).findById(PRODUCT.getId());
+            inOrder.verify(productsRepository).findWithCategoryById(PRODUCT.getId());
             inOrder.verify(productMapper).toDTO(PRODUCT);
         }
 
         @Test
         @DisplayName("Should throw not found exception")
         void getProductById_ShouldThrowNotFoundException() {
-            when(productsRepository.findById(NOT_EXISTING_ENTITY_ID)).thenReturn(Optional.empty());
+            when(productsRepository.findWithCategoryById(NOT_EXISTING_ENTITY_ID)).thenReturn(Optional.empty());
 
             assertThrows(NotFoundException.class, () -> underTest.getProductById(NOT_EXISTING_ENTITY_ID, USER_AGENT));
 
-            verify(productsRepository).findById(NOT_EXISTING_ENTITY_ID);
+            verify(productsRepository).findWithCategoryById(NOT_EXISTING_ENTITY_ID);
         }
     }
 
@@ -100,14 +135,225 @@ class ProductServiceImplTest extends BaseServiceTest {
         @Test
         @DisplayName("Should return pageable response products")
         void getAllProducts_ShouldReturnPageableResponseProducts() {
-            when(productsRepository.findAll(PageRequest.of(DEFAULT_PAGE, DEFAULT_PAGE_SIZE))).thenReturn(EMPTY_PAGE);
-            when(productMapper.createPageableResponseProducts(EMPTY_PAGE)).thenReturn(new PageableResponseProducts());
+            when(productsRepository.findAllViews(PageRequest.of(DEFAULT_PAGE, DEFAULT_PAGE_SIZE))).thenReturn(EMPTY_VIEW_PAGE);
+            when(productMapper.createPageableResponseProducts(EMPTY_VIEW_PAGE)).thenReturn(new PageableResponseProducts());
 
             underTest.getAllProducts(DEFAULT_PAGE, DEFAULT_PAGE_SIZE, USER_AGENT);
 
             InOrder inOrder = inOrder(productsRepository, productMapper);
-            inOrder.verify(productsRepository).findAll(PageRequest.of(DEFAULT_PAGE, DEFAULT_PAGE_SIZE));
-            inOrder.verify(productMapper).createPageableResponseProducts(EMPTY_PAGE);
+            inOrder.verify(productsRepository).findAllViews(PageRequest.of(DEFAULT_PAGE, DEFAULT_PAGE_SIZE));
+            inOrder.verify(productMapper).createPageableResponseProducts(EMPTY_VIEW_PAGE);
+        }
+    }
+
+    @Nested
+    @DisplayName("Search products tests")
+    class SearchProducts {
+
+        private static final String QUERY = "red shoes";
+
+        private ProductView view(Long id) {
+            ProductView view = mock(ProductView.class);
+            when(view.getId()).thenReturn(id);
+            return view;
+        }
+
+        @Test
+        @DisplayName("Should keep index ranking and skip products missing from database")
+        @SuppressWarnings("unchecked")
+        void searchProducts_ShouldKeepRankingAndSkipMissingProducts() {
+            ProductView first = view(5L);
+            ProductView second = view(2L);
+            when(productSearchIndex.search(QUERY, EXISTING_ENTITY_ID, DEFAULT_PAGE, DEFAULT_PAGE_SIZE))
+                    .thenReturn(new ProductSearchResult(List.of(5L, 9L, 2L), 3));
+            when(productsRepository.findViewsByIdIn(List.of(5L, 9L, 2L))).thenReturn(List.of(second, first));
+            when(productMapper.createPageableResponseProducts(any())).thenReturn(new PageableResponseProducts());
+
+            underTest.searchProducts(QUERY, EXISTING_ENTITY_ID, DEFAULT_PAGE, DEFAULT_PAGE_SIZE, USER_AGENT);
+
+            ArgumentCaptor<Page<ProductView>> page = ArgumentCaptor.forClass(Page.class);
+            verify(productMapper).createPageableResponseProducts(page.capture());
+            assertThat(page.getValue().getContent()).isEqualTo(List.of(first, second));
+        }
+
+        @Test
+        @DisplayName("Should not query database when nothing matches")
+        void searchProducts_ShouldNotQueryDatabaseWhenNothingMatches() {
+            when(productSearchIndex.search(QUERY, null, DEFAULT_PAGE, DEFAULT_PAGE_SIZE))
+                    .thenReturn(new ProductSearchResult(List.of(), 0));
+            when(productMapper.createPageableResponseProducts(any())).thenReturn(new PageableResponseProducts());
+
+            underTest.searchProducts(QUERY, null, DEFAULT_PAGE, DEFAULT_PAGE_SIZE, USER_AGENT);
+
+            verify(productsRepository, never()).findViewsByIdIn(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Get product version tests")
+    class GetProductVersion {
+
+        private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2025, 3, 1, 12, 0, 30, 500_000_000);
+
+        private ProductVersionView version(LocalDateTime updatedAt) {
+            ProductVersionView view = mock(ProductVersionView.class);
+            when(view.getUpdatedAt()).thenReturn(updatedAt);
+            return view;
+        }
+
+        @Test
+        @DisplayName("Should change etag when product is updated")
+        void getProductVersion_ShouldChangeWhenProductUpdated() {
+            CategoryTreeSnapshot snapshot = CategoryTreeSnapshot.build(1L, List.of());
+            when(categoryTreeCache.getSnapshot()).thenReturn(snapshot);
+            ProductVersionView first = version(UPDATED_AT);
+            ProductVersionView second = version(UPDATED_AT.plusNanos(1_000_000));
+            when(productsRepository.findVersionById(EXISTING_ENTITY_ID))
+                    .thenReturn(Optional.of(first), Optional.of(first), Optional.of(second));
+
+            ResourceVersion result = underTest.getProductVersion(EXISTING_ENTITY_ID, USER_AGENT);
+
+            assertThat(result.getETag()).isEqualTo(underTest.getProductVersion(EXISTING_ENTITY_ID, USER_AGENT).getETag());
+            assertThat(result.getETag()).isNotEqualTo(underTest.getProductVersion(EXISTING_ENTITY_ID, USER_AGENT).getETag());
+            assertThat(result.getLastModified().getNano()).isEqualTo(0);
+        }
+
+        @Test
+        @DisplayName("Should throw not found when product does not exist")
+        void getProductVersion_ShouldThrowNotFound() {
+            when(productsRepository.findVersionById(EXISTING_ENTITY_ID)).thenReturn(Optional.empty());
+
+            assertThrows(NotFoundException.class, () -> underTest.getProductVersion(EXISTING_ENTITY_ID, USER_AGENT));
+
+            verifyNoInteractions(productMapper);
+        }
+    }
+
+    @Nested
+    @DisplayName("Filter products tests")
+    class FilterProducts {
+
+        private static final Long CHILD_CATEGORY_ID = 2L;
+        private static final BigDecimal MAX_PRICE = BigDecimal.valueOf(100);
+
+        private CategoryView category(Long id, Long parentId) {
+            CategoryView view = mock(CategoryView.class);
+            when(view.getId()).thenReturn(id);
+            when(view.getParentId()).thenReturn(parentId);
+            return view;
+        }
+
+        private void givenCategoryTree() {
+            CategoryTreeSnapshot snapshot = CategoryTreeSnapshot.build(1L, List.of(
+                    category(EXISTING_ENTITY_ID, null),
+                    category(CHILD_CATEGORY_ID, EXISTING_ENTITY_ID)));
+            when(categoryTreeCache.getSnapshot()).thenReturn(snapshot);
+        }
+
+        @Test
+        @DisplayName("Should filter by category subtree and take total from facets in price range")
+        @SuppressWarnings("unchecked")
+        void filterProducts_ShouldFilterByCategorySubtree() {
+            givenCategoryTree();
+            List<ProductFacetCount> facets = List.of(
+                    new ProductFacetCount(CHILD_CATEGORY_ID, 1, true, 12),
+                    new ProductFacetCount(CHILD_CATEGORY_ID, 4, false, 3));
+            when(productsRepository.countFacets(any())).thenReturn(facets);
+            when(productMapper.createProductFilterResponse(any(), any(), any())).thenAnswer(invocation -> {
+                ProductFilterResponseDTO response = new ProductFilterResponseDTO();
+                response.setProducts(new PageableResponseProducts());
+                return response;
+            });
+
+            underTest.filterProducts(EXISTING_ENTITY_ID, null, MAX_PRICE, true, true, ProductSort.PRICE_ASC,
+                    DEFAULT_PAGE, DEFAULT_PAGE_SIZE, USER_AGENT);
+
+            ArgumentCaptor<ProductFilter> filter = ArgumentCaptor.forClass(ProductFilter.class);
+            verify(productsRepository).findViewsByFilter(filter.capture(), eq(ProductSort.PRICE_ASC),
+                    eq(PageRequest.of(DEFAULT_PAGE, DEFAULT_PAGE_SIZE)));
+            assertThat(filter.getValue().getCategoryIds()).isEqualTo(List.of(EXISTING_ENTITY_ID, CHILD_CATEGORY_ID));
+            assertThat(filter.getValue().getMaxPrice()).isEqualTo(MAX_PRICE);
+            ArgumentCaptor<Page<ProductView>> page = ArgumentCaptor.forClass(Page.class);
+            verify(productMapper).createProductFilterResponse(page.capture(), eq(facets), eq(EXISTING_ENTITY_ID));
+            assertThat(page.getValue().getTotalElements()).isEqualTo(12L);
+        }
+
+        @Test
+        @DisplayName("Should not query products when nothing matches")
+        void filterProducts_ShouldNotQueryProductsWhenNothingMatches() {
+            when(productsRepository.countFacets(any())).thenReturn(List.of());
+            when(productMapper.createProductFilterResponse(any(), any(), any())).thenAnswer(invocation -> {
+                ProductFilterResponseDTO response = new ProductFilterResponseDTO();
+                response.setProducts(new PageableResponseProducts());
+                return response;
+            });
+
+            underTest.filterProducts(null, null, null, false, true, ProductSort.NEWEST,
+                    DEFAULT_PAGE, DEFAULT_PAGE_SIZE, USER_AGENT);
+
+            verify(productsRepository, never()).findViewsByFilter(any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Should throw not found when category does not exist")
+        void filterProducts_ShouldThrowWhenCategoryNotFound() {
+            givenCategoryTree();
+
+            assertThrows(NotFoundException.class, () -> underTest.filterProducts(99L, null, null, false, true,
+                    ProductSort.NEWEST, DEFAULT_PAGE, DEFAULT_PAGE_SIZE, USER_AGENT));
+
+            verifyNoInteractions(productsRepository);
+        }
+
+        @Test
+        @DisplayName("Should throw bad request when min price is greater than max price")
+        void filterProducts_ShouldThrowWhenPriceRangeInvalid() {
+            assertThrows(BadRequestException.class, () -> underTest.filterProducts(null, MAX_PRICE, BigDecimal.ONE,
+                    false, true, ProductSort.NEWEST, DEFAULT_PAGE, DEFAULT_PAGE_SIZE, USER_AGENT));
+
+            verifyNoInteractions(productsRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("Get all products by cursor tests")
+    class GetAllProductsByCursor {
+
+        private static final Slice<ProductView> EMPTY_SLICE = new SliceImpl<>(List.of());
+
+        @Test
+        @DisplayName("Should query after decoded cursor id")
+        void getAllProductsByCursor_ShouldQueryAfterDecodedCursorId() {
+            PageRequest pageRequest = PageRequest.of(0, DEFAULT_PAGE_SIZE, Sort.by("id"));
+            when(productsRepository.findViewsByIdGreaterThan(EXISTING_ENTITY_ID, pageRequest)).thenReturn(EMPTY_SLICE);
+            when(productMapper.createSliceResponseProducts(EMPTY_SLICE)).thenReturn(new SliceResponseProducts());
+
+            underTest.getAllProductsByCursor(encode(EXISTING_ENTITY_ID), DEFAULT_PAGE_SIZE, USER_AGENT);
+
+            InOrder inOrder = inOrder(productsRepository, productMapper);
+            inOrder.verify(productsRepository).findViewsByIdGreaterThan(EXISTING_ENTITY_ID, pageRequest);
+            inOrder.verify(productMapper).createSliceResponseProducts(EMPTY_SLICE);
+        }
+
+        @Test
+        @DisplayName("Should start from beginning when cursor is empty")
+        void getAllProductsByCursor_ShouldStartFromBeginningWhenCursorIsEmpty() {
+            PageRequest pageRequest = PageRequest.of(0, DEFAULT_PAGE_SIZE, Sort.by("id"));
+            when(productsRepository.findViewsByIdGreaterThan(0L, pageRequest)).thenReturn(EMPTY_SLICE);
+            when(productMapper.createSliceResponseProducts(EMPTY_SLICE)).thenReturn(new SliceResponseProducts());
+
+            underTest.getAllProductsByCursor("", DEFAULT_PAGE_SIZE, USER_AGENT);
+
+            verify(productsRepository).findViewsByIdGreaterThan(0L, pageRequest);
+        }
+
+        @Test
+        @DisplayName("Should throw bad request exception for invalid cursor")
+        void getAllProductsByCursor_ShouldThrowBadRequestExceptionForInvalidCursor() {
+            assertThrows(BadRequestException.class,
+                    () -> underTest.getAllProductsByCursor("not-a-cursor", DEFAULT_PAGE_SIZE, USER_AGENT));
+
+            verifyNoInteractions(productsRepository, productMapper);
         }
     }
 
@@ -158,6 +404,103 @@ class ProductServiceImplTest extends BaseServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Import products tests")
+    class ImportProducts {
+
+        private static final Long NEW_PRODUCT_ID = 51L;
+
+        private ProductImportResultDTO importCsv(String rows) {
+            CategoryView category = mock(CategoryView.class);
+            when(category.getId()).thenReturn(EXISTING_ENTITY_ID);
+            CategoryTreeSnapshot snapshot = CategoryTreeSnapshot.build(1L, List.of(category));
+            when(categoryTreeCache.getSnapshot()).thenReturn(snapshot);
+            String csv = "name,price,stock_quantity,sku,category_id\n" + rows;
+            return underTest.importProducts(ProductImportFormat.CSV,
+                    new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), USER_AGENT);
+        }
+
+        // Writes every product under its proposed id unless the sku is already stored under another one.
+        private void stubUpsert(Map<String, Long> storedIds) {
+            when(productsRepository.upsertBySku(anyList())).thenAnswer(invocation -> {
+                List<ProductUpsert> products = invocation.getArgument(0);
+                return products.stream()
+                        .map(product -> new ProductUpserted(storedIds.getOrDefault(product.getSku(), product.getId()),
+                                product.getSku(), product.getStockQuantity() > 0,
+                                !storedIds.containsKey(product.getSku())))
+                        .toList();
+            });
+        }
+
+        @Test
+        @DisplayName("Should upsert valid rows and report invalid ones")
+        @SuppressWarnings("unchecked")
+        void importProducts_ShouldUpsertValidRowsAndReportErrors() {
+            ProductSkuView existing = mock(ProductSkuView.class);
+            when(existing.getId()).thenReturn(EXISTING_ENTITY_ID);
+            when(existing.getSku()).thenReturn("OLD-SKU");
+            when(productsRepository.findSkuViewsBySkuIn(List.of("OLD-SKU", "NEW-SKU"))).thenReturn(List.of(existing));
+            when(productsRepository.allocateIds(1)).thenReturn(List.of(NEW_PRODUCT_ID));
+            stubUpsert(Map.of("OLD-SKU", EXISTING_ENTITY_ID));
+
+            ProductImportResultDTO result = importCsv("Old,10.00,3,OLD-SKU,1\n"
+                    + "New,5.00,2,NEW-SKU,1\n"
+                    + "Lost,5.00,2,LOST-SKU,99\n"
+                    + "Negative,-1,2,NEG-SKU,1\n");
+
+            ArgumentCaptor<List<ProductUpsert>> products = ArgumentCaptor.forClass(List.class);
+            verify(productsRepository).upsertBySku(products.capture());
+            assertThat(products.getValue().stream().map(ProductUpsert::getId).toList())
+                    .isEqualTo(List.of(EXISTING_ENTITY_ID, NEW_PRODUCT_ID));
+            verify(hotProductInventory).reconcileAfterCommit(EXISTING_ENTITY_ID);
+            verify(productSearchIndex, times(2)).indexAfterCommit(any());
+            assertThat(result.getRows()).isEqualTo(4L);
+            assertThat(result.getInserted()).isEqualTo(1L);
+            assertThat(result.getUpdated()).isEqualTo(1L);
+            assertThat(result.getFailed()).isEqualTo(2L);
+            assertThat(result.getErrors().stream().map(ProductImportErrorDTO::getRow).toList())
+                    .isEqualTo(List.of(4L, 5L));
+            assertThat(result.getErrors().get(0).getMessage()).isEqualTo("Category not found with ID: 99");
+        }
+
+        @Test
+        @DisplayName("Should write a repeated sku after the rows before it")
+        void importProducts_ShouldSplitChunkOnRepeatedSku() {
+            when(productsRepository.allocateIds(anyInt()))
+                    .thenAnswer(invocation -> Collections.nCopies(invocation.getArgument(0), NEW_PRODUCT_ID));
+            stubUpsert(Map.of());
+
+            ProductImportResultDTO result = importCsv("First,1.00,1,SAME-SKU,1\nSecond,2.00,1,SAME-SKU,1\n");
+
+            verify(productsRepository, times(2)).upsertBySku(anyList());
+            assertThat(result.getInserted()).isEqualTo(2L);
+        }
+
+        @Test
+        @DisplayName("Should count and index a sku inserted since the lookup under its stored id")
+        void importProducts_WhenSkuInsertedConcurrently_ShouldUseStoredId() {
+            when(productsRepository.allocateIds(1)).thenReturn(List.of(NEW_PRODUCT_ID));
+            stubUpsert(Map.of("RACED-SKU", EXISTING_ENTITY_ID));
+
+            ProductImportResultDTO result = importCsv("Raced,1.00,1,RACED-SKU,1\n");
+
+            ArgumentCaptor<ProductEntity> indexed = ArgumentCaptor.forClass(ProductEntity.class);
+            verify(productSearchIndex).indexAfterCommit(indexed.capture());
+            assertThat(indexed.getValue().getId()).isEqualTo(EXISTING_ENTITY_ID);
+            verify(hotProductInventory).reconcileAfterCommit(EXISTING_ENTITY_ID);
+            assertThat(result.getInserted()).isZero();
+            assertThat(result.getUpdated()).isEqualTo(1L);
+        }
+
+        @Test
+        @DisplayName("Should reject a file without required columns")
+        void importProducts_ShouldRejectMissingColumns() {
+            assertThrows(BadRequestException.class, () -> underTest.importProducts(ProductImportFormat.CSV,
+                    new ByteArrayInputStream("name,price\n".getBytes(StandardCharsets.UTF_8)), USER_AGENT));
+            verify(productsRepository, never()).upsertBySku(anyList());
+        }
+    }
+
     @Nested
     @DisplayName("Update product tests")
     class UpdateProduct {
@@ -242,6 +585,122 @@ class ProductServiceImplTest extends BaseServiceTest {
     }
 
 
+    @Nested
+    @DisplayName("Adjust products tests")
+    class AdjustProducts {
+
+        private static final Long SKU_PRODUCT_ID = 2L;
+
+        private ProductStateView state(Long id, int stock, boolean active, long version) {
+            ProductStateView view = mock(ProductStateView.class);
+            when(view.getId()).thenReturn(id);
+            lenient().when(view.getStockQuantity()).thenReturn(stock);
+            lenient().when(view.getIsActive()).thenReturn(active);
+            lenient().when(view.getVersion()).thenReturn(version);
+            return view;
+        }
+
+        private ProductAdjustmentDTO item(Long id, String sku, Integer stockDelta, Long version) {
+            ProductAdjustmentDTO item = new ProductAdjustmentDTO();
+            item.setId(id);
+            item.setSku(sku);
+            item.setStockDelta(stockDelta);
+            item.setVersion(version);
+            return item;
+        }
+
+        @Test
+        @DisplayName("Should apply valid items and report the others")
+        void adjustProducts_ShouldReportResultPerItem() {
+            ProductSkuView sku = mock(ProductSkuView.class);
+            when(sku.getId()).thenReturn(SKU_PRODUCT_ID);
+            when(sku.getSku()).thenReturn("SKU-2");
+            when(productsRepository.findSkuViewsBySkuIn(List.of("SKU-2", "MISSING"))).thenReturn(List.of(sku));
+            List<ProductStateView> before = List.of(state(EXISTING_ENTITY_ID, 0, false, 3),
+                    state(SKU_PRODUCT_ID, 1, true, 7));
+            List<ProductStateView> after = List.of(state(EXISTING_ENTITY_ID, 5, true, 4),
+                    state(SKU_PRODUCT_ID, 1, true, 8));
+            when(productsRepository.findStateViewsByIdIn(any())).thenReturn(before, after);
+            when(productsRepository.adjust(any())).thenReturn(new int[]{1, 0});
+            when(productsRepository.findAllById(List.of(EXISTING_ENTITY_ID))).thenReturn(List.of(PRODUCT));
+            AdjustProductsRequestDTO request = new AdjustProductsRequestDTO();
+            request.setItems(List.of(
+                    item(EXISTING_ENTITY_ID, null, 5, null),
+                    item(null, "SKU-2", -1, 6L),
+                    item(null, "MISSING", 1, null),
+                    item(EXISTING_ENTITY_ID, "SKU-2", 1, null),
+                    item(EXISTING_ENTITY_ID, null, null, null)));
+
+            AdjustProductsResponseDTO response = underTest.adjustProducts(request, USER_AGENT);
+
+            assertThat(response.getResults().stream().map(ProductAdjustmentResultDTO::getStatus).toList())
+                    .isEqualTo(List.of(ProductAdjustmentStatus.APPLIED, ProductAdjustmentStatus.CONFLICT,
+                            ProductAdjustmentStatus.NOT_FOUND, ProductAdjustmentStatus.INVALID,
+                            ProductAdjustmentStatus.INVALID));
+            assertThat(response.getApplied()).isEqualTo(1);
+            assertThat(response.getFailed()).isEqualTo(4);
+            assertThat(response.getResults().get(1).getId()).isEqualTo(SKU_PRODUCT_ID);
+            verify(hotProductInventory).reconcileAfterCommit(EXISTING_ENTITY_ID);
+            verify(productSearchIndex).indexAfterCommit(PRODUCT);
+        }
+
+        @Test
+        @DisplayName("Should report too little stock when the version still matches")
+        void adjustProducts_ShouldReportInsufficientStock() {
+            List<ProductStateView> states = List.of(state(EXISTING_ENTITY_ID, 1, true, 3));
+            when(productsRepository.findStateViewsByIdIn(any())).thenReturn(states);
+            when(productsRepository.adjust(any())).thenReturn(new int[]{0});
+            AdjustProductsRequestDTO request = new AdjustProductsRequestDTO();
+            request.setItems(List.of(item(EXISTING_ENTITY_ID, null, -2, 3L)));
+
+            AdjustProductsResponseDTO response = underTest.adjustProducts(request, USER_AGENT);
+
+            assertThat(response.getResults().get(0).getStatus()).isEqualTo(ProductAdjustmentStatus.INSUFFICIENT_STOCK);
+            verify(productSearchIndex, never()).indexAfterCommit(any());
+        }
+
+        @Test
+        @DisplayName("Should report too little stock of a hot product against its available counter")
+        void adjustProducts_WhenHotProductIsReserved_ShouldReportInsufficientStock() {
+            List<ProductStateView> states = List.of(state(EXISTING_ENTITY_ID, 5, true, 3));
+            when(productsRepository.findStateViewsByIdIn(any())).thenReturn(states);
+            when(hotProductInventory.isManaged(EXISTING_ENTITY_ID)).thenReturn(true);
+            when(hotProductInventory.changeStock(EXISTING_ENTITY_ID, -5))
+                    .thenReturn(new StockReservation(Map.of(), Map.of(), List.of(EXISTING_ENTITY_ID)));
+            AdjustProductsRequestDTO request = new AdjustProductsRequestDTO();
+            request.setItems(List.of(item(EXISTING_ENTITY_ID, null, -5, null)));
+
+            AdjustProductsResponseDTO response = underTest.adjustProducts(request, USER_AGENT);
+
+            assertThat(response.getResults().get(0).getStatus()).isEqualTo(ProductAdjustmentStatus.INSUFFICIENT_STOCK);
+            assertThat(response.getResults().get(0).getStockQuantity()).isEqualTo(0);
+            verify(productsRepository).adjust(List.of());
+        }
+
+        @Test
+        @DisplayName("Should change the stock of a hot product in memory and give it back on a version conflict")
+        @SuppressWarnings("unchecked")
+        void adjustProducts_WhenHotProductConflicts_ShouldReleaseStockChange() {
+            List<ProductStateView> states = List.of(state(EXISTING_ENTITY_ID, 0, false, 4));
+            when(productsRepository.findStateViewsByIdIn(any())).thenReturn(states);
+            when(hotProductInventory.isManaged(EXISTING_ENTITY_ID)).thenReturn(true);
+            StockReservation change = new StockReservation(Map.of(EXISTING_ENTITY_ID, -5), Map.of(), List.of());
+            when(hotProductInventory.changeStock(EXISTING_ENTITY_ID, 5)).thenReturn(change);
+            when(productsRepository.adjust(any())).thenReturn(new int[]{0});
+            AdjustProductsRequestDTO request = new AdjustProductsRequestDTO();
+            request.setItems(List.of(item(EXISTING_ENTITY_ID, null, 5, 3L)));
+
+            AdjustProductsResponseDTO response = underTest.adjustProducts(request, USER_AGENT);
+
+            ArgumentCaptor<List<ProductAdjustment>> adjustments = ArgumentCaptor.forClass(List.class);
+            verify(productsRepository).adjust(adjustments.capture());
+            assertThat(adjustments.getValue().get(0).getStockDelta()).isEqualTo(0);
+            assertThat(adjustments.getValue().get(0).getActive()).isEqualTo(true);
+            assertThat(response.getResults().get(0).getStatus()).isEqualTo(ProductAdjustmentStatus.CONFLICT);
+            verify(hotProductInventory).release(change);
+        }
+    }
+
     @Nested
     @DisplayName("Change is active tests")
     class ChangeIsActive {
@@ -276,6 +735,42 @@ class ProductServiceImplTest extends BaseServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Change hot inventory tests")
+    class ChangeHotInventory {
+
+        @Test
+        @DisplayName("Should throw not found exception product not found")
+        void changeHotInventory_ShouldThrowNotFoundExceptionProductNotFound() {
+            when(productsRepository.existsById(NOT_EXISTING_ENTITY_ID)).thenReturn(false);
+
+            assertThrows(NotFoundException.class,
+                    () -> underTest.changeHotInventory(NOT_EXISTING_ENTITY_ID, true, USER_AGENT));
+
+            verifyNoInteractions(hotProductInventory);
+        }
+
+        @Test
+        @DisplayName("Should enable hot inventory")
+        void changeHotInventory_ShouldEnable() {
+            when(productsRepository.existsById(EXISTING_ENTITY_ID)).thenReturn(true);
+
+            underTest.changeHotInventory(EXISTING_ENTITY_ID, true, USER_AGENT);
+
+            verify(hotProductInventory).enable(EXISTING_ENTITY_ID);
+        }
+
+        @Test
+        @DisplayName("Should disable hot inventory")
+        void changeHotInventory_ShouldDisable() {
+            when(productsRepository.existsById(EXISTING_ENTITY_ID)).thenReturn(true);
+
+            underTest.changeHotInventory(EXISTING_ENTITY_ID, false, USER_AGENT);
+
+            verify(hotProductInventory).disable(EXISTING_ENTITY_ID);
+        }
+    }
+
     @Nested
     @DisplayName("Validate and get product tests")
     class ValidateAndGetProduct {
@@ -337,9 +832,9 @@ class ProductServiceImplTest extends BaseServiceTest {
         @DisplayName("Should return pageable of products by category id")
         void getAllProductByCategoryId() {
             when(productsRepository
-                    .findByCategoryId(EXISTING_ENTITY_ID, PageRequest.of(DEFAULT_PAGE, DEFAULT_PAGE_SIZE)))
-                    .thenReturn(EMPTY_PAGE);
-            when(productMapper.createPageableResponseGetProductsByCategory(EMPTY_PAGE))
+                    .findDTOsByCategoryId(EXISTING_ENTITY_ID, PageRequest.of(DEFAULT_PAGE, DEFAULT_PAGE_SIZE)))
+                    .thenReturn(EMPTY_DTO_PAGE);
+            when(productMapper.createPageableResponseGetProductsByCategory(EMPTY_DTO_PAGE))
                     .thenReturn(RESPONSE);
 
             PageableResponseGetProductsByCategory result = underTest
@@ -349,8 +844,8 @@ class ProductServiceImplTest extends BaseServiceTest {
 
             InOrder inOrder = inOrder(productsRepository, productMapper);
             inOrder.verify(productsRepository)
-                    .findByCategoryId(EXISTING_ENTITY_ID, PageRequest.of(DEFAULT_PAGE, DEFAULT_PAGE_SIZE));
-            inOrder.verify(productMapper).createPageableResponseGetProductsByCategory(EMPTY_PAGE);
+                    .findDTOsByCategoryId(EXISTING_ENTITY_ID, PageRequest.of(DEFAULT_PAGE, DEFAULT_PAGE_SIZE));
+            inOrder.verify(productMapper).createPageableResponseGetProductsByCategory(EMPTY_DTO_PAGE);
         }
     }
 
@@ -363,22 +858,19 @@ class ProductServiceImplTest extends BaseServiceTest {
 
         @BeforeAll
         static void setUp() {
-            PRODUCT.setStockQuantity(PRODUCT_STOCK_QUANTITY);
             ORDER_ITEM_ENTITY.setProduct(PRODUCT);
             ORDER_ITEM_ENTITY.setQuantity(ORDER_ITEM_ENTITY_STOCK_QUANTITY);
         }
 
         @Test
-        @DisplayName("Should increase stock for order items")
+        @DisplayName("Should increase stock for order items in one batch")
         void increaseStockForOrderItems() {
-            List<OrderItemEntity> orderItems = List.of(ORDER_ITEM_ENTITY);
+            when(hotProductInventory.restock(anyMap())).thenAnswer(invocation -> invocation.getArgument(0));
 
-            underTest.increaseStockForOrderItems(orderItems);
+            underTest.increaseStockForOrderItems(List.of(ORDER_ITEM_ENTITY, ORDER_ITEM_ENTITY));
 
-            assertThat(PRODUCT.getStockQuantity())
-                    .isEqualTo(PRODUCT_STOCK_QUANTITY + ORDER_ITEM_ENTITY_STOCK_QUANTITY);
-
-            verify(productsRepository).saveAll(orderItems.stream().map(OrderItemEntity::getProduct).toList());
+            verify(productsRepository).increaseStock(Map.of(EXISTING_ENTITY_ID, 2 * ORDER_ITEM_ENTITY_STOCK_QUANTITY));
+            verify(productsRepository, never()).saveAll(any());
         }
     }
 
@@ -386,91 +878,59 @@ class ProductServiceImplTest extends BaseServiceTest {
     @DisplayName("Decrease stock for order items tests")
     class DecreaseStockForOrderItems {
 
-        @BeforeAll
-        static void setUp() {
-            PRODUCT.setStockQuantity(PRODUCT_STOCK_QUANTITY);
-        }
-
         @Test
-        @DisplayName("Should decrease stock for order items")
+        @DisplayName("Should decrease stock for order items in one batch")
         void decreaseStockForOrderItems_ShouldDecreaseStockForOrderItems() {
             List<CartItemEntity> cartItems = List.of(CART_ITEM_ENTITY);
 
-            underTest.decreaseStockForOrderItems(cartItems);
+            when(hotProductInventory.reserve(anyMap())).thenAnswer(invocation ->
+                    new StockReservation(Map.of(), invocation.getArgument(0), List.of()));
+            when(productsRepository.decreaseStock(Map.of(EXISTING_ENTITY_ID, CART_ITEM_ENTITY.getQuantity())))
+                    .thenReturn(List.of());
 
-            assertThat(PRODUCT.getStockQuantity())
-                    .isEqualTo(PRODUCT_STOCK_QUANTITY - CART_ITEM_ENTITY.getQuantity());
+            underTest.decreaseStockForOrderItems(cartItems, requestId);
 
-            verify(productsRepository).saveAll(cartItems.stream().map(CartItemEntity::getProduct).toList());
+            verify(productsRepository).decreaseStock(Map.of(EXISTING_ENTITY_ID, CART_ITEM_ENTITY.getQuantity()));
+            verify(productsRepository, never()).findById(any());
+            verify(productsRepository, never()).saveAll(any());
         }
-    }
-
-    @Nested
-    @DisplayName("Validate products for order tests")
-    class ValidateProductsForOrder {
-
-        private static final int VALID_PRODUCT_STOCK_QUANTITY = 2;
-        private static final int CART_ITEM_QUANTITY = 1;
 
         @Test
-        @DisplayName("Should throw not found exception product do not exist")
-        void validateProductsForOrder_ShouldThrowNotFoundExceptionProductDoNotExist() {
+        @DisplayName("Should throw bad request exception when a product row was not updated")
+        void decreaseStockForOrderItems_ShouldThrowBadRequestExceptionStockNotUpdated() {
+            PRODUCT.setName("TEST-PRODUCT");
             List<CartItemEntity> cartItems = List.of(CART_ITEM_ENTITY);
 
-            when(productsRepository.findById(any())).thenReturn(Optional.empty());
+            StockReservation reservation = new StockReservation(Map.of(),
+                    Map.of(EXISTING_ENTITY_ID, CART_ITEM_ENTITY.getQuantity()), List.of());
 
-            NotFoundException exception = assertThrows(NotFoundException.class,
-                    () -> underTest.validateProductsForOrder(cartItems, requestId));
-
-            assertThat(exception.getMessage()).contains(requestId);
-
-            verify(productsRepository).findById(any());
-        }
-
-        @Test
-        @DisplayName("Should throw bad request exception product is disabled")
-        void validateProductsForOrder_ShouldThrowBadRequestExceptionProductIsDisabled() {
-            PRODUCT.setIsActive(false);
-            List<CartItemEntity> cartItems = List.of(CART_ITEM_ENTITY);
-
-            when(productsRepository.findById(any(Long.class))).thenReturn(Optional.of(PRODUCT));
+            when(hotProductInventory.reserve(anyMap())).thenReturn(reservation);
+            when(productsRepository.decreaseStock(anyMap())).thenReturn(List.of(EXISTING_ENTITY_ID));
 
             BadRequestException exception = assertThrows(BadRequestException.class,
-                    () -> underTest.validateProductsForOrder(cartItems, requestId));
+                    () -> underTest.decreaseStockForOrderItems(cartItems, requestId));
 
+            assertThat(exception.getMessage()).contains("TEST-PRODUCT");
             assertThat(exception.getMessage()).contains(requestId);
 
-            verify(productsRepository).findById(any(Long.class));
+            verify(hotProductInventory).release(reservation);
         }
 
         @Test
-        @DisplayName("Should throw bad request exception not enough stock")
-        void validateProductsForOrder_ShouldThrowBadRequestExceptionNotEnoughStock() {
-            PRODUCT.setIsActive(true);
-            PRODUCT.setStockQuantity(INVALID_PRODUCT_STOCK_QUANTITY);
-            CART_ITEM_ENTITY.setQuantity(CART_ITEM_QUANTITY);
+        @DisplayName("Should not touch the database when a hot product is rejected in memory")
+        void decreaseStockForOrderItems_ShouldThrowBadRequestExceptionHotProductRejected() {
+            PRODUCT.setName("TEST-PRODUCT");
             List<CartItemEntity> cartItems = List.of(CART_ITEM_ENTITY);
 
-            when(productsRepository.findById(any())).thenReturn(Optional.of(PRODUCT));
-
-            assertThrows(BadRequestException.class, () -> underTest.validateProductsForOrder(cartItems, requestId));
-
-            verify(productsRepository).findById(any());
-        }
-
-        @Test
-        @DisplayName("Should validate product and return it")
-        void validateProductsForOrder() {
-            PRODUCT.setIsActive(true);
-            PRODUCT.setStockQuantity(VALID_PRODUCT_STOCK_QUANTITY);
-            CART_ITEM_ENTITY.setQuantity(CART_ITEM_QUANTITY);
-            List<CartItemEntity> cartItems = List.of(CART_ITEM_ENTITY);
+            when(hotProductInventory.reserve(anyMap()))
+                    .thenReturn(new StockReservation(Map.of(), Map.of(), List.of(EXISTING_ENTITY_ID)));
 
-            when(productsRepository.findById(any())).thenReturn(Optional.of(PRODUCT));
+            BadRequestException exception = assertThrows(BadRequestException.class,
+                    () -> underTest.decreaseStockForOrderItems(cartItems, requestId));
 
-            underTest.validateProductsForOrder(cartItems, requestId);
+            assertThat(exception.getMessage()).contains("TEST-PRODUCT");
 
-            verify(productsRepository).findById(any());
+            verify(productsRepository, never()).decreaseStock(anyMap());
         }
     }
-}
\ No newline at end of file
+}
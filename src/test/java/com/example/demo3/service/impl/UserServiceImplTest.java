@@ -14,7 +14,7 @@ import org.mockito.Mock;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import com.example.demo3.security.PasswordHashingService;
 
 import java.util.Optional;
 
@@ -28,7 +28,7 @@ class UserServiceImplTest extends BaseServiceTest {
     @Mock
     private UserRepository userRepository;
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
     @Mock
     private TokenServiceImpl tokenService;
     @Mock
@@ -113,7 +113,7 @@ class UserServiceImplTest extends BaseServiceTest {
             when(userRepository.findByEmail(REQUEST.getEmail())).thenReturn(Optional.empty());
             when(tokenService.generateAccessToken(REQUEST.getUsername())).thenReturn(ACCESS_TOKEN);
             when(tokenService.generateRefreshToken(REQUEST.getUsername())).thenReturn(REFRESH_TOKEN);
-            when(userMapper.createUserEntity(REQUEST, REFRESH_TOKEN, passwordEncoder.encode(REQUEST.getPassword())))
+            when(userMapper.createUserEntity(REQUEST, REFRESH_TOKEN, passwordHashingService.encode(REQUEST.getPassword())))
                     .thenReturn(USER);
             when(userRepository.save(any())).thenReturn(USER);
 
@@ -171,7 +171,7 @@ class UserServiceImplTest extends BaseServiceTest {
             REQUEST.setPassword(VALID_PASSWORD);
 
             when(userRepository.findByUsername(REQUEST.getUsername())).thenReturn(Optional.of(USER));
-            when(passwordEncoder.matches(REQUEST.getPassword(), USER.getPassword())).thenReturn(true);
+            when(passwordHashingService.matches(REQUEST.getPassword(), USER.getPassword())).thenReturn(true);
             when(tokenService.generateAccessToken(USER.getUsername())).thenReturn(ACCESS_TOKEN);
             when(tokenService.generateRefreshToken(USER.getUsername())).thenReturn(REFRESH_TOKEN);
             when(userRepository.save(any())).thenReturn(USER);
@@ -182,12 +182,36 @@ class UserServiceImplTest extends BaseServiceTest {
             assertThat(result.getAccessToken()).isNotBlank().isEqualTo(ACCESS_TOKEN);
             assertThat(result.getRefreshToken()).isNotBlank().isEqualTo(REFRESH_TOKEN);
 
-            InOrder inOrder = inOrder(userRepository, passwordEncoder, tokenService);
+            InOrder inOrder = inOrder(userRepository, passwordHashingService, tokenService);
             inOrder.verify(userRepository).findByUsername(REQUEST.getUsername());
-            inOrder.verify(passwordEncoder).matches(REQUEST.getPassword(), USER.getPassword());
+            inOrder.verify(passwordHashingService).matches(REQUEST.getPassword(), USER.getPassword());
             inOrder.verify(tokenService).generateAccessToken(USER.getUsername());
             inOrder.verify(tokenService).generateRefreshToken(USER.getUsername());
         }
+
+        @Test
+        @DisplayName("Should rehash password when stored hash is outdated")
+        void loginUser_ShouldRehashOutdatedPassword() {
+            REQUEST.setPassword(VALID_PASSWORD);
+            UserEntity user = new UserEntity();
+            user.setId(EXISTING_USER_ID);
+            user.setUsername(USERNAME);
+            user.setPassword(VALID_PASSWORD);
+
+            when(userRepository.findByUsername(REQUEST.getUsername())).thenReturn(Optional.of(user));
+            when(passwordHashingService.matches(REQUEST.getPassword(), VALID_PASSWORD)).thenReturn(true);
+            when(passwordHashingService.needsRehash(VALID_PASSWORD)).thenReturn(true);
+            when(passwordHashingService.encode(REQUEST.getPassword())).thenReturn("new-hash");
+            when(userRepository.save(user)).thenReturn(user);
+
+            underTest.loginUser(REQUEST, USER_AGENT);
+
+            assertThat(user.getPassword()).isEqualTo("new-hash");
+            InOrder inOrder = inOrder(passwordHashingService, userRepository);
+            inOrder.verify(passwordHashingService).matches(REQUEST.getPassword(), VALID_PASSWORD);
+            inOrder.verify(passwordHashingService).encode(REQUEST.getPassword());
+            inOrder.verify(userRepository).save(user);
+        }
     }
 
     @Nested